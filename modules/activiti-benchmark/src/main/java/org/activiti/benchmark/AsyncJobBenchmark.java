@@ -0,0 +1,68 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.jobexecutor.DefaultJobExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Starts a batch of process instances with an asynchronous service task, and waits until the
+ * {@link DefaultJobExecutor} has executed all their jobs. This includes acquiring, locking and
+ * deleting the jobs, next to the execution of the process instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AsyncJobBenchmark extends ProcessEngineState {
+
+  @Param({"10", "100"})
+  public int processInstanceCount;
+
+  protected void configure(ProcessEngineConfigurationImpl processEngineConfiguration) {
+    DefaultJobExecutor jobExecutor = new DefaultJobExecutor();
+    jobExecutor.setWaitTimeInMillis(100);
+    processEngineConfiguration.setJobExecutor(jobExecutor);
+    processEngineConfiguration.setJobExecutorActivate(true);
+  }
+
+  protected String[] getResources() {
+    return new String[] {"asyncProcess.bpmn20.xml"};
+  }
+
+  @Benchmark
+  public void executeJobs() throws InterruptedException {
+    CountDownDelegate.expect(processInstanceCount);
+    for (int i = 0; i < processInstanceCount; i++) {
+      runtimeService.startProcessInstanceByKey("asyncProcess");
+    }
+    if (!CountDownDelegate.await(1, TimeUnit.MINUTES)) {
+      throw new IllegalStateException("The job executor didn't execute all jobs within a minute");
+    }
+  }
+
+}
@@ -0,0 +1,44 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmark;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the engine benchmarks. Accepts the regular JMH command line options, e.g. a regular
+ * expression selecting the benchmarks to run. Unless another result format is passed with
+ * <code>-rf</code>, the results are written as JSON to <code>activiti-benchmark-results.json</code>,
+ * so they can be compared between builds.
+ */
+public class BenchmarkRunner {
+
+  public static final String DEFAULT_RESULT_FILE = "activiti-benchmark-results.json";
+
+  public static void main(String[] args) throws Exception {
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(new CommandLineOptions(args));
+    if (!Arrays.asList(args).contains("-rf")) {
+      options.resultFormat(ResultFormatType.JSON);
+      if (!Arrays.asList(args).contains("-rff")) {
+        options.result(DEFAULT_RESULT_FILE);
+      }
+    }
+    new Runner(options.build()).run();
+  }
+
+}
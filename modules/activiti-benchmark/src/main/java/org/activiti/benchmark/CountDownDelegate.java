@@ -0,0 +1,40 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.delegate.DelegateExecution;
+import org.activiti.engine.delegate.JavaDelegate;
+
+/**
+ * Counts down a latch, so a benchmark can wait until the job executor has executed its jobs.
+ */
+public class CountDownDelegate implements JavaDelegate {
+
+  protected static volatile CountDownLatch latch = new CountDownLatch(0);
+
+  public static void expect(int count) {
+    latch = new CountDownLatch(count);
+  }
+
+  public static boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+    return latch.await(timeout, unit);
+  }
+
+  public void execute(DelegateExecution execution) throws Exception {
+    latch.countDown();
+  }
+
+}
@@ -0,0 +1,67 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.repository.Deployment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Deploys a process, which parses and validates it in the BpmnDeployer,
+ * stores the deployment and the process definition, and caches the parsed process definition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DeployBenchmark extends ProcessEngineState {
+
+  protected static final String DEPLOYMENT_NAME = "deployBenchmark";
+
+  @Param({"linearProcess", "parallelGatewayProcess", "exclusiveGatewayProcess"})
+  public String process;
+
+  @Benchmark
+  public Deployment deploy() {
+    return repositoryService.createDeployment()
+      .name(DEPLOYMENT_NAME)
+      .addClasspathResource(RESOURCE_PATH + process + ".bpmn20.xml")
+      .deploy();
+  }
+
+  /**
+   * Every deployment adds a version of the process definition,
+   * so they are removed after each iteration.
+   */
+  @TearDown(Level.Iteration)
+  public void deleteDeployments() {
+    for (Deployment deployment : repositoryService.createDeploymentQuery().deploymentName(DEPLOYMENT_NAME).list()) {
+      repositoryService.deleteDeployment(deployment.getId(), true);
+    }
+  }
+
+}
@@ -0,0 +1,118 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmark;
+
+import java.util.Date;
+
+import org.activiti.engine.HistoryService;
+import org.activiti.engine.ManagementService;
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.RepositoryService;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.cfg.StandaloneInMemProcessEngineConfiguration;
+import org.activiti.engine.impl.history.HistoryLevel;
+import org.activiti.engine.repository.DeploymentBuilder;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Base class of the benchmark states: builds a process engine on its own in-memory H2 database,
+ * with the job executor off and history on audit level, and deploys the processes of the benchmark.
+ */
+public abstract class ProcessEngineState {
+
+  public static final String RESOURCE_PATH = "org/activiti/benchmark/";
+
+  protected ProcessEngineConfigurationImpl processEngineConfiguration;
+  protected ProcessEngine processEngine;
+  protected RepositoryService repositoryService;
+  protected RuntimeService runtimeService;
+  protected TaskService taskService;
+  protected HistoryService historyService;
+  protected ManagementService managementService;
+
+  @Setup(Level.Trial)
+  public void buildProcessEngine() {
+    String name = getClass().getSimpleName();
+    processEngineConfiguration = (ProcessEngineConfigurationImpl) new StandaloneInMemProcessEngineConfiguration()
+      .setProcessEngineName(name)
+      .setJdbcUrl("jdbc:h2:mem:" + name)
+      .setHistory(HistoryLevel.AUDIT.getKey())
+      .setJobExecutorActivate(false)
+      .setCreateDiagramOnDeploy(false);
+    configure(processEngineConfiguration);
+    processEngine = processEngineConfiguration.buildProcessEngine();
+
+    repositoryService = processEngine.getRepositoryService();
+    runtimeService = processEngine.getRuntimeService();
+    taskService = processEngine.getTaskService();
+    historyService = processEngine.getHistoryService();
+    managementService = processEngine.getManagementService();
+
+    String[] resources = getResources();
+    if (resources.length > 0) {
+      DeploymentBuilder deploymentBuilder = repositoryService.createDeployment().name(name);
+      for (String resource : resources) {
+        deploymentBuilder.addClasspathResource(RESOURCE_PATH + resource);
+      }
+      deploymentBuilder.deploy();
+    }
+    prepare();
+  }
+
+  /**
+   * Removes the history of the process instances finished during the iteration,
+   * so the history tables don't keep growing over the iterations of a trial.
+   */
+  @TearDown(Level.Iteration)
+  public void purgeHistory() {
+    if (historyService.createHistoricProcessInstanceQuery().finished().count() > 0) {
+      historyService.createHistoricProcessInstancePurge()
+        .finishedBefore(new Date(System.currentTimeMillis() + 1000L))
+        .execute();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void closeProcessEngine() {
+    processEngine.close();
+  }
+
+  /**
+   * Allows a benchmark to change the configuration before the process engine is built.
+   */
+  protected void configure(ProcessEngineConfigurationImpl processEngineConfiguration) {
+  }
+
+  /**
+   * Called once the process engine has been built and the processes have been deployed,
+   * to create the data the benchmark works on.
+   */
+  protected void prepare() {
+  }
+
+  /**
+   * The process resources to deploy, relative to {@link #RESOURCE_PATH}.
+   */
+  protected String[] getResources() {
+    return new String[0];
+  }
+
+  public ProcessEngine getProcessEngine() {
+    return processEngine;
+  }
+
+}
@@ -0,0 +1,61 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmark;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.runtime.ProcessInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Starts process instances that run to their end in one transaction: a sequence of tasks,
+ * a parallel gateway forking and joining five branches, and a parallel multi instance task.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartProcessInstanceBenchmark extends ProcessEngineState {
+
+  @Param({"linearProcess", "parallelGatewayProcess", "multiInstanceProcess"})
+  public String processDefinitionKey;
+
+  protected Map<String, Object> variables = Collections.<String, Object>singletonMap("nrOfInstances", 10);
+
+  protected String[] getResources() {
+    return new String[] {
+      "linearProcess.bpmn20.xml",
+      "parallelGatewayProcess.bpmn20.xml",
+      "multiInstanceProcess.bpmn20.xml"
+    };
+  }
+
+  @Benchmark
+  public ProcessInstance startProcessInstance() {
+    return runtimeService.startProcessInstanceByKey(processDefinitionKey, variables);
+  }
+
+}
@@ -0,0 +1,76 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sets and gets variables of a process instance with a growing number of variables.
+ * Every access loads all variables of the scope, so these show how that cost scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VariableBenchmark extends ProcessEngineState {
+
+  @Param({"10", "100", "1000"})
+  public int variableCount;
+
+  protected String processInstanceId;
+  protected int counter;
+
+  protected String[] getResources() {
+    return new String[] {"oneTaskProcess.bpmn20.xml"};
+  }
+
+  protected void prepare() {
+    Map<String, Object> variables = new HashMap<String, Object>();
+    for (int i = 0; i < variableCount; i++) {
+      // a mix of the most common variable types
+      variables.put("var" + i, i % 2 == 0 ? (Object) i : (Object) ("value" + i));
+    }
+    processInstanceId = runtimeService.startProcessInstanceByKey("oneTaskProcess", variables).getId();
+  }
+
+  @Benchmark
+  public void setVariable() {
+    runtimeService.setVariable(processInstanceId, "var0", counter++);
+  }
+
+  @Benchmark
+  public Object getVariable() {
+    return runtimeService.getVariable(processInstanceId, "var" + (variableCount - 1));
+  }
+
+  @Benchmark
+  public Map<String, Object> getVariables() {
+    return runtimeService.getVariables(processInstanceId);
+  }
+
+}
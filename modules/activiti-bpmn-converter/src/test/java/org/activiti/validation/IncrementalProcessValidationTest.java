@@ -0,0 +1,119 @@
+package org.activiti.validation;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.activiti.bpmn.converter.BpmnXMLConverter;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.Process;
+import org.activiti.bpmn.model.StartEvent;
+import org.activiti.bpmn.model.UserTask;
+import org.activiti.validation.validator.ProcessLevelValidator;
+import org.activiti.validation.validator.ValidatorSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IncrementalProcessValidationTest {
+	
+	@Test
+	public void parallelValidationGivesSameResult() throws Exception {
+		InputStream xmlStream = this.getClass().getClassLoader().getResourceAsStream("invalidProcess.bpmn20.xml");
+		XMLStreamReader xtr = XMLInputFactory.newInstance().createXMLStreamReader(new InputStreamReader(xmlStream, "UTF-8"));
+		BpmnModel bpmnModel = new BpmnXMLConverter().convertToBpmnModel(xtr);
+		
+		List<ValidationError> sequentialErrors = new ProcessValidatorFactory().createDefaultProcessValidator().validate(bpmnModel);
+		
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<ValidationError> parallelErrors = new ProcessValidatorFactory().createDefaultProcessValidator(executorService).validate(bpmnModel);
+			Assert.assertEquals(64, parallelErrors.size());
+			Assert.assertEquals(describe(sequentialErrors), describe(parallelErrors));
+		} finally {
+			executorService.shutdown();
+		}
+	}
+	
+	@Test
+	public void onlyChangedProcessesAreRevalidated() {
+		BpmnModel bpmnModel = new BpmnModel();
+		Process processA = createProcess("processA", "startA", "taskA");
+		bpmnModel.addProcess(processA);
+		bpmnModel.addProcess(createProcess("processB", "startB", "taskB"));
+		
+		CountingValidator countingValidator = new CountingValidator();
+		ValidatorSet validatorSet = new ValidatorSet("counting");
+		validatorSet.addValidator(countingValidator);
+		ProcessValidatorImpl processValidator = new ProcessValidatorImpl();
+		processValidator.addValidatorSet(validatorSet);
+		ValidationResultCache cache = new ValidationResultCache();
+		
+		List<ValidationError> errors = processValidator.validate(bpmnModel, cache, null);
+		Assert.assertEquals(Arrays.asList("processA", "processB"), countingValidator.validatedProcessIds);
+		Assert.assertEquals(2, errors.size());
+		Assert.assertEquals("counting", errors.get(0).getValidatorSetName());
+		Assert.assertEquals(2, cache.size());
+		
+		// Nothing changed
+		countingValidator.validatedProcessIds.clear();
+		errors = processValidator.validate(bpmnModel, cache, Collections.<String>emptyList());
+		Assert.assertTrue(countingValidator.validatedProcessIds.isEmpty());
+		Assert.assertEquals(2, errors.size());
+		
+		// Changed element
+		countingValidator.validatedProcessIds.clear();
+		processValidator.validate(bpmnModel, cache, Collections.singletonList("taskB"));
+		Assert.assertEquals(Arrays.asList("processB"), countingValidator.validatedProcessIds);
+		
+		// Removed element is found through the previous validation
+		countingValidator.validatedProcessIds.clear();
+		processA.removeFlowElement("taskA");
+		processValidator.validate(bpmnModel, cache, Collections.singletonList("taskA"));
+		Assert.assertEquals(Arrays.asList("processA"), countingValidator.validatedProcessIds);
+		
+		// Element outside of the processes
+		countingValidator.validatedProcessIds.clear();
+		processValidator.validate(bpmnModel, cache, Collections.singletonList("someMessage"));
+		Assert.assertEquals(Arrays.asList("processA", "processB"), countingValidator.validatedProcessIds);
+	}
+	
+	protected Process createProcess(String processId, String startEventId, String userTaskId) {
+		Process process = new Process();
+		process.setId(processId);
+		StartEvent startEvent = new StartEvent();
+		startEvent.setId(startEventId);
+		process.addFlowElement(startEvent);
+		UserTask userTask = new UserTask();
+		userTask.setId(userTaskId);
+		process.addFlowElement(userTask);
+		return process;
+	}
+	
+	protected List<String> describe(List<ValidationError> errors) {
+		List<String> descriptions = new ArrayList<String>();
+		for (ValidationError error : errors) {
+			descriptions.add(error.getValidatorSetName() + " " + error.getProblem() + " " + error.getActivityId());
+		}
+		return descriptions;
+	}
+	
+	public static class CountingValidator extends ProcessLevelValidator {
+		
+		protected List<String> validatedProcessIds = new ArrayList<String>();
+		
+		@Override
+		protected void executeValidation(BpmnModel bpmnModel, Process process, List<ValidationError> errors) {
+			validatedProcessIds.add(process.getId());
+			addWarning(errors, "counted", process, null, "Validated " + process.getId());
+		}
+	}
+
+}
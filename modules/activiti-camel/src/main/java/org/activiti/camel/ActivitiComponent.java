@@ -15,6 +15,7 @@ package org.activiti.camel;
 import java.util.Map;
 
 import org.activiti.engine.RuntimeService;
+import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.impl.DefaultComponent;
@@ -31,6 +32,8 @@ public class ActivitiComponent extends DefaultComponent {
 
   private RuntimeService runtimeService;
   
+  private WaitStateRegistry waitStateRegistry;
+  
   private boolean copyVariablesToProperties;
 
   private boolean copyVariablesToBodyAsMap;
@@ -43,6 +46,25 @@ public class ActivitiComponent extends DefaultComponent {
   public void setCamelContext(CamelContext context) {
     super.setCamelContext(context);
     runtimeService = getByType(context, RuntimeService.class);
+    if (runtimeService != null) {
+      waitStateRegistry = new WaitStateRegistry();
+    }
+  }
+  
+  @Override
+  protected void doStart() throws Exception {
+    super.doStart();
+    if (waitStateRegistry != null) {
+      runtimeService.addEventListener(waitStateRegistry, ActivitiEventType.ACTIVITY_STARTED);
+    }
+  }
+  
+  @Override
+  protected void doStop() throws Exception {
+    if (waitStateRegistry != null) {
+      runtimeService.removeEventListener(waitStateRegistry);
+    }
+    super.doStop();
   }
 
   private <T> T getByType(CamelContext ctx, Class<T> kls) {
@@ -57,6 +79,7 @@ public class ActivitiComponent extends DefaultComponent {
   @Override
   protected Endpoint createEndpoint(String s, String s1, Map<String, Object> stringObjectMap) throws Exception {
     ActivitiEndpoint ae = new ActivitiEndpoint(s, getCamelContext(), runtimeService);
+    ae.setWaitStateRegistry(waitStateRegistry);
     ae.setCopyVariablesToProperties(this.copyVariablesToProperties);
     ae.setCopyVariablesToBodyAsMap(this.copyVariablesToBodyAsMap);
     ae.setCopyCamelBodyToBody(this.copyCamelBodyToBody);
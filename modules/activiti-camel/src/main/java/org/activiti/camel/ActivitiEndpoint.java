@@ -13,9 +13,12 @@
 
 package org.activiti.camel;
 
+import java.util.concurrent.ExecutorService;
+
 import org.activiti.engine.RuntimeService;
 import org.apache.camel.*;
 import org.apache.camel.impl.DefaultEndpoint;
+import org.apache.camel.util.AsyncProcessorConverterHelper;
 
 /**
  * This class has been modified to be consistent with the changes to CamelBehavior and its implementations. The set of changes
@@ -29,6 +32,8 @@ public class ActivitiEndpoint extends DefaultEndpoint {
 
 
   private RuntimeService runtimeService;
+  
+  private WaitStateRegistry waitStateRegistry;
 
   private ActivitiConsumer activitiConsumer;
 
@@ -47,6 +52,8 @@ public class ActivitiEndpoint extends DefaultEndpoint {
   private long timeout = 5000;
   
   private int timeResolution = 100;
+  
+  private ExecutorService asyncExecutor;
 
   public ActivitiEndpoint(String uri, CamelContext camelContext, RuntimeService runtimeService) {
     super();
@@ -69,8 +76,39 @@ public class ActivitiEndpoint extends DefaultEndpoint {
     activitiConsumer.getProcessor().process(ex);
   }
 
+  /**
+   * Routes the exchange through Camel's asynchronous routing engine. The callback is invoked once the
+   * route has completed, which may be on a different thread than the caller's.
+   */
+  public boolean process(Exchange ex, AsyncCallback callback) {
+    if (activitiConsumer == null) {
+      throw new RuntimeException("Activiti consumer not defined for " + getEndpointUri());
+    }
+    return AsyncProcessorConverterHelper.convert(activitiConsumer.getProcessor()).process(ex, callback);
+  }
+
+  /**
+   * Thread pool on which non-blocking camel tasks hand their exchanges to the route, so the
+   * engine thread that committed the wait state is not used for routing.
+   */
+  public synchronized ExecutorService getAsyncExecutor() {
+    if (asyncExecutor == null) {
+      asyncExecutor = getCamelContext().getExecutorServiceManager().newDefaultThreadPool(this, "ActivitiAsyncDispatch");
+    }
+    return asyncExecutor;
+  }
+
+  @Override
+  protected synchronized void doStop() throws Exception {
+    if (asyncExecutor != null) {
+      getCamelContext().getExecutorServiceManager().shutdown(asyncExecutor);
+      asyncExecutor = null;
+    }
+    super.doStop();
+  }
+
   public Producer createProducer() throws Exception {
-    return new ActivitiProducer(this, runtimeService, getTimeout(), getTimeResolution());
+    return new ActivitiProducer(this, runtimeService, waitStateRegistry, getTimeout(), getTimeResolution());
   }
 
   public Consumer createConsumer(Processor processor) throws Exception {
@@ -141,5 +179,17 @@ public class ActivitiEndpoint extends DefaultEndpoint {
   public int getTimeResolution() {
     return timeResolution;
   }
+  
+  public WaitStateRegistry getWaitStateRegistry() {
+    return waitStateRegistry;
+  }
+  
+  /**
+   * When set, producers signalling a receive activity are notified when the execution arrives there,
+   * and only check the database every timeResolution as fallback. Without it, they poll.
+   */
+  public void setWaitStateRegistry(WaitStateRegistry waitStateRegistry) {
+    this.waitStateRegistry = waitStateRegistry;
+  }
 
 }
@@ -26,6 +26,8 @@ import org.apache.camel.impl.DefaultProducer;
 public class ActivitiProducer extends DefaultProducer {
 
   private RuntimeService runtimeService;
+  
+  private WaitStateRegistry waitStateRegistry;
 
   public static final String PROCESS_KEY_PROPERTY = "PROCESS_KEY_PROPERTY";
 
@@ -40,8 +42,13 @@ public class ActivitiProducer extends DefaultProducer {
   private String activity = null;
 
   public ActivitiProducer(ActivitiEndpoint endpoint, RuntimeService runtimeService, long timeout, long timeResolution) {
+    this(endpoint, runtimeService, null, timeout, timeResolution);
+  }
+
+  public ActivitiProducer(ActivitiEndpoint endpoint, RuntimeService runtimeService, WaitStateRegistry waitStateRegistry, long timeout, long timeResolution) {
     super(endpoint);
     this.runtimeService = runtimeService;
+    this.waitStateRegistry = waitStateRegistry;
     String[] path = endpoint.getEndpointKey().split(":");
     processKey = path[1].replace("//", "");
     if (path.length > 2) {
@@ -67,32 +74,59 @@ public class ActivitiProducer extends DefaultProducer {
   
   private void signal(Exchange exchange) {
     String processInstanceId = findProcessInstanceId(exchange);
+    String executionId = waitForExecution(processInstanceId);
     
-    boolean firstTime = true; 
-    long initialTime  = System.currentTimeMillis();
-   
-    Execution execution = null;
-    while (firstTime || (timeout > 0 && (System.currentTimeMillis() - initialTime < timeout))) {
-       execution = runtimeService.createExecutionQuery()
-          .processDefinitionKey(processKey)
-          .processInstanceId(processInstanceId)
-          .activityId(activity).singleResult();
-       try {
-         Thread.sleep(timeResolution);
-       } catch (InterruptedException e) {
-         throw new RuntimeException("error occured while waiting for activiti=" + activity + " for processInstanceId=" + processInstanceId);
-       }
-       firstTime = false;
-       if (execution != null) {
-         break;
-       }
-    }
-    if (execution == null) {
-      throw new RuntimeException("Couldn't find activity "+activity+" for processId " + processInstanceId + " in defined timeout.");
+    // Variables and signal in one command and transaction
+    runtimeService.signal(executionId, ExchangeUtils.prepareVariables(exchange, getActivitiEndpoint()));
+  }
+  
+  /**
+   * Returns the id of the execution waiting in the activity, waiting for it to arrive there for at most the timeout.
+   * When a {@link WaitStateRegistry} is available, the producer is woken up as soon as the execution arrives,
+   * and the database is only checked again every timeResolution in case the execution arrives in another engine.
+   */
+  private String waitForExecution(String processInstanceId) {
+    WaitStateRegistry.Waiter waiter = null;
+    if (waitStateRegistry != null) {
+      waiter = waitStateRegistry.register(processInstanceId, activity);
     }
     
-    runtimeService.setVariables(execution.getId(), ExchangeUtils.prepareVariables(exchange, getActivitiEndpoint()));
-    runtimeService.signal(execution.getId());
+    try {
+      long initialTime = System.currentTimeMillis();
+      while (true) {
+        Execution execution = runtimeService.createExecutionQuery()
+            .processDefinitionKey(processKey)
+            .processInstanceId(processInstanceId)
+            .activityId(activity).singleResult();
+        if (execution != null) {
+          return execution.getId();
+        }
+        
+        long remainingTime = timeout - (System.currentTimeMillis() - initialTime);
+        if (remainingTime <= 0) {
+          throw new RuntimeException("Couldn't find activity "+activity+" for processId " + processInstanceId + " in defined timeout.");
+        }
+        
+        long waitTime = Math.min(remainingTime, timeResolution);
+        if (waiter != null) {
+          String executionId = waiter.await(waitTime);
+          if (executionId != null) {
+            return executionId;
+          }
+        } else {
+          Thread.sleep(waitTime);
+        }
+      }
+      
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("error occured while waiting for activiti=" + activity + " for processInstanceId=" + processInstanceId);
+      
+    } finally {
+      if (waiter != null) {
+        waitStateRegistry.unregister(waiter);
+      }
+    }
   }
 
   private String findProcessInstanceId(Exchange exchange) {
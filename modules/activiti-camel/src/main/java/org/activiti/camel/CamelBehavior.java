@@ -13,6 +13,7 @@
 
 package org.activiti.camel;
 
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -25,16 +26,26 @@ import org.activiti.engine.ProcessEngineConfiguration;
 import org.activiti.engine.delegate.DelegateExecution;
 import org.activiti.engine.delegate.Expression;
 import org.activiti.engine.impl.bpmn.behavior.BpmnActivityBehavior;
+import org.activiti.engine.impl.cfg.TransactionListener;
+import org.activiti.engine.impl.cfg.TransactionState;
 import org.activiti.engine.impl.context.Context;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.TimerEntity;
 import org.activiti.engine.impl.pvm.PvmProcessDefinition;
 import org.activiti.engine.impl.pvm.delegate.ActivityBehavior;
 import org.activiti.engine.impl.pvm.delegate.ActivityExecution;
+import org.activiti.engine.impl.pvm.delegate.SignallableActivityBehavior;
 import org.activiti.spring.SpringProcessEngineConfiguration;
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
 import org.apache.camel.impl.DefaultExchange;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
 * This abstract class takes the place of the now-deprecated CamelBehaviour class (which can still be used for legacy compatibility)
@@ -57,13 +68,32 @@ import org.apache.commons.lang3.StringUtils;
 * copy the Camel body to the "camelBody" variable if it is of type java.lang.String, OR it will copy the Camel body to
 * individual variables within Activiti if it is of type Map<String,Object>.
 * 
+* Setting the field "nonBlocking" to true on the service task turns it into a wait state. Once the transaction has committed,
+* the exchange is handed to the route through Camel's asynchronous API, and the route's completion callback leaves the activity
+* with the resulting variables in a new command. No engine thread or database connection is held while the route runs, and
+* the task can't be signalled: only the completion of its route leaves it.
+* 
+* While the exchange is in flight, a recovery timer (see CamelNonBlockingJobHandler) is kept with the exchange id. It is
+* deleted when the route completes. If the completion doesn't arrive within "nonBlockingTimeout" milliseconds (5 minutes by
+* default), e.g. after a crash, the timer sends the exchange again with the same exchange id, so routes that must not repeat
+* their side effects can use an idempotent consumer on the exchange id. An unhandled exception of the route sets the
+* retries of the timer to 0 with the exception, so the exchange is only sent again when the job is retried through the
+* ManagementService. This requires the CamelNonBlockingJobHandler to be registered as custom job handler.
+* 
 * @author Ryan Johnston (@rjfsu), Tijs Rademakers, Saeid Mirzaei
 * @version 5.12
 */
-public abstract class CamelBehavior extends BpmnActivityBehavior implements ActivityBehavior {
+public abstract class CamelBehavior extends BpmnActivityBehavior implements ActivityBehavior, SignallableActivityBehavior {
 
   private static final long serialVersionUID = 1L;
+  
+  private static final Logger log = LoggerFactory.getLogger(CamelBehavior.class);
+  
+  public static final long DEFAULT_NON_BLOCKING_TIMEOUT = 5 * 60 * 1000L;
+  
   protected Expression camelContext;
+  protected Expression nonBlocking;
+  protected Expression nonBlockingTimeout;
   protected CamelContext camelContextObj;
   protected SpringProcessEngineConfiguration springConfiguration;
   
@@ -106,6 +136,12 @@ public abstract class CamelBehavior extends BpmnActivityBehavior implements Acti
   public void execute(ActivityExecution execution) throws Exception {
     setAppropriateCamelContext(execution);
     
+    if (isNonBlocking(execution)) {
+      // stay in the activity, the completion of the route leaves it
+      dispatchNonBlocking((ExecutionEntity) execution, null);
+      return;
+    }
+    
     final ActivitiEndpoint endpoint = createEndpoint(execution);
     final Exchange exchange = createExchange(execution, endpoint);
     
@@ -134,6 +170,104 @@ public abstract class CamelBehavior extends BpmnActivityBehavior implements Acti
     performDefaultOutgoingBehavior(execution);
   }
 
+  public void signal(ActivityExecution execution, String signalName, Object signalData) throws Exception {
+    throw new ActivitiException("Camel task " + execution.getActivity().getId() 
+            + " is left when its route completes, it can't be signalled");
+  }
+
+  /**
+   * Hands the exchange of a non-blocking task to the route once the transaction has committed, and keeps a recovery 
+   * timer for it. Without exchange id, a new exchange is sent; with one, the exchange is sent again by the recovery.
+   */
+  public void dispatchNonBlocking(ExecutionEntity execution, String exchangeId) {
+    setAppropriateCamelContext(execution);
+    
+    final ActivitiEndpoint endpoint = createEndpoint(execution);
+    final Exchange exchange = createExchange(execution, endpoint);
+    if (exchangeId != null) {
+      exchange.setExchangeId(exchangeId);
+    }
+    scheduleRecoveryTimer(execution, exchange.getExchangeId());
+    
+    final String executionId = execution.getId();
+    final CommandExecutor commandExecutor = springConfiguration.getCommandExecutor();
+    Context.getCommandContext().getTransactionContext().addTransactionListener(TransactionState.COMMITTED, new TransactionListener() {
+      public void execute(CommandContext commandContext) {
+        endpoint.getAsyncExecutor().submit(new Runnable() {
+          public void run() {
+            endpoint.process(exchange, new AsyncCallback() {
+              public void done(boolean doneSync) {
+                completeNonBlocking(commandExecutor, executionId, endpoint, exchange);
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
+  protected void scheduleRecoveryTimer(ExecutionEntity execution, String exchangeId) {
+    TimerEntity timer = new TimerEntity();
+    timer.setExecution(execution);
+    timer.setExclusive(execution.getActivity().isExclusive());
+    timer.setJobHandlerType(CamelNonBlockingJobHandler.TYPE);
+    timer.setJobHandlerConfiguration(exchangeId);
+    Date now = Context.getProcessEngineConfiguration().getClock().getCurrentTime();
+    timer.setDuedate(new Date(now.getTime() + getNonBlockingTimeout(execution)));
+    
+    // Inherit tenant id (if applicable)
+    if (execution.getTenantId() != null) {
+      timer.setTenantId(execution.getTenantId());
+    }
+    
+    Context
+      .getCommandContext()
+      .getJobEntityManager()
+      .schedule(timer);
+  }
+
+  /**
+   * Called by the completion callback of the route of a non-blocking task. A failure to complete the execution
+   * is only logged: the recovery timer sends the exchange again.
+   */
+  protected void completeNonBlocking(CommandExecutor commandExecutor, String executionId, ActivitiEndpoint endpoint, Exchange exchange) {
+    Exception camelException = exchange.getException();
+    boolean notHandledByCamel = exchange.isFailed() && camelException != null;
+    try {
+      if (notHandledByCamel) {
+        commandExecutor.execute(new CompleteNonBlockingCamelTaskCmd(executionId, exchange.getExchangeId(), null, camelException));
+      } else {
+        commandExecutor.execute(new CompleteNonBlockingCamelTaskCmd(executionId, exchange.getExchangeId(), 
+                ExchangeUtils.prepareVariables(exchange, endpoint), null));
+      }
+    } catch (Exception e) {
+      log.error("Could not complete execution " + executionId + " after its camel route completed, the exchange " 
+              + exchange.getExchangeId() + " will be sent again by its recovery timer", e);
+    }
+  }
+
+  /**
+   * Leaves the activity of a non-blocking task with the variables resulting from its route.
+   */
+  public void leaveNonBlocking(ActivityExecution execution, Map<String, Object> variables) {
+    execution.setVariables(variables);
+    performDefaultOutgoingBehavior(execution);
+  }
+
+  /**
+   * Returns the recovery timer of the given exchange of a non-blocking task, or null when the exchange 
+   * isn't in flight anymore.
+   */
+  public static TimerEntity findRecoveryTimer(CommandContext commandContext, String executionId, String exchangeId) {
+    for (TimerEntity timer : commandContext.getJobEntityManager().findTimersByExecutionId(executionId)) {
+      if (CamelNonBlockingJobHandler.TYPE.equals(timer.getJobHandlerType()) 
+              && exchangeId.equals(timer.getJobHandlerConfiguration())) {
+        return timer;
+      }
+    }
+    return null;
+  }
+
   protected ActivitiEndpoint createEndpoint(ActivityExecution execution) {
     String uri = "activiti://" + getProcessDefinitionKey(execution) + ":" + execution.getActivity().getId();
     return getEndpoint(uri);
@@ -191,6 +325,15 @@ public abstract class CamelBehavior extends BpmnActivityBehavior implements Acti
      return execution.getActivity().isAsync();
   }
   
+  protected boolean isNonBlocking(ActivityExecution execution) {
+    return Boolean.parseBoolean(getStringFromField(nonBlocking, execution));
+  }
+  
+  protected long getNonBlockingTimeout(ActivityExecution execution) {
+    String timeout = getStringFromField(nonBlockingTimeout, execution);
+    return timeout != null ? Long.parseLong(timeout) : DEFAULT_NON_BLOCKING_TIMEOUT;
+  }
+  
   protected void setAppropriateCamelContext(ActivityExecution execution) {
     //Check to see if the springConfiguration has been set. If not, set it.
     if (springConfiguration == null) {
@@ -240,4 +383,12 @@ public abstract class CamelBehavior extends BpmnActivityBehavior implements Acti
   public void setCamelContext(Expression camelContext) {
     this.camelContext = camelContext;
   }
+  
+  public void setNonBlocking(Expression nonBlocking) {
+    this.nonBlocking = nonBlocking;
+  }
+  
+  public void setNonBlockingTimeout(Expression nonBlockingTimeout) {
+    this.nonBlockingTimeout = nonBlockingTimeout;
+  }
 }
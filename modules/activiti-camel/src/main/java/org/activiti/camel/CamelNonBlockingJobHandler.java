@@ -0,0 +1,50 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.camel;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.jobexecutor.JobHandler;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.pvm.delegate.ActivityBehavior;
+
+/**
+ * Recovery timer of an exchange of a non-blocking camel task that is in flight (see {@link CamelBehavior}). When it fires,
+ * the completion of the route didn't arrive in time, so the exchange is sent again with the same exchange id.
+ * Register it as custom job handler of the process engine configuration:
+ *
+ *   <property name="customJobHandlers">
+ *     <list>
+ *       <bean class="org.activiti.camel.CamelNonBlockingJobHandler" />
+ *     </list>
+ *   </property>
+ */
+public class CamelNonBlockingJobHandler implements JobHandler {
+
+  public static final String TYPE = "camel-non-blocking";
+
+  public String getType() {
+    return TYPE;
+  }
+
+  public void execute(JobEntity job, String configuration, ExecutionEntity execution, CommandContext commandContext) {
+    ActivityBehavior activityBehavior = execution.getActivity().getActivityBehavior();
+    if (!(activityBehavior instanceof CamelBehavior)) {
+      throw new ActivitiException("Activity " + execution.getActivity().getId() + " is not a camel service task");
+    }
+    ((CamelBehavior) activityBehavior).dispatchNonBlocking(execution, configuration);
+  }
+
+}
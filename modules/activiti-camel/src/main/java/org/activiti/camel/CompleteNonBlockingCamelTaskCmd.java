@@ -0,0 +1,71 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.camel;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Map;
+
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.TimerEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Run by the completion callback of the route of a non-blocking camel task (see {@link CamelBehavior}): leaves the
+ * activity with the resulting variables, or records the exception of the route on the recovery timer. A completion
+ * of an exchange that isn't in flight anymore, e.g. one that was sent again by the recovery, is ignored.
+ */
+public class CompleteNonBlockingCamelTaskCmd implements Command<Void> {
+
+  private static final Logger log = LoggerFactory.getLogger(CompleteNonBlockingCamelTaskCmd.class);
+
+  protected String executionId;
+  protected String exchangeId;
+  protected Map<String, Object> variables;
+  protected Exception exception;
+
+  public CompleteNonBlockingCamelTaskCmd(String executionId, String exchangeId, Map<String, Object> variables, Exception exception) {
+    this.executionId = executionId;
+    this.exchangeId = exchangeId;
+    this.variables = variables;
+    this.exception = exception;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    TimerEntity recoveryTimer = CamelBehavior.findRecoveryTimer(commandContext, executionId, exchangeId);
+    if (recoveryTimer == null) {
+      log.debug("Exchange {} of execution {} is not in flight anymore, ignoring its completion", exchangeId, executionId);
+      return null;
+    }
+
+    if (exception != null) {
+      // only sent again when the job is retried
+      recoveryTimer.setRetries(0);
+      recoveryTimer.setExceptionMessage(exception.getMessage());
+      StringWriter stringWriter = new StringWriter();
+      exception.printStackTrace(new PrintWriter(stringWriter));
+      recoveryTimer.setExceptionStacktrace(stringWriter.toString());
+      return null;
+    }
+
+    recoveryTimer.delete();
+    ExecutionEntity execution = commandContext.getExecutionEntityManager().findExecutionById(executionId);
+    ((CamelBehavior) execution.getActivity().getActivityBehavior()).leaveNonBlocking(execution, variables);
+    return null;
+  }
+
+}
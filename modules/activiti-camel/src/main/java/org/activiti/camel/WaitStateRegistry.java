@@ -0,0 +1,144 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.camel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.delegate.event.ActivitiActivityEvent;
+import org.activiti.engine.delegate.event.ActivitiEvent;
+import org.activiti.engine.delegate.event.ActivitiEventListener;
+import org.activiti.engine.impl.cfg.TransactionListener;
+import org.activiti.engine.impl.cfg.TransactionState;
+import org.activiti.engine.impl.context.Context;
+import org.activiti.engine.impl.interceptor.CommandContext;
+
+/**
+ * Lets an {@link ActivitiProducer} wait for an execution to arrive at the activity it has to signal,
+ * instead of polling for it. Registered as event listener for ACTIVITY_STARTED events by the
+ * {@link ActivitiComponent}: when an execution starts an activity a producer is waiting for, the producer 
+ * is woken up with the id of the execution once the transaction is committed, so the execution can be signalled.
+ * 
+ * Only executions arriving in the process engine of this JVM are noticed, so producers still check 
+ * the database now and then while waiting.
+ */
+public class WaitStateRegistry implements ActivitiEventListener {
+
+  protected Map<String, List<Waiter>> waiters = new HashMap<String, List<Waiter>>();
+  protected volatile int waiterCount;
+
+  /**
+   * Registers interest in the arrival of an execution of the process instance at the activity. 
+   * Must be called before checking whether the execution is already there, so no arrival is missed,
+   * and followed by {@link #unregister(Waiter)}.
+   */
+  public synchronized Waiter register(String processInstanceId, String activityId) {
+    String key = getKey(processInstanceId, activityId);
+    List<Waiter> activityWaiters = waiters.get(key);
+    if (activityWaiters == null) {
+      activityWaiters = new ArrayList<Waiter>(1);
+      waiters.put(key, activityWaiters);
+    }
+    Waiter waiter = new Waiter(key);
+    activityWaiters.add(waiter);
+    waiterCount++;
+    return waiter;
+  }
+
+  public synchronized void unregister(Waiter waiter) {
+    List<Waiter> activityWaiters = waiters.get(waiter.key);
+    if (activityWaiters != null && activityWaiters.remove(waiter)) {
+      waiterCount--;
+      if (activityWaiters.isEmpty()) {
+        waiters.remove(waiter.key);
+      }
+    }
+  }
+
+  public void onEvent(ActivitiEvent event) {
+    if (waiterCount == 0 || !(event instanceof ActivitiActivityEvent)) {
+      return;
+    }
+
+    ActivitiActivityEvent activityEvent = (ActivitiActivityEvent) event;
+    final String key = getKey(activityEvent.getProcessInstanceId(), activityEvent.getActivityId());
+    final String executionId = activityEvent.getExecutionId();
+    if (!hasWaiters(key)) {
+      return;
+    }
+
+    // The execution can only be signalled once it is committed in the waiting state
+    CommandContext commandContext = Context.getCommandContext();
+    if (commandContext != null) {
+      commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, new TransactionListener() {
+        public void execute(CommandContext commandContext) {
+          notifyWaiters(key, executionId);
+        }
+      });
+    } else {
+      notifyWaiters(key, executionId);
+    }
+  }
+
+  public boolean isFailOnException() {
+    return false;
+  }
+
+  protected synchronized boolean hasWaiters(String key) {
+    return waiters.containsKey(key);
+  }
+
+  protected synchronized void notifyWaiters(String key, String executionId) {
+    List<Waiter> activityWaiters = waiters.get(key);
+    if (activityWaiters != null) {
+      for (Waiter waiter : activityWaiters) {
+        waiter.arrived(executionId);
+      }
+    }
+  }
+
+  protected String getKey(String processInstanceId, String activityId) {
+    return processInstanceId + ":" + activityId;
+  }
+
+  public static class Waiter {
+
+    protected final String key;
+    protected final CountDownLatch latch = new CountDownLatch(1);
+    protected volatile String executionId;
+
+    public Waiter(String key) {
+      this.key = key;
+    }
+
+    protected void arrived(String executionId) {
+      this.executionId = executionId;
+      latch.countDown();
+    }
+
+    /**
+     * Waits at most the given time for the execution to arrive, 
+     * and returns its id or null if it didn't arrive in time.
+     */
+    public String await(long timeoutInMillis) throws InterruptedException {
+      latch.await(timeoutInMillis, TimeUnit.MILLISECONDS);
+      return executionId;
+    }
+
+  }
+
+}
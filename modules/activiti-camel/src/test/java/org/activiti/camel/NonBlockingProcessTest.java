@@ -0,0 +1,99 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.camel;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.runtime.Execution;
+import org.activiti.engine.runtime.Job;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+import org.activiti.spring.impl.test.SpringActivitiTestCase;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration("classpath:camel-activiti-context.xml")
+public class NonBlockingProcessTest extends SpringActivitiTestCase {
+
+  protected static final long WAIT = 10000;
+
+  @Autowired
+  RuntimeService runtimeService;
+
+  @Autowired
+  TaskService taskService;
+
+  @Deployment(resources = {"process/nonBlocking.bpmn20.xml"})
+  public void testRouteCompletionLeavesTask() throws Exception {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("nonBlockingCamelProcess");
+
+    // the start command returns before the route has completed
+    assertEquals(1, runtimeService.createExecutionQuery().processInstanceId(processInstance.getId())
+        .activityId("serviceNonBlocking").count());
+    assertEquals(1, managementService.createJobQuery().processInstanceId(processInstance.getId()).count());
+
+    long maxWait = System.currentTimeMillis() + WAIT;
+    while (taskService.createTaskQuery().processInstanceId(processInstance.getId()).count() == 0 
+            && System.currentTimeMillis() < maxWait) {
+      Thread.sleep(100);
+    }
+
+    Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    assertNotNull(task);
+    assertEquals("afterCamel", task.getTaskDefinitionKey());
+    assertEquals("done", runtimeService.getVariable(processInstance.getId(), ExchangeUtils.CAMELBODY));
+
+    // the recovery timer is gone once the exchange completed
+    assertEquals(0, managementService.createJobQuery().processInstanceId(processInstance.getId()).count());
+  }
+
+  @Deployment(resources = {"process/nonBlocking.bpmn20.xml"})
+  public void testRouteFailureRecordedOnRecoveryTimer() throws Exception {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("nonBlockingFailingCamelProcess");
+    Job job = waitForFailedRecoveryTimer(processInstance.getId());
+    assertEquals(0, job.getRetries());
+    assertTextPresent("route failed", managementService.getJobExceptionStacktrace(job.getId()));
+    String exchangeId = ((JobEntity) job).getJobHandlerConfiguration();
+
+    // the execution stays in the task and can't be signalled
+    Execution execution = runtimeService.createExecutionQuery().processInstanceId(processInstance.getId())
+        .activityId("serviceNonBlockingFailing").singleResult();
+    assertNotNull(execution);
+    try {
+      runtimeService.signal(execution.getId());
+      fail("Exception expected");
+    } catch (ActivitiException e) {
+      assertTextPresent("can't be signalled", e.getMessage());
+    }
+
+    // retrying the timer sends the exchange again, with the same exchange id
+    managementService.executeJob(job.getId());
+    job = waitForFailedRecoveryTimer(processInstance.getId());
+    assertEquals(exchangeId, ((JobEntity) job).getJobHandlerConfiguration());
+  }
+
+  protected Job waitForFailedRecoveryTimer(String processInstanceId) throws Exception {
+    long maxWait = System.currentTimeMillis() + WAIT;
+    Job job = null;
+    while (job == null && System.currentTimeMillis() < maxWait) {
+      Thread.sleep(100);
+      job = managementService.createJobQuery().processInstanceId(processInstanceId).withException().singleResult();
+    }
+    assertNotNull(job);
+    return job;
+  }
+}
@@ -0,0 +1,50 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.camel;
+
+import junit.framework.TestCase;
+
+import org.activiti.camel.WaitStateRegistry.Waiter;
+import org.activiti.engine.delegate.event.ActivitiEventType;
+import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+
+public class WaitStateRegistryTest extends TestCase {
+
+  public void testWaiterNotifiedOfArrival() throws Exception {
+    WaitStateRegistry registry = new WaitStateRegistry();
+    Waiter waiter = registry.register("pi1", "receive");
+    Waiter otherWaiter = registry.register("pi2", "receive");
+
+    registry.onEvent(ActivitiEventBuilder.createActivityEvent(ActivitiEventType.ACTIVITY_STARTED, "otherActivity", "ex0", "pi1", "pd"));
+    registry.onEvent(ActivitiEventBuilder.createActivityEvent(ActivitiEventType.ACTIVITY_STARTED, "receive", "ex1", "pi1", "pd"));
+
+    assertEquals("ex1", waiter.await(1000));
+    assertNull(otherWaiter.await(10));
+
+    registry.unregister(waiter);
+    registry.unregister(otherWaiter);
+    assertEquals(0, registry.waiterCount);
+    assertTrue(registry.waiters.isEmpty());
+  }
+
+  public void testArrivalWithoutWaiterIgnored() throws Exception {
+    WaitStateRegistry registry = new WaitStateRegistry();
+    registry.onEvent(ActivitiEventBuilder.createActivityEvent(ActivitiEventType.ACTIVITY_STARTED, "receive", "ex1", "pi1", "pd"));
+
+    // Arrivals before registering aren't remembered: the producer checks the database after registering
+    Waiter waiter = registry.register("pi1", "receive");
+    assertNull(waiter.await(10));
+    registry.unregister(waiter);
+  }
+
+}
@@ -22,6 +22,7 @@ import org.activiti.engine.history.HistoricDetail;
 import org.activiti.engine.history.HistoricDetailQuery;
 import org.activiti.engine.history.HistoricIdentityLink;
 import org.activiti.engine.history.HistoricProcessInstance;
+import org.activiti.engine.history.HistoricProcessInstancePurge;
 import org.activiti.engine.history.HistoricProcessInstanceQuery;
 import org.activiti.engine.history.HistoricTaskInstance;
 import org.activiti.engine.history.HistoricTaskInstanceQuery;
@@ -85,6 +86,12 @@ public interface HistoryService {
    * historic details (variable updates, form properties) are deleted as well.
    */
   void deleteHistoricProcessInstance(String processInstanceId);
+  
+  /**
+   * Creates a purge that deletes the history of many finished process instances at once,
+   * selected by end time, process definition key and/or tenant.
+   */
+  HistoricProcessInstancePurge createHistoricProcessInstancePurge();
 
   /**
    * creates a native query to search for {@link HistoricProcessInstance}s via SQL
@@ -13,11 +13,15 @@
 package org.activiti.engine;
 
 import java.sql.Connection;
+import java.util.List;
 import java.util.Map;
 
 import org.activiti.engine.impl.cmd.CustomSqlExecution;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandConfig;
+import org.activiti.engine.management.ActivityProfile;
+import org.activiti.engine.management.CacheStatistics;
+import org.activiti.engine.management.CommandMetrics;
 import org.activiti.engine.management.TableMetaData;
 import org.activiti.engine.management.TablePage;
 import org.activiti.engine.management.TablePageQuery;
@@ -106,6 +110,43 @@ public interface ManagementService {
   /** get the list of properties. */
   Map<String, String> getProperties();
   
+  /**
+   * Returns the current usage statistics (hits, misses, evictions, load times) 
+   * of the cache containing the parsed process definitions.
+   * Returns null when the configured cache doesn't keep any statistics.
+   */
+  CacheStatistics getProcessDefinitionCacheStatistics();
+  
+  /**
+   * Returns the execution statistics (counts, latencies, optimistic locking failures and flushed 
+   * statements) of every type of command executed since the engine was built or the metrics were reset,
+   * the commands that took the most time in total first.
+   * Returns an empty list when command metrics aren't enabled in the process engine configuration.
+   */
+  List<CommandMetrics> getCommandMetrics();
+  
+  /**
+   * Clears the command metrics returned by {@link #getCommandMetrics()}.
+   */
+  void resetCommandMetrics();
+  
+  /**
+   * Returns the time spent in every activity of every process definition executed since the engine
+   * was built or the profiles were reset, the activities that took the most time in total first.
+   * Returns an empty list when activity profiling isn't enabled in the process engine configuration.
+   */
+  List<ActivityProfile> getActivityProfiles();
+  
+  /**
+   * Returns the time spent in every activity of the given process definition, like {@link #getActivityProfiles()}.
+   */
+  List<ActivityProfile> getActivityProfiles(String processDefinitionId);
+  
+  /**
+   * Clears the activity profiles returned by {@link #getActivityProfiles()}.
+   */
+  void resetActivityProfiles();
+  
   /** programmatic schema update on a given connection returning feedback about what happened */
   String databaseSchemaUpgrade(Connection connection, String catalog, String schema);
   
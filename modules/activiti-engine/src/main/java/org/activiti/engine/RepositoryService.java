@@ -298,6 +298,24 @@ public interface RepositoryService {
    */
   InputStream getProcessDiagram(String processDefinitionId);
   
+  /**
+   * Renders the diagram of a process definition as PNG image, with the given activities 
+   * and sequence flows highlighted (e.g. the active activities of a process instance).
+   * Rendered diagrams are cached per process definition and set of highlighted elements,
+   * so repeated requests for the same diagram don't render it again.
+   * 
+   * @param processDefinitionId
+   *          id of a {@link ProcessDefinition}, cannot be null.
+   * @param highLightedActivities
+   *          ids of the activities to highlight, can be null.
+   * @param highLightedFlows
+   *          ids of the sequence flows to highlight, can be null.
+   * @return null when the process definition has no graphical notation defined.
+   * @throws ActivitiObjectNotFoundException
+   *           when the process definition doesn't exist.
+   */
+  InputStream getProcessDiagram(String processDefinitionId, List<String> highLightedActivities, List<String> highLightedFlows);
+  
   /**
    * Returns the {@link ProcessDefinition} including all BPMN information like additional 
    * Properties (e.g. documentation).
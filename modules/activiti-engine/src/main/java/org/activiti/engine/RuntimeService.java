@@ -26,6 +26,7 @@ import org.activiti.engine.runtime.ExecutionQuery;
 import org.activiti.engine.runtime.NativeExecutionQuery;
 import org.activiti.engine.runtime.NativeProcessInstanceQuery;
 import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.runtime.ProcessInstanceBulkOperation;
 import org.activiti.engine.runtime.ProcessInstanceQuery;
 import org.activiti.engine.task.Event;
 import org.activiti.engine.task.IdentityLink;
@@ -538,6 +539,32 @@ public interface RuntimeService {
    */
   Map<String, Object> getVariablesLocal(String executionId, Collection<String> variableNames);
 
+  /**
+   * The variable values of many executions at once, including the variables of
+   * their parent executions. The variables of all given executions are fetched with 
+   * a single query per level of the execution tree, which is much cheaper than 
+   * calling {@link #getVariables(String)} for each execution of a list.
+   * 
+   * @param executionIds
+   *          ids of the executions, cannot be null. Ids of executions that don't exist are ignored.
+   * @param variableNames
+   *          names of the variables to fetch, or null to fetch all variables.
+   * @return the variables, keyed by execution id.
+   */
+  Map<String, Map<String, Object>> getVariablesForExecutions(Collection<String> executionIds, Collection<String> variableNames);
+
+  /**
+   * The variable values of many executions at once, only taking the given execution
+   * scopes into account, see {@link #getVariablesForExecutions(Collection, Collection)}.
+   * 
+   * @param executionIds
+   *          ids of the executions, cannot be null. Ids of executions that don't exist are ignored.
+   * @param variableNames
+   *          names of the variables to fetch, or null to fetch all variables.
+   * @return the variables, keyed by execution id.
+   */
+  Map<String, Map<String, Object>> getVariablesLocalForExecutions(Collection<String> executionIds, Collection<String> variableNames);
+
   /**
    * The variable value. Searching for the variable is done in all scopes that
    * are visible to the given execution (including parent scopes). Returns null
@@ -748,6 +775,12 @@ public interface RuntimeService {
    */
   void activateProcessInstanceById(String processInstanceId);
 
+  /**
+   * Creates a {@link ProcessInstanceBulkOperation}, that deletes, suspends, activates or migrates
+   * many process instances, selected by id or by a {@link ProcessInstanceQuery}, in one call.
+   */
+  ProcessInstanceBulkOperation createProcessInstanceBulkOperation();
+
   // Events
   // ////////////////////////////////////////////////////////////////////////
 
@@ -371,6 +371,22 @@ public interface TaskService {
 
   /** get a variable on a task */
   Map<String, Object> getVariablesLocal(String taskId, Collection<String> variableNames);
+
+  /** 
+   * get the variables of many tasks at once, including the variables of their executions and parent executions. 
+   * The variables of all given tasks are fetched with a single query per level of the execution tree, 
+   * which is much cheaper than calling {@link #getVariables(String)} for each task of a list. 
+   * @param taskIds ids of the tasks, cannot be null. Ids of tasks that don't exist are ignored.
+   * @param variableNames names of the variables to fetch, or null to fetch all variables.
+   * @return the variables, keyed by task id. */
+  Map<String, Map<String, Object>> getVariablesForTasks(Collection<String> taskIds, Collection<String> variableNames);
+
+  /** 
+   * get the task local variables of many tasks at once, see {@link #getVariablesForTasks(Collection, Collection)}. 
+   * @param taskIds ids of the tasks, cannot be null. Ids of tasks that don't exist are ignored.
+   * @param variableNames names of the variables to fetch, or null to fetch all variables.
+   * @return the variables, keyed by task id. */
+  Map<String, Map<String, Object>> getVariablesLocalForTasks(Collection<String> taskIds, Collection<String> variableNames);
   
   /**
    * Removes the variable from the task.
@@ -12,6 +12,11 @@
  */
 package org.activiti.engine.delegate.event.impl;
 
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 import org.activiti.engine.delegate.event.ActivitiEntityEvent;
 import org.activiti.engine.delegate.event.ActivitiEvent;
 import org.activiti.engine.delegate.event.ActivitiEventDispatcher;
@@ -31,6 +36,12 @@ public class ActivitiEventDispatcherImpl implements ActivitiEventDispatcher {
 
 	protected ActivitiEventSupport eventSupport;
 	protected boolean enabled = true;
+	
+	/** event types listened to by the deployed process definitions, per process definition id */
+	protected Map<String, Set<ActivitiEventType>> processDefinitionListenerTypes = new HashMap<String, Set<ActivitiEventType>>();
+	
+	/** union of all processDefinitionListenerTypes, replaced when those change */
+	protected volatile Set<ActivitiEventType> allProcessDefinitionListenerTypes = EnumSet.noneOf(ActivitiEventType.class);
 
 	public ActivitiEventDispatcherImpl() {
 		eventSupport = new ActivitiEventSupport();
@@ -44,6 +55,36 @@ public class ActivitiEventDispatcherImpl implements ActivitiEventDispatcher {
 		return enabled;
 	}
 
+	/**
+	 * Cheap check to be done before creating an event of the given type.
+	 * @return true, if the event dispatcher is enabled and a listener of the engine or 
+	 * of a deployed process definition is interested in events of the given type.
+	 */
+	public boolean isEnabled(ActivitiEventType type) {
+		return enabled && (eventSupport.hasListeners(type) || allProcessDefinitionListenerTypes.contains(type));
+	}
+	
+	public synchronized void setProcessDefinitionListenerTypes(String processDefinitionId, Set<ActivitiEventType> types) {
+		if (types == null || types.isEmpty()) {
+			processDefinitionListenerTypes.remove(processDefinitionId);
+		} else {
+			processDefinitionListenerTypes.put(processDefinitionId, types);
+		}
+		
+		Set<ActivitiEventType> newTypes = EnumSet.noneOf(ActivitiEventType.class);
+		for (Set<ActivitiEventType> definitionTypes : processDefinitionListenerTypes.values()) {
+			newTypes.addAll(definitionTypes);
+		}
+		allProcessDefinitionListenerTypes = newTypes;
+	}
+	
+	/**
+	 * Forgets the listener types of a process definition that is no longer deployed.
+	 */
+	public void removeProcessDefinitionListenerTypes(String processDefinitionId) {
+		setProcessDefinitionListenerTypes(processDefinitionId, null);
+	}
+
 	@Override
 	public void addEventListener(ActivitiEventListener listenerToAdd) {
 		eventSupport.addEventListener(listenerToAdd);
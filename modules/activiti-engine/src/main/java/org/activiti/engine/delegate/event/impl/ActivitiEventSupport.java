@@ -13,9 +13,13 @@
 package org.activiti.engine.delegate.event.impl;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.ActivitiIllegalArgumentException;
@@ -29,6 +33,10 @@ import org.slf4j.LoggerFactory;
  * Class that allows adding and removing event-listeners and dispatching events
  * to the appropriate listeners.
  * 
+ * Listeners are kept in copy-on-write structures: registering or removing a listener
+ * replaces the lists, so dispatching never needs to lock and never sees a list
+ * that is being changed.
+ * 
  * @author Frederik Heremans
  */
 public class ActivitiEventSupport {
@@ -36,11 +44,16 @@ public class ActivitiEventSupport {
 	private static final Logger LOG = LoggerFactory.getLogger(ActivitiEventSupport.class);
 
 	protected List<ActivitiEventListener> eventListeners;
-	protected Map<ActivitiEventType, List<ActivitiEventListener>> typedListeners;
+	
+	/** 
+	 * Listeners per event type. Never changed once published, a changed copy 
+	 * replaces the whole map instead. 
+	 */
+	protected volatile Map<ActivitiEventType, List<ActivitiEventListener>> typedListeners;
 
 	public ActivitiEventSupport() {
-		eventListeners = new ArrayList<ActivitiEventListener>();
-		typedListeners = new HashMap<ActivitiEventType, List<ActivitiEventListener>>();
+		eventListeners = new CopyOnWriteArrayList<ActivitiEventListener>();
+		typedListeners = new EnumMap<ActivitiEventType, List<ActivitiEventListener>>(ActivitiEventType.class);
 	}
 
 	public synchronized void addEventListener(ActivitiEventListener listenerToAdd) {
@@ -49,6 +62,7 @@ public class ActivitiEventSupport {
 		}
 		if (!eventListeners.contains(listenerToAdd)) {
 			eventListeners.add(listenerToAdd);
+			listenersChanged();
 		}
 	}
 
@@ -59,19 +73,45 @@ public class ActivitiEventSupport {
 
 		if (types == null || types.length == 0) {
 			addEventListener(listenerToAdd);
+			return;
 		}
 
 		for (ActivitiEventType type : types) {
-			addTypedEventListener(listenerToAdd, type);
+			// A listener for a null-type never receives any events
+			if (type != null) {
+				addTypedEventListener(listenerToAdd, type);
+			}
 		}
 	}
 
-	public void removeEventListener(ActivitiEventListener listenerToRemove) {
+	public synchronized void removeEventListener(ActivitiEventListener listenerToRemove) {
 		eventListeners.remove(listenerToRemove);
 
-		for (List<ActivitiEventListener> listeners : typedListeners.values()) {
+		Map<ActivitiEventType, List<ActivitiEventListener>> newTypedListeners = new EnumMap<ActivitiEventType, List<ActivitiEventListener>>(ActivitiEventType.class);
+		for (Map.Entry<ActivitiEventType, List<ActivitiEventListener>> entry : typedListeners.entrySet()) {
+			List<ActivitiEventListener> listeners = new ArrayList<ActivitiEventListener>(entry.getValue());
 			listeners.remove(listenerToRemove);
+			if (!listeners.isEmpty()) {
+				newTypedListeners.put(entry.getKey(), Collections.unmodifiableList(listeners));
+			}
 		}
+		typedListeners = newTypedListeners;
+		listenersChanged();
+	}
+	
+	/**
+	 * @return true, if at least one listener will be notified of events of the given type.
+	 * Cheap enough to be called before creating an event.
+	 */
+	public boolean hasListeners(ActivitiEventType type) {
+		return !eventListeners.isEmpty() || typedListeners.containsKey(type);
+	}
+	
+	/**
+	 * @return true, if at least one listener is registered.
+	 */
+	public boolean hasListeners() {
+		return !eventListeners.isEmpty() || !typedListeners.isEmpty();
 	}
 
 	public void dispatchEvent(ActivitiEvent event) {
@@ -84,7 +124,7 @@ public class ActivitiEventSupport {
 		}
 
 		// Call global listeners
-		if (eventListeners.size() > 0) {
+		if (!eventListeners.isEmpty()) {
 			for (ActivitiEventListener listener : eventListeners) {
 				dispatchEvent(event, listener);
 			}
@@ -92,7 +132,7 @@ public class ActivitiEventSupport {
 
 		// Call typed listeners, if any
 		List<ActivitiEventListener> typed = typedListeners.get(event.getType());
-		if (typed != null && typed.size() > 0) {
+		if (typed != null) {
 			for (ActivitiEventListener listener : typed) {
 				dispatchEvent(event, listener);
 			}
@@ -116,14 +156,38 @@ public class ActivitiEventSupport {
 
 	protected synchronized void addTypedEventListener(ActivitiEventListener listener, ActivitiEventType type) {
 		List<ActivitiEventListener> listeners = typedListeners.get(type);
-		if (listeners == null) {
-			// Add an empty list of listeners for this type
-			listeners = new ArrayList<ActivitiEventListener>();
-			typedListeners.put(type, listeners);
+		if (listeners != null && listeners.contains(listener)) {
+			return;
 		}
-
-		if (!listeners.contains(listener)) {
-			listeners.add(listener);
+		
+		List<ActivitiEventListener> newListeners = new ArrayList<ActivitiEventListener>();
+		if (listeners != null) {
+			newListeners.addAll(listeners);
+		}
+		newListeners.add(listener);
+		
+		Map<ActivitiEventType, List<ActivitiEventListener>> newTypedListeners = new EnumMap<ActivitiEventType, List<ActivitiEventListener>>(typedListeners);
+		newTypedListeners.put(type, Collections.unmodifiableList(newListeners));
+		typedListeners = newTypedListeners;
+		listenersChanged();
+	}
+	
+	/**
+	 * @return the event types listeners are registered for: all types when a listener 
+	 * is registered for all events.
+	 */
+	public Set<ActivitiEventType> getListenerTypes() {
+		if (!eventListeners.isEmpty()) {
+			return EnumSet.allOf(ActivitiEventType.class);
 		}
+		Set<ActivitiEventType> types = EnumSet.noneOf(ActivitiEventType.class);
+		types.addAll(typedListeners.keySet());
+		return types;
+	}
+	
+	/**
+	 * Called, while holding the lock of this event support, after a listener was added or removed.
+	 */
+	protected void listenersChanged() {
 	}
 }
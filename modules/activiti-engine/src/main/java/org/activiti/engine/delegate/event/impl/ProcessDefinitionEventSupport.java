@@ -0,0 +1,45 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.delegate.event.impl;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.activiti.engine.delegate.event.ActivitiEventType;
+
+/**
+ * Event support of a process definition. Once the definition is deployed, the event types its 
+ * listeners are registered for are reported to the dispatcher of the engine it is deployed in, 
+ * so the dispatcher can cheaply tell whether an event needs to be created at all.
+ */
+public class ProcessDefinitionEventSupport extends ActivitiEventSupport {
+
+	protected ActivitiEventDispatcherImpl eventDispatcher;
+	protected String processDefinitionId;
+
+	/**
+	 * Reports the listener types of this definition, now and after every change, to the given dispatcher.
+	 */
+	public synchronized void register(ActivitiEventDispatcherImpl eventDispatcher, String processDefinitionId) {
+		this.eventDispatcher = eventDispatcher;
+		this.processDefinitionId = processDefinitionId;
+		eventDispatcher.setProcessDefinitionListenerTypes(processDefinitionId, getListenerTypes());
+	}
+
+	@Override
+	protected void listenersChanged() {
+		if (eventDispatcher != null) {
+			eventDispatcher.setProcessDefinitionListenerTypes(processDefinitionId, getListenerTypes());
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.history;
+
+import java.util.Date;
+
+/**
+ * Deletes the history of finished process instances in bulk: their historic activities, tasks, 
+ * variables, details, identity links, comments and attachments, together with the history 
+ * of their finished sub process instances. Running process instances are never purged.
+ * 
+ * The process instances are purged in chunks of {@link #batchSize(int)} process instances, 
+ * every chunk in its own transaction, using set based delete statements.
+ */
+public interface HistoricProcessInstancePurge {
+  
+  /** Only purge process instances that finished before the given time. */
+  HistoricProcessInstancePurge finishedBefore(Date endTime);
+  
+  /** 
+   * Only purge process instances that finished at least the given number of days before 
+   * the purge is executed. Useful for {@link #schedule(String) scheduled} purges. 
+   */
+  HistoricProcessInstancePurge finishedDaysAgo(int days);
+  
+  /** Only purge process instances of process definitions with the given key. */
+  HistoricProcessInstancePurge processDefinitionKey(String processDefinitionKey);
+  
+  /** Only purge process instances of the given tenant. */
+  HistoricProcessInstancePurge tenantId(String tenantId);
+  
+  /** Number of process instances purged per transaction, 500 by default and at most 1000. */
+  HistoricProcessInstancePurge batchSize(int batchSize);
+  
+  /** Listener notified after every purged chunk. */
+  HistoricProcessInstancePurge progressListener(HistoricProcessInstancePurgeListener progressListener);
+  
+  /** 
+   * Purges the matching process instances. 
+   * @return the number of purged historic process instances, including sub process instances.
+   */
+  long execute();
+  
+  /**
+   * Creates a timer job that executes this purge repeatedly, according to the given cycle 
+   * (an ISO 8601 repeating interval like R/PT24H or a cron expression, as used for timer cycles).
+   * The progress listener is not used by scheduled purges.
+   * @return the id of the created job.
+   */
+  String schedule(String cycle);
+
+}
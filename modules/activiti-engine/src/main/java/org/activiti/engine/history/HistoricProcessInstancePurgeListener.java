@@ -0,0 +1,27 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.history;
+
+/**
+ * Reports the progress of a {@link HistoricProcessInstancePurge}.
+ */
+public interface HistoricProcessInstancePurgeListener {
+
+  /**
+   * Called after the transaction purging a chunk of process instances has committed.
+   * @param purgedInChunk number of historic process instances purged in the chunk.
+   * @param purgedTotal number of historic process instances purged so far.
+   */
+  void chunkPurged(int purgedInChunk, long purgedTotal);
+  
+}
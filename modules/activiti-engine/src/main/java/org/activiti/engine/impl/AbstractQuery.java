@@ -13,12 +13,15 @@
 package org.activiti.engine.impl;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.identity.Group;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.db.ListQueryParameterObject;
+import org.activiti.engine.impl.identity.MembershipCache;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.interceptor.CommandExecutor;
@@ -164,6 +167,36 @@ public abstract class AbstractQuery<T extends Query<?,?>, U> extends ListQueryPa
     return null;
   }
 
+  /**
+   * Returns the ids of the groups the user belongs to, as used for candidate user and authorization
+   * filters. Served from the {@link MembershipCache} when one is configured.
+   */
+  protected List<String> getGroupIdsForUser(String userId) {
+    MembershipCache membershipCache = Context.getProcessEngineConfiguration().getMembershipCache();
+    long generation = 0;
+    if (membershipCache != null) {
+      List<String> groupIds = membershipCache.getGroupIds(userId);
+      if (groupIds != null) {
+        return groupIds;
+      }
+      generation = membershipCache.getGeneration(userId);
+    }
+    
+    List<Group> groups = Context
+      .getCommandContext()
+      .getGroupIdentityManager()
+      .findGroupsByUser(userId);
+    List<String> groupIds = new ArrayList<String>();
+    for (Group group : groups) {
+      groupIds.add(group.getId());
+    }
+    
+    if (membershipCache != null) {
+      membershipCache.addGroupIds(userId, groupIds, generation);
+    }
+    return groupIds;
+  }
+
   protected void addOrder(String column, String sortOrder) {
     if (orderBy==null) {
       orderBy = "";
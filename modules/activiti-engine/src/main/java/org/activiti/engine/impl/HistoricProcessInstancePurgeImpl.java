@@ -0,0 +1,176 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl;
+
+import java.io.Serializable;
+import java.util.Calendar;
+import java.util.Date;
+
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.history.HistoricProcessInstancePurge;
+import org.activiti.engine.history.HistoricProcessInstancePurgeListener;
+import org.activiti.engine.impl.cmd.PurgeHistoricProcessInstancesCmd;
+import org.activiti.engine.impl.cmd.ScheduleHistoricProcessInstancePurgeCmd;
+import org.activiti.engine.impl.db.ListQueryParameterObject;
+import org.activiti.engine.impl.interceptor.CommandConfig;
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Purges the history of finished process instances chunk by chunk: the purge is also the
+ * parameter object of the query selecting the next chunk, its batch size being the max results.
+ */
+public class HistoricProcessInstancePurgeImpl extends ListQueryParameterObject implements HistoricProcessInstancePurge, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger log = LoggerFactory.getLogger(HistoricProcessInstancePurgeImpl.class);
+
+  public static final int DEFAULT_BATCH_SIZE = 500;
+  public static final int MAX_BATCH_SIZE = 1000;
+
+  protected transient CommandExecutor commandExecutor;
+  protected transient HistoricProcessInstancePurgeListener progressListener;
+  protected Date finishedBefore;
+  protected Integer finishedDaysAgo;
+  protected String processDefinitionKey;
+  protected String tenantId;
+
+  /** end time limit of the running purge, resolved from finishedBefore and finishedDaysAgo */
+  protected Date endTimeBefore;
+
+  public HistoricProcessInstancePurgeImpl() {
+    this.maxResults = DEFAULT_BATCH_SIZE;
+  }
+
+  public HistoricProcessInstancePurgeImpl(CommandExecutor commandExecutor) {
+    this();
+    this.commandExecutor = commandExecutor;
+  }
+
+  public HistoricProcessInstancePurge finishedBefore(Date endTime) {
+    if (endTime == null) {
+      throw new ActivitiIllegalArgumentException("End time is null");
+    }
+    this.finishedBefore = endTime;
+    return this;
+  }
+
+  public HistoricProcessInstancePurge finishedDaysAgo(int days) {
+    if (days < 0) {
+      throw new ActivitiIllegalArgumentException("Number of days is negative: " + days);
+    }
+    this.finishedDaysAgo = days;
+    return this;
+  }
+
+  public HistoricProcessInstancePurge processDefinitionKey(String processDefinitionKey) {
+    if (processDefinitionKey == null) {
+      throw new ActivitiIllegalArgumentException("Process definition key is null");
+    }
+    this.processDefinitionKey = processDefinitionKey;
+    return this;
+  }
+
+  public HistoricProcessInstancePurge tenantId(String tenantId) {
+    if (tenantId == null) {
+      throw new ActivitiIllegalArgumentException("Tenant id is null");
+    }
+    this.tenantId = tenantId;
+    return this;
+  }
+
+  public HistoricProcessInstancePurge batchSize(int batchSize) {
+    if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+      throw new ActivitiIllegalArgumentException("Batch size must be between 1 and " + MAX_BATCH_SIZE + ": " + batchSize);
+    }
+    this.maxResults = batchSize;
+    return this;
+  }
+
+  public HistoricProcessInstancePurge progressListener(HistoricProcessInstancePurgeListener progressListener) {
+    this.progressListener = progressListener;
+    return this;
+  }
+
+  public long execute() {
+    // every chunk is committed on its own, so a failing chunk doesn't roll back the chunks purged before
+    CommandConfig commandConfig = commandExecutor.getDefaultConfig().transactionRequiresNew();
+    long purgedTotal = 0;
+    int purgedInChunk;
+    while ((purgedInChunk = commandExecutor.execute(commandConfig, new PurgeHistoricProcessInstancesCmd(this))) > 0) {
+      purgedTotal += purgedInChunk;
+      log.debug("Purged history of {} process instances, {} in total", purgedInChunk, purgedTotal);
+      if (progressListener != null) {
+        progressListener.chunkPurged(purgedInChunk, purgedTotal);
+      }
+    }
+    log.info("Purged history of {} process instances", purgedTotal);
+    return purgedTotal;
+  }
+
+  public String schedule(String cycle) {
+    return commandExecutor.execute(new ScheduleHistoricProcessInstancePurgeCmd(this, cycle));
+  }
+
+  /**
+   * Resolves the end time limit of the process instances to purge, relative to the given time.
+   */
+  public void resolveEndTimeBefore(Date now) {
+    endTimeBefore = finishedBefore;
+    if (finishedDaysAgo != null) {
+      Calendar calendar = Calendar.getInstance();
+      calendar.setTime(now);
+      calendar.add(Calendar.DAY_OF_YEAR, -finishedDaysAgo);
+      if (endTimeBefore == null || calendar.getTime().before(endTimeBefore)) {
+        endTimeBefore = calendar.getTime();
+      }
+    }
+  }
+
+  // getters and setters //////////////////////////////////////////////////////
+
+  public CommandExecutor getCommandExecutor() {
+    return commandExecutor;
+  }
+
+  public void setCommandExecutor(CommandExecutor commandExecutor) {
+    this.commandExecutor = commandExecutor;
+  }
+
+  public Date getFinishedBefore() {
+    return finishedBefore;
+  }
+
+  public Integer getFinishedDaysAgo() {
+    return finishedDaysAgo;
+  }
+
+  public String getProcessDefinitionKey() {
+    return processDefinitionKey;
+  }
+
+  public String getTenantId() {
+    return tenantId;
+  }
+
+  public int getBatchSize() {
+    return maxResults;
+  }
+
+  public Date getEndTimeBefore() {
+    return endTimeBefore;
+  }
+
+}
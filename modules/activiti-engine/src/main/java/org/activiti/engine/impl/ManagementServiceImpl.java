@@ -14,6 +14,7 @@ package org.activiti.engine.impl;
 
 import java.lang.reflect.ParameterizedType;
 import java.sql.Connection;
+import java.util.List;
 import java.util.Map;
 
 import org.activiti.engine.ActivitiIllegalArgumentException;
@@ -22,17 +23,25 @@ import org.activiti.engine.impl.cmd.CustomSqlExecution;
 import org.activiti.engine.impl.cmd.DeleteJobCmd;
 import org.activiti.engine.impl.cmd.ExecuteCustomSqlCmd;
 import org.activiti.engine.impl.cmd.ExecuteJobsCmd;
+import org.activiti.engine.impl.cmd.GetActivityProfilesCmd;
+import org.activiti.engine.impl.cmd.GetCommandMetricsCmd;
 import org.activiti.engine.impl.cmd.GetJobExceptionStacktraceCmd;
+import org.activiti.engine.impl.cmd.GetProcessDefinitionCacheStatisticsCmd;
 import org.activiti.engine.impl.cmd.GetPropertiesCmd;
 import org.activiti.engine.impl.cmd.GetTableCountCmd;
 import org.activiti.engine.impl.cmd.GetTableMetaDataCmd;
 import org.activiti.engine.impl.cmd.GetTableNameCmd;
+import org.activiti.engine.impl.cmd.ResetActivityProfilesCmd;
+import org.activiti.engine.impl.cmd.ResetCommandMetricsCmd;
 import org.activiti.engine.impl.cmd.SetJobRetriesCmd;
 import org.activiti.engine.impl.db.DbSqlSession;
 import org.activiti.engine.impl.db.DbSqlSessionFactory;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandConfig;
 import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.management.CacheStatistics;
+import org.activiti.engine.management.ActivityProfile;
+import org.activiti.engine.management.CommandMetrics;
 import org.activiti.engine.management.TableMetaData;
 import org.activiti.engine.management.TablePageQuery;
 import org.activiti.engine.runtime.JobQuery;
@@ -86,6 +95,30 @@ public class ManagementServiceImpl extends ServiceImpl implements ManagementServ
     return commandExecutor.execute(new GetPropertiesCmd());
   }
 
+  public CacheStatistics getProcessDefinitionCacheStatistics() {
+    return commandExecutor.execute(new GetProcessDefinitionCacheStatisticsCmd());
+  }
+
+  public List<CommandMetrics> getCommandMetrics() {
+    return commandExecutor.execute(new GetCommandMetricsCmd());
+  }
+
+  public void resetCommandMetrics() {
+    commandExecutor.execute(new ResetCommandMetricsCmd());
+  }
+
+  public List<ActivityProfile> getActivityProfiles() {
+    return commandExecutor.execute(new GetActivityProfilesCmd(null));
+  }
+
+  public List<ActivityProfile> getActivityProfiles(String processDefinitionId) {
+    return commandExecutor.execute(new GetActivityProfilesCmd(processDefinitionId));
+  }
+
+  public void resetActivityProfiles() {
+    commandExecutor.execute(new ResetActivityProfilesCmd());
+  }
+
   public String databaseSchemaUpgrade(final Connection connection, final String catalog, final String schema) {
     CommandConfig config = commandExecutor.getDefaultConfig().transactionNotSupported();
     return commandExecutor.execute(config, new Command<String>(){
@@ -27,7 +27,10 @@ import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.cfg.TransactionContextFactory;
+import org.activiti.engine.impl.cmd.ClaimAsyncHistoryWriterCmd;
+import org.activiti.engine.impl.db.PrefetchingDbIdGenerator;
 import org.activiti.engine.impl.el.ExpressionManager;
+import org.activiti.engine.impl.history.AsyncHistoryWriter;
 import org.activiti.engine.impl.interceptor.CommandExecutor;
 import org.activiti.engine.impl.interceptor.SessionFactory;
 import org.activiti.engine.impl.jobexecutor.JobExecutor;
@@ -50,6 +53,7 @@ public class ProcessEngineImpl implements ProcessEngine {
   protected FormService formService;
   protected ManagementService managementService;
   protected JobExecutor jobExecutor;
+  protected AsyncHistoryWriter asyncHistoryWriter;
   protected CommandExecutor commandExecutor;
   protected Map<Class<?>, SessionFactory> sessionFactories;
   protected ExpressionManager expressionManager;
@@ -67,12 +71,18 @@ public class ProcessEngineImpl implements ProcessEngine {
     this.formService = processEngineConfiguration.getFormService();
     this.managementService = processEngineConfiguration.getManagementService();
     this.jobExecutor = processEngineConfiguration.getJobExecutor();
+    this.asyncHistoryWriter = processEngineConfiguration.getAsyncHistoryWriter();
     this.commandExecutor = processEngineConfiguration.getCommandExecutor();
     this.sessionFactories = processEngineConfiguration.getSessionFactories();
     this.transactionContextFactory = processEngineConfiguration.getTransactionContextFactory();
     
     commandExecutor.execute(processEngineConfiguration.getSchemaCommandConfig(), new SchemaOperationsProcessEngineBuild());
 
+    // history written asynchronously by another engine would be invisible to this one
+    if (asyncHistoryWriter == null) {
+      commandExecutor.execute(processEngineConfiguration.getSchemaCommandConfig(), new ClaimAsyncHistoryWriterCmd(null, 0L));
+    }
+
     if (name == null) {
       log.info("default activiti ProcessEngine created");
     } else {
@@ -81,6 +91,14 @@ public class ProcessEngineImpl implements ProcessEngine {
     
     ProcessEngines.registerProcessEngine(this);
 
+    if (processEngineConfiguration.getCommandMetricsCollector() != null && processEngineConfiguration.isCommandMetricsJmxEnabled()) {
+      processEngineConfiguration.getCommandMetricsCollector().registerMBean(name);
+    }
+
+    if (asyncHistoryWriter != null) {
+      asyncHistoryWriter.start();
+    }
+    
     if ((jobExecutor != null) && (jobExecutor.isAutoActivate())) {
       jobExecutor.start();
     }
@@ -95,9 +113,25 @@ public class ProcessEngineImpl implements ProcessEngine {
   
   public void close() {
     ProcessEngines.unregister(this);
+    if (processEngineConfiguration.getCommandMetricsCollector() != null) {
+      processEngineConfiguration.getCommandMetricsCollector().unregisterMBean();
+    }
     if ((jobExecutor != null) && (jobExecutor.isActive())) {
       jobExecutor.shutdown();
     }
+    
+    // Written after the job executor stopped, as jobs still produce history until then
+    if (asyncHistoryWriter != null) {
+      asyncHistoryWriter.shutdown();
+    }
+    
+    if (processEngineConfiguration.getIdGenerator() instanceof PrefetchingDbIdGenerator) {
+      ((PrefetchingDbIdGenerator) processEngineConfiguration.getIdGenerator()).shutdown();
+    }
+
+    if (processEngineConfiguration.getScriptingEngines() != null) {
+      processEngineConfiguration.getScriptingEngines().close();
+    }
 
     commandExecutor.execute(processEngineConfiguration.getSchemaCommandConfig(), new SchemaOperationProcessEngineClose());
     
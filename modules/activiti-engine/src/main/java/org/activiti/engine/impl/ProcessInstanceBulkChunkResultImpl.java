@@ -0,0 +1,41 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl;
+
+import java.util.List;
+
+import org.activiti.engine.runtime.ProcessInstanceBulkChunkResult;
+
+public class ProcessInstanceBulkChunkResultImpl implements ProcessInstanceBulkChunkResult {
+
+  protected List<String> processInstanceIds;
+  protected RuntimeException failure;
+
+  public ProcessInstanceBulkChunkResultImpl(List<String> processInstanceIds, RuntimeException failure) {
+    this.processInstanceIds = processInstanceIds;
+    this.failure = failure;
+  }
+
+  public List<String> getProcessInstanceIds() {
+    return processInstanceIds;
+  }
+
+  public boolean isSucceeded() {
+    return failure == null;
+  }
+
+  public RuntimeException getFailure() {
+    return failure;
+  }
+
+}
@@ -0,0 +1,217 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.cmd.ActivateProcessInstanceCmd;
+import org.activiti.engine.impl.cmd.DeleteProcessInstanceCmd;
+import org.activiti.engine.impl.cmd.ExecuteProcessInstanceBulkChunkCmd;
+import org.activiti.engine.impl.cmd.GetProcessInstanceIdsCmd;
+import org.activiti.engine.impl.cmd.SetProcessDefinitionVersionCmd;
+import org.activiti.engine.impl.cmd.SuspendProcessInstanceCmd;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandConfig;
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.activiti.engine.runtime.ProcessInstanceBulkChunkResult;
+import org.activiti.engine.runtime.ProcessInstanceBulkOperation;
+import org.activiti.engine.runtime.ProcessInstanceBulkResult;
+import org.activiti.engine.runtime.ProcessInstanceQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the single process instance command of an operation for every process instance,
+ * a chunk of process instances per transaction.
+ */
+public class ProcessInstanceBulkOperationImpl implements ProcessInstanceBulkOperation {
+
+  private static final Logger log = LoggerFactory.getLogger(ProcessInstanceBulkOperationImpl.class);
+
+  public static final int DEFAULT_BATCH_SIZE = 100;
+
+  protected static final AtomicInteger workerThreadCount = new AtomicInteger();
+
+  protected CommandExecutor commandExecutor;
+  protected List<String> processInstanceIds;
+  protected ProcessInstanceQueryImpl processInstanceQuery;
+  protected int batchSize = DEFAULT_BATCH_SIZE;
+  protected int parallelism = 1;
+
+  /** Creates the command of the operation for one process instance. */
+  protected interface ProcessInstanceCommandFactory {
+    Command<?> createCommand(String processInstanceId);
+  }
+
+  public ProcessInstanceBulkOperationImpl(CommandExecutor commandExecutor) {
+    this.commandExecutor = commandExecutor;
+  }
+
+  public ProcessInstanceBulkOperation processInstanceIds(List<String> processInstanceIds) {
+    if (processInstanceIds == null) {
+      throw new ActivitiIllegalArgumentException("Process instance ids is null");
+    }
+    this.processInstanceIds = processInstanceIds;
+    return this;
+  }
+
+  public ProcessInstanceBulkOperation processInstanceQuery(ProcessInstanceQuery processInstanceQuery) {
+    if (processInstanceQuery == null) {
+      throw new ActivitiIllegalArgumentException("Process instance query is null");
+    }
+    this.processInstanceQuery = (ProcessInstanceQueryImpl) processInstanceQuery;
+    return this;
+  }
+
+  public ProcessInstanceBulkOperation batchSize(int batchSize) {
+    if (batchSize < 1) {
+      throw new ActivitiIllegalArgumentException("Batch size must be positive: " + batchSize);
+    }
+    this.batchSize = batchSize;
+    return this;
+  }
+
+  public ProcessInstanceBulkOperation parallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new ActivitiIllegalArgumentException("Parallelism must be positive: " + parallelism);
+    }
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  public ProcessInstanceBulkResult delete(final String deleteReason) {
+    return execute(new ProcessInstanceCommandFactory() {
+      public Command<?> createCommand(String processInstanceId) {
+        return new DeleteProcessInstanceCmd(processInstanceId, deleteReason);
+      }
+    }, true);
+  }
+
+  public ProcessInstanceBulkResult suspend() {
+    return execute(new ProcessInstanceCommandFactory() {
+      public Command<?> createCommand(String processInstanceId) {
+        return new SuspendProcessInstanceCmd(processInstanceId);
+      }
+    }, false);
+  }
+
+  public ProcessInstanceBulkResult activate() {
+    return execute(new ProcessInstanceCommandFactory() {
+      public Command<?> createCommand(String processInstanceId) {
+        return new ActivateProcessInstanceCmd(processInstanceId);
+      }
+    }, false);
+  }
+
+  public ProcessInstanceBulkResult migrate(final int processDefinitionVersion) {
+    return execute(new ProcessInstanceCommandFactory() {
+      public Command<?> createCommand(String processInstanceId) {
+        return new SetProcessDefinitionVersionCmd(processInstanceId, processDefinitionVersion);
+      }
+    }, false);
+  }
+
+  protected ProcessInstanceBulkResult execute(ProcessInstanceCommandFactory commandFactory, boolean skipMissingProcessInstances) {
+    List<ExecuteProcessInstanceBulkChunkCmd> chunks = new ArrayList<ExecuteProcessInstanceBulkChunkCmd>();
+    List<String> ids = resolveProcessInstanceIds();
+    for (int i = 0; i < ids.size(); i += batchSize) {
+      List<String> chunkIds = new ArrayList<String>(ids.subList(i, Math.min(ids.size(), i + batchSize)));
+      List<Command<?>> commands = new ArrayList<Command<?>>(chunkIds.size());
+      for (String processInstanceId : chunkIds) {
+        commands.add(commandFactory.createCommand(processInstanceId));
+      }
+      chunks.add(new ExecuteProcessInstanceBulkChunkCmd(chunkIds, commands, skipMissingProcessInstances));
+    }
+
+    List<ProcessInstanceBulkChunkResult> chunkResults;
+    if (parallelism == 1 || chunks.size() <= 1) {
+      chunkResults = new ArrayList<ProcessInstanceBulkChunkResult>(chunks.size());
+      for (ExecuteProcessInstanceBulkChunkCmd chunk : chunks) {
+        chunkResults.add(executeChunk(chunk));
+      }
+    } else {
+      chunkResults = executeChunksInParallel(chunks);
+    }
+
+    ProcessInstanceBulkResultImpl result = new ProcessInstanceBulkResultImpl(chunkResults);
+    log.info("Bulk operation on {} process instances in {} chunks: {} succeeded, {} failed",
+            ids.size(), chunks.size(), result.getSucceededCount(), result.getFailedCount());
+    return result;
+  }
+
+  protected List<String> resolveProcessInstanceIds() {
+    if (processInstanceIds != null) {
+      return processInstanceIds;
+    } else if (processInstanceQuery != null) {
+      return commandExecutor.execute(new GetProcessInstanceIdsCmd(processInstanceQuery));
+    }
+    throw new ActivitiIllegalArgumentException("Process instance ids or a process instance query are required");
+  }
+
+  protected List<ProcessInstanceBulkChunkResult> executeChunksInParallel(List<ExecuteProcessInstanceBulkChunkCmd> chunks) {
+    ExecutorService workers = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()), new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "activiti-bulk-operation-" + workerThreadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    try {
+      List<Future<ProcessInstanceBulkChunkResult>> futures = new ArrayList<Future<ProcessInstanceBulkChunkResult>>(chunks.size());
+      for (final ExecuteProcessInstanceBulkChunkCmd chunk : chunks) {
+        futures.add(workers.submit(new Callable<ProcessInstanceBulkChunkResult>() {
+          public ProcessInstanceBulkChunkResult call() {
+            return executeChunk(chunk);
+          }
+        }));
+      }
+
+      List<ProcessInstanceBulkChunkResult> chunkResults = new ArrayList<ProcessInstanceBulkChunkResult>(chunks.size());
+      for (Future<ProcessInstanceBulkChunkResult> future : futures) {
+        chunkResults.add(future.get());
+      }
+      return chunkResults;
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ActivitiException("Interrupted while waiting for the bulk operation to complete", e);
+    } catch (ExecutionException e) {
+      throw new ActivitiException("Bulk operation failed", e.getCause());
+    } finally {
+      workers.shutdownNow();
+    }
+  }
+
+  protected ProcessInstanceBulkChunkResult executeChunk(ExecuteProcessInstanceBulkChunkCmd chunk) {
+    // every chunk is committed on its own, so a failing chunk doesn't roll back the others
+    CommandConfig commandConfig = commandExecutor.getDefaultConfig().transactionRequiresNew();
+    try {
+      commandExecutor.execute(commandConfig, chunk);
+      return new ProcessInstanceBulkChunkResultImpl(chunk.getProcessInstanceIds(), null);
+    } catch (RuntimeException e) {
+      log.warn("Bulk operation failed for a chunk of {} process instances: {}", chunk.getProcessInstanceIds().size(), e.getMessage());
+      return new ProcessInstanceBulkChunkResultImpl(chunk.getProcessInstanceIds(), e);
+    }
+  }
+
+}
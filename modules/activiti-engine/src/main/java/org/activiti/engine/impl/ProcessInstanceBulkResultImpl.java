@@ -0,0 +1,66 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.activiti.engine.runtime.ProcessInstanceBulkChunkResult;
+import org.activiti.engine.runtime.ProcessInstanceBulkResult;
+
+public class ProcessInstanceBulkResultImpl implements ProcessInstanceBulkResult {
+
+  protected List<ProcessInstanceBulkChunkResult> chunkResults;
+
+  public ProcessInstanceBulkResultImpl(List<ProcessInstanceBulkChunkResult> chunkResults) {
+    this.chunkResults = chunkResults;
+  }
+
+  public List<ProcessInstanceBulkChunkResult> getChunkResults() {
+    return chunkResults;
+  }
+
+  public int getSucceededCount() {
+    int succeededCount = 0;
+    for (ProcessInstanceBulkChunkResult chunkResult : chunkResults) {
+      if (chunkResult.isSucceeded()) {
+        succeededCount += chunkResult.getProcessInstanceIds().size();
+      }
+    }
+    return succeededCount;
+  }
+
+  public int getFailedCount() {
+    return getFailedProcessInstanceIds().size();
+  }
+
+  public boolean hasFailures() {
+    for (ProcessInstanceBulkChunkResult chunkResult : chunkResults) {
+      if (!chunkResult.isSucceeded()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public List<String> getFailedProcessInstanceIds() {
+    List<String> failedProcessInstanceIds = new ArrayList<String>();
+    for (ProcessInstanceBulkChunkResult chunkResult : chunkResults) {
+      if (!chunkResult.isSucceeded()) {
+        failedProcessInstanceIds.addAll(chunkResult.getProcessInstanceIds());
+      }
+    }
+    return failedProcessInstanceIds;
+  }
+
+}
@@ -256,6 +256,17 @@ public class ProcessInstanceQueryImpl extends AbstractVariableQueryImpl<ProcessI
     }
   }
   
+  /**
+   * Selects only the ids of the matching process instances, ignoring paging and ordering.
+   */
+  public List<String> executeIdList(CommandContext commandContext) {
+    checkQueryOk();
+    ensureVariablesInitialized();
+    return commandContext
+      .getExecutionEntityManager()
+      .findProcessInstanceIdsByQueryCriteria(this);
+  }
+  
   //getters /////////////////////////////////////////////////////////////////
   
   public boolean getOnlyProcessInstances() {
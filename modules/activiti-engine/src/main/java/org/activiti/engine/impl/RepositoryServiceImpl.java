@@ -32,6 +32,7 @@ import org.activiti.engine.impl.cmd.DeployCmd;
 import org.activiti.engine.impl.cmd.GetBpmnModelCmd;
 import org.activiti.engine.impl.cmd.GetDeploymentProcessDefinitionCmd;
 import org.activiti.engine.impl.cmd.GetDeploymentProcessDiagramCmd;
+import org.activiti.engine.impl.cmd.GetProcessDiagramCmd;
 import org.activiti.engine.impl.cmd.GetDeploymentProcessDiagramLayoutCmd;
 import org.activiti.engine.impl.cmd.GetDeploymentProcessModelCmd;
 import org.activiti.engine.impl.cmd.GetDeploymentResourceCmd;
@@ -199,6 +200,10 @@ public class RepositoryServiceImpl extends ServiceImpl implements RepositoryServ
     return commandExecutor.execute(new GetDeploymentProcessDiagramCmd(processDefinitionId));
   }
 
+  public InputStream getProcessDiagram(String processDefinitionId, List<String> highLightedActivities, List<String> highLightedFlows) {
+    return commandExecutor.execute(new GetProcessDiagramCmd(processDefinitionId, highLightedActivities, highLightedFlows));
+  }
+
   public DiagramLayout getProcessDiagramLayout(String processDefinitionId) {
     return commandExecutor.execute(new GetDeploymentProcessDiagramLayoutCmd(processDefinitionId));
   }
@@ -36,6 +36,7 @@ import org.activiti.engine.impl.cmd.GetExecutionVariablesCmd;
 import org.activiti.engine.impl.cmd.GetIdentityLinksForProcessInstanceCmd;
 import org.activiti.engine.impl.cmd.GetProcessInstanceEventsCmd;
 import org.activiti.engine.impl.cmd.GetStartFormCmd;
+import org.activiti.engine.impl.cmd.GetVariablesForExecutionsCmd;
 import org.activiti.engine.impl.cmd.HasExecutionVariableCmd;
 import org.activiti.engine.impl.cmd.MessageEventReceivedCmd;
 import org.activiti.engine.impl.cmd.RemoveEventListenerCommand;
@@ -52,6 +53,7 @@ import org.activiti.engine.runtime.ExecutionQuery;
 import org.activiti.engine.runtime.NativeExecutionQuery;
 import org.activiti.engine.runtime.NativeProcessInstanceQuery;
 import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.runtime.ProcessInstanceBulkOperation;
 import org.activiti.engine.runtime.ProcessInstanceQuery;
 import org.activiti.engine.task.Event;
 import org.activiti.engine.task.IdentityLink;
@@ -147,6 +149,14 @@ public class RuntimeServiceImpl extends ServiceImpl implements RuntimeService {
     return commandExecutor.execute(new GetExecutionVariablesCmd(executionId, variableNames, true));
   }
 
+  public Map<String, Map<String, Object>> getVariablesForExecutions(Collection<String> executionIds, Collection<String> variableNames) {
+    return commandExecutor.execute(new GetVariablesForExecutionsCmd(executionIds, variableNames, false));
+  }
+
+  public Map<String, Map<String, Object>> getVariablesLocalForExecutions(Collection<String> executionIds, Collection<String> variableNames) {
+    return commandExecutor.execute(new GetVariablesForExecutionsCmd(executionIds, variableNames, true));
+  }
+
   public Object getVariable(String executionId, String variableName) {
     return commandExecutor.execute(new GetExecutionVariableCmd(executionId, variableName, false));
   }
@@ -274,6 +284,10 @@ public class RuntimeServiceImpl extends ServiceImpl implements RuntimeService {
   public void activateProcessInstanceById(String processInstanceId) {
     commandExecutor.execute(new ActivateProcessInstanceCmd(processInstanceId));
   }
+
+  public ProcessInstanceBulkOperation createProcessInstanceBulkOperation() {
+    return new ProcessInstanceBulkOperationImpl(commandExecutor);
+  }
   
   public ProcessInstance startProcessInstanceByMessage(String messageName) {
     return commandExecutor.execute(new StartProcessInstanceByMessageCmd(messageName, null, null, null));
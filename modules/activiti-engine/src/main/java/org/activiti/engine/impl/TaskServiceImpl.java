@@ -47,6 +47,7 @@ import org.activiti.engine.impl.cmd.GetTaskEventsCmd;
 import org.activiti.engine.impl.cmd.GetTaskVariableCmd;
 import org.activiti.engine.impl.cmd.GetTaskVariablesCmd;
 import org.activiti.engine.impl.cmd.GetTypeCommentsCmd;
+import org.activiti.engine.impl.cmd.GetVariablesForTasksCmd;
 import org.activiti.engine.impl.cmd.HasTaskVariableCmd;
 import org.activiti.engine.impl.cmd.NewTaskCmd;
 import org.activiti.engine.impl.cmd.RemoveTaskVariablesCmd;
@@ -218,6 +219,14 @@ public class TaskServiceImpl extends ServiceImpl implements TaskService {
     return commandExecutor.execute(new GetTaskVariablesCmd(executionId, variableNames, true));
   }
 
+  public Map<String, Map<String, Object>> getVariablesForTasks(Collection<String> taskIds, Collection<String> variableNames) {
+    return commandExecutor.execute(new GetVariablesForTasksCmd(taskIds, variableNames, false));
+  }
+
+  public Map<String, Map<String, Object>> getVariablesLocalForTasks(Collection<String> taskIds, Collection<String> variableNames) {
+    return commandExecutor.execute(new GetVariablesForTasksCmd(taskIds, variableNames, true));
+  }
+
   public Object getVariable(String executionId, String variableName) {
     return commandExecutor.execute(new GetTaskVariableCmd(executionId, variableName, false));
   }
@@ -122,7 +122,7 @@ public class UserTaskActivityBehavior extends TaskActivityBehavior {
     handleAssignments(task, execution);
    
     // All properties set, now firing 'create' events
-    if (Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if (Context.isEventDispatcherEnabled(ActivitiEventType.TASK_CREATED)) {
       Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
         ActivitiEventBuilder.createEntityEvent(ActivitiEventType.TASK_CREATED, task));
     }
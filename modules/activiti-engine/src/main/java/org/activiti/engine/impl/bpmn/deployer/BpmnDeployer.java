@@ -20,6 +20,8 @@ import org.activiti.engine.ProcessEngineConfiguration;
 import org.activiti.engine.delegate.Expression;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.delegate.event.impl.ActivitiEventDispatcherImpl;
+import org.activiti.engine.delegate.event.impl.ProcessDefinitionEventSupport;
 import org.activiti.engine.impl.bpmn.diagram.ProcessDiagramGenerator;
 import org.activiti.engine.impl.bpmn.parser.BpmnParse;
 import org.activiti.engine.impl.bpmn.parser.BpmnParser;
@@ -117,7 +119,8 @@ public class BpmnDeployer implements Deployer {
           // after the process-definition is actually deployed. Also to prevent resource-generation failure every
           // time the process definition is added to the deployment-cache when diagram-generation has failed the first time.
           if(deployment.isNew()) {
-            if (processEngineConfiguration.isCreateDiagramOnDeploy() &&
+            // with lazy diagram generation, the diagram is rendered and cached on first request instead
+            if (processEngineConfiguration.isCreateDiagramOnDeploy() && !processEngineConfiguration.isLazyDiagramGeneration() &&
                   diagramResourceName==null && processDefinition.isGraphicalNotationDefined()) {
               try {
                   byte[] diagramBytes = IoUtil.readInputStream(processEngineConfiguration.
@@ -182,7 +185,7 @@ public class BpmnDeployer implements Deployer {
         }
         processDefinition.setId(processDefinitionId);
         
-        if(commandContext.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+        if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_CREATED)) {
         	commandContext.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
         			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_CREATED, processDefinition));
         }
@@ -199,7 +202,7 @@ public class BpmnDeployer implements Deployer {
         dbSqlSession.insert(processDefinition);
         addAuthorizations(processDefinition);
 
-        if(commandContext.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+        if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_INITIALIZED)) {
         	commandContext.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
         			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_INITIALIZED, processDefinition));
         }
@@ -230,6 +233,12 @@ public class BpmnDeployer implements Deployer {
         .getProcessDefinitionCache()
         .add(processDefinition.getId(), processDefinition);
       
+      if (processEngineConfiguration.getEventDispatcher() instanceof ActivitiEventDispatcherImpl
+          && processDefinition.getEventSupport() instanceof ProcessDefinitionEventSupport) {
+        ((ProcessDefinitionEventSupport) processDefinition.getEventSupport()).register(
+            (ActivitiEventDispatcherImpl) processEngineConfiguration.getEventDispatcher(), processDefinition.getId());
+      }
+      
       // Add to deployment for further usage
       deployment.addDeployedArtifact(processDefinition);
     }
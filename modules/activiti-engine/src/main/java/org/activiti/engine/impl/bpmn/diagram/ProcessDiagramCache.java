@@ -0,0 +1,243 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.bpmn.diagram;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.util.IoUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps rendered process diagrams, so a diagram is only rendered once per process definition
+ * and set of highlighted elements. The most recently used diagrams are kept in memory; when a
+ * directory is configured, the diagrams without highlighted elements are also stored as files in
+ * that directory, so they survive a restart of the engine. Highlighted diagrams depend on the state
+ * of a process instance and aren't stored, which keeps the directory bounded by the deployed process
+ * definitions (their files are removed with them, see {@link #remove(String)}).
+ */
+public class ProcessDiagramCache {
+
+  private static final Logger log = LoggerFactory.getLogger(ProcessDiagramCache.class);
+
+  protected final Map<String, byte[]> diagrams;
+  protected final int limit;
+  protected final File directory;
+
+  public ProcessDiagramCache(final int limit, File directory) {
+    this.limit = limit;
+    this.directory = directory;
+    this.diagrams = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+        return size() > limit;
+      }
+    };
+    if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+      throw new ActivitiException("Could not create process diagram cache directory " + directory);
+    }
+  }
+
+  /**
+   * Creates the cache key of a diagram. The deployment time is part of the key, so a diagram
+   * stored on disk isn't served for another process definition that got the same id later
+   * (e.g. after the database has been recreated). The order of the highlighted elements doesn't matter.
+   */
+  public static String createKey(String processDefinitionId, Date deploymentTime, String imageType,
+          List<String> highLightedActivities, List<String> highLightedFlows) {
+    StringBuilder key = new StringBuilder(processDefinitionId)
+      .append('|').append(deploymentTime != null ? deploymentTime.getTime() : 0L)
+      .append('|').append(imageType);
+    appendSorted(key, highLightedActivities);
+    appendSorted(key, highLightedFlows);
+    return key.toString();
+  }
+
+  protected static void appendSorted(StringBuilder key, List<String> ids) {
+    key.append('|');
+    if (ids != null && !ids.isEmpty()) {
+      List<String> sortedIds = new ArrayList<String>(ids);
+      Collections.sort(sortedIds);
+      for (int i = 0; i < sortedIds.size(); i++) {
+        if (i > 0) {
+          key.append(',');
+        }
+        key.append(sortedIds.get(i));
+      }
+    }
+  }
+
+  /**
+   * Returns the cached diagram with the given key, or null when it isn't cached.
+   */
+  public byte[] get(String key) {
+    byte[] diagram;
+    synchronized (diagrams) {
+      diagram = diagrams.get(key);
+    }
+    if (diagram == null && isStoredOnDisk(key)) {
+      diagram = readFile(getFile(key));
+      if (diagram != null) {
+        synchronized (diagrams) {
+          diagrams.put(key, diagram);
+        }
+      }
+    }
+    return diagram;
+  }
+
+  public void put(String key, byte[] diagram) {
+    synchronized (diagrams) {
+      diagrams.put(key, diagram);
+    }
+    if (isStoredOnDisk(key)) {
+      writeFile(getFile(key), diagram);
+    }
+  }
+
+  /**
+   * Removes all diagrams of the given process definition.
+   */
+  public void remove(String processDefinitionId) {
+    String keyPrefix = processDefinitionId + "|";
+    synchronized (diagrams) {
+      Iterator<String> keys = diagrams.keySet().iterator();
+      while (keys.hasNext()) {
+        if (keys.next().startsWith(keyPrefix)) {
+          keys.remove();
+        }
+      }
+    }
+    if (directory != null) {
+      String filePrefix = getFilePrefix(processDefinitionId);
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          if (file.getName().startsWith(filePrefix) && !file.delete()) {
+            log.warn("Could not delete cached process diagram {}", file);
+          }
+        }
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (diagrams) {
+      diagrams.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (diagrams) {
+      return diagrams.size();
+    }
+  }
+
+  // files ////////////////////////////////////////////////////////////////////
+
+  protected boolean isStoredOnDisk(String key) {
+    // the key of a diagram without highlighted elements ends with two empty lists, see createKey
+    return directory != null && key.endsWith("||");
+  }
+
+  protected File getFile(String key) {
+    String processDefinitionId = key.substring(0, key.indexOf('|'));
+    return new File(directory, getFilePrefix(processDefinitionId) + hash(key));
+  }
+
+  protected String getFilePrefix(String processDefinitionId) {
+    // process definition ids contain colons, which aren't allowed in file names on every platform
+    return processDefinitionId.replaceAll("[^A-Za-z0-9._-]", "_") + "-";
+  }
+
+  protected String hash(String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8"));
+      StringBuilder hash = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hash.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return hash.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new ActivitiException("SHA-1 is not available", e);
+    } catch (IOException e) {
+      throw new ActivitiException("UTF-8 is not available", e);
+    }
+  }
+
+  protected byte[] readFile(File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    InputStream inputStream = null;
+    try {
+      inputStream = new FileInputStream(file);
+      return IoUtil.readInputStream(inputStream, file.getName());
+    } catch (Exception e) {
+      log.warn("Could not read cached process diagram {}: {}", file, e.getMessage());
+      return null;
+    } finally {
+      IoUtil.closeSilently(inputStream);
+    }
+  }
+
+  protected void writeFile(File file, byte[] diagram) {
+    // written to a temporary file first, so a concurrent reader never sees a partial diagram
+    File temporaryFile = new File(directory, file.getName() + ".tmp" + Thread.currentThread().getId());
+    OutputStream outputStream = null;
+    try {
+      outputStream = new FileOutputStream(temporaryFile);
+      outputStream.write(diagram);
+      outputStream.close();
+      outputStream = null;
+      if (!temporaryFile.renameTo(file)) {
+        file.delete();
+        if (!temporaryFile.renameTo(file)) {
+          log.warn("Could not store cached process diagram {}", file);
+          temporaryFile.delete();
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Could not store cached process diagram {}: {}", file, e.getMessage());
+      temporaryFile.delete();
+    } finally {
+      IoUtil.closeSilently(outputStream);
+    }
+  }
+
+  // getters //////////////////////////////////////////////////////////////////
+
+  public int getLimit() {
+    return limit;
+  }
+
+  public File getDirectory() {
+    return directory;
+  }
+
+}
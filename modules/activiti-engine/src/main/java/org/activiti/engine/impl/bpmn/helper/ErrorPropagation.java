@@ -168,7 +168,7 @@ public class ErrorPropagation {
   }
 
   private static void executeEventHandler(ActivityImpl borderEventActivity, ActivityExecution leavingExecution, String errorCode) {  
-  	if(Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+  	if(Context.isEventDispatcherEnabled(ActivitiEventType.ACTIVITY_ERROR_RECEIVED)) {
   		Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
   				ActivitiEventBuilder.createErrorEvent(ActivitiEventType.ACTIVITY_ERROR_RECEIVED, borderEventActivity.getId(), errorCode, leavingExecution.getId(), leavingExecution.getProcessInstanceId(), leavingExecution.getProcessDefinitionId()));
   	}
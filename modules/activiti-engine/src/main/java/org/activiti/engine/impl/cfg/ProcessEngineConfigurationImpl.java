@@ -13,6 +13,7 @@
 
 package org.activiti.engine.impl.cfg;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -32,6 +33,7 @@ import java.util.ServiceLoader;
 import java.util.Set;
 
 import javax.naming.InitialContext;
+import javax.script.CompiledScript;
 import javax.sql.DataSource;
 
 import org.activiti.engine.ActivitiException;
@@ -62,6 +64,7 @@ import org.activiti.engine.impl.TaskServiceImpl;
 import org.activiti.engine.impl.bpmn.data.ItemInstance;
 import org.activiti.engine.impl.bpmn.deployer.BpmnDeployer;
 import org.activiti.engine.impl.bpmn.diagram.DefaultProcessDiagramGenerator;
+import org.activiti.engine.impl.bpmn.diagram.ProcessDiagramCache;
 import org.activiti.engine.impl.bpmn.parser.BpmnParseHandlers;
 import org.activiti.engine.impl.bpmn.parser.BpmnParser;
 import org.activiti.engine.impl.bpmn.parser.factory.ActivityBehaviorFactory;
@@ -105,6 +108,7 @@ import org.activiti.engine.impl.calendar.DurationBusinessCalendar;
 import org.activiti.engine.impl.calendar.MapBusinessCalendarManager;
 import org.activiti.engine.impl.cfg.standalone.StandaloneMybatisTransactionContextFactory;
 import org.activiti.engine.impl.db.DbIdGenerator;
+import org.activiti.engine.impl.db.PrefetchingDbIdGenerator;
 import org.activiti.engine.impl.db.DbSqlSessionFactory;
 import org.activiti.engine.impl.db.IbatisVariableTypeHandler;
 import org.activiti.engine.impl.delegate.DefaultDelegateInterceptor;
@@ -121,16 +125,20 @@ import org.activiti.engine.impl.form.FormTypes;
 import org.activiti.engine.impl.form.JuelFormEngine;
 import org.activiti.engine.impl.form.LongFormType;
 import org.activiti.engine.impl.form.StringFormType;
+import org.activiti.engine.impl.history.AsyncHistoryWriter;
 import org.activiti.engine.impl.history.HistoryLevel;
 import org.activiti.engine.impl.history.parse.FlowNodeHistoryParseHandler;
 import org.activiti.engine.impl.history.parse.ProcessHistoryParseHandler;
 import org.activiti.engine.impl.history.parse.StartEventHistoryParseHandler;
 import org.activiti.engine.impl.history.parse.UserTaskHistoryParseHandler;
+import org.activiti.engine.impl.identity.DefaultMembershipCache;
+import org.activiti.engine.impl.identity.MembershipCache;
 import org.activiti.engine.impl.interceptor.CommandConfig;
 import org.activiti.engine.impl.interceptor.CommandContextFactory;
 import org.activiti.engine.impl.interceptor.CommandContextInterceptor;
 import org.activiti.engine.impl.interceptor.CommandExecutor;
 import org.activiti.engine.impl.interceptor.CommandInterceptor;
+import org.activiti.engine.impl.interceptor.CommandMetricsInterceptor;
 import org.activiti.engine.impl.interceptor.CommandInvoker;
 import org.activiti.engine.impl.interceptor.DelegateInterceptor;
 import org.activiti.engine.impl.interceptor.LogInterceptor;
@@ -140,6 +148,7 @@ import org.activiti.engine.impl.jobexecutor.CallerRunsRejectedJobsHandler;
 import org.activiti.engine.impl.jobexecutor.DefaultFailedJobCommandFactory;
 import org.activiti.engine.impl.jobexecutor.DefaultJobExecutor;
 import org.activiti.engine.impl.jobexecutor.FailedJobCommandFactory;
+import org.activiti.engine.impl.jobexecutor.HistoricProcessInstancePurgeJobHandler;
 import org.activiti.engine.impl.jobexecutor.JobHandler;
 import org.activiti.engine.impl.jobexecutor.ProcessEventJobHandler;
 import org.activiti.engine.impl.jobexecutor.RejectedJobsHandler;
@@ -148,6 +157,8 @@ import org.activiti.engine.impl.jobexecutor.TimerCatchIntermediateEventJobHandle
 import org.activiti.engine.impl.jobexecutor.TimerExecuteNestedActivityJobHandler;
 import org.activiti.engine.impl.jobexecutor.TimerStartEventJobHandler;
 import org.activiti.engine.impl.jobexecutor.TimerSuspendProcessDefinitionHandler;
+import org.activiti.engine.impl.metrics.ActivityProfiler;
+import org.activiti.engine.impl.metrics.CommandMetricsCollector;
 import org.activiti.engine.impl.persistence.DefaultHistoryManagerSessionFactory;
 import org.activiti.engine.impl.persistence.GenericManagerFactory;
 import org.activiti.engine.impl.persistence.GroupEntityManagerFactory;
@@ -156,6 +167,7 @@ import org.activiti.engine.impl.persistence.UserEntityManagerFactory;
 import org.activiti.engine.impl.persistence.deploy.DefaultDeploymentCache;
 import org.activiti.engine.impl.persistence.deploy.Deployer;
 import org.activiti.engine.impl.persistence.deploy.DeploymentCache;
+import org.activiti.engine.impl.persistence.deploy.ProcessDefinitionWeigher;
 import org.activiti.engine.impl.persistence.deploy.DeploymentManager;
 import org.activiti.engine.impl.persistence.entity.AttachmentEntityManager;
 import org.activiti.engine.impl.persistence.entity.ByteArrayEntityManager;
@@ -288,11 +300,25 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected DeploymentManager deploymentManager;
   
   protected int processDefinitionCacheLimit = -1; // By default, no limit
+  protected long processDefinitionCacheWeightLimit = -1; // By default, no limit. See ProcessDefinitionWeigher for the unit.
   protected DeploymentCache<ProcessDefinitionEntity> processDefinitionCache;
   
   protected int knowledgeBaseCacheLimit = -1;
   protected DeploymentCache<Object> knowledgeBaseCache;
 
+  // MEMBERSHIP CACHE /////////////////////////////////////////////////////////
+  
+  /**
+   * Maximum number of users for which the group ids are cached for candidate user and authorization
+   * queries, see {@link MembershipCache}. By default -1: no caching.
+   */
+  protected int membershipCacheLimit = -1;
+  
+  /** time in milliseconds the group ids of a user are cached, by default one minute */
+  protected long membershipCacheExpirationTime = 60000L;
+  
+  protected MembershipCache membershipCache;
+
   // JOB EXECUTOR /////////////////////////////////////////////////////////////
   
   protected List<JobHandler> customJobHandlers;
@@ -304,6 +330,16 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected TransactionFactory transactionFactory;
   
   protected Set<Class<?>> customMybatisMappers;
+  
+  /**
+   * When enabled, the inserts, updates and deletes of a flush are sent to the 
+   * database using jdbc batching instead of one roundtrip per statement.
+   * Optimistic locking is then checked on the update counts of the batch.
+   * 
+   * Disabled by default, as not all jdbc drivers report reliable update counts
+   * for batched statements (in which case the optimistic locking check is skipped).
+   */
+  protected boolean jdbcBatchFlushEnabled = false;
 
   // ID GENERATOR /////////////////////////////////////////////////////////////
   
@@ -311,6 +347,66 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected DataSource idGeneratorDataSource;
   protected String idGeneratorDataSourceJndiName;
   
+  /**
+   * When enabled, the default id generator fetches the next id block in the background 
+   * before the current block is used up, and adapts the block size (between the idBlockSize 
+   * and the idGeneratorMaxBlockSize) to the rate in which ids are used.
+   */
+  protected boolean idGeneratorPrefetchEnabled = false;
+  protected int idGeneratorMaxBlockSize = 100000;
+  
+  // ASYNC HISTORY ////////////////////////////////////////////////////////////
+  
+  /**
+   * When enabled, the history inserts and updates of a transaction are written by a background
+   * thread after the transaction has committed, together with the history of other transactions.
+   * History queries are then eventually consistent. Can only be used when a single process engine 
+   * uses the database, see {@link AsyncHistoryWriter}. Disabled by default.
+   */
+  protected boolean asyncHistoryEnabled = false;
+  protected long asyncHistoryWriteIntervalMillis = 100L;
+  protected AsyncHistoryWriter asyncHistoryWriter;
+  
+  // PROCESS DIAGRAMS /////////////////////////////////////////////////////////
+  
+  /**
+   * When enabled, the diagrams of process definitions without diagram resource aren't rendered 
+   * during the deployment, but when {@link org.activiti.engine.RepositoryService#getProcessDiagram(String)} 
+   * is first called for them. Only applies when createDiagramOnDeploy is enabled. Disabled by default.
+   */
+  protected boolean lazyDiagramGeneration = false;
+  
+  /** maximum number of rendered process diagrams kept in memory */
+  protected int processDiagramCacheLimit = 100;
+  
+  /** directory where rendered process diagrams are stored as well, null to keep them in memory only */
+  protected String processDiagramCacheDirectory;
+  
+  protected ProcessDiagramCache processDiagramCache;
+  
+  // COMMAND METRICS //////////////////////////////////////////////////////////
+  
+  /**
+   * When enabled, the count, latency, failures and flush statistics of every command are recorded,
+   * see {@link ManagementService#getCommandMetrics()}. Disabled by default.
+   */
+  protected boolean commandMetricsEnabled = false;
+  
+  /** when enabled as well, the command metrics are also exposed as MBean in the platform MBean server */
+  protected boolean commandMetricsJmxEnabled = false;
+  
+  protected CommandMetricsCollector commandMetricsCollector;
+  
+  // ACTIVITY PROFILING ///////////////////////////////////////////////////////
+  
+  /**
+   * When enabled, the time spent in every activity of every process definition is recorded,
+   * see {@link ManagementService#getActivityProfiles()}. Disabled by default.
+   */
+  protected boolean activityProfilingEnabled = false;
+  
+  protected ActivityProfiler activityProfiler;
+  
   // BPMN PARSER //////////////////////////////////////////////////////////////
   
   protected List<BpmnParseHandler> preBpmnParseHandlers;
@@ -336,10 +432,28 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   protected List<VariableType> customPostVariableTypes;
   protected VariableTypes variableTypes;
   
+  /**
+   * When enabled, reading a single variable of an execution or task whose variables
+   * aren't loaded yet only fetches the variables with that name, for the whole chain
+   * of parent scopes in one query, instead of all variables of every scope in the chain.
+   * The fetched variables are kept for the rest of the command.
+   */
+  protected boolean variableFetchingByNameEnabled = false;
+  
   protected ExpressionManager expressionManager;
   protected List<String> customScriptingEngineClasses;
   protected ScriptingEngines scriptingEngines;
   protected List<ResolverFactory> resolverFactories;
+  protected int compiledScriptCacheLimit = 1000; // Scripts compiled by the scripting engines, -1 for no limit
+  
+  /**
+   * Script engines that don't allow multithreaded access, like the JDK 8 javascript engine (Nashorn), 
+   * are pooled: at most scriptEnginePoolSize idle engines per language, each with at most 
+   * pooledCompiledScriptCacheLimit compiled scripts. 0 disables compiling scripts of such engines, 
+   * -1 means no limit of compiled scripts.
+   */
+  protected int scriptEnginePoolSize = 10;
+  protected int pooledCompiledScriptCacheLimit = 100;
   
   protected BusinessCalendarManager businessCalendarManager;
 
@@ -381,6 +495,8 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   
   protected boolean enableEventDispatcher = true;
   protected ActivitiEventDispatcher eventDispatcher;
+  /** the event dispatcher, when it's the default implementation that knows which event types are listened to */
+  protected ActivitiEventDispatcherImpl eventDispatcherImpl;
   protected List<ActivitiEventListener> eventListeners;
   protected Map<String, List<ActivitiEventListener>> typedEventListeners;
   
@@ -397,6 +513,7 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   	initConfigurators();
   	configuratorsBeforeInit();
     initProcessDiagramGenerator();
+    initProcessDiagramCache();
     initHistoryLevel();
     initExpressionManager();
     initVariableTypes();
@@ -405,14 +522,18 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     initFormTypes();
     initScriptingEngines();
     initClock();
+    initMembershipCache();
     initBusinessCalendarManager();
     initCommandContextFactory();
     initTransactionContextFactory();
+    initCommandMetrics();
+    initActivityProfiler();
     initCommandExecutors();
     initServices();
     initIdGenerator();
     initDeployers();
     initJobExecutor();
+    initAsyncHistoryWriter();
     initDataSource();
     initTransactionFactory();
     initSqlSessionFactory();
@@ -478,6 +599,9 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
 
   protected Collection< ? extends CommandInterceptor> getDefaultCommandInterceptors() {
     List<CommandInterceptor> interceptors = new ArrayList<CommandInterceptor>();
+    if (commandMetricsCollector != null) {
+      interceptors.add(new CommandMetricsInterceptor(commandMetricsCollector));
+    }
     interceptors.add(new LogInterceptor());
     
     CommandInterceptor transactionInterceptor = createTransactionInterceptor();
@@ -508,6 +632,18 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   
   protected abstract CommandInterceptor createTransactionInterceptor();
   
+  protected void initCommandMetrics() {
+    if (commandMetricsEnabled && commandMetricsCollector == null) {
+      commandMetricsCollector = new CommandMetricsCollector();
+    }
+  }
+  
+  protected void initActivityProfiler() {
+    if (activityProfilingEnabled && activityProfiler == null) {
+      activityProfiler = new ActivityProfiler();
+    }
+  }
+  
   // services /////////////////////////////////////////////////////////////////
   
   protected void initServices() {
@@ -722,6 +858,9 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
       dbSqlSessionFactory.setDatabaseTablePrefix(databaseTablePrefix);
       dbSqlSessionFactory.setTablePrefixIsSchema(tablePrefixIsSchema);
       dbSqlSessionFactory.setDatabaseSchema(databaseSchema);
+      dbSqlSessionFactory.setJdbcBatchFlushEnabled(jdbcBatchFlushEnabled);
+      dbSqlSessionFactory.setDeferredFlushHandler(asyncHistoryWriter);
+      dbSqlSessionFactory.setCommandMetricsCollector(commandMetricsCollector);
       addSessionFactory(dbSqlSessionFactory);
       
       addSessionFactory(new GenericManagerFactory(AttachmentEntityManager.class));
@@ -857,10 +996,11 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
       
       // Process Definition cache
       if (processDefinitionCache == null) {
-        if (processDefinitionCacheLimit <= 0) {
+        if (processDefinitionCacheLimit <= 0 && processDefinitionCacheWeightLimit <= 0) {
           processDefinitionCache = new DefaultDeploymentCache<ProcessDefinitionEntity>();
         } else {
-          processDefinitionCache = new DefaultDeploymentCache<ProcessDefinitionEntity>(processDefinitionCacheLimit);
+          processDefinitionCache = new DefaultDeploymentCache<ProcessDefinitionEntity>(processDefinitionCacheLimit, 
+                  processDefinitionCacheWeightLimit, new ProcessDefinitionWeigher());
         }
       } 
       
@@ -1020,12 +1160,25 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     }
   }
 
+  protected void initMembershipCache() {
+    if (membershipCache == null && membershipCacheLimit > 0) {
+      membershipCache = new DefaultMembershipCache(membershipCacheLimit, membershipCacheExpirationTime, clock);
+    }
+  }
+
   protected void initProcessDiagramGenerator() {
     if (processDiagramGenerator == null) {
       processDiagramGenerator = new DefaultProcessDiagramGenerator();
     }
   }
 
+  protected void initProcessDiagramCache() {
+    if (processDiagramCache == null) {
+      File directory = processDiagramCacheDirectory != null ? new File(processDiagramCacheDirectory) : null;
+      processDiagramCache = new ProcessDiagramCache(processDiagramCacheLimit, directory);
+    }
+  }
+
   // job executor /////////////////////////////////////////////////////////////
   
   protected void initJobExecutor() {
@@ -1057,6 +1210,9 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     TimerActivateProcessDefinitionHandler activateProcessDefinitionHandler = new TimerActivateProcessDefinitionHandler();
     jobHandlers.put(activateProcessDefinitionHandler.getType(), activateProcessDefinitionHandler);
     
+    HistoricProcessInstancePurgeJobHandler historicProcessInstancePurgeJobHandler = new HistoricProcessInstancePurgeJobHandler();
+    jobHandlers.put(historicProcessInstancePurgeJobHandler.getType(), historicProcessInstancePurgeJobHandler);
+    
     // if we have custom job handlers, register them
     if (getCustomJobHandlers()!=null) {
       for (JobHandler customJobHandler : getCustomJobHandlers()) {
@@ -1085,6 +1241,17 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   	}
   }
   
+  protected void initAsyncHistoryWriter() {
+    if (asyncHistoryEnabled && asyncHistoryWriter == null) {
+      asyncHistoryWriter = new AsyncHistoryWriter();
+      asyncHistoryWriter.setWriteIntervalMillis(asyncHistoryWriteIntervalMillis);
+    }
+    if (asyncHistoryWriter != null) {
+      asyncHistoryWriter.setCommandExecutor(commandExecutor);
+      asyncHistoryWriter.setCommandConfig(getDefaultCommandConfig().transactionRequiresNew());
+    }
+  }
+  
   // id generator /////////////////////////////////////////////////////////////
   
   protected void initIdGenerator() {
@@ -1106,7 +1273,14 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
         idGeneratorCommandExecutor = getCommandExecutor();
       }
       
-      DbIdGenerator dbIdGenerator = new DbIdGenerator();
+      DbIdGenerator dbIdGenerator = null;
+      if (idGeneratorPrefetchEnabled) {
+        PrefetchingDbIdGenerator prefetchingDbIdGenerator = new PrefetchingDbIdGenerator();
+        prefetchingDbIdGenerator.setMaxIdBlockSize(idGeneratorMaxBlockSize);
+        dbIdGenerator = prefetchingDbIdGenerator;
+      } else {
+        dbIdGenerator = new DbIdGenerator();
+      }
       dbIdGenerator.setIdBlockSize(idBlockSize);
       dbIdGenerator.setCommandExecutor(idGeneratorCommandExecutor);
       dbIdGenerator.setCommandConfig(getDefaultCommandConfig().transactionRequiresNew());
@@ -1197,6 +1371,9 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     }
     if (scriptingEngines==null) {
       scriptingEngines = new ScriptingEngines(new ScriptBindingsFactory(resolverFactories));
+      scriptingEngines.setCompiledScriptCache(new DefaultDeploymentCache<CompiledScript>(compiledScriptCacheLimit, false));
+      scriptingEngines.setScriptEnginePoolSize(scriptEnginePoolSize);
+      scriptingEngines.setPooledCompiledScriptCacheLimit(pooledCompiledScriptCacheLimit);
     }
   }
 
@@ -1274,7 +1451,7 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   
   protected void initEventDispatcher() {
   	if(this.eventDispatcher == null) {
-  		this.eventDispatcher = new ActivitiEventDispatcherImpl();
+  		setEventDispatcher(new ActivitiEventDispatcherImpl());
   	}
   	
   	this.eventDispatcher.setEnabled(enableEventDispatcher);
@@ -1539,6 +1716,33 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
   
+  public int getCompiledScriptCacheLimit() {
+    return compiledScriptCacheLimit;
+  }
+  
+  public ProcessEngineConfigurationImpl setCompiledScriptCacheLimit(int compiledScriptCacheLimit) {
+    this.compiledScriptCacheLimit = compiledScriptCacheLimit;
+    return this;
+  }
+  
+  public int getScriptEnginePoolSize() {
+    return scriptEnginePoolSize;
+  }
+  
+  public ProcessEngineConfigurationImpl setScriptEnginePoolSize(int scriptEnginePoolSize) {
+    this.scriptEnginePoolSize = scriptEnginePoolSize;
+    return this;
+  }
+  
+  public int getPooledCompiledScriptCacheLimit() {
+    return pooledCompiledScriptCacheLimit;
+  }
+  
+  public ProcessEngineConfigurationImpl setPooledCompiledScriptCacheLimit(int pooledCompiledScriptCacheLimit) {
+    this.pooledCompiledScriptCacheLimit = pooledCompiledScriptCacheLimit;
+    return this;
+  }
+  
   public VariableTypes getVariableTypes() {
     return variableTypes;
   }
@@ -1547,6 +1751,15 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     this.variableTypes = variableTypes;
     return this;
   }
+
+  public boolean isVariableFetchingByNameEnabled() {
+    return variableFetchingByNameEnabled;
+  }
+
+  public ProcessEngineConfigurationImpl setVariableFetchingByNameEnabled(boolean variableFetchingByNameEnabled) {
+    this.variableFetchingByNameEnabled = variableFetchingByNameEnabled;
+    return this;
+  }
   
   public ExpressionManager getExpressionManager() {
     return expressionManager;
@@ -1849,6 +2062,159 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public boolean isIdGeneratorPrefetchEnabled() {
+    return idGeneratorPrefetchEnabled;
+  }
+
+  public ProcessEngineConfigurationImpl setIdGeneratorPrefetchEnabled(boolean idGeneratorPrefetchEnabled) {
+    this.idGeneratorPrefetchEnabled = idGeneratorPrefetchEnabled;
+    return this;
+  }
+
+  public int getIdGeneratorMaxBlockSize() {
+    return idGeneratorMaxBlockSize;
+  }
+
+  public ProcessEngineConfigurationImpl setIdGeneratorMaxBlockSize(int idGeneratorMaxBlockSize) {
+    this.idGeneratorMaxBlockSize = idGeneratorMaxBlockSize;
+    return this;
+  }
+
+  public boolean isAsyncHistoryEnabled() {
+    return asyncHistoryEnabled;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncHistoryEnabled(boolean asyncHistoryEnabled) {
+    this.asyncHistoryEnabled = asyncHistoryEnabled;
+    return this;
+  }
+
+  public long getAsyncHistoryWriteIntervalMillis() {
+    return asyncHistoryWriteIntervalMillis;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncHistoryWriteIntervalMillis(long asyncHistoryWriteIntervalMillis) {
+    this.asyncHistoryWriteIntervalMillis = asyncHistoryWriteIntervalMillis;
+    return this;
+  }
+
+  public AsyncHistoryWriter getAsyncHistoryWriter() {
+    return asyncHistoryWriter;
+  }
+
+  public ProcessEngineConfigurationImpl setAsyncHistoryWriter(AsyncHistoryWriter asyncHistoryWriter) {
+    this.asyncHistoryWriter = asyncHistoryWriter;
+    return this;
+  }
+
+  public boolean isLazyDiagramGeneration() {
+    return lazyDiagramGeneration;
+  }
+
+  public ProcessEngineConfigurationImpl setLazyDiagramGeneration(boolean lazyDiagramGeneration) {
+    this.lazyDiagramGeneration = lazyDiagramGeneration;
+    return this;
+  }
+
+  public int getProcessDiagramCacheLimit() {
+    return processDiagramCacheLimit;
+  }
+
+  public ProcessEngineConfigurationImpl setProcessDiagramCacheLimit(int processDiagramCacheLimit) {
+    this.processDiagramCacheLimit = processDiagramCacheLimit;
+    return this;
+  }
+
+  public String getProcessDiagramCacheDirectory() {
+    return processDiagramCacheDirectory;
+  }
+
+  public ProcessEngineConfigurationImpl setProcessDiagramCacheDirectory(String processDiagramCacheDirectory) {
+    this.processDiagramCacheDirectory = processDiagramCacheDirectory;
+    return this;
+  }
+
+  public ProcessDiagramCache getProcessDiagramCache() {
+    return processDiagramCache;
+  }
+
+  public ProcessEngineConfigurationImpl setProcessDiagramCache(ProcessDiagramCache processDiagramCache) {
+    this.processDiagramCache = processDiagramCache;
+    return this;
+  }
+
+  public boolean isCommandMetricsEnabled() {
+    return commandMetricsEnabled;
+  }
+  
+  public ProcessEngineConfigurationImpl setCommandMetricsEnabled(boolean commandMetricsEnabled) {
+    this.commandMetricsEnabled = commandMetricsEnabled;
+    return this;
+  }
+  
+  public boolean isCommandMetricsJmxEnabled() {
+    return commandMetricsJmxEnabled;
+  }
+  
+  public ProcessEngineConfigurationImpl setCommandMetricsJmxEnabled(boolean commandMetricsJmxEnabled) {
+    this.commandMetricsJmxEnabled = commandMetricsJmxEnabled;
+    return this;
+  }
+  
+  public CommandMetricsCollector getCommandMetricsCollector() {
+    return commandMetricsCollector;
+  }
+  
+  public ProcessEngineConfigurationImpl setCommandMetricsCollector(CommandMetricsCollector commandMetricsCollector) {
+    this.commandMetricsCollector = commandMetricsCollector;
+    return this;
+  }
+
+  public boolean isActivityProfilingEnabled() {
+    return activityProfilingEnabled;
+  }
+  
+  public ProcessEngineConfigurationImpl setActivityProfilingEnabled(boolean activityProfilingEnabled) {
+    this.activityProfilingEnabled = activityProfilingEnabled;
+    return this;
+  }
+  
+  public ActivityProfiler getActivityProfiler() {
+    return activityProfiler;
+  }
+  
+  public ProcessEngineConfigurationImpl setActivityProfiler(ActivityProfiler activityProfiler) {
+    this.activityProfiler = activityProfiler;
+    return this;
+  }
+
+  public int getMembershipCacheLimit() {
+    return membershipCacheLimit;
+  }
+  
+  public ProcessEngineConfigurationImpl setMembershipCacheLimit(int membershipCacheLimit) {
+    this.membershipCacheLimit = membershipCacheLimit;
+    return this;
+  }
+  
+  public long getMembershipCacheExpirationTime() {
+    return membershipCacheExpirationTime;
+  }
+  
+  public ProcessEngineConfigurationImpl setMembershipCacheExpirationTime(long membershipCacheExpirationTime) {
+    this.membershipCacheExpirationTime = membershipCacheExpirationTime;
+    return this;
+  }
+  
+  public MembershipCache getMembershipCache() {
+    return membershipCache;
+  }
+  
+  public ProcessEngineConfigurationImpl setMembershipCache(MembershipCache membershipCache) {
+    this.membershipCache = membershipCache;
+    return this;
+  }
+
   public int getBatchSizeProcessInstances() {
     return batchSizeProcessInstances;
   }
@@ -1876,6 +2242,15 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
   
+  public long getProcessDefinitionCacheWeightLimit() {
+    return processDefinitionCacheWeightLimit;
+  }
+
+  public ProcessEngineConfigurationImpl setProcessDefinitionCacheWeightLimit(long processDefinitionCacheWeightLimit) {
+    this.processDefinitionCacheWeightLimit = processDefinitionCacheWeightLimit;
+    return this;
+  }
+  
   public DeploymentCache<ProcessDefinitionEntity> getProcessDefinitionCache() {
     return processDefinitionCache;
   }
@@ -1903,6 +2278,15 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
     return this;
   }
 
+  public boolean isJdbcBatchFlushEnabled() {
+    return jdbcBatchFlushEnabled;
+  }
+
+  public ProcessEngineConfigurationImpl setJdbcBatchFlushEnabled(boolean jdbcBatchFlushEnabled) {
+    this.jdbcBatchFlushEnabled = jdbcBatchFlushEnabled;
+    return this;
+  }
+
   public boolean isEnableSafeBpmnXml() {
     return enableSafeBpmnXml;
   }
@@ -1918,6 +2302,19 @@ public abstract class ProcessEngineConfigurationImpl extends ProcessEngineConfig
   
   public void setEventDispatcher(ActivitiEventDispatcher eventDispatcher) {
 	  this.eventDispatcher = eventDispatcher;
+	  this.eventDispatcherImpl = eventDispatcher instanceof ActivitiEventDispatcherImpl ? (ActivitiEventDispatcherImpl) eventDispatcher : null;
+  }
+  
+  /**
+   * Cheap check to be done before creating an event of the given type.
+   * Only the default event dispatcher knows which event types are listened to,
+   * other dispatchers are only asked whether they are enabled.
+   */
+  public boolean isEventDispatcherEnabled(ActivitiEventType type) {
+    if (eventDispatcherImpl != null) {
+      return eventDispatcherImpl.isEnabled(type);
+    }
+    return eventDispatcher != null && eventDispatcher.isEnabled();
   }
   
   public void setEnableEventDispatcher(boolean enableEventDispatcher) {
@@ -14,9 +14,15 @@ package org.activiti.engine.impl.cmd;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.activiti.engine.ActivitiOptimisticLockingException;
 import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.Command;
@@ -24,6 +30,7 @@ import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.jobexecutor.AcquiredJobs;
 import org.activiti.engine.impl.jobexecutor.JobExecutor;
 import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntityManager;
 
 
 /**
@@ -42,51 +49,124 @@ public class AcquireJobsCmd implements Command<AcquiredJobs> {
     
     String lockOwner = jobExecutor.getLockOwner();
     int lockTimeInMillis = jobExecutor.getLockTimeInMillis();
-    int maxNonExclusiveJobsPerAcquisition = jobExecutor.getMaxJobsPerAcquisition();
+    int maxNonExclusiveJobsPerAcquisition = jobExecutor.getJobsToAcquire();
     
     AcquiredJobs acquiredJobs = new AcquiredJobs();
     List<JobEntity> jobs = commandContext
       .getJobEntityManager()
       .findNextJobsToExecute(new Page(0, maxNonExclusiveJobsPerAcquisition));
+    
+    // all exclusive jobs of the process instances in this page are fetched 
+    // with one query, instead of one query (and a wait) per exclusive job
+    Map<String, List<JobEntity>> exclusiveJobsByProcessInstance = findExclusiveJobs(commandContext, jobs);
 
+    List<JobEntity> jobsToLock = new ArrayList<JobEntity>();
     for (JobEntity job: jobs) {
       List<String> jobIds = new ArrayList<String>();
       if (job != null && !acquiredJobs.contains(job.getId())) {
         if (job.isExclusive() && job.getProcessInstanceId() != null) {
-          // wait to get exclusive jobs within 100ms
-          try {
-            Thread.sleep(100);
-          } catch (InterruptedException e) {}
-          
           // acquire all exclusive jobs in the same process instance
           // (includes the current job)
-          List<JobEntity> exclusiveJobs = commandContext.getJobEntityManager()
-            .findExclusiveJobsToExecute(job.getProcessInstanceId());
+          List<JobEntity> exclusiveJobs = exclusiveJobsByProcessInstance.remove(job.getProcessInstanceId());
+          if (exclusiveJobs == null) {
+            // already acquired together with another job of the same process instance
+            continue;
+          }
           for (JobEntity exclusiveJob : exclusiveJobs) {
-            if (exclusiveJob != null) {
-              lockJob(exclusiveJob, lockOwner, lockTimeInMillis);
-              jobIds.add(exclusiveJob.getId());
-            }
+            jobsToLock.add(exclusiveJob);
+            jobIds.add(exclusiveJob.getId());
           }
           
         } else {
-          lockJob(job, lockOwner, lockTimeInMillis);
+          jobsToLock.add(job);
           jobIds.add(job.getId());
         }
         
+        acquiredJobs.addJobIdBatch(jobIds);
+      }
+    }
+    
+    if (jobExecutor.isBulkLockEnabled()) {
+      bulkLockJobs(commandContext, jobsToLock, lockOwner, lockTimeInMillis);
+    } else {
+      for (JobEntity job : jobsToLock) {
+        lockJob(job, lockOwner, lockTimeInMillis);
       }
-
-      acquiredJobs.addJobIdBatch(jobIds);
     }
 
     return acquiredJobs;
   }
+  
+  protected Map<String, List<JobEntity>> findExclusiveJobs(CommandContext commandContext, List<JobEntity> jobs) {
+    Map<String, List<JobEntity>> exclusiveJobsByProcessInstance = new HashMap<String, List<JobEntity>>();
+    Set<String> processInstanceIds = new LinkedHashSet<String>();
+    for (JobEntity job : jobs) {
+      if (job != null && job.isExclusive() && job.getProcessInstanceId() != null) {
+        processInstanceIds.add(job.getProcessInstanceId());
+        
+        // the job itself is always part of its batch, even if it wouldn't be returned by the exclusive jobs query
+        List<JobEntity> exclusiveJobs = new ArrayList<JobEntity>();
+        exclusiveJobs.add(job);
+        exclusiveJobsByProcessInstance.put(job.getProcessInstanceId(), exclusiveJobs);
+      }
+    }
+    
+    if (!processInstanceIds.isEmpty()) {
+      List<JobEntity> exclusiveJobs = commandContext.getJobEntityManager().findExclusiveJobsToExecute(processInstanceIds);
+      for (JobEntity exclusiveJob : exclusiveJobs) {
+        List<JobEntity> jobsOfProcessInstance = exclusiveJobsByProcessInstance.get(exclusiveJob.getProcessInstanceId());
+        if (jobsOfProcessInstance != null && !containsJob(jobsOfProcessInstance, exclusiveJob.getId())) {
+          jobsOfProcessInstance.add(exclusiveJob);
+        }
+      }
+    }
+    
+    return exclusiveJobsByProcessInstance;
+  }
+  
+  protected boolean containsJob(List<JobEntity> jobs, String jobId) {
+    for (JobEntity job : jobs) {
+      if (job.getId().equals(jobId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  protected void bulkLockJobs(CommandContext commandContext, List<JobEntity> jobs, String lockOwner, int lockTimeInMillis) {
+    if (jobs.isEmpty()) {
+      return;
+    }
+    
+    List<String> jobIds = new ArrayList<String>(jobs.size());
+    for (JobEntity job : jobs) {
+      jobIds.add(job.getId());
+    }
+    
+    JobEntityManager jobEntityManager = commandContext.getJobEntityManager();
+    long lockedJobs = jobEntityManager.bulkLockJobs(jobIds, lockOwner, getLockExpirationTime(lockTimeInMillis));
+    if (lockedJobs < 0) {
+      // the driver didn't report the number of updated rows (eg. Oracle in jdbc batch mode):
+      // the rows locked by this transaction can't be changed by another one until it commits
+      lockedJobs = jobEntityManager.findJobCountByIdsAndLockOwner(jobIds, lockOwner);
+    }
+    if (lockedJobs != jobIds.size()) {
+      // some of the jobs were acquired or removed by someone else in the meantime: 
+      // roll back and let the next acquisition cycle try again
+      throw new ActivitiOptimisticLockingException("Could only lock " + lockedJobs + " of " + jobIds.size() 
+              + " jobs, some were modified by another transaction concurrently");
+    }
+  }
 
   protected void lockJob(JobEntity job, String lockOwner, int lockTimeInMillis) {    
     job.setLockOwner(lockOwner);
+    job.setLockExpirationTime(getLockExpirationTime(lockTimeInMillis));    
+  }
+  
+  protected Date getLockExpirationTime(int lockTimeInMillis) {
     GregorianCalendar gregorianCalendar = new GregorianCalendar();
     gregorianCalendar.setTime(Context.getProcessEngineConfiguration().getClock().getCurrentTime());
     gregorianCalendar.add(Calendar.MILLISECOND, lockTimeInMillis);
-    job.setLockExpirationTime(gregorianCalendar.getTime());    
+    return gregorianCalendar.getTime();
   }
 }
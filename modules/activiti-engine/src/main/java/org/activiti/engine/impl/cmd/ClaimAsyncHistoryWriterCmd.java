@@ -0,0 +1,70 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.history.AsyncHistoryWriter;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.PropertyEntity;
+
+/**
+ * Claims or renews the lease of the {@link AsyncHistoryWriter} of an engine (property {@link AsyncHistoryWriter#OWNER_PROPERTY_NAME}),
+ * as history can only be written asynchronously by one engine per database.
+ * Without owner, it only checks that no engine holds the lease, for engines that write their history themselves.
+ * @throws ActivitiException when another engine holds the lease.
+ */
+public class ClaimAsyncHistoryWriterCmd implements Command<Void> {
+
+  protected String ownerId;
+  protected long leaseMillis;
+
+  public ClaimAsyncHistoryWriterCmd(String ownerId, long leaseMillis) {
+    this.ownerId = ownerId;
+    this.leaseMillis = leaseMillis;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    if (ownerId == null && !commandContext.getDbSqlSession().isEngineTablePresent()) {
+      // schema not created yet (e.g. databaseSchemaUpdate NO_CHECK), so no engine can hold the lease
+      return null;
+    }
+
+    long now = System.currentTimeMillis();
+    PropertyEntity property = commandContext
+      .getPropertyEntityManager()
+      .findPropertyById(AsyncHistoryWriter.OWNER_PROPERTY_NAME);
+
+    if (property != null && property.getValue() != null) {
+      String value = property.getValue();
+      int separatorIndex = value.lastIndexOf('@');
+      String currentOwnerId = value.substring(0, Math.max(separatorIndex, 0));
+      long expiration = separatorIndex != -1 ? Long.parseLong(value.substring(separatorIndex + 1)) : 0L;
+      if (!currentOwnerId.equals(ownerId) && expiration > now) {
+        throw new ActivitiException("History is written asynchronously by another process engine (" + currentOwnerId
+                + "), async history can only be used when a single process engine uses the database");
+      }
+    }
+
+    if (ownerId != null) {
+      String value = ownerId + "@" + (now + leaseMillis);
+      if (property == null) {
+        commandContext.getDbSqlSession().insert(new PropertyEntity(AsyncHistoryWriter.OWNER_PROPERTY_NAME, value));
+      } else {
+        property.setValue(value);
+      }
+    }
+    return null;
+  }
+
+}
@@ -15,6 +15,7 @@ package org.activiti.engine.impl.cmd;
 import java.io.Serializable;
 
 import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.identity.MembershipCacheInvalidator;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
 
@@ -38,6 +39,8 @@ public class DeleteGroupCmd implements Command<Void>, Serializable  {
     commandContext
       .getGroupIdentityManager()
       .deleteGroup(groupId);
+    // The members of the group aren't known anymore
+    MembershipCacheInvalidator.invalidateOnCommit(commandContext, null);
     
     return null;
   }
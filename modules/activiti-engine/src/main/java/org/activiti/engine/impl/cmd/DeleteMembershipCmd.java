@@ -15,6 +15,7 @@ package org.activiti.engine.impl.cmd;
 import java.io.Serializable;
 
 import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.identity.MembershipCacheInvalidator;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
 
@@ -44,6 +45,7 @@ public class DeleteMembershipCmd implements Command<Void>, Serializable {
     commandContext
       .getMembershipIdentityManager()
       .deleteMembership(userId, groupId);
+    MembershipCacheInvalidator.invalidateOnCommit(commandContext, userId);
     
     return null;    
   }
@@ -15,6 +15,7 @@ package org.activiti.engine.impl.cmd;
 import java.io.Serializable;
 
 import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.identity.MembershipCacheInvalidator;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
 
@@ -38,6 +39,7 @@ public class DeleteUserCmd implements Command<Void>, Serializable {
     commandContext
       .getUserIdentityManager()
       .deleteUser(userId);
+    MembershipCacheInvalidator.invalidateOnCommit(commandContext, userId);
     
     return null;
   }
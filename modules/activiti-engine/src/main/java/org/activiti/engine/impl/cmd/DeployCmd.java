@@ -66,7 +66,7 @@ public class DeployCmd<T> implements Command<Deployment>, Serializable {
       .getDeploymentEntityManager()
       .insertDeployment(deployment);
     
-    if(Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_CREATED)) {
 	    Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
 	    		ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_CREATED, deployment));
     }
@@ -86,7 +86,7 @@ public class DeployCmd<T> implements Command<Deployment>, Serializable {
       scheduleProcessDefinitionActivation(commandContext, deployment);
     }
     
-    if(Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_INITIALIZED)) {
 	    Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
 	    		ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_INITIALIZED, deployment));
     }
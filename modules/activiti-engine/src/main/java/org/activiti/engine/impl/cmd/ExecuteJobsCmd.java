@@ -72,7 +72,7 @@ public class ExecuteJobsCmd implements Command<Object>, Serializable {
     try {
       job.execute(commandContext);
       
-      if(commandContext.getEventDispatcher().isEnabled()) {
+      if(Context.isEventDispatcherEnabled(ActivitiEventType.JOB_EXECUTION_SUCCESS)) {
       	commandContext.getEventDispatcher().dispatchEvent(ActivitiEventBuilder.createEntityEvent(
       			ActivitiEventType.JOB_EXECUTION_SUCCESS, job));
       }
@@ -88,7 +88,7 @@ public class ExecuteJobsCmd implements Command<Object>, Serializable {
       
       // Dispatch an event, indicating job execution failed in a try-catch block, to prevent the original
       // exception to be swallowed
-      if(commandContext.getEventDispatcher().isEnabled()) {
+      if(Context.isEventDispatcherEnabled(ActivitiEventType.JOB_EXECUTION_FAILURE)) {
 	      try {
 	      	commandContext.getEventDispatcher().dispatchEvent(ActivitiEventBuilder.createEntityExceptionEvent(
 	      			ActivitiEventType.JOB_EXECUTION_FAILURE, job, exception));
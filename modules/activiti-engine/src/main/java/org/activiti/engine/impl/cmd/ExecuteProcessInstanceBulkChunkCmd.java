@@ -0,0 +1,64 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.util.List;
+
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the commands of a chunk of a {@link org.activiti.engine.runtime.ProcessInstanceBulkOperation},
+ * one per process instance, in one command context.
+ * Processing the commands in the same context makes the chunk a single transaction.
+ */
+public class ExecuteProcessInstanceBulkChunkCmd implements Command<Void> {
+
+  private static final Logger log = LoggerFactory.getLogger(ExecuteProcessInstanceBulkChunkCmd.class);
+
+  protected List<String> processInstanceIds;
+  protected List<Command<?>> processInstanceCommands;
+  protected boolean skipMissingProcessInstances;
+
+  public ExecuteProcessInstanceBulkChunkCmd(List<String> processInstanceIds, List<Command<?>> processInstanceCommands, boolean skipMissingProcessInstances) {
+    this.processInstanceIds = processInstanceIds;
+    this.processInstanceCommands = processInstanceCommands;
+    this.skipMissingProcessInstances = skipMissingProcessInstances;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    for (int i = 0; i < processInstanceIds.size(); i++) {
+      String processInstanceId = processInstanceIds.get(i);
+      if (skipMissingProcessInstances && !exists(commandContext, processInstanceId)) {
+        log.debug("Skipping process instance {}, it no longer exists", processInstanceId);
+        continue;
+      }
+      processInstanceCommands.get(i).execute(commandContext);
+    }
+    return null;
+  }
+
+  protected boolean exists(CommandContext commandContext, String processInstanceId) {
+    // an earlier command of the chunk may have deleted it, as sub process instance of another process instance
+    ExecutionEntity processInstance = commandContext.getExecutionEntityManager().findExecutionById(processInstanceId);
+    return processInstance != null && !commandContext.getDbSqlSession().isPersistentObjectDeleted(processInstance);
+  }
+
+  public List<String> getProcessInstanceIds() {
+    return processInstanceIds;
+  }
+
+}
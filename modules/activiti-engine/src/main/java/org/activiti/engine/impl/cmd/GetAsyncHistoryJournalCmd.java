@@ -0,0 +1,48 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.activiti.engine.impl.history.AsyncHistoryBatch;
+import org.activiti.engine.impl.history.AsyncHistoryJournalEntry;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntity;
+
+/**
+ * Reads the journal entries of the {@link org.activiti.engine.impl.history.AsyncHistoryWriter}
+ * with the given ids, skipping the ones that were written in the meantime.
+ */
+public class GetAsyncHistoryJournalCmd implements Command<List<AsyncHistoryJournalEntry>> {
+
+  protected List<String> journalIds;
+
+  public GetAsyncHistoryJournalCmd(List<String> journalIds) {
+    this.journalIds = journalIds;
+  }
+
+  public List<AsyncHistoryJournalEntry> execute(CommandContext commandContext) {
+    List<AsyncHistoryJournalEntry> entries = new ArrayList<AsyncHistoryJournalEntry>();
+    for (String journalId : journalIds) {
+      ByteArrayEntity journal = commandContext.getDbSqlSession().selectById(ByteArrayEntity.class, journalId);
+      if (journal != null) {
+        AsyncHistoryBatch batch = AsyncHistoryBatch.fromBytes(journal.getBytes());
+        entries.add(new AsyncHistoryJournalEntry(journal.getId(), journal.getName(), journal.getRevision(), batch, batch.getQueuedKeys()));
+      }
+    }
+    return entries;
+  }
+
+}
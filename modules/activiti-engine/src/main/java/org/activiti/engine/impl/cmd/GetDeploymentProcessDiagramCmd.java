@@ -17,6 +17,7 @@ import java.io.InputStream;
 import java.io.Serializable;
 
 import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
@@ -52,7 +53,9 @@ public class GetDeploymentProcessDiagramCmd implements Command<InputStream>, Ser
             .findDeployedProcessDefinitionById(processDefinitionId);
     String deploymentId = processDefinition.getDeploymentId();
     String resourceName = processDefinition.getDiagramResourceName();
-    if (resourceName == null ) {
+    if (resourceName == null && isRenderedOnRequest(commandContext)) {
+      return new GetProcessDiagramCmd(processDefinitionId, null, null).execute(commandContext);
+    } else if (resourceName == null ) {
       log.info("Resource name is null! No process diagram stream exists.");
       return null;
     } else {
@@ -62,5 +65,10 @@ public class GetDeploymentProcessDiagramCmd implements Command<InputStream>, Ser
       return processDiagramStream;
     }
   }
+  
+  protected boolean isRenderedOnRequest(CommandContext commandContext) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = commandContext.getProcessEngineConfiguration();
+    return processEngineConfiguration.isCreateDiagramOnDeploy() && processEngineConfiguration.isLazyDiagramGeneration();
+  }
 
 }
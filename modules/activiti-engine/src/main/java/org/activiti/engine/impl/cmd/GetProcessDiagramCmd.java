@@ -0,0 +1,81 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.bpmn.diagram.ProcessDiagramCache;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.DeploymentEntity;
+import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntity;
+import org.activiti.engine.impl.util.IoUtil;
+
+/**
+ * Renders the PNG diagram of a process definition with the given elements highlighted,
+ * or takes it from the {@link ProcessDiagramCache} when it has been rendered before.
+ * Returns null when the process definition has no graphical notation defined.
+ */
+public class GetProcessDiagramCmd implements Command<InputStream>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected static final String IMAGE_TYPE = "png";
+
+  protected String processDefinitionId;
+  protected List<String> highLightedActivities;
+  protected List<String> highLightedFlows;
+
+  public GetProcessDiagramCmd(String processDefinitionId, List<String> highLightedActivities, List<String> highLightedFlows) {
+    if (processDefinitionId == null) {
+      throw new ActivitiIllegalArgumentException("The process definition id is mandatory, but 'null' has been provided.");
+    }
+    this.processDefinitionId = processDefinitionId;
+    this.highLightedActivities = highLightedActivities != null ? highLightedActivities : Collections.<String>emptyList();
+    this.highLightedFlows = highLightedFlows != null ? highLightedFlows : Collections.<String>emptyList();
+  }
+
+  public InputStream execute(CommandContext commandContext) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = commandContext.getProcessEngineConfiguration();
+    ProcessDefinitionEntity processDefinition = processEngineConfiguration
+      .getDeploymentManager()
+      .findDeployedProcessDefinitionById(processDefinitionId);
+    if (!processDefinition.isGraphicalNotationDefined()) {
+      return null;
+    }
+
+    ProcessDiagramCache processDiagramCache = processEngineConfiguration.getProcessDiagramCache();
+    DeploymentEntity deployment = commandContext
+      .getDeploymentEntityManager()
+      .findDeploymentById(processDefinition.getDeploymentId());
+    String key = ProcessDiagramCache.createKey(processDefinitionId, deployment.getDeploymentTime(),
+            IMAGE_TYPE, highLightedActivities, highLightedFlows);
+
+    byte[] diagram = processDiagramCache.get(key);
+    if (diagram == null) {
+      BpmnModel bpmnModel = new GetBpmnModelCmd(processDefinitionId).execute(commandContext);
+      diagram = IoUtil.readInputStream(processEngineConfiguration.getProcessDiagramGenerator()
+              .generateDiagram(bpmnModel, IMAGE_TYPE, highLightedActivities, highLightedFlows), "process diagram");
+      processDiagramCache.put(key, diagram);
+    }
+    return new ByteArrayInputStream(diagram);
+  }
+
+}
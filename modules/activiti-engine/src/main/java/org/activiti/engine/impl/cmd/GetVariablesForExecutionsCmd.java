@@ -0,0 +1,55 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.engine.impl.cmd;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+
+
+/**
+ * Fetches the variables of many executions at once, see 
+ * {@link org.activiti.engine.impl.persistence.entity.VariableInstanceEntityManager#getVariablesForExecutions(Collection, Collection, boolean)}.
+ */
+public class GetVariablesForExecutionsCmd implements Command<Map<String, Map<String, Object>>>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+  protected Collection<String> executionIds;
+  protected Collection<String> variableNames;
+  protected boolean isLocal;
+
+  public GetVariablesForExecutionsCmd(Collection<String> executionIds, Collection<String> variableNames, boolean isLocal) {
+    this.executionIds = executionIds;
+    this.variableNames = variableNames;
+    this.isLocal = isLocal;
+  }
+
+  public Map<String, Map<String, Object>> execute(CommandContext commandContext) {
+    if (executionIds == null) {
+      throw new ActivitiIllegalArgumentException("executionIds is null");
+    }
+    if (executionIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    
+    return commandContext
+      .getVariableInstanceEntityManager()
+      .getVariablesForExecutions(executionIds, variableNames, isLocal);
+  }
+}
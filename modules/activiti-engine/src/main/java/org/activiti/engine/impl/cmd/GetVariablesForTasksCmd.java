@@ -0,0 +1,55 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.engine.impl.cmd;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+
+
+/**
+ * Fetches the variables of many tasks at once, see 
+ * {@link org.activiti.engine.impl.persistence.entity.VariableInstanceEntityManager#getVariablesForTasks(Collection, Collection, boolean)}.
+ */
+public class GetVariablesForTasksCmd implements Command<Map<String, Map<String, Object>>>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+  protected Collection<String> taskIds;
+  protected Collection<String> variableNames;
+  protected boolean isLocal;
+
+  public GetVariablesForTasksCmd(Collection<String> taskIds, Collection<String> variableNames, boolean isLocal) {
+    this.taskIds = taskIds;
+    this.variableNames = variableNames;
+    this.isLocal = isLocal;
+  }
+
+  public Map<String, Map<String, Object>> execute(CommandContext commandContext) {
+    if (taskIds == null) {
+      throw new ActivitiIllegalArgumentException("taskIds is null");
+    }
+    if (taskIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    
+    return commandContext
+      .getVariableInstanceEntityManager()
+      .getVariablesForTasks(taskIds, variableNames, isLocal);
+  }
+}
@@ -0,0 +1,43 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import org.activiti.engine.impl.history.AsyncHistoryJournalEntry;
+import org.activiti.engine.impl.history.AsyncHistoryWriter;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntity;
+
+/**
+ * Renames the journal entry of a batch the {@link AsyncHistoryWriter} can't write, 
+ * so it is kept as a dead letter instead of being queued again.
+ * @return false when the journal entry doesn't exist anymore, because the batch was written by another writer.
+ */
+public class ParkAsyncHistoryJournalEntryCmd implements Command<Boolean> {
+
+  protected AsyncHistoryJournalEntry entry;
+
+  public ParkAsyncHistoryJournalEntryCmd(AsyncHistoryJournalEntry entry) {
+    this.entry = entry;
+  }
+
+  public Boolean execute(CommandContext commandContext) {
+    String name = entry.getJournalName();
+    ByteArrayEntity journal = new ByteArrayEntity(AsyncHistoryWriter.DEAD_LETTER_NAME_PREFIX 
+            + name.substring(AsyncHistoryWriter.JOURNAL_NAME_PREFIX.length()), null);
+    journal.setId(entry.getJournalId());
+    journal.setRevision(entry.getJournalRevision());
+    return commandContext.getDbSqlSession().executeUpdate("updateAsyncHistoryJournalName", journal) != 0;
+  }
+
+}
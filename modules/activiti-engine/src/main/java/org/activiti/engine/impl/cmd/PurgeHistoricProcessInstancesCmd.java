@@ -0,0 +1,42 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.io.Serializable;
+
+import org.activiti.engine.impl.HistoricProcessInstancePurgeImpl;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+
+/**
+ * Purges the next chunk of a {@link HistoricProcessInstancePurgeImpl}.
+ * Returns the number of purged historic process instances, 0 when nothing is left to purge.
+ */
+public class PurgeHistoricProcessInstancesCmd implements Command<Integer>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected HistoricProcessInstancePurgeImpl purge;
+
+  public PurgeHistoricProcessInstancesCmd(HistoricProcessInstancePurgeImpl purge) {
+    this.purge = purge;
+  }
+
+  public Integer execute(CommandContext commandContext) {
+    purge.resolveEndTimeBefore(commandContext.getProcessEngineConfiguration().getClock().getCurrentTime());
+    return commandContext
+      .getHistoricProcessInstanceEntityManager()
+      .purgeHistoricProcessInstances(purge);
+  }
+
+}
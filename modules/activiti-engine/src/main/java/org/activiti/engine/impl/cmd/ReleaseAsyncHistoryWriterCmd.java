@@ -0,0 +1,41 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import org.activiti.engine.impl.history.AsyncHistoryWriter;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.PropertyEntity;
+
+/**
+ * Releases the lease claimed with {@link ClaimAsyncHistoryWriterCmd} by letting it expire, when the given owner holds it.
+ */
+public class ReleaseAsyncHistoryWriterCmd implements Command<Void> {
+
+  protected String ownerId;
+
+  public ReleaseAsyncHistoryWriterCmd(String ownerId) {
+    this.ownerId = ownerId;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    PropertyEntity property = commandContext
+      .getPropertyEntityManager()
+      .findPropertyById(AsyncHistoryWriter.OWNER_PROPERTY_NAME);
+    if (property != null && property.getValue() != null && property.getValue().startsWith(ownerId + "@")) {
+      property.setValue(ownerId + "@0");
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,44 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.util.List;
+
+import org.activiti.engine.impl.db.DbSqlSession;
+import org.activiti.engine.impl.history.AsyncHistoryWriter;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntity;
+
+/**
+ * Renames the batches the {@link AsyncHistoryWriter} parked as dead letters back to journal entries.
+ * @return the number of batches that were moved back to the journal.
+ */
+public class RequeueAsyncHistoryDeadLettersCmd implements Command<Integer> {
+
+  @SuppressWarnings("unchecked")
+  public Integer execute(CommandContext commandContext) {
+    DbSqlSession dbSqlSession = commandContext.getDbSqlSession();
+    List<String> deadLetterIds = dbSqlSession.selectList("selectAsyncHistoryJournalIds", AsyncHistoryWriter.DEAD_LETTER_NAME_PREFIX + "%");
+    for (String deadLetterId : deadLetterIds) {
+      ByteArrayEntity deadLetter = dbSqlSession.selectById(ByteArrayEntity.class, deadLetterId);
+      ByteArrayEntity journal = new ByteArrayEntity(AsyncHistoryWriter.JOURNAL_NAME_PREFIX
+              + deadLetter.getName().substring(AsyncHistoryWriter.DEAD_LETTER_NAME_PREFIX.length()), null);
+      journal.setId(deadLetter.getId());
+      journal.setRevision(deadLetter.getRevision());
+      dbSqlSession.executeUpdate("updateAsyncHistoryJournalName", journal);
+    }
+    return deadLetterIds.size();
+  }
+
+}
@@ -17,6 +17,7 @@ import java.io.Serializable;
 
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.entity.AttachmentEntity;
@@ -44,7 +45,7 @@ public class SaveAttachmentCmd implements Command<Object>, Serializable {
     updateAttachment.setName(attachment.getName());
     updateAttachment.setDescription(attachment.getDescription());
     
-    if(commandContext.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
     	// Forced to fetch the process-instance to associate the right process definition
     	String processDefinitionId = null;
     	String processInstanceId = updateAttachment.getProcessInstanceId();
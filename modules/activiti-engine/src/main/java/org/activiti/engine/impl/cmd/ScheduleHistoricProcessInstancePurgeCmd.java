@@ -0,0 +1,64 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.io.Serializable;
+
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.HistoricProcessInstancePurgeImpl;
+import org.activiti.engine.impl.calendar.BusinessCalendar;
+import org.activiti.engine.impl.calendar.CycleBusinessCalendar;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.jobexecutor.HistoricProcessInstancePurgeJobHandler;
+import org.activiti.engine.impl.persistence.entity.TimerEntity;
+
+/**
+ * Creates a repeating timer job executing a {@link HistoricProcessInstancePurgeImpl}.
+ */
+public class ScheduleHistoricProcessInstancePurgeCmd implements Command<String>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected HistoricProcessInstancePurgeImpl purge;
+  protected String cycle;
+
+  public ScheduleHistoricProcessInstancePurgeCmd(HistoricProcessInstancePurgeImpl purge, String cycle) {
+    this.purge = purge;
+    this.cycle = cycle;
+  }
+
+  public String execute(CommandContext commandContext) {
+    if (cycle == null) {
+      throw new ActivitiIllegalArgumentException("Cycle is null");
+    }
+
+    BusinessCalendar businessCalendar = commandContext
+      .getProcessEngineConfiguration()
+      .getBusinessCalendarManager()
+      .getBusinessCalendar(CycleBusinessCalendar.NAME);
+
+    TimerEntity timer = new TimerEntity();
+    timer.setJobHandlerType(HistoricProcessInstancePurgeJobHandler.TYPE);
+    timer.setJobHandlerConfiguration(HistoricProcessInstancePurgeJobHandler.createJobHandlerConfiguration(purge));
+    timer.setRepeat(cycle);
+    timer.setDuedate(businessCalendar.resolveDuedate(cycle));
+    if (purge.getTenantId() != null) {
+      timer.setTenantId(purge.getTenantId());
+    }
+    commandContext.getJobEntityManager().schedule(timer);
+
+    return timer.getId();
+  }
+
+}
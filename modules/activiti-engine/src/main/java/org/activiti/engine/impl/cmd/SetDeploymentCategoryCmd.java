@@ -53,7 +53,7 @@ public class SetDeploymentCategoryCmd implements Command<Void> {
     // Update category
     deployment.setCategory(category);
     
-    if(Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
     	Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, deployment));
     }
@@ -19,6 +19,7 @@ import org.activiti.engine.ActivitiIllegalArgumentException;
 import org.activiti.engine.ActivitiObjectNotFoundException;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.entity.JobEntity;
@@ -53,7 +54,7 @@ public class SetJobRetriesCmd implements Command<Void>, Serializable {
     if (job != null) {
       job.setRetries(retries);
       
-      if(commandContext.getEventDispatcher().isEnabled()) {
+      if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
       	commandContext.getEventDispatcher().dispatchEvent(
       			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, job));
       }
@@ -61,7 +61,7 @@ public class SetProcessDefinitionCategoryCmd implements Command<Void> {
       processDefinitionCache.remove(processDefinitionId);
     }
     
-    if(Context.getCommandContext().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
     	Context.getCommandContext().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, processDefinition));
     }
@@ -0,0 +1,53 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+
+
+/**
+ * Releases the lock of the given jobs, as far as they are still locked by the given lock owner,
+ * so they can be acquired again.
+ */
+public class UnlockJobsCmd implements Command<Void>, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected List<String> jobIds;
+  protected String lockOwner;
+
+  public UnlockJobsCmd(List<String> jobIds, String lockOwner) {
+    this.jobIds = jobIds;
+    this.lockOwner = lockOwner;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    for (String jobId : jobIds) {
+      JobEntity job = commandContext
+        .getJobEntityManager()
+        .findJobById(jobId);
+      
+      if (job != null && lockOwner.equals(job.getLockOwner())) {
+        job.setLockOwner(null);
+        job.setLockExpirationTime(null);
+      }
+    }
+    return null;
+  }
+
+}
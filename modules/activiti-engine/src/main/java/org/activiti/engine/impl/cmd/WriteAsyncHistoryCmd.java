@@ -0,0 +1,124 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.cmd;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.activiti.engine.ActivitiOptimisticLockingException;
+import org.activiti.engine.impl.db.DbSqlSession;
+import org.activiti.engine.impl.history.AsyncHistoryBatch;
+import org.activiti.engine.impl.history.AsyncHistoryJournalEntry;
+import org.activiti.engine.impl.history.AsyncHistoryRecord;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntity;
+
+/**
+ * Writes history batches queued by the {@link org.activiti.engine.impl.history.AsyncHistoryWriter}
+ * and deletes their journal entries. The journal entries are deleted with a revision check, so a batch
+ * that was written by another writer in the meantime makes the transaction fail.
+ *
+ * The records are applied in the order they were queued. A row update inserts the row when it doesn't exist,
+ * and a row delete doesn't fail when it doesn't, so applying a record twice leaves the same row.
+ */
+public class WriteAsyncHistoryCmd implements Command<Void> {
+
+  protected List<AsyncHistoryJournalEntry> entries;
+
+  public WriteAsyncHistoryCmd(List<AsyncHistoryJournalEntry> entries) {
+    this.entries = entries;
+  }
+
+  public Void execute(CommandContext commandContext) {
+    DbSqlSession dbSqlSession = commandContext.getDbSqlSession();
+    dbSqlSession.setDeferredFlushHandler(null);
+    
+    List<AsyncHistoryBatch> batches = new ArrayList<AsyncHistoryBatch>();
+    for (AsyncHistoryJournalEntry entry : entries) {
+      AsyncHistoryBatch batch = entry.getBatch();
+      if (batch == null) {
+        ByteArrayEntity journal = dbSqlSession.selectById(ByteArrayEntity.class, entry.getJournalId());
+        if (journal == null) {
+          throw new ActivitiOptimisticLockingException("async history batch " + entry.getJournalId() + " was written by another writer");
+        }
+        batch = AsyncHistoryBatch.fromBytes(journal.getBytes());
+      }
+      batches.add(batch);
+
+      ByteArrayEntity journal = new ByteArrayEntity(entry.getJournalName(), null);
+      journal.setId(entry.getJournalId());
+      journal.setRevision(entry.getJournalRevision());
+      dbSqlSession.delete(journal);
+    }
+    
+    for (AsyncHistoryBatch batch : batches) {
+      for (AsyncHistoryRecord record : batch.getRecords()) {
+        writeRecord(commandContext, record);
+      }
+    }
+    return null;
+  }
+
+  protected void writeRecord(CommandContext commandContext, AsyncHistoryRecord record) {
+    DbSqlSession dbSqlSession = commandContext.getDbSqlSession();
+    switch (record.getType()) {
+    case AsyncHistoryRecord.INSERT:
+      dbSqlSession.getSqlSession().insert(dbSqlSession.getDbSqlSessionFactory().mapStatement("insertAsyncHistoryRow"), record);
+      break;
+    case AsyncHistoryRecord.UPDATE:
+      // the update count is unknown when statements are batched, the row exists then as it can't be deleted before its update
+      if (dbSqlSession.getSqlSession().update(dbSqlSession.getDbSqlSessionFactory().mapStatement("updateAsyncHistoryRow"), record) == 0) {
+        dbSqlSession.getSqlSession().insert(dbSqlSession.getDbSqlSessionFactory().mapStatement("insertAsyncHistoryRow"), record);
+      }
+      break;
+    case AsyncHistoryRecord.DELETE:
+      dbSqlSession.getSqlSession().delete(dbSqlSession.getDbSqlSessionFactory().mapStatement("deleteAsyncHistoryRow"), record);
+      break;
+    case AsyncHistoryRecord.BULK_DELETE:
+      dbSqlSession.getSqlSession().delete(dbSqlSession.getDbSqlSessionFactory().mapStatement(record.getStatement()), record.getId());
+      break;
+    default:
+      deleteHistory(commandContext, record.getScope(), record.getId());
+    }
+  }
+
+  /**
+   * Deletes the history of a process definition, process instance or task that was deleted while some of it was queued.
+   * The rows written before are flushed first, as the delete reads the history.
+   */
+  protected void deleteHistory(CommandContext commandContext, String scope, String id) {
+    DbSqlSession dbSqlSession = commandContext.getDbSqlSession();
+    dbSqlSession.getSqlSession().flushStatements();
+    if (AsyncHistoryRecord.SCOPE_PROCESS_DEFINITION.equals(scope)) {
+      commandContext
+        .getHistoricProcessInstanceEntityManager()
+        .deleteHistoricProcessInstanceByProcessDefinitionId(id);
+      
+    } else if (AsyncHistoryRecord.SCOPE_PROCESS_INSTANCE.equals(scope)) {
+      // the history may have been deleted by a record queued before this one
+      if (commandContext.getHistoricProcessInstanceEntityManager().findHistoricProcessInstance(id) != null) {
+        commandContext
+          .getHistoricProcessInstanceEntityManager()
+          .deleteHistoricProcessInstanceById(id);
+      }
+      
+    } else if (AsyncHistoryRecord.SCOPE_TASK.equals(scope)) {
+      commandContext
+        .getHistoricTaskInstanceEntityManager()
+        .deleteHistoricTaskInstanceById(id);
+    }
+    dbSqlSession.flush();
+  }
+
+}
@@ -15,6 +15,7 @@ package org.activiti.engine.impl.context;
 
 import java.util.Stack;
 
+import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.jobexecutor.JobExecutorContext;
@@ -56,6 +57,15 @@ public class Context {
     return stack.peek();
   }
 
+  /**
+   * Cheap check to be done before creating an event of the given type.
+   * @return true, if the event dispatcher of the current process engine dispatches events of the given type.
+   */
+  public static boolean isEventDispatcherEnabled(ActivitiEventType type) {
+    ProcessEngineConfigurationImpl processEngineConfiguration = getProcessEngineConfiguration();
+    return processEngineConfiguration != null && processEngineConfiguration.isEventDispatcherEnabled(type);
+  }
+
   public static void setProcessEngineConfiguration(ProcessEngineConfigurationImpl processEngineConfiguration) {
     getStack(processEngineConfigurationStackThreadLocal).push(processEngineConfiguration);
   }
@@ -13,6 +13,8 @@
 
 package org.activiti.engine.impl.db;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.activiti.engine.impl.cfg.IdGenerator;
 import org.activiti.engine.impl.cmd.GetNextIdBlockCmd;
 import org.activiti.engine.impl.interceptor.CommandConfig;
@@ -20,29 +22,78 @@ import org.activiti.engine.impl.interceptor.CommandExecutor;
 
 
 /**
+ * Hands out ids from blocks that are reserved in the database.
+ * 
+ * Ids of the current block are taken from an atomic counter, so threads only 
+ * synchronize when the current block is exhausted and a new one needs to be fetched.
+ * 
  * @author Tom Baeyens
  */
 public class DbIdGenerator implements IdGenerator {
 
   protected int idBlockSize;
-  protected long nextId = 0;
-  protected long lastId = -1;
+  protected volatile IdRange currentRange = new IdRange(0, -1, -1);
   
   protected CommandExecutor commandExecutor;
   protected CommandConfig commandConfig;
   
-  public synchronized String getNextId() {
-    if (lastId<nextId) {
-      getNewBlock();
+  public String getNextId() {
+    while (true) {
+      IdRange range = currentRange;
+      long nextId = range.nextId.getAndIncrement();
+      if (nextId <= range.lastId) {
+        if (nextId == range.almostExhaustedId) {
+          idBlockAlmostExhausted();
+        }
+        return Long.toString(nextId);
+      }
+      getNewBlock(range);
     }
-    long _nextId = nextId++;
-    return Long.toString(_nextId);
   }
 
-  protected synchronized void getNewBlock() {
-    IdBlock idBlock = commandExecutor.execute(commandConfig, new GetNextIdBlockCmd(idBlockSize));
-    this.nextId = idBlock.getNextId();
-    this.lastId = idBlock.getLastId();
+  /**
+   * Replaces the given exhausted range with a new block, 
+   * unless another thread has done so already.
+   */
+  protected synchronized void getNewBlock(IdRange exhaustedRange) {
+    if (currentRange == exhaustedRange) {
+      currentRange = createIdRange(fetchNextIdBlock());
+    }
+  }
+  
+  protected IdBlock fetchNextIdBlock() {
+    return fetchIdBlock(idBlockSize);
+  }
+  
+  protected IdBlock fetchIdBlock(int size) {
+    return commandExecutor.execute(commandConfig, new GetNextIdBlockCmd(size));
+  }
+  
+  protected IdRange createIdRange(IdBlock idBlock) {
+    return new IdRange(idBlock.getNextId(), idBlock.getLastId(), -1);
+  }
+  
+  /**
+   * Called once per block, by the thread that takes the id marked as 
+   * {@link IdRange#almostExhaustedId}. Does nothing by default.
+   */
+  protected void idBlockAlmostExhausted() {
+  }
+  
+  /**
+   * The ids of a block that are not handed out yet.
+   */
+  protected static class IdRange {
+    
+    protected final AtomicLong nextId;
+    protected final long lastId;
+    protected final long almostExhaustedId;
+    
+    public IdRange(long nextId, long lastId, long almostExhaustedId) {
+      this.nextId = new AtomicLong(nextId);
+      this.lastId = lastId;
+      this.almostExhaustedId = almostExhaustedId;
+    }
   }
 
   public int getIdBlockSize() {
@@ -25,9 +25,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -58,12 +61,16 @@ import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.db.upgrade.DbUpgradeStep;
 import org.activiti.engine.impl.history.HistoryLevel;
+import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.interceptor.Session;
+import org.activiti.engine.impl.metrics.CommandMetricsCollector;
 import org.activiti.engine.impl.persistence.entity.PropertyEntity;
 import org.activiti.engine.impl.persistence.entity.VariableInstanceEntity;
 import org.activiti.engine.impl.util.IoUtil;
 import org.activiti.engine.impl.util.ReflectUtil;
 import org.activiti.engine.impl.variable.DeserializedObject;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,6 +80,7 @@ import org.slf4j.LoggerFactory;
  *   - delayed flushing of inserts updates and deletes
  *   - optional dirty checking
  *   - db specific statement name mapping
+ *   - optional jdbc batching of the flushed statements
  *   
  * @author Tom Baeyens
  * @author Joram Barrez
@@ -113,26 +121,38 @@ public class DbSqlSession implements Session {
   protected List<PersistentObject> insertedObjects = new ArrayList<PersistentObject>();
   protected Map<Class<?>, Map<String, CachedObject>> cachedObjects = new HashMap<Class<?>, Map<String,CachedObject>>();
   protected List<DeleteOperation> deleteOperations = new ArrayList<DeleteOperation>();
+  protected Map<Class<?>, Set<String>> deletedObjectIds = new HashMap<Class<?>, Set<String>>();
   protected List<DeserializedObject> deserializedObjects = new ArrayList<DeserializedObject>();
+  protected DeferredFlushHandler deferredFlushHandler;
   protected String connectionMetadataDefaultCatalog;
   protected String connectionMetadataDefaultSchema;
 
   public DbSqlSession(DbSqlSessionFactory dbSqlSessionFactory) {
     this.dbSqlSessionFactory = dbSqlSessionFactory;
+    this.deferredFlushHandler = dbSqlSessionFactory.getDeferredFlushHandler();
     this.sqlSession = dbSqlSessionFactory
       .getSqlSessionFactory()
-      .openSession();
+      .openSession(getExecutorType());
   }
 
   public DbSqlSession(DbSqlSessionFactory dbSqlSessionFactory, Connection connection, String catalog, String schema) {
     this.dbSqlSessionFactory = dbSqlSessionFactory;
+    this.deferredFlushHandler = dbSqlSessionFactory.getDeferredFlushHandler();
     this.sqlSession = dbSqlSessionFactory
       .getSqlSessionFactory()
-      .openSession(connection);
+      .openSession(getExecutorType(), connection);
     this.connectionMetadataDefaultCatalog = catalog;
     this.connectionMetadataDefaultSchema = schema;
   }
   
+  protected ExecutorType getExecutorType() {
+    return dbSqlSessionFactory.isJdbcBatchFlushEnabled() ? ExecutorType.BATCH : ExecutorType.SIMPLE;
+  }
+  
+  protected boolean isJdbcBatchFlushEnabled() {
+    return dbSqlSessionFactory.isJdbcBatchFlushEnabled();
+  }
+  
   // Touch  ///////////////////////////////////////////////////////////////////
   // brings the given persistenObject to the top if it already exists
   public void touch(PersistentObject persistentObject) {
@@ -158,6 +178,13 @@ public class DbSqlSession implements Session {
     cachePut(persistentObject, false);
   }
   
+  /**
+   * Returns whether the object is inserted by this session, ie. it isn't visible to other transactions yet.
+   */
+  public boolean isInserted(PersistentObject persistentObject) {
+    return insertedObjects.contains(persistentObject);
+  }
+  
   // update ///////////////////////////////////////////////////////////////////
   
   public void update(PersistentObject persistentObject) {
@@ -165,25 +192,79 @@ public class DbSqlSession implements Session {
   }
   
   public void update(String statement, Object parameters) {
-     String updateStatement = dbSqlSessionFactory.mapStatement(statement);
-     getSqlSession().update(updateStatement, parameters);
+    executeUpdate(statement, parameters);
+  }
+  
+  /**
+   * Executes the given update statement right away and returns the number of affected rows.
+   * When jdbc batch flushing is enabled, the statement is sent to the database immediately as well, 
+   * -1 is returned when the driver doesn't report the update count of batched statements. 
+   */
+  public int executeUpdate(String statement, Object parameters) {
+    String updateStatement = dbSqlSessionFactory.mapStatement(statement);
+    int updatedRecords = getSqlSession().update(updateStatement, parameters);
+    if (isJdbcBatchFlushEnabled()) {
+      updatedRecords = 0;
+      for (BatchResult batchResult : sqlSession.flushStatements()) {
+        for (int updateCount : batchResult.getUpdateCounts()) {
+          if (updateCount == Statement.SUCCESS_NO_INFO) {
+            return -1;
+          }
+          updatedRecords += updateCount;
+        }
+      }
+    }
+    return updatedRecords;
   }
   
   // delete ///////////////////////////////////////////////////////////////////
 
   public void delete(String statement, Object parameter) {
-    deleteOperations.add(new BulkDeleteOperation(statement, parameter));
+    deleteOperations.add(new BulkDeleteOperation(statement, parameter, null));
+  }
+  
+  /**
+   * Adds a {@link BulkDeleteOperation} that deletes objects of the given class, 
+   * so it can be told apart from other deletes, eg. when it deletes history.
+   */
+  public void delete(String statement, Object parameter, Class<?> persistentObjectClass) {
+    deleteOperations.add(new BulkDeleteOperation(statement, parameter, persistentObjectClass));
+  }
+  
+  /**
+   * Adds a custom {@link DeleteOperation}, eg. one that is only executed by the {@link DeferredFlushHandler}.
+   */
+  public void delete(DeleteOperation deleteOperation) {
+    deleteOperations.add(deleteOperation);
   }
   
   public void delete(PersistentObject persistentObject) {
-    for (DeleteOperation deleteOperation: deleteOperations) {
-        if (deleteOperation.sameIdentity(persistentObject)) {
-          log.debug("skipping redundant delete: {}", persistentObject);
-          return; // Skip this delete. It was already added.
-        }
+    if (isPersistentObjectDeleted(persistentObject)) {
+      log.debug("skipping redundant delete: {}", persistentObject);
+      return; // Skip this delete. It was already added.
     }
     
     deleteOperations.add(new CheckedDeleteOperation(persistentObject));
+    addDeletedObjectId(persistentObject);
+  }
+  
+  // Only CheckedDeleteOperations have an identity: they are indexed by class and id,
+  // so checking if an object is deleted doesn't require a scan of all delete operations
+  
+  protected void addDeletedObjectId(PersistentObject persistentObject) {
+    Set<String> ids = deletedObjectIds.get(persistentObject.getClass());
+    if (ids == null) {
+      ids = new HashSet<String>();
+      deletedObjectIds.put(persistentObject.getClass(), ids);
+    }
+    ids.add(persistentObject.getId());
+  }
+  
+  protected void removeDeletedObjectId(PersistentObject persistentObject) {
+    Set<String> ids = deletedObjectIds.get(persistentObject.getClass());
+    if (ids != null) {
+      ids.remove(persistentObject.getId());
+    }
   }
 
   public interface DeleteOperation {
@@ -211,10 +292,31 @@ public class DbSqlSession implements Session {
   public class BulkDeleteOperation implements DeleteOperation {
     private String statement;
     private Object parameter;
+    private Class<?> persistentObjectClass;
     
     public BulkDeleteOperation(String statement, Object parameter) {
+      this(statement, parameter, null);
+    }
+    
+    public BulkDeleteOperation(String statement, Object parameter, Class<?> persistentObjectClass) {
       this.statement = dbSqlSessionFactory.mapStatement(statement);
       this.parameter = parameter;
+      this.persistentObjectClass = persistentObjectClass;
+    }
+    
+    public String getStatement() {
+      return statement;
+    }
+    
+    public Object getParameter() {
+      return parameter;
+    }
+    
+    /**
+     * @return the class of the deleted objects, or null when it isn't known.
+     */
+    public Class<?> getPersistentObjectClass() {
+      return persistentObjectClass;
     }
     
     @Override
@@ -268,8 +370,9 @@ public class DbSqlSession implements Session {
         throw new ActivitiException("no delete statement for " + persistentObject.getClass() + " in the ibatis mapping files");
       }
       
-      // It only makes sense to check for optimistic locking exceptions for objects that actually have a revision
-      if (persistentObject instanceof HasRevision) {
+      // It only makes sense to check for optimistic locking exceptions for objects that actually have a revision.
+      // When batching, the delete is only queued here and the check is done when the batch is flushed
+      if (persistentObject instanceof HasRevision && !isJdbcBatchFlushEnabled()) {
         int nrOfRowsDeleted = sqlSession.delete(deleteStatement, persistentObject);
         if (nrOfRowsDeleted == 0) {
           throw new ActivitiOptimisticLockingException(persistentObject + " was updated by another transaction concurrently");
@@ -360,6 +463,10 @@ public class DbSqlSession implements Session {
     if (persistentObject!=null) {
       return persistentObject;
     }
+    persistentObject = selectDeferredById(entityClass, id);
+    if (persistentObject!=null) {
+      return persistentObject;
+    }
     String selectStatement = dbSqlSessionFactory.getSelectStatement(entityClass);
     selectStatement = dbSqlSessionFactory.mapStatement(selectStatement);
     persistentObject = (T) sqlSession.selectOne(selectStatement, id);
@@ -370,6 +477,25 @@ public class DbSqlSession implements Session {
     return persistentObject;
   }
 
+  /**
+   * Returns the object with the given class and id in the state in which its operations are deferred
+   * by the {@link DeferredFlushHandler}, or null when none are deferred.
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends PersistentObject> T selectDeferredById(Class<T> entityClass, String id) {
+    if (deferredFlushHandler == null) {
+      return null;
+    }
+    T persistentObject = cacheGet(entityClass, id);
+    if (persistentObject == null) {
+      persistentObject = (T) deferredFlushHandler.findDeferredObject(this, entityClass, id);
+      if (persistentObject != null) {
+        cachePut(persistentObject, true);
+      }
+    }
+    return persistentObject;
+  }
+
   // internal session cache ///////////////////////////////////////////////////
   
   @SuppressWarnings("rawtypes")
@@ -453,12 +579,26 @@ public class DbSqlSession implements Session {
   public static class CachedObject {
     protected PersistentObject persistentObject;
     protected Object persistentObjectState;
+    protected boolean dirtyFlagUsed;
     
     public CachedObject(PersistentObject persistentObject, boolean storeState) {
       this.persistentObject = persistentObject;
       if (storeState) {
-        this.persistentObjectState = persistentObject.getPersistentState();
+        if (persistentObject instanceof HasDirtyFlag) {
+          ((HasDirtyFlag) persistentObject).setDirty(false);
+          this.dirtyFlagUsed = true;
+        } else {
+          this.persistentObjectState = persistentObject.getPersistentState();
+        }
+      }
+    }
+    
+    /** returns true if the persistent object was changed since it was put in the cache, or if no state was stored. */
+    public boolean isUpdated() {
+      if (dirtyFlagUsed) {
+        return ((HasDirtyFlag) persistentObject).isDirty();
       }
+      return !persistentObject.getPersistentState().equals(persistentObjectState);
     }
 
     public PersistentObject getPersistentObject() {
@@ -488,6 +628,10 @@ public class DbSqlSession implements Session {
     flushDeserializedObjects();
     List<PersistentObject> updatedObjects = getUpdatedObjects();
     
+    if (deferredFlushHandler != null) {
+      deferOperations(updatedObjects);
+    }
+    
     if (log.isDebugEnabled()) {
       log.debug("flush summary: {} insert, {} update, {} delete.", insertedObjects.size(), updatedObjects.size(), deleteOperations.size());
       for (PersistentObject insertedObject: insertedObjects) {
@@ -502,9 +646,75 @@ public class DbSqlSession implements Session {
       log.debug("now executing flush...");
     }
 
+    CommandMetricsCollector commandMetricsCollector = dbSqlSessionFactory.getCommandMetricsCollector();
+    int inserts = insertedObjects.size();
+    int updates = updatedObjects.size();
+    int deletes = deleteOperations.size();
+    long start = System.nanoTime();
+
     flushInserts();
     flushUpdates(updatedObjects);
     flushDeletes(removedOperations);
+
+    if (commandMetricsCollector != null) {
+      recordFlushMetrics(commandMetricsCollector, inserts, updates, deletes, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records the number of flushed statements and the time spent on them for the command being executed.
+   */
+  protected void recordFlushMetrics(CommandMetricsCollector commandMetricsCollector, int inserts, int updates, int deletes, long timeInNanos) {
+    CommandContext commandContext = Context.getCommandContext();
+    if (commandContext != null && inserts + updates + deletes > 0) {
+      commandMetricsCollector
+        .getCounter(commandContext.getCommand().getClass().getName())
+        .recordFlush(inserts, updates, deletes, timeInNanos);
+    }
+  }
+
+  /**
+   * Hands the operations that are deferred over to the {@link DeferredFlushHandler}.
+   */
+  protected void deferOperations(List<PersistentObject> updatedObjects) {
+    List<PersistentObject> deferredInserts = removeDeferredObjects(insertedObjects);
+    List<PersistentObject> deferredUpdates = removeDeferredObjects(updatedObjects);
+    List<DeleteOperation> deferredDeletes = new ArrayList<DeleteOperation>();
+    for (DeleteOperation deleteOperation : deleteOperations) {
+      if (deferredFlushHandler.isDeferred(deleteOperation)) {
+        deferredDeletes.add(deleteOperation);
+      }
+    }
+    if (deferredInserts.isEmpty() && deferredUpdates.isEmpty() && deferredDeletes.isEmpty()) {
+      return;
+    }
+    
+    deferredDeletes = deferredFlushHandler.defer(this, deferredInserts, deferredUpdates, deferredDeletes);
+    if (!deferredDeletes.isEmpty()) {
+      Set<DeleteOperation> removedDeletes = Collections.newSetFromMap(new IdentityHashMap<DeleteOperation, Boolean>());
+      removedDeletes.addAll(deferredDeletes);
+      for (Iterator<DeleteOperation> deleteIt = deleteOperations.iterator(); deleteIt.hasNext();) {
+        DeleteOperation deleteOperation = deleteIt.next();
+        if (removedDeletes.contains(deleteOperation)) {
+          deleteIt.remove();
+          if (deleteOperation instanceof CheckedDeleteOperation) {
+            removeDeletedObjectId(((CheckedDeleteOperation) deleteOperation).getPersistentObject());
+          }
+        }
+      }
+    }
+  }
+    
+  protected List<PersistentObject> removeDeferredObjects(List<PersistentObject> persistentObjects) {
+    List<PersistentObject> deferredObjects = new ArrayList<PersistentObject>();
+    for (Iterator<PersistentObject> it = persistentObjects.iterator(); it.hasNext();) {
+      PersistentObject persistentObject = it.next();
+      if (deferredFlushHandler.isDeferred(persistentObject)) {
+        deferredObjects.add(persistentObject);
+        it.remove();
+      }
+    }
+    return deferredObjects;
   }
 
   /**
@@ -513,27 +723,63 @@ public class DbSqlSession implements Session {
    */
   protected List<DeleteOperation> removeUnnecessaryOperations() {
     List<DeleteOperation> removedDeleteOperations = new ArrayList<DeleteOperation>();
+    
+    Map<Class<?>, Map<String, PersistentObject>> insertedObjectsById = new HashMap<Class<?>, Map<String, PersistentObject>>();
+    for (PersistentObject insertedObject: insertedObjects) {
+      Map<String, PersistentObject> classInserts = insertedObjectsById.get(insertedObject.getClass());
+      if (classInserts == null) {
+        classInserts = new HashMap<String, PersistentObject>();
+        insertedObjectsById.put(insertedObject.getClass(), classInserts);
+      }
+      classInserts.put(insertedObject.getId(), insertedObject);
+    }
+    Map<PersistentObject, PersistentObject> cancelledInserts = new IdentityHashMap<PersistentObject, PersistentObject>();
 
     for (Iterator<DeleteOperation> deleteIt = deleteOperations.iterator(); deleteIt.hasNext();) {
       DeleteOperation deleteOperation = deleteIt.next();
       
-      for (Iterator<PersistentObject> insertIt = insertedObjects.iterator(); insertIt.hasNext();) {
-        PersistentObject insertedObject = insertIt.next();
+      PersistentObject insertedObject = null;
+      if (deleteOperation instanceof CheckedDeleteOperation) {
+        PersistentObject deletedObject = ((CheckedDeleteOperation) deleteOperation).getPersistentObject();
+        Map<String, PersistentObject> classInserts = insertedObjectsById.get(deletedObject.getClass());
+        if (classInserts != null) {
+          insertedObject = classInserts.remove(deletedObject.getId());
+        }
         
-        // if the deleted object is inserted,
-        if (deleteOperation.sameIdentity(insertedObject)) {
-          // remove the insert and the delete, they cancel each other
-          insertIt.remove();
-          deleteIt.remove();
-          // add removed operations to be able to fire events
-          removedDeleteOperations.add( deleteOperation);
+      } else if (!(deleteOperation instanceof BulkDeleteOperation)) {
+        // unknown delete operation: fall back to comparing it with every insert
+        for (PersistentObject candidate: insertedObjects) {
+          if (!cancelledInserts.containsKey(candidate) && deleteOperation.sameIdentity(candidate)) {
+            insertedObject = candidate;
+            break;
+          }
+        }
+      }
+        
+      // if the deleted object is inserted,
+      if (insertedObject != null) {
+        // remove the insert and the delete, they cancel each other
+        cancelledInserts.put(insertedObject, insertedObject);
+        deleteIt.remove();
+        if (deleteOperation instanceof CheckedDeleteOperation) {
+          removeDeletedObjectId(((CheckedDeleteOperation) deleteOperation).getPersistentObject());
         }
+        // add removed operations to be able to fire events
+        removedDeleteOperations.add(deleteOperation);
       }
       
       // in any case, remove the deleted object from the cache
       deleteOperation.clearCache();
     }
     
+    if (!cancelledInserts.isEmpty()) {
+      for (Iterator<PersistentObject> insertIt = insertedObjects.iterator(); insertIt.hasNext();) {
+        if (cancelledInserts.containsKey(insertIt.next())) {
+          insertIt.remove();
+        }
+      }
+    }
+    
     for (PersistentObject insertedObject: insertedObjects) {
       cacheRemove(insertedObject.getClass(), insertedObject.getId());
     }
@@ -556,8 +802,7 @@ public class DbSqlSession implements Session {
         
         PersistentObject persistentObject = cachedObject.getPersistentObject();
         if (!isPersistentObjectDeleted(persistentObject)) {
-          Object originalState = cachedObject.getPersistentObjectState();
-          if (!persistentObject.getPersistentState().equals(originalState)) {
+          if (cachedObject.isUpdated()) {
             updatedObjects.add(persistentObject);
           } else {
             log.trace("loaded object '{}' was not updated", persistentObject);
@@ -570,24 +815,16 @@ public class DbSqlSession implements Session {
     return updatedObjects;
   }
   
-  protected boolean isPersistentObjectDeleted(PersistentObject persistentObject) {
-    for (DeleteOperation deleteOperation : deleteOperations) {
-      if (deleteOperation.sameIdentity(persistentObject)) {
-        return true;
-      }
-    }
-    return false;
+  public boolean isPersistentObjectDeleted(PersistentObject persistentObject) {
+    Set<String> ids = deletedObjectIds.get(persistentObject.getClass());
+    return ids != null && ids.contains(persistentObject.getId());
   }
   
   public <T extends PersistentObject> List<T> pruneDeletedEntities(List<T> listToPrune) {   
-    List<T> prunedList = new ArrayList<T>(listToPrune);
+    List<T> prunedList = new ArrayList<T>(listToPrune.size());
     for (T potentiallyDeleted : listToPrune) {
-      for (DeleteOperation deleteOperation: deleteOperations) {
-          
-        if (deleteOperation.sameIdentity(potentiallyDeleted)) {
-          prunedList.remove(potentiallyDeleted);
-        }
-          
+      if (!isPersistentObjectDeleted(potentiallyDeleted)) {
+        prunedList.add(potentiallyDeleted);
       }
     }
     return prunedList;
@@ -604,8 +841,14 @@ public class DbSqlSession implements Session {
       
       log.debug("inserting: {}", insertedObject);
       sqlSession.insert(insertStatement, insertedObject);
-      
-      // See http://jira.codehaus.org/browse/ACT-1290
+    }
+    
+    if (isJdbcBatchFlushEnabled()) {
+      flushBatchStatements(null);
+    }
+    
+    // See http://jira.codehaus.org/browse/ACT-1290
+    for (PersistentObject insertedObject: insertedObjects) {
       if (insertedObject instanceof HasRevision) {
         ((HasRevision) insertedObject).setRevision(((HasRevision) insertedObject).getRevisionNext());
       }
@@ -624,15 +867,24 @@ public class DbSqlSession implements Session {
       
       log.debug("updating: {}", updatedObject);
       int updatedRecords = sqlSession.update(updateStatement, updatedObject);
-      if (updatedRecords!=1) {
+      if (updatedRecords!=1 && !isJdbcBatchFlushEnabled()) {
         throw new ActivitiOptimisticLockingException(updatedObject + " was updated by another transaction concurrently");
       } 
-      
-      // See http://jira.codehaus.org/browse/ACT-1290
+    }
+    
+    if (isJdbcBatchFlushEnabled()) {
+      Map<Object, Object> checkedObjects = new IdentityHashMap<Object, Object>();
+      for (PersistentObject updatedObject: updatedObjects) {
+        checkedObjects.put(updatedObject, updatedObject);
+      }
+      flushBatchStatements(checkedObjects);
+    }
+    
+    // See http://jira.codehaus.org/browse/ACT-1290
+    for (PersistentObject updatedObject: updatedObjects) {
       if (updatedObject instanceof HasRevision) {
         ((HasRevision) updatedObject).setRevision(((HasRevision) updatedObject).getRevisionNext());
       }
-      
     }
     updatedObjects.clear();
   }
@@ -648,6 +900,7 @@ public class DbSqlSession implements Session {
     }
 
     deleteOperations.clear();
+    deletedObjectIds.clear();
   }
 
   protected void dispatchEventsForRemovedOperations(List<DeleteOperation> removedOperations) {
@@ -672,10 +925,15 @@ public class DbSqlSession implements Session {
   }
 
   protected void flushRegularDeletes(boolean dispatchEvent) {
+    if (isJdbcBatchFlushEnabled()) {
+      flushBatchedDeletes();
+    }
+    
     for (DeleteOperation delete : deleteOperations) {
-      log.debug("executing: {}", delete);
-
-      delete.execute();
+      if (!isJdbcBatchFlushEnabled()) {
+        log.debug("executing: {}", delete);
+        delete.execute();
+      }
 
       //  fire event for variable delete operation. (BulkDeleteOperation is not taken into account)
       if (dispatchEvent) {
@@ -694,6 +952,60 @@ public class DbSqlSession implements Session {
     }
   }
 
+  /**
+   * Queues all delete operations in the jdbc batch and executes them at once.
+   * Deletes of objects with a revision are checked for concurrent modifications
+   * afterwards, based on the update counts reported for the batch.
+   */
+  protected void flushBatchedDeletes() {
+    Map<Object, Object> checkedObjects = new IdentityHashMap<Object, Object>();
+    for (DeleteOperation delete : deleteOperations) {
+      log.debug("executing: {}", delete);
+      delete.execute();
+      
+      if (delete instanceof CheckedDeleteOperation) {
+        PersistentObject persistentObject = ((CheckedDeleteOperation) delete).getPersistentObject();
+        if (persistentObject instanceof HasRevision) {
+          checkedObjects.put(persistentObject, persistentObject);
+        }
+      }
+    }
+    flushBatchStatements(checkedObjects);
+  }
+  
+  /**
+   * Sends the statements queued in the jdbc batch to the database.
+   * 
+   * For every parameter object contained in the given checkedObjects (can be null), 
+   * at least one row must have been affected, otherwise an {@link ActivitiOptimisticLockingException} is thrown.
+   * Drivers that do not report update counts for batched statements ({@link Statement#SUCCESS_NO_INFO})
+   * cannot be checked.
+   */
+  protected void flushBatchStatements(Map<Object, Object> checkedObjects) {
+    List<BatchResult> batchResults = sqlSession.flushStatements();
+    if (checkedObjects == null || checkedObjects.isEmpty()) {
+      return;
+    }
+    
+    for (BatchResult batchResult : batchResults) {
+      List<Object> parameterObjects = batchResult.getParameterObjects();
+      int[] updateCounts = batchResult.getUpdateCounts();
+      for (int i=0; i<updateCounts.length && i<parameterObjects.size(); i++) {
+        Object parameterObject = parameterObjects.get(i);
+        if (!checkedObjects.containsKey(parameterObject)) {
+          continue;
+        }
+        
+        int updateCount = updateCounts[i];
+        if (updateCount == Statement.SUCCESS_NO_INFO) {
+          log.trace("no update count reported for {}, skipping optimistic locking check", parameterObject);
+        } else if (updateCount == 0) {
+          throw new ActivitiOptimisticLockingException(parameterObject + " was updated by another transaction concurrently");
+        }
+      }
+    }
+  }
+
   public void close() {
     sqlSession.close();
   }
@@ -1267,6 +1579,15 @@ public class DbSqlSession implements Session {
   public DbSqlSessionFactory getDbSqlSessionFactory() {
     return dbSqlSessionFactory;
   }
+  public DeferredFlushHandler getDeferredFlushHandler() {
+    return deferredFlushHandler;
+  }
+  /**
+   * Without {@link DeferredFlushHandler}, this session executes all operations itself.
+   */
+  public void setDeferredFlushHandler(DeferredFlushHandler deferredFlushHandler) {
+    this.deferredFlushHandler = deferredFlushHandler;
+  }
 
 
 }
@@ -16,6 +16,7 @@ package org.activiti.engine.impl.db;
 import org.activiti.engine.impl.cfg.IdGenerator;
 import org.activiti.engine.impl.interceptor.Session;
 import org.activiti.engine.impl.interceptor.SessionFactory;
+import org.activiti.engine.impl.metrics.CommandMetricsCollector;
 import org.apache.ibatis.session.SqlSessionFactory;
 
 import java.util.HashMap;
@@ -56,6 +57,8 @@ public class DbSqlSessionFactory implements SessionFactory {
     databaseSpecificOrderByStatements.put("mysql", defaultOrderBy);
     addDatabaseSpecificStatement("mysql", "selectNextJobsToExecute", "selectNextJobsToExecute_mysql");
     addDatabaseSpecificStatement("mysql", "selectExclusiveJobsToExecute", "selectExclusiveJobsToExecute_mysql");
+    addDatabaseSpecificStatement("mysql", "selectExclusiveJobsToExecuteForProcessInstances", "selectExclusiveJobsToExecuteForProcessInstances_mysql");
+    addDatabaseSpecificStatement("mysql", "bulkLockJobs", "bulkLockJobs_mysql");
     addDatabaseSpecificStatement("mysql", "selectProcessDefinitionsByQueryCriteria", "selectProcessDefinitionsByQueryCriteria_mysql");
     addDatabaseSpecificStatement("mysql", "selectProcessDefinitionCountByQueryCriteria", "selectProcessDefinitionCountByQueryCriteria_mysql");
     addDatabaseSpecificStatement("mysql", "selectDeploymentsByQueryCriteria", "selectDeploymentsByQueryCriteria_mysql");
@@ -97,6 +100,7 @@ public class DbSqlSessionFactory implements SessionFactory {
     databaseOuterJoinLimitBetweenStatements.put("oracle", "");
     databaseSpecificOrderByStatements.put("oracle", defaultOrderBy);
     addDatabaseSpecificStatement("oracle", "selectExclusiveJobsToExecute", "selectExclusiveJobsToExecute_integerBoolean");
+    addDatabaseSpecificStatement("oracle", "selectExclusiveJobsToExecuteForProcessInstances", "selectExclusiveJobsToExecuteForProcessInstances_integerBoolean");
     addDatabaseSpecificStatement("oracle", "selectUnlockedTimersByDuedate", "selectUnlockedTimersByDuedate_oracle");
 
     // db2
@@ -107,6 +111,7 @@ public class DbSqlSessionFactory implements SessionFactory {
     databaseSpecificOrderByStatements.put("db2", "");
     databaseSpecificLimitBeforeNativeQueryStatements.put("db2", "SELECT SUB.* FROM ( select RES.* , row_number() over (ORDER BY ${orderBy}) rnk FROM (");
     addDatabaseSpecificStatement("db2", "selectExclusiveJobsToExecute", "selectExclusiveJobsToExecute_integerBoolean");
+    addDatabaseSpecificStatement("db2", "selectExclusiveJobsToExecuteForProcessInstances", "selectExclusiveJobsToExecuteForProcessInstances_integerBoolean");
     addDatabaseSpecificStatement("db2", "selectExecutionByNativeQuery", "selectExecutionByNativeQuery_mssql_or_db2");
     addDatabaseSpecificStatement("db2", "selectHistoricActivityInstanceByNativeQuery", "selectHistoricActivityInstanceByNativeQuery_mssql_or_db2");
     addDatabaseSpecificStatement("db2", "selectHistoricProcessInstanceByNativeQuery", "selectHistoricProcessInstanceByNativeQuery_mssql_or_db2");
@@ -132,6 +137,7 @@ public class DbSqlSessionFactory implements SessionFactory {
     databaseSpecificOrderByStatements.put("mssql", "");
     databaseSpecificLimitBeforeNativeQueryStatements.put("mssql", "SELECT SUB.* FROM ( select RES.* , row_number() over (ORDER BY ${orderBy}) rnk FROM (");
     addDatabaseSpecificStatement("mssql", "selectExclusiveJobsToExecute", "selectExclusiveJobsToExecute_integerBoolean");
+    addDatabaseSpecificStatement("mssql", "selectExclusiveJobsToExecuteForProcessInstances", "selectExclusiveJobsToExecuteForProcessInstances_integerBoolean");
     addDatabaseSpecificStatement("mssql", "selectExecutionByNativeQuery", "selectExecutionByNativeQuery_mssql_or_db2");
     addDatabaseSpecificStatement("mssql", "selectHistoricActivityInstanceByNativeQuery", "selectHistoricActivityInstanceByNativeQuery_mssql_or_db2");
     addDatabaseSpecificStatement("mssql", "selectHistoricProcessInstanceByNativeQuery", "selectHistoricProcessInstanceByNativeQuery_mssql_or_db2");
@@ -170,6 +176,9 @@ public class DbSqlSessionFactory implements SessionFactory {
   protected Map<Class<?>,String>  selectStatements = new ConcurrentHashMap<Class<?>, String>();
   protected boolean isDbIdentityUsed = true;
   protected boolean isDbHistoryUsed = true;
+  protected boolean isJdbcBatchFlushEnabled = false;
+  protected DeferredFlushHandler deferredFlushHandler;
+  protected CommandMetricsCollector commandMetricsCollector;
 
 
   public Class< ? > getSessionType() {
@@ -186,6 +195,10 @@ public class DbSqlSessionFactory implements SessionFactory {
     return getStatement(object.getClass(), insertStatements, "insert");
   }
 
+  public String getInsertStatement(Class<?> persistentObjectClass) {
+    return getStatement(persistentObjectClass, insertStatements, "insert");
+  }
+
   public String getUpdateStatement(PersistentObject object) {
     return getStatement(object.getClass(), updateStatements, "update");
   }
@@ -324,6 +337,30 @@ public class DbSqlSessionFactory implements SessionFactory {
     this.isDbHistoryUsed = isDbHistoryUsed;
   }
 
+  public boolean isJdbcBatchFlushEnabled() {
+    return isJdbcBatchFlushEnabled;
+  }
+  
+  public void setJdbcBatchFlushEnabled(boolean isJdbcBatchFlushEnabled) {
+    this.isJdbcBatchFlushEnabled = isJdbcBatchFlushEnabled;
+  }
+  
+  public DeferredFlushHandler getDeferredFlushHandler() {
+    return deferredFlushHandler;
+  }
+  
+  public void setDeferredFlushHandler(DeferredFlushHandler deferredFlushHandler) {
+    this.deferredFlushHandler = deferredFlushHandler;
+  }
+
+  public CommandMetricsCollector getCommandMetricsCollector() {
+    return commandMetricsCollector;
+  }
+  
+  public void setCommandMetricsCollector(CommandMetricsCollector commandMetricsCollector) {
+    this.commandMetricsCollector = commandMetricsCollector;
+  }
+
   public void setDatabaseTablePrefix(String databaseTablePrefix) {
     this.databaseTablePrefix = databaseTablePrefix;
   }
@@ -0,0 +1,49 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.db;
+
+import java.util.List;
+
+import org.activiti.engine.impl.db.DbSqlSession.DeleteOperation;
+
+/**
+ * Takes over the inserts, updates and deletes of some persistent objects when a {@link DbSqlSession}
+ * is flushed, eg. to write them after the transaction (see {@link org.activiti.engine.impl.history.AsyncHistoryWriter}).
+ */
+public interface DeferredFlushHandler {
+
+  /**
+   * Returns whether the inserts and updates of the given object are deferred.
+   */
+  boolean isDeferred(PersistentObject persistentObject);
+
+  /**
+   * Returns whether the given delete operation may be deferred.
+   */
+  boolean isDeferred(DeleteOperation deleteOperation);
+
+  /**
+   * Takes over the given operations of a flush, before the session executes the other ones.
+   * The handler can add operations to the session, eg. to store the deferred ones.
+   * @return the delete operations that were taken over, the session executes the others itself.
+   */
+  List<DeleteOperation> defer(DbSqlSession dbSqlSession, List<PersistentObject> insertedObjects,
+          List<PersistentObject> updatedObjects, List<DeleteOperation> deleteOperations);
+
+  /**
+   * Returns the object with the given class and id in the state its deferred operations give it,
+   * or null when no operations on it are deferred.
+   */
+  PersistentObject findDeferredObject(DbSqlSession dbSqlSession, Class<?> persistentObjectClass, String id);
+
+}
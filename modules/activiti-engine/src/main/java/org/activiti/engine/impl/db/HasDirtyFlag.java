@@ -0,0 +1,30 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.db;
+
+/**
+ * Entities that keep track of their own modifications can implement this interface.
+ * 
+ * The {@link DbSqlSession} will then use the dirty flag to determine if an entity 
+ * loaded in the current session needs to be updated, instead of comparing 
+ * its {@link PersistentObject#getPersistentState()} with the state at load time.
+ * 
+ * The flag is reset by the {@link DbSqlSession} when the entity is loaded, so implementations 
+ * only need to set it whenever a persistent field actually changes.
+ */
+public interface HasDirtyFlag {
+  
+  boolean isDirty();
+  void setDirty(boolean dirty);
+
+}
@@ -0,0 +1,171 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.engine.impl.db;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * {@link DbIdGenerator} that fetches the next id block in a background thread
+ * when the current block is almost used up, so command threads normally never wait 
+ * for the id block transaction.
+ * 
+ * The size of the fetched blocks adapts to the id allocation rate: when a block is used up
+ * faster than the {@link #targetBlockDurationMillis}, the next block will be twice as large 
+ * (up to {@link #maxIdBlockSize}). When it takes a lot longer, the block size is halved again,
+ * but never below the configured {@link #idBlockSize}.
+ */
+public class PrefetchingDbIdGenerator extends DbIdGenerator {
+  
+  private static final Logger log = LoggerFactory.getLogger(PrefetchingDbIdGenerator.class);
+  
+  protected int maxIdBlockSize = 100000;
+  
+  /** percentage of the current block that must be left when the next block is prefetched */
+  protected int prefetchThresholdPercentage = 25;
+  
+  protected long targetBlockDurationMillis = 10000L;
+  
+  protected int currentIdBlockSize;
+  protected long currentBlockStartTime;
+  protected Future<IdBlock> prefetchedIdBlock;
+  protected ExecutorService prefetchExecutor;
+  
+  @Override
+  protected synchronized IdBlock fetchNextIdBlock() {
+    adaptIdBlockSize();
+    currentBlockStartTime = System.currentTimeMillis();
+    
+    Future<IdBlock> prefetched = prefetchedIdBlock;
+    prefetchedIdBlock = null;
+    if (prefetched != null) {
+      try {
+        return prefetched.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        log.warn("Interrupted while waiting for prefetched id block, fetching a new block instead");
+      } catch (ExecutionException e) {
+        log.warn("Prefetching id block failed, fetching a new block instead", e.getCause());
+      }
+    }
+    return fetchIdBlock(getCurrentIdBlockSize());
+  }
+  
+  @Override
+  protected IdRange createIdRange(IdBlock idBlock) {
+    long size = idBlock.getLastId() - idBlock.getNextId() + 1;
+    long almostExhaustedId = idBlock.getLastId() - (size * prefetchThresholdPercentage / 100);
+    return new IdRange(idBlock.getNextId(), idBlock.getLastId(), Math.max(idBlock.getNextId(), almostExhaustedId));
+  }
+  
+  @Override
+  protected synchronized void idBlockAlmostExhausted() {
+    if (prefetchedIdBlock != null) {
+      return;
+    }
+    
+    final int size = getCurrentIdBlockSize();
+    try {
+      prefetchedIdBlock = getPrefetchExecutor().submit(new Callable<IdBlock>() {
+        public IdBlock call() throws Exception {
+          return fetchIdBlock(size);
+        }
+      });
+    } catch (RuntimeException e) {
+      // Eg. when shut down: the next block will be fetched synchronously
+      log.debug("Could not schedule id block prefetch: {}", e.getMessage());
+    }
+  }
+  
+  protected void adaptIdBlockSize() {
+    int blockSize = getCurrentIdBlockSize();
+    if (currentBlockStartTime > 0) {
+      long blockDuration = System.currentTimeMillis() - currentBlockStartTime;
+      if (blockDuration < targetBlockDurationMillis) {
+        blockSize = (int) Math.min((long) blockSize * 2, maxIdBlockSize);
+      } else if (blockDuration > 4 * targetBlockDurationMillis) {
+        blockSize = Math.max(blockSize / 2, idBlockSize);
+      }
+    }
+    if (blockSize != currentIdBlockSize) {
+      log.debug("Id block size changed from {} to {}", currentIdBlockSize, blockSize);
+      currentIdBlockSize = blockSize;
+    }
+  }
+  
+  protected synchronized ExecutorService getPrefetchExecutor() {
+    if (prefetchExecutor == null) {
+      prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "activiti-id-block-prefetch");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return prefetchExecutor;
+  }
+  
+  /**
+   * Stops the background thread. Blocks that are fetched afterwards are fetched 
+   * synchronously, as done by the regular {@link DbIdGenerator}.
+   */
+  public synchronized void shutdown() {
+    if (prefetchExecutor != null) {
+      prefetchExecutor.shutdown();
+    }
+  }
+  
+  // getters and setters //////////////////////////////////////////////////////
+  
+  public synchronized int getCurrentIdBlockSize() {
+    if (currentIdBlockSize < idBlockSize) {
+      currentIdBlockSize = idBlockSize;
+    }
+    return currentIdBlockSize;
+  }
+  
+  public int getMaxIdBlockSize() {
+    return maxIdBlockSize;
+  }
+  
+  public void setMaxIdBlockSize(int maxIdBlockSize) {
+    this.maxIdBlockSize = maxIdBlockSize;
+  }
+  
+  public int getPrefetchThresholdPercentage() {
+    return prefetchThresholdPercentage;
+  }
+  
+  public void setPrefetchThresholdPercentage(int prefetchThresholdPercentage) {
+    this.prefetchThresholdPercentage = prefetchThresholdPercentage;
+  }
+  
+  public long getTargetBlockDurationMillis() {
+    return targetBlockDurationMillis;
+  }
+  
+  public void setTargetBlockDurationMillis(long targetBlockDurationMillis) {
+    this.targetBlockDurationMillis = targetBlockDurationMillis;
+  }
+  
+}
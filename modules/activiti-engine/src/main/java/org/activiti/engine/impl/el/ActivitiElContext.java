@@ -24,6 +24,8 @@ import org.activiti.engine.impl.javax.el.VariableMapper;
  */
 public class ActivitiElContext extends ELContext {
   
+  protected static final FunctionMapper FUNCTION_MAPPER = new ActivitiFunctionMapper();
+  
   protected ELResolver elResolver;
     
   public ActivitiElContext(ELResolver elResolver) {
@@ -35,7 +37,7 @@ public class ActivitiElContext extends ELContext {
   }
   
   public FunctionMapper getFunctionMapper() {
-    return new ActivitiFunctionMapper();
+    return FUNCTION_MAPPER;
   }
   
   public VariableMapper getVariableMapper() {
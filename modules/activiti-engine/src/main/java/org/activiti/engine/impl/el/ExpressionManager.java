@@ -28,6 +28,8 @@ import org.activiti.engine.impl.javax.el.ListELResolver;
 import org.activiti.engine.impl.javax.el.MapELResolver;
 import org.activiti.engine.impl.javax.el.ValueExpression;
 import org.activiti.engine.impl.juel.ExpressionFactoryImpl;
+import org.activiti.engine.impl.persistence.deploy.DefaultDeploymentCache;
+import org.activiti.engine.impl.persistence.deploy.DeploymentCache;
 import org.activiti.engine.impl.persistence.entity.VariableScopeImpl;
 
 
@@ -55,6 +57,14 @@ public class ExpressionManager {
   protected ELContext parsingElContext = new ParsingElContext();
   protected Map<Object, Object> beans;
   
+  /**
+   * Expressions are immutable, so all occurrences of the same expression text, 
+   * eg. in every version of a process definition, share a single parsed expression.
+   */
+  protected DeploymentCache<Expression> expressionCache = new DefaultDeploymentCache<Expression>(1000, false);
+  
+  protected volatile ELResolver sharedElResolver;
+  
   
   public ExpressionManager() {
 	    this(null);
@@ -77,12 +87,36 @@ public class ExpressionManager {
  
   
   public Expression createExpression(String expression) {
+    Expression cachedExpression = expressionCache != null ? expressionCache.get(expression) : null;
+    if (cachedExpression != null) {
+      return cachedExpression;
+    }
+    
     ValueExpression valueExpression = expressionFactory.createValueExpression(parsingElContext, expression.trim(), Object.class);
-    return new JuelExpression(valueExpression, expression);
+    Expression juelExpression = new JuelExpression(valueExpression, expression);
+    if (expressionCache != null) {
+      expressionCache.add(expression, juelExpression);
+    }
+    return juelExpression;
   }
 
   public void setExpressionFactory(ExpressionFactory expressionFactory) {
     this.expressionFactory = expressionFactory;
+    if (expressionCache != null) {
+      // parsed by the previous factory
+      expressionCache.clear();
+    }
+  }
+  
+  public DeploymentCache<Expression> getExpressionCache() {
+    return expressionCache;
+  }
+  
+  /**
+   * Sets the cache used to share parsed expressions, null to parse every expression again.
+   */
+  public void setExpressionCache(DeploymentCache<Expression> expressionCache) {
+    this.expressionCache = expressionCache;
   }
 
   public ELContext getElContext(VariableScope variableScope) {
@@ -107,9 +141,32 @@ public class ExpressionManager {
     return new ActivitiElContext(elResolver);
   }
 
+  /**
+   * Only the resolver of the variables is specific for the variable scope, the 
+   * other resolvers are stateless and shared by all variable scopes.
+   */
   protected ELResolver createElResolver(VariableScope variableScope) {
     CompositeELResolver elResolver = new CompositeELResolver();
     elResolver.add(new VariableScopeElResolver(variableScope));
+    elResolver.add(getSharedElResolver());
+    return elResolver;
+  }
+  
+  protected ELResolver getSharedElResolver() {
+    ELResolver elResolver = sharedElResolver;
+    if (elResolver == null) {
+      elResolver = createSharedElResolver();
+      sharedElResolver = elResolver;
+    }
+    return elResolver;
+  }
+  
+  /**
+   * Creates the resolvers that don't depend on the variable scope. They are used concurrently,
+   * and keep the bean properties and methods they looked up for all evaluations.
+   */
+  protected ELResolver createSharedElResolver() {
+    CompositeELResolver elResolver = new CompositeELResolver();
     
     if(beans != null) {
       // ACT-1102: Also expose all beans in configuration when using standalone activiti, not
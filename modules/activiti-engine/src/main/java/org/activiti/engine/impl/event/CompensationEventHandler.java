@@ -20,6 +20,7 @@ import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
 import org.activiti.engine.impl.bpmn.helper.ScopeUtil;
 import org.activiti.engine.impl.bpmn.parser.BpmnParse;
+import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.entity.CompensateEventSubscriptionEntity;
 import org.activiti.engine.impl.persistence.entity.EventSubscriptionEntity;
@@ -62,7 +63,7 @@ public class CompensationEventHandler implements EventHandler {
     } else {
       try {
 
-      	if(commandContext.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+      	if(Context.isEventDispatcherEnabled(ActivitiEventType.ACTIVITY_COMPENSATE)) {
       		commandContext.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
       				ActivitiEventBuilder.createActivityEvent(ActivitiEventType.ACTIVITY_COMPENSATE, compensationHandler.getId(), compensatingExecution.getId(), 
       						compensatingExecution.getProcessInstanceId(), compensatingExecution.getProcessDefinitionId()));
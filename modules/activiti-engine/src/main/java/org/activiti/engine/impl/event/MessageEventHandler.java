@@ -15,6 +15,7 @@ package org.activiti.engine.impl.event;
 
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.entity.EventSubscriptionEntity;
 
@@ -34,7 +35,7 @@ public class MessageEventHandler extends AbstractEventHandler {
   @Override
   public void handleEvent(EventSubscriptionEntity eventSubscription, Object payload, CommandContext commandContext) {
   	// As stated in the ActivitiEventType java-doc, the message-event is thrown before the actual message has been sent
-  	if(commandContext.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+  	if(Context.isEventDispatcherEnabled(ActivitiEventType.ACTIVITY_MESSAGE_RECEIVED)) {
     	commandContext.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createMessageEvent(ActivitiEventType.ACTIVITY_MESSAGE_RECEIVED, eventSubscription.getActivityId(), eventSubscription.getEventName(), 
     					payload, eventSubscription.getExecutionId(), eventSubscription.getProcessInstanceId(), eventSubscription.getExecution().getProcessDefinitionId()));
@@ -0,0 +1,258 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.history.AsyncHistoryRecord.Column;
+
+/**
+ * The history operations of one flush, which are written by the {@link AsyncHistoryWriter}
+ * after the transaction has committed.
+ *
+ * A batch is stored in the journal of the writer in the transaction that created it (see {@link AsyncHistoryJournalEntry}),
+ * in a versioned format that only contains data: table, column and statement names, and column values of
+ * the types VARCHAR, TIMESTAMP, BIGINT, INTEGER, DOUBLE and BOOLEAN. It doesn't depend on the classes
+ * of the engine, so a newer engine can read the journal left by an older one.
+ */
+public class AsyncHistoryBatch {
+
+  /** the version of the format written by {@link #toBytes()}, {@link #fromBytes(byte[])} reads all versions up to it */
+  public static final int FORMAT_VERSION = 1;
+
+  protected static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_]+");
+  protected static final Pattern STATEMENT_PATTERN = Pattern.compile("[A-Za-z0-9_.]+");
+
+  protected List<AsyncHistoryRecord> records = new ArrayList<AsyncHistoryRecord>();
+
+  public void addRecord(AsyncHistoryRecord record) {
+    records.add(record);
+  }
+
+  public List<AsyncHistoryRecord> getRecords() {
+    return records;
+  }
+
+  public boolean isEmpty() {
+    return records.isEmpty();
+  }
+
+  /**
+   * Returns the keys under which the batch can be looked up in the {@link AsyncHistoryWriter}
+   * while it is queued: one for every inserted, updated or deleted row, and one for every process instance
+   * and task that history in the batch belongs to or is deleted of.
+   */
+  public Set<String> getQueuedKeys() {
+    Set<String> keys = new LinkedHashSet<String>();
+    for (AsyncHistoryRecord record : records) {
+      if (record.isRow()) {
+        keys.add(AsyncHistoryWriter.getRowKey(record.getTable(), record.getId()));
+        Object processInstanceId = record.getColumnValue("PROC_INST_ID_");
+        if (processInstanceId != null) {
+          keys.add(AsyncHistoryWriter.getScopeKey(AsyncHistoryRecord.SCOPE_PROCESS_INSTANCE, processInstanceId.toString()));
+        }
+        Object taskId = "ACT_HI_TASKINST".equals(record.getTable()) ? record.getId() : record.getColumnValue("TASK_ID_");
+        if (taskId != null) {
+          keys.add(AsyncHistoryWriter.getScopeKey(AsyncHistoryRecord.SCOPE_TASK, taskId.toString()));
+        }
+      } else if (record.getType() == AsyncHistoryRecord.DELETE) {
+        keys.add(AsyncHistoryWriter.getRowKey(record.getTable(), record.getId()));
+      } else if (record.getType() == AsyncHistoryRecord.DELETE_HISTORY) {
+        keys.add(AsyncHistoryWriter.getScopeKey(record.getScope(), record.getId()));
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Returns the last insert, update or delete of the row with the given table and id, or null when it isn't part of the batch.
+   */
+  public AsyncHistoryRecord findRow(String table, String id) {
+    for (int i = records.size() - 1; i >= 0; i--) {
+      AsyncHistoryRecord record = records.get(i);
+      if ((record.isRow() || record.getType() == AsyncHistoryRecord.DELETE) && record.getTable().equals(table) && record.getId().equals(id)) {
+        return record;
+      }
+    }
+    return null;
+  }
+
+  // format ///////////////////////////////////////////////////////////////////
+
+  public byte[] toBytes() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(records.size());
+      for (AsyncHistoryRecord record : records) {
+        out.writeByte(record.getType());
+        switch (record.getType()) {
+        case AsyncHistoryRecord.INSERT:
+        case AsyncHistoryRecord.UPDATE:
+          writeString(out, record.getTable());
+          writeString(out, record.getId());
+          out.writeInt(record.getColumns().size());
+          for (Column column : record.getColumns()) {
+            writeString(out, column.getName());
+            writeString(out, column.getJdbcType());
+            writeValue(out, column.getJdbcType(), column.getValue());
+          }
+          break;
+        case AsyncHistoryRecord.DELETE:
+          writeString(out, record.getTable());
+          writeString(out, record.getId());
+          break;
+        case AsyncHistoryRecord.BULK_DELETE:
+          writeString(out, record.getStatement());
+          writeString(out, record.getId());
+          break;
+        default:
+          writeString(out, record.getScope());
+          writeString(out, record.getId());
+        }
+      }
+      out.close();
+    } catch (IOException e) {
+      throw new ActivitiException("Couldn't write async history batch", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static AsyncHistoryBatch fromBytes(byte[] bytes) {
+    AsyncHistoryBatch batch = new AsyncHistoryBatch();
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+      int version = in.readInt();
+      if (version < 1 || version > FORMAT_VERSION) {
+        throw new ActivitiException("Unsupported async history batch format version " + version);
+      }
+      int recordCount = in.readInt();
+      for (int i = 0; i < recordCount; i++) {
+        int type = in.readByte();
+        switch (type) {
+        case AsyncHistoryRecord.INSERT:
+        case AsyncHistoryRecord.UPDATE:
+          AsyncHistoryRecord row = AsyncHistoryRecord.row(type, readName(in, NAME_PATTERN), readString(in));
+          int columnCount = in.readInt();
+          for (int j = 0; j < columnCount; j++) {
+            String name = readName(in, NAME_PATTERN);
+            String jdbcType = readString(in);
+            row.addColumn(name, jdbcType, readValue(in, jdbcType));
+          }
+          batch.addRecord(row);
+          break;
+        case AsyncHistoryRecord.DELETE:
+          batch.addRecord(AsyncHistoryRecord.row(type, readName(in, NAME_PATTERN), readString(in)));
+          break;
+        case AsyncHistoryRecord.BULK_DELETE:
+          batch.addRecord(AsyncHistoryRecord.bulkDelete(readName(in, STATEMENT_PATTERN), readString(in)));
+          break;
+        case AsyncHistoryRecord.DELETE_HISTORY:
+          batch.addRecord(AsyncHistoryRecord.deleteHistory(readString(in), readString(in)));
+          break;
+        default:
+          throw new ActivitiException("Unknown async history record type " + type);
+        }
+      }
+    } catch (IOException e) {
+      throw new ActivitiException("Couldn't read async history batch", e);
+    }
+    return batch;
+  }
+
+  protected static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = value.getBytes("UTF-8");
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  protected static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  /**
+   * Table, column and statement names end up in sql, so a journal entry can only contain plain names.
+   */
+  protected static String readName(DataInputStream in, Pattern pattern) throws IOException {
+    String name = readString(in);
+    if (name == null || !pattern.matcher(name).matches()) {
+      throw new ActivitiException("Invalid name in async history batch: " + name);
+    }
+    return name;
+  }
+
+  protected static void writeValue(DataOutputStream out, String jdbcType, Object value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value == null) {
+      return;
+    }
+    if ("VARCHAR".equals(jdbcType)) {
+      writeString(out, value.toString());
+    } else if ("TIMESTAMP".equals(jdbcType)) {
+      out.writeLong(((java.util.Date) value).getTime());
+    } else if ("BIGINT".equals(jdbcType)) {
+      out.writeLong(((Number) value).longValue());
+    } else if ("INTEGER".equals(jdbcType)) {
+      out.writeInt(((Number) value).intValue());
+    } else if ("DOUBLE".equals(jdbcType)) {
+      out.writeDouble(((Number) value).doubleValue());
+    } else if ("BOOLEAN".equals(jdbcType)) {
+      out.writeBoolean((Boolean) value);
+    } else {
+      throw new ActivitiException("Unsupported jdbc type in async history batch: " + jdbcType);
+    }
+  }
+
+  protected static Object readValue(DataInputStream in, String jdbcType) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    if ("VARCHAR".equals(jdbcType)) {
+      return readString(in);
+    } else if ("TIMESTAMP".equals(jdbcType)) {
+      return new Timestamp(in.readLong());
+    } else if ("BIGINT".equals(jdbcType)) {
+      return in.readLong();
+    } else if ("INTEGER".equals(jdbcType)) {
+      return in.readInt();
+    } else if ("DOUBLE".equals(jdbcType)) {
+      return in.readDouble();
+    } else if ("BOOLEAN".equals(jdbcType)) {
+      return in.readBoolean();
+    }
+    throw new ActivitiException("Unsupported jdbc type in async history batch: " + jdbcType);
+  }
+
+}
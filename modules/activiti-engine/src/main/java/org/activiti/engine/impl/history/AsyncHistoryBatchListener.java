@@ -0,0 +1,41 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.history;
+
+import org.activiti.engine.impl.cfg.TransactionListener;
+import org.activiti.engine.impl.interceptor.CommandContext;
+
+/**
+ * Tells the {@link AsyncHistoryWriter} that the transaction which queued a history batch has committed or rolled back.
+ */
+public class AsyncHistoryBatchListener implements TransactionListener {
+
+  protected AsyncHistoryWriter asyncHistoryWriter;
+  protected AsyncHistoryJournalEntry entry;
+  protected boolean committed;
+
+  public AsyncHistoryBatchListener(AsyncHistoryWriter asyncHistoryWriter, AsyncHistoryJournalEntry entry, boolean committed) {
+    this.asyncHistoryWriter = asyncHistoryWriter;
+    this.entry = entry;
+    this.committed = committed;
+  }
+
+  public void execute(CommandContext commandContext) {
+    if (committed) {
+      asyncHistoryWriter.commitEntry(entry);
+    } else {
+      asyncHistoryWriter.rollbackEntry(entry);
+    }
+  }
+
+}
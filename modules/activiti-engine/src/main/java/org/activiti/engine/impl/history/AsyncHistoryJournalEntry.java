@@ -0,0 +1,96 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.history;
+
+import java.util.Set;
+
+/**
+ * A queued {@link AsyncHistoryBatch}. The batch is stored as a byte array (ACT_GE_BYTEARRAY) in the
+ * transaction that created it, and that byte array is deleted in the transaction that writes it,
+ * so a batch is never lost or written twice. The batch is only kept in memory while the
+ * writer has room for it, otherwise it is read from the byte array again when needed.
+ */
+public class AsyncHistoryJournalEntry {
+
+  protected String journalId;
+  protected String journalName;
+  protected int journalRevision;
+  protected AsyncHistoryBatch batch;
+  protected Set<String> keys;
+  protected long sequence;
+  protected int failedAttempts;
+  protected volatile boolean committed;
+
+  public AsyncHistoryJournalEntry(String journalId, String journalName, int journalRevision, AsyncHistoryBatch batch, Set<String> keys) {
+    this.journalId = journalId;
+    this.journalName = journalName;
+    this.journalRevision = journalRevision;
+    this.batch = batch;
+    this.keys = keys;
+  }
+
+  public void releaseBatch() {
+    batch = null;
+  }
+
+  public String getJournalId() {
+    return journalId;
+  }
+
+  public String getJournalName() {
+    return journalName;
+  }
+
+  public int getJournalRevision() {
+    return journalRevision;
+  }
+
+  /**
+   * @return the batch, or null when it was released and has to be read from the journal.
+   */
+  public AsyncHistoryBatch getBatch() {
+    return batch;
+  }
+
+  public Set<String> getKeys() {
+    return keys;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public void setSequence(long sequence) {
+    this.sequence = sequence;
+  }
+
+  /**
+   * An entry is queued when the transaction that created it flushes, but only written once that transaction has committed.
+   */
+  public boolean isCommitted() {
+    return committed;
+  }
+
+  public void setCommitted(boolean committed) {
+    this.committed = committed;
+  }
+
+  public int getFailedAttempts() {
+    return failedAttempts;
+  }
+
+  public void setFailedAttempts(int failedAttempts) {
+    this.failedAttempts = failedAttempts;
+  }
+
+}
@@ -0,0 +1,183 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One history operation of an {@link AsyncHistoryBatch}, as plain data: a row that is inserted
+ * or updated with the values of its columns, a row that is deleted, a delete statement,
+ * or the delete of all history of a process definition, process instance or task.
+ */
+public class AsyncHistoryRecord {
+
+  public static final int INSERT = 1;
+  public static final int UPDATE = 2;
+  public static final int DELETE = 3;
+  public static final int BULK_DELETE = 4;
+  public static final int DELETE_HISTORY = 5;
+
+  public static final String SCOPE_PROCESS_DEFINITION = "processDefinition";
+  public static final String SCOPE_PROCESS_INSTANCE = "processInstance";
+  public static final String SCOPE_TASK = "task";
+
+  protected int type;
+  protected String table;
+  protected String id;
+  protected String statement;
+  protected String scope;
+  protected List<Column> columns;
+
+  protected AsyncHistoryRecord(int type) {
+    this.type = type;
+  }
+
+  public static AsyncHistoryRecord row(int type, String table, String id) {
+    AsyncHistoryRecord record = new AsyncHistoryRecord(type);
+    record.table = table;
+    record.id = id;
+    if (type != DELETE) {
+      record.columns = new ArrayList<Column>();
+    }
+    return record;
+  }
+
+  /**
+   * A delete statement with a string parameter, see {@link org.activiti.engine.impl.db.DbSqlSession#delete(String, Object, Class)}.
+   */
+  public static AsyncHistoryRecord bulkDelete(String statement, String parameter) {
+    AsyncHistoryRecord record = new AsyncHistoryRecord(BULK_DELETE);
+    record.statement = statement;
+    record.id = parameter;
+    return record;
+  }
+
+  /**
+   * The delete of all history of the process definition, process instance or task with the given id.
+   */
+  public static AsyncHistoryRecord deleteHistory(String scope, String id) {
+    AsyncHistoryRecord record = new AsyncHistoryRecord(DELETE_HISTORY);
+    record.scope = scope;
+    record.id = id;
+    return record;
+  }
+
+  public void addColumn(String name, String jdbcType, Object value) {
+    columns.add(new Column(name, jdbcType, value));
+  }
+
+  public Column getColumn(String name) {
+    if (columns != null) {
+      for (Column column : columns) {
+        if (column.getName().equalsIgnoreCase(name)) {
+          return column;
+        }
+      }
+    }
+    return null;
+  }
+
+  public Object getColumnValue(String name) {
+    Column column = getColumn(name);
+    return column != null ? column.getValue() : null;
+  }
+
+  public boolean isRow() {
+    return type == INSERT || type == UPDATE;
+  }
+
+  public int getType() {
+    return type;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * @return the id of the row, the parameter of the delete statement, or the id of the process definition,
+   * process instance or task of which all history is deleted.
+   */
+  public String getId() {
+    return id;
+  }
+
+  public String getStatement() {
+    return statement;
+  }
+
+  public String getScope() {
+    return scope;
+  }
+
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Returns the columns that an update sets, ie. all but the id.
+   */
+  public List<Column> getUpdatedColumns() {
+    List<Column> updatedColumns = new ArrayList<Column>();
+    for (Column column : columns) {
+      if (!AsyncHistoryRowMapper.ID_COLUMN.equalsIgnoreCase(column.getName())) {
+        updatedColumns.add(column);
+      }
+    }
+    return updatedColumns;
+  }
+
+  public String toString() {
+    switch (type) {
+    case INSERT: return "insert " + table + "[" + id + "]";
+    case UPDATE: return "update " + table + "[" + id + "]";
+    case DELETE: return "delete " + table + "[" + id + "]";
+    case BULK_DELETE: return "bulk delete: " + statement + "(" + id + ")";
+    default: return "delete history of " + scope + " " + id;
+    }
+  }
+
+  /**
+   * A column value, the jdbc type is the name of a {@link org.apache.ibatis.type.JdbcType}.
+   */
+  public static class Column {
+
+    protected String name;
+    protected String jdbcType;
+    protected Object value;
+
+    public Column(String name, String jdbcType, Object value) {
+      this.name = name;
+      this.jdbcType = jdbcType;
+      this.value = value;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getJdbcType() {
+      return jdbcType;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+
+    public void setValue(Object value) {
+      this.value = value;
+    }
+  }
+
+}
@@ -0,0 +1,375 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.history;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.db.DbSqlSessionFactory;
+import org.activiti.engine.impl.db.HasRevision;
+import org.activiti.engine.impl.db.PersistentObject;
+import org.activiti.engine.impl.history.AsyncHistoryRecord.Column;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Converts history objects to the {@link AsyncHistoryRecord}s of their rows and back, based on the
+ * mybatis mapping: a row gets the columns and values of the insert statement of the object,
+ * and an object is read from a row with the result map of its select statement.
+ */
+public class AsyncHistoryRowMapper {
+
+  public static final String ID_COLUMN = "ID_";
+  public static final String REVISION_COLUMN = "REV_";
+
+  protected static final Pattern INSERT_PATTERN = Pattern.compile(
+          "\\s*insert\\s+into\\s+(\\S+)\\s*\\((.*?)\\)\\s*values\\s*\\((.*)\\)\\s*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  protected DbSqlSessionFactory dbSqlSessionFactory;
+  protected Map<Class<?>, InsertStatement> insertStatements = new ConcurrentHashMap<Class<?>, InsertStatement>();
+  protected Map<Class<?>, ResultMap> resultMaps = new ConcurrentHashMap<Class<?>, ResultMap>();
+
+  public AsyncHistoryRowMapper(DbSqlSessionFactory dbSqlSessionFactory) {
+    this.dbSqlSessionFactory = dbSqlSessionFactory;
+  }
+
+  protected Configuration getConfiguration() {
+    return dbSqlSessionFactory.getSqlSessionFactory().getConfiguration();
+  }
+
+  /**
+   * Returns the name of the table of the given class, without table prefix.
+   */
+  public String getTable(Class<?> persistentObjectClass) {
+    return getInsertStatement(persistentObjectClass).table;
+  }
+
+  // objects to rows //////////////////////////////////////////////////////////
+
+  /**
+   * Returns the insert or update of the row of the given object, with the values the insert statement of the object
+   * sets. The revision of an updated object is the one its update statement sets.
+   */
+  public AsyncHistoryRecord toRecord(int type, PersistentObject persistentObject) {
+    InsertStatement insertStatement = getInsertStatement(persistentObject.getClass());
+    BoundSql boundSql = insertStatement.mappedStatement.getBoundSql(persistentObject);
+    ParameterRecorder parameterRecorder = new ParameterRecorder(boundSql.getParameterMappings().size());
+    try {
+      getConfiguration()
+        .newParameterHandler(insertStatement.mappedStatement, persistentObject, boundSql)
+        .setParameters(parameterRecorder.getPreparedStatement());
+    } catch (SQLException e) {
+      throw new ActivitiException("Couldn't read the row of " + persistentObject, e);
+    }
+
+    AsyncHistoryRecord record = AsyncHistoryRecord.row(type, insertStatement.table, persistentObject.getId());
+    int parameterIndex = 0;
+    for (int i = 0; i < insertStatement.columns.size(); i++) {
+      String literal = insertStatement.literals.get(i);
+      if (literal == null) {
+        record.addColumn(insertStatement.columns.get(i), parameterRecorder.jdbcTypes[parameterIndex], parameterRecorder.values[parameterIndex]);
+        parameterIndex++;
+      } else {
+        record.addColumn(insertStatement.columns.get(i), JdbcType.VARCHAR.name(), literal);
+      }
+    }
+    if (type == AsyncHistoryRecord.UPDATE && persistentObject instanceof HasRevision) {
+      Column revision = record.getColumn(REVISION_COLUMN);
+      if (revision != null) {
+        revision.setValue(((HasRevision) persistentObject).getRevisionNext());
+      }
+    }
+    return record;
+  }
+
+  protected InsertStatement getInsertStatement(Class<?> persistentObjectClass) {
+    InsertStatement insertStatement = insertStatements.get(persistentObjectClass);
+    if (insertStatement == null) {
+      String statement = dbSqlSessionFactory.mapStatement(dbSqlSessionFactory.getInsertStatement(persistentObjectClass));
+      insertStatement = new InsertStatement(getConfiguration().getMappedStatement(statement), dbSqlSessionFactory.getDatabaseTablePrefix());
+      insertStatements.put(persistentObjectClass, insertStatement);
+    }
+    return insertStatement;
+  }
+
+  /**
+   * The columns of an insert statement of the form 'insert into TABLE (COLUMNS) values (VALUES)',
+   * where every value is a parameter or a string literal.
+   */
+  protected static class InsertStatement {
+
+    protected MappedStatement mappedStatement;
+    protected String table;
+    protected List<String> columns = new ArrayList<String>();
+    /** the string literal inserted in the column with the same index, or null for a parameter */
+    protected List<String> literals = new ArrayList<String>();
+
+    public InsertStatement(MappedStatement mappedStatement, String tablePrefix) {
+      this.mappedStatement = mappedStatement;
+      String sql = mappedStatement.getBoundSql(null).getSql();
+      Matcher matcher = INSERT_PATTERN.matcher(sql);
+      if (!matcher.matches()) {
+        throw new ActivitiException("Unsupported insert statement " + mappedStatement.getId() + ": " + sql);
+      }
+
+      table = matcher.group(1);
+      if (tablePrefix != null && tablePrefix.length() > 0 && table.startsWith(tablePrefix)) {
+        table = table.substring(tablePrefix.length());
+      }
+      for (String column : matcher.group(2).split(",")) {
+        columns.add(column.trim());
+      }
+      for (String value : splitValues(matcher.group(3))) {
+        if ("?".equals(value)) {
+          literals.add(null);
+        } else if (value.length() > 1 && value.startsWith("'") && value.endsWith("'")) {
+          literals.add(value.substring(1, value.length() - 1).replace("''", "'"));
+        } else {
+          throw new ActivitiException("Unsupported value " + value + " in insert statement " + mappedStatement.getId());
+        }
+      }
+      if (columns.size() != literals.size()) {
+        throw new ActivitiException("Insert statement " + mappedStatement.getId() + " has " + columns.size() + " columns and " + literals.size() + " values");
+      }
+    }
+
+    protected static List<String> splitValues(String values) {
+      List<String> splitValues = new ArrayList<String>();
+      boolean inLiteral = false;
+      int start = 0;
+      for (int i = 0; i < values.length(); i++) {
+        char c = values.charAt(i);
+        if (c == '\'') {
+          inLiteral = !inLiteral;
+        } else if (c == ',' && !inLiteral) {
+          splitValues.add(values.substring(start, i).trim());
+          start = i + 1;
+        }
+      }
+      splitValues.add(values.substring(start).trim());
+      return splitValues;
+    }
+  }
+
+  /**
+   * Records the parameters that the type handlers of a statement set, with the jdbc type of the setter they use.
+   */
+  protected static class ParameterRecorder implements InvocationHandler {
+
+    protected Object[] values;
+    protected String[] jdbcTypes;
+
+    public ParameterRecorder(int parameterCount) {
+      values = new Object[parameterCount];
+      jdbcTypes = new String[parameterCount];
+    }
+
+    public PreparedStatement getPreparedStatement() {
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class}, this);
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if (args == null || args.length < 2 || !(args[0] instanceof Integer) || !name.startsWith("set")) {
+        if ("toString".equals(name)) {
+          return "parameter recorder";
+        }
+        throw new UnsupportedOperationException(name);
+      }
+      int index = (Integer) args[0] - 1;
+      Object value = args[1];
+      if ("setNull".equals(name)) {
+        value = null;
+        jdbcTypes[index] = getJdbcType(JdbcType.forCode((Integer) args[1]));
+      } else if ("setString".equals(name)) {
+        jdbcTypes[index] = JdbcType.VARCHAR.name();
+      } else if ("setTimestamp".equals(name) || "setDate".equals(name)) {
+        value = value != null ? new Timestamp(((java.util.Date) value).getTime()) : null;
+        jdbcTypes[index] = JdbcType.TIMESTAMP.name();
+      } else if ("setLong".equals(name)) {
+        jdbcTypes[index] = JdbcType.BIGINT.name();
+      } else if ("setInt".equals(name) || "setShort".equals(name)) {
+        value = value != null ? ((Number) value).intValue() : null;
+        jdbcTypes[index] = JdbcType.INTEGER.name();
+      } else if ("setDouble".equals(name) || "setFloat".equals(name)) {
+        value = value != null ? ((Number) value).doubleValue() : null;
+        jdbcTypes[index] = JdbcType.DOUBLE.name();
+      } else if ("setBoolean".equals(name)) {
+        jdbcTypes[index] = JdbcType.BOOLEAN.name();
+      } else {
+        throw new UnsupportedOperationException(name);
+      }
+      values[index] = value;
+      return null;
+    }
+
+    protected String getJdbcType(JdbcType jdbcType) {
+      // null values without a declared jdbc type are only set for references to byte arrays
+      if (jdbcType == null || jdbcType == JdbcType.OTHER) {
+        return JdbcType.VARCHAR.name();
+      }
+      if (jdbcType == JdbcType.DATE) {
+        return JdbcType.TIMESTAMP.name();
+      }
+      return jdbcType.name();
+    }
+  }
+
+  // rows to objects //////////////////////////////////////////////////////////
+
+  /**
+   * Reads an object of the given class from the given row, as if it were selected from the database.
+   * @return null when the row contains an object of another class.
+   */
+  public PersistentObject toObject(Class<?> persistentObjectClass, AsyncHistoryRecord record) {
+    Configuration configuration = getConfiguration();
+    ResultSet resultSet = new RowResultSet(record).getResultSet();
+    try {
+      ResultMap resultMap = getResultMap(persistentObjectClass);
+      while (resultMap.getDiscriminator() != null) {
+        ResultMapping discriminatorMapping = resultMap.getDiscriminator().getResultMapping();
+        Object discriminatorValue = discriminatorMapping.getTypeHandler().getResult(resultSet, discriminatorMapping.getColumn());
+        String discriminatedMapId = resultMap.getDiscriminator().getMapIdFor(String.valueOf(discriminatorValue));
+        if (discriminatedMapId == null || !configuration.hasResultMap(discriminatedMapId)) {
+          break;
+        }
+        resultMap = configuration.getResultMap(discriminatedMapId);
+      }
+
+      Object object = configuration.getObjectFactory().create(resultMap.getType());
+      if (!persistentObjectClass.isInstance(object)) {
+        return null;
+      }
+      MetaObject metaObject = configuration.newMetaObject(object);
+      for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
+        if (resultMapping.getColumn() != null && resultMapping.getNestedQueryId() == null && resultMapping.getNestedResultMapId() == null) {
+          Object value = resultMapping.getTypeHandler().getResult(resultSet, resultMapping.getColumn());
+          if (value != null) {
+            metaObject.setValue(resultMapping.getProperty(), value);
+          }
+        }
+      }
+      return (PersistentObject) object;
+    } catch (SQLException e) {
+      throw new ActivitiException("Couldn't read " + persistentObjectClass.getName() + " from " + record, e);
+    }
+  }
+
+  /**
+   * Returns the result map of the select statement of the given class, or else the most complete result map of the class.
+   */
+  protected ResultMap getResultMap(Class<?> persistentObjectClass) {
+    ResultMap resultMap = resultMaps.get(persistentObjectClass);
+    if (resultMap != null) {
+      return resultMap;
+    }
+    Configuration configuration = getConfiguration();
+    String selectStatement = dbSqlSessionFactory.mapStatement(dbSqlSessionFactory.getSelectStatement(persistentObjectClass));
+    if (configuration.hasStatement(selectStatement)) {
+      List<ResultMap> statementResultMaps = configuration.getMappedStatement(selectStatement).getResultMaps();
+      if (!statementResultMaps.isEmpty() && statementResultMaps.get(0).getType() == persistentObjectClass) {
+        resultMap = statementResultMaps.get(0);
+      }
+    }
+    if (resultMap == null) {
+      for (String resultMapName : configuration.getResultMapNames()) {
+        // short names can be ambiguous, every result map is registered with its full name as well
+        if (resultMapName.indexOf('.') != -1) {
+          ResultMap candidate = configuration.getResultMap(resultMapName);
+          if (candidate.getType() == persistentObjectClass && !candidate.hasNestedResultMaps() && !candidate.hasNestedQueries()
+                  && (resultMap == null || candidate.getPropertyResultMappings().size() > resultMap.getPropertyResultMappings().size())) {
+            resultMap = candidate;
+          }
+        }
+      }
+    }
+    if (resultMap == null) {
+      throw new ActivitiException("No result map for " + persistentObjectClass.getName() + " in the ibatis mapping files");
+    }
+    resultMaps.put(persistentObjectClass, resultMap);
+    return resultMap;
+  }
+
+  /**
+   * A result set positioned on a row, for the type handlers of a result map.
+   */
+  protected static class RowResultSet implements InvocationHandler {
+
+    protected AsyncHistoryRecord record;
+    protected boolean wasNull;
+
+    public RowResultSet(AsyncHistoryRecord record) {
+      this.record = record;
+    }
+
+    public ResultSet getResultSet() {
+      return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class}, this);
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if ("wasNull".equals(name)) {
+        return wasNull;
+      }
+      if ("toString".equals(name)) {
+        return "result set of " + record;
+      }
+      if (args == null || args.length == 0 || !(args[0] instanceof String) || !name.startsWith("get")) {
+        throw new UnsupportedOperationException(name);
+      }
+
+      Object value = record.getColumnValue((String) args[0]);
+      wasNull = value == null;
+      if ("getString".equals(name)) {
+        return value != null ? value.toString() : null;
+      } else if ("getObject".equals(name)) {
+        return value;
+      } else if ("getTimestamp".equals(name)) {
+        return value != null ? new Timestamp(((java.util.Date) value).getTime()) : null;
+      } else if ("getDate".equals(name)) {
+        return value != null ? new java.sql.Date(((java.util.Date) value).getTime()) : null;
+      } else if ("getLong".equals(name)) {
+        return value != null ? ((Number) value).longValue() : 0L;
+      } else if ("getInt".equals(name)) {
+        return value != null ? ((Number) value).intValue() : 0;
+      } else if ("getShort".equals(name)) {
+        return value != null ? ((Number) value).shortValue() : (short) 0;
+      } else if ("getDouble".equals(name)) {
+        return value != null ? ((Number) value).doubleValue() : 0d;
+      } else if ("getFloat".equals(name)) {
+        return value != null ? ((Number) value).floatValue() : 0f;
+      } else if ("getBoolean".equals(name)) {
+        return value != null ? (Boolean) value : false;
+      }
+      throw new UnsupportedOperationException(name);
+    }
+  }
+
+}
@@ -0,0 +1,746 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.impl.cfg.TransactionState;
+import org.activiti.engine.impl.cmd.ClaimAsyncHistoryWriterCmd;
+import org.activiti.engine.impl.cmd.GetAsyncHistoryJournalCmd;
+import org.activiti.engine.impl.cmd.GetAsyncHistoryJournalIdsCmd;
+import org.activiti.engine.impl.cmd.ParkAsyncHistoryJournalEntryCmd;
+import org.activiti.engine.impl.cmd.ReleaseAsyncHistoryWriterCmd;
+import org.activiti.engine.impl.cmd.RequeueAsyncHistoryDeadLettersCmd;
+import org.activiti.engine.impl.cmd.WriteAsyncHistoryCmd;
+import org.activiti.engine.impl.context.Context;
+import org.activiti.engine.impl.db.DbSqlSession;
+import org.activiti.engine.impl.db.DbSqlSession.BulkDeleteOperation;
+import org.activiti.engine.impl.db.DbSqlSession.CheckedDeleteOperation;
+import org.activiti.engine.impl.db.DbSqlSession.DeleteOperation;
+import org.activiti.engine.impl.db.DeferredFlushHandler;
+import org.activiti.engine.impl.db.PersistentObject;
+import org.activiti.engine.impl.interceptor.CommandConfig;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricActivityInstanceEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricDetailVariableInstanceUpdateEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricFormPropertyEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricIdentityLinkEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricProcessInstanceEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricTaskInstanceEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricVariableInstanceEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the history of committed transactions in a background thread,
+ * combining the batches of several transactions in one transaction.
+ *
+ * When a {@link DbSqlSession} is flushed, its history inserts, updates and deletes are taken over by this writer
+ * (see {@link DeferredFlushHandler}) and stored as an {@link AsyncHistoryBatch} in a journal (byte arrays named
+ * {@link #JOURNAL_NAME_PREFIX}) by that transaction, so every transaction with history inserts one journal row.
+ * The writer deletes a journal entry in the transaction that writes the batch, and queues the entries it finds
+ * in the journal when it starts, so history survives a crash of the JVM. A batch that can't be written is retried,
+ * after {@link #getMaxWriteAttempts()} attempts it is parked as a dead letter (byte arrays named
+ * {@link #DEAD_LETTER_NAME_PREFIX}) until {@link #requeueDeadLetters()} is called.
+ *
+ * History is eventually consistent when this writer is used: history queries only see the history of a
+ * transaction once it has been written. The engine itself never waits for the writer: history it needs
+ * is read from the queued batches, and history it deletes while some of it is queued is deleted by the
+ * writer, behind the queued batches. Updates of the same history are ordered by the optimistic locking of
+ * the runtime data they belong to, and the batches are written in the order their transactions flushed.
+ *
+ * As the queued history is only known to the engine that queued it, async history can only be used by a
+ * single process engine per database. The writer holds a lease on the database (property {@link #OWNER_PROPERTY_NAME})
+ * while it runs: an async history writer can't start while another one holds it, and engines without async
+ * history refuse to start as well. Engines that were started before the async history writer aren't detected.
+ */
+public class AsyncHistoryWriter implements DeferredFlushHandler {
+
+  private static final Logger log = LoggerFactory.getLogger(AsyncHistoryWriter.class);
+
+  public static final String JOURNAL_NAME_PREFIX = "activiti-async-history:";
+  public static final String DEAD_LETTER_NAME_PREFIX = "activiti-async-history-dead-letter:";
+  public static final String OWNER_PROPERTY_NAME = "async.history.writer";
+
+  protected static final Set<Class<?>> HISTORY_CLASSES = Collections.unmodifiableSet(new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+          HistoricProcessInstanceEntity.class,
+          HistoricActivityInstanceEntity.class,
+          HistoricTaskInstanceEntity.class,
+          HistoricVariableInstanceEntity.class,
+          HistoricIdentityLinkEntity.class,
+          HistoricDetailVariableInstanceUpdateEntity.class,
+          HistoricFormPropertyEntity.class)));
+
+  protected static final AtomicLong journalCounter = new AtomicLong();
+
+  protected CommandExecutor commandExecutor;
+  protected CommandConfig commandConfig;
+  protected volatile AsyncHistoryRowMapper rowMapper;
+
+  /** time the writer thread waits between two runs */
+  protected long writeIntervalMillis = 100L;
+
+  /** maximum number of batches written in one transaction */
+  protected int maxBatchesPerTransaction = 50;
+
+  /** maximum number of queued batches kept in memory, the others are read from the journal when they are needed */
+  protected int maxBatchesInMemory = 1000;
+
+  /** number of times a batch is written before it is parked as a dead letter */
+  protected int maxWriteAttempts = 3;
+
+  /** time the lease on the database is valid, it is renewed after a third of it */
+  protected long leaseMillis = 60000L;
+
+  protected final String ownerId = UUID.randomUUID().toString();
+  protected long leaseRenewedTime;
+
+  protected final Queue<AsyncHistoryJournalEntry> queuedEntries = new ConcurrentLinkedQueue<AsyncHistoryJournalEntry>();
+  protected final Set<String> queuedJournalIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+  /** key of every queued row, process definition, process instance and task, mapped to the entries containing it */
+  protected final Map<String, List<AsyncHistoryJournalEntry>> queuedKeys = new HashMap<String, List<AsyncHistoryJournalEntry>>();
+
+  protected final ReentrantLock writeLock = new ReentrantLock();
+  protected final Object wakeUpMonitor = new Object();
+  protected long lastSequence;
+  protected int entriesInMemory;
+
+  protected volatile boolean active;
+  protected Thread writerThread;
+
+  public static boolean isHistoryClass(Class<?> persistentObjectClass) {
+    return HISTORY_CLASSES.contains(persistentObjectClass);
+  }
+
+  public static String getRowKey(String table, String id) {
+    return table + "#" + id;
+  }
+
+  /**
+   * @param scope {@link AsyncHistoryRecord#SCOPE_PROCESS_DEFINITION}, {@link AsyncHistoryRecord#SCOPE_PROCESS_INSTANCE}
+   * or {@link AsyncHistoryRecord#SCOPE_TASK}.
+   */
+  public static String getScopeKey(String scope, String id) {
+    return scope + "#" + id;
+  }
+
+  /**
+   * Returns the name of the next journal entry, the journal entries are ordered by name.
+   */
+  public static String createJournalName() {
+    return JOURNAL_NAME_PREFIX + String.format("%015d%06d", System.currentTimeMillis(), journalCounter.incrementAndGet() % 1000000);
+  }
+
+  // lifecycle ////////////////////////////////////////////////////////////////
+
+  /**
+   * Claims the lease on the database, queues the batches left in the journal and starts the writer thread.
+   * @throws ActivitiException when another async history writer holds the lease.
+   */
+  public synchronized void start() {
+    if (active) {
+      return;
+    }
+    log.info("Starting up the async history writer");
+    renewLease();
+    active = true;
+    recover();
+    writerThread = new Thread(new Runnable() {
+      public void run() {
+        runWriter();
+      }
+    }, "activiti-async-history-writer");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  /**
+   * Stops the writer thread, writes all history that is still queued and releases the lease on the database.
+   * What can't be written stays in the journal.
+   */
+  public synchronized void shutdown() {
+    if (!active) {
+      return;
+    }
+    log.info("Shutting down the async history writer");
+    active = false;
+    synchronized (wakeUpMonitor) {
+      wakeUpMonitor.notifyAll();
+    }
+    try {
+      writerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("Interrupted while waiting for the async history writer to stop");
+    }
+    writerThread = null;
+    flush();
+    commandExecutor.execute(commandConfig, new ReleaseAsyncHistoryWriterCmd(ownerId));
+  }
+
+  protected void runWriter() {
+    while (active) {
+      try {
+        synchronized (wakeUpMonitor) {
+          if (active) {
+            wakeUpMonitor.wait(writeIntervalMillis);
+          }
+        }
+      } catch (InterruptedException e) {
+        log.warn("Async history writer interrupted, stopping");
+        active = false;
+      }
+      try {
+        if (System.currentTimeMillis() - leaseRenewedTime >= leaseMillis / 3) {
+          renewLease();
+        }
+      } catch (Throwable e) {
+        log.error("Could not renew the lease of the async history writer, another process engine may start writing history", e);
+      }
+      try {
+        flush();
+      } catch (Throwable e) {
+        log.error("Exception while writing async history", e);
+      }
+    }
+  }
+
+  protected void renewLease() {
+    long now = System.currentTimeMillis();
+    commandExecutor.execute(commandConfig, new ClaimAsyncHistoryWriterCmd(ownerId, leaseMillis));
+    leaseRenewedTime = now;
+  }
+
+  /**
+   * Queues the journal entries that aren't queued yet, eg. the ones left by a JVM that stopped abruptly.
+   */
+  public void recover() {
+    List<String> journalIds = commandExecutor.execute(commandConfig, new GetAsyncHistoryJournalIdsCmd(JOURNAL_NAME_PREFIX));
+    journalIds.removeAll(queuedJournalIds);
+    if (journalIds.isEmpty()) {
+      return;
+    }
+    log.info("Queueing {} async history batches found in the journal", journalIds.size());
+    for (int i = 0; i < journalIds.size(); i += maxBatchesPerTransaction) {
+      List<String> journalIdChunk = journalIds.subList(i, Math.min(i + maxBatchesPerTransaction, journalIds.size()));
+      for (AsyncHistoryJournalEntry entry : commandExecutor.execute(commandConfig, new GetAsyncHistoryJournalCmd(journalIdChunk))) {
+        entry.setCommitted(true);
+        addEntry(entry);
+      }
+    }
+    if (!active) {
+      flush();
+    }
+  }
+
+  // deferring the history of a flush /////////////////////////////////////////
+
+  public boolean isDeferred(PersistentObject persistentObject) {
+    return Context.getCommandContext() != null && isHistoryClass(persistentObject.getClass());
+  }
+
+  public boolean isDeferred(DeleteOperation deleteOperation) {
+    if (deleteOperation instanceof QueuedHistoryDelete) {
+      return true;
+    }
+    if (Context.getCommandContext() == null) {
+      return false;
+    }
+    if (deleteOperation instanceof CheckedDeleteOperation) {
+      return isHistoryClass(((CheckedDeleteOperation) deleteOperation).getPersistentObject().getClass());
+    }
+    if (deleteOperation instanceof BulkDeleteOperation) {
+      Class<?> persistentObjectClass = ((BulkDeleteOperation) deleteOperation).getPersistentObjectClass();
+      return persistentObjectClass != null && isHistoryClass(persistentObjectClass);
+    }
+    return false;
+  }
+
+  /**
+   * Moves the history of a flush to a batch that is stored in the journal by the flushing transaction,
+   * and written once that transaction has committed. History deletes are only deferred when history is
+   * queued or deferred by this flush, so they can't overtake it.
+   */
+  public List<DeleteOperation> defer(DbSqlSession dbSqlSession, List<PersistentObject> insertedObjects,
+          List<PersistentObject> updatedObjects, List<DeleteOperation> deleteOperations) {
+    AsyncHistoryRowMapper rowMapper = getRowMapper(dbSqlSession);
+    AsyncHistoryBatch batch = new AsyncHistoryBatch();
+    for (PersistentObject insertedObject : insertedObjects) {
+      batch.addRecord(rowMapper.toRecord(AsyncHistoryRecord.INSERT, insertedObject));
+    }
+    for (PersistentObject updatedObject : updatedObjects) {
+      batch.addRecord(rowMapper.toRecord(AsyncHistoryRecord.UPDATE, updatedObject));
+    }
+
+    boolean deferDeletes = !batch.isEmpty() || hasQueuedEntries();
+    List<DeleteOperation> deferredDeletes = new ArrayList<DeleteOperation>();
+    for (DeleteOperation deleteOperation : deleteOperations) {
+      if (deleteOperation instanceof QueuedHistoryDelete) {
+        batch.addRecord(((QueuedHistoryDelete) deleteOperation).getRecord());
+        deferredDeletes.add(deleteOperation);
+
+      } else if (deferDeletes && deleteOperation instanceof CheckedDeleteOperation) {
+        PersistentObject deletedObject = ((CheckedDeleteOperation) deleteOperation).getPersistentObject();
+        batch.addRecord(AsyncHistoryRecord.row(AsyncHistoryRecord.DELETE, rowMapper.getTable(deletedObject.getClass()), deletedObject.getId()));
+        deferredDeletes.add(deleteOperation);
+
+      } else if (deferDeletes && deleteOperation instanceof BulkDeleteOperation) {
+        BulkDeleteOperation bulkDeleteOperation = (BulkDeleteOperation) deleteOperation;
+        if (!(bulkDeleteOperation.getParameter() instanceof String)) {
+          throw new ActivitiException("Can't defer " + bulkDeleteOperation + ", async history only supports deletes with a string parameter");
+        }
+        batch.addRecord(AsyncHistoryRecord.bulkDelete(bulkDeleteOperation.getStatement(), (String) bulkDeleteOperation.getParameter()));
+        deferredDeletes.add(deleteOperation);
+      }
+    }
+    if (batch.isEmpty()) {
+      return deferredDeletes;
+    }
+
+    ByteArrayEntity journal = new ByteArrayEntity(createJournalName(), batch.toBytes());
+    dbSqlSession.insert(journal);
+
+    // the entry is queued now, so batches are written in the order their transactions flushed
+    AsyncHistoryJournalEntry entry = new AsyncHistoryJournalEntry(journal.getId(), journal.getName(), 1, batch, batch.getQueuedKeys());
+    addEntry(entry);
+    CommandContext commandContext = Context.getCommandContext();
+    commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, new AsyncHistoryBatchListener(this, entry, true));
+    commandContext.getTransactionContext().addTransactionListener(TransactionState.ROLLED_BACK, new AsyncHistoryBatchListener(this, entry, false));
+    return deferredDeletes;
+  }
+
+  /**
+   * Returns the history object with the given class and id, in the state in which it is queued.
+   * A queued delete makes the object read from the database until it is written.
+   */
+  public PersistentObject findDeferredObject(DbSqlSession dbSqlSession, Class<?> persistentObjectClass, String id) {
+    if (!isHistoryClass(persistentObjectClass)) {
+      return null;
+    }
+    AsyncHistoryRowMapper rowMapper = getRowMapper(dbSqlSession);
+    String table = rowMapper.getTable(persistentObjectClass);
+    List<AsyncHistoryJournalEntry> entries = getQueuedEntries(getRowKey(table, id));
+    if (entries.isEmpty()) {
+      return null;
+    }
+    AsyncHistoryBatch batch = readBatch(dbSqlSession, entries.get(entries.size() - 1));
+    AsyncHistoryRecord record = batch != null ? batch.findRow(table, id) : null;
+    if (record == null || !record.isRow()) {
+      return null;
+    }
+    return rowMapper.toObject(persistentObjectClass, record);
+  }
+
+  /**
+   * Puts the history objects of the given class and process instance that are queued
+   * in the cache of the given session, in the state in which they are queued.
+   */
+  public void cacheQueuedHistoryOfProcessInstance(DbSqlSession dbSqlSession, Class<? extends PersistentObject> persistentObjectClass, String processInstanceId) {
+    if (dbSqlSession.getDeferredFlushHandler() != this || processInstanceId == null) {
+      return;
+    }
+    String table = getRowMapper(dbSqlSession).getTable(persistentObjectClass);
+    Set<String> ids = new LinkedHashSet<String>();
+    for (AsyncHistoryJournalEntry entry : getQueuedEntries(getScopeKey(AsyncHistoryRecord.SCOPE_PROCESS_INSTANCE, processInstanceId))) {
+      AsyncHistoryBatch batch = readBatch(dbSqlSession, entry);
+      if (batch != null) {
+        for (AsyncHistoryRecord record : batch.getRecords()) {
+          if (record.isRow() && table.equals(record.getTable())) {
+            ids.add(record.getId());
+          }
+        }
+      }
+    }
+    for (String id : ids) {
+      dbSqlSession.selectDeferredById(persistentObjectClass, id);
+    }
+  }
+
+  /**
+   * When history of the given process definition, process instance or task is queued, queues the delete of all its history
+   * behind it, instead of executing it now.
+   * @return whether the delete was queued.
+   */
+  public boolean deleteBehindQueuedHistory(DbSqlSession dbSqlSession, String scope, String id) {
+    if (dbSqlSession.getDeferredFlushHandler() != this) {
+      return false;
+    }
+    // history isn't keyed by process definition, so anything queued can belong to it
+    boolean queued = AsyncHistoryRecord.SCOPE_PROCESS_DEFINITION.equals(scope) ? hasQueuedEntries() : isQueued(getScopeKey(scope, id));
+    if (!queued) {
+      return false;
+    }
+    dbSqlSession.delete(new QueuedHistoryDelete(AsyncHistoryRecord.deleteHistory(scope, id)));
+    return true;
+  }
+
+  /**
+   * Reads a queued batch from memory or from its journal entry, returns null when it has been written in the meantime.
+   */
+  protected AsyncHistoryBatch readBatch(DbSqlSession dbSqlSession, AsyncHistoryJournalEntry entry) {
+    AsyncHistoryBatch batch = entry.getBatch();
+    if (batch == null) {
+      ByteArrayEntity journal = (ByteArrayEntity) dbSqlSession.getSqlSession()
+        .selectOne(dbSqlSession.getDbSqlSessionFactory().mapStatement("selectByteArray"), entry.getJournalId());
+      if (journal == null) {
+        return null;
+      }
+      batch = AsyncHistoryBatch.fromBytes(journal.getBytes());
+    }
+    return batch;
+  }
+
+  protected AsyncHistoryRowMapper getRowMapper(DbSqlSession dbSqlSession) {
+    if (rowMapper == null) {
+      rowMapper = new AsyncHistoryRowMapper(dbSqlSession.getDbSqlSessionFactory());
+    }
+    return rowMapper;
+  }
+
+  /**
+   * The delete of all history of a process definition, process instance or task, which is only executed by the writer.
+   */
+  public static class QueuedHistoryDelete implements DeleteOperation {
+
+    protected AsyncHistoryRecord record;
+
+    public QueuedHistoryDelete(AsyncHistoryRecord record) {
+      this.record = record;
+    }
+
+    public AsyncHistoryRecord getRecord() {
+      return record;
+    }
+
+    public boolean sameIdentity(PersistentObject other) {
+      return false;
+    }
+
+    public void clearCache() {
+    }
+
+    public void execute() {
+      throw new ActivitiException(record + " can only be executed by the async history writer");
+    }
+
+    public String toString() {
+      return "queued " + record;
+    }
+  }
+
+  // queueing /////////////////////////////////////////////////////////////////
+
+  /**
+   * Queues a journal entry. Entries that aren't committed yet keep the entries behind them from being written.
+   */
+  protected void addEntry(AsyncHistoryJournalEntry entry) {
+    synchronized (queuedKeys) {
+      if (!queuedJournalIds.add(entry.getJournalId())) {
+        return;
+      }
+      entry.setSequence(++lastSequence);
+      for (String key : entry.getKeys()) {
+        List<AsyncHistoryJournalEntry> entries = queuedKeys.get(key);
+        if (entries == null) {
+          entries = new ArrayList<AsyncHistoryJournalEntry>(1);
+          queuedKeys.put(key, entries);
+        }
+        entries.add(entry);
+      }
+      if (entry.getBatch() != null) {
+        if (entriesInMemory < maxBatchesInMemory) {
+          entriesInMemory++;
+        } else {
+          entry.releaseBatch();
+        }
+      }
+      queuedEntries.add(entry);
+    }
+  }
+
+  /**
+   * Called when the transaction that queued the entry has committed. When the writer isn't running,
+   * the batch is written right away.
+   */
+  public void commitEntry(AsyncHistoryJournalEntry entry) {
+    entry.setCommitted(true);
+    if (!active) {
+      flush();
+    }
+  }
+
+  /**
+   * Called when the transaction that queued the entry has rolled back, which removed its journal entry.
+   */
+  public void rollbackEntry(AsyncHistoryJournalEntry entry) {
+    removeEntry(entry);
+  }
+
+  protected void removeEntry(AsyncHistoryJournalEntry entry) {
+    synchronized (queuedKeys) {
+      if (!queuedEntries.remove(entry)) {
+        return;
+      }
+      queuedJournalIds.remove(entry.getJournalId());
+      for (String key : entry.getKeys()) {
+        List<AsyncHistoryJournalEntry> entries = queuedKeys.get(key);
+        if (entries != null) {
+          entries.remove(entry);
+          if (entries.isEmpty()) {
+            queuedKeys.remove(key);
+          }
+        }
+      }
+      if (entry.getBatch() != null) {
+        entriesInMemory--;
+      }
+    }
+  }
+
+  /**
+   * Returns whether history with the given row or scope key (see {@link #getRowKey(String, String)}
+   * and {@link #getScopeKey(String, String)}) is queued, including the history of transactions that haven't committed yet.
+   */
+  public boolean isQueued(String key) {
+    synchronized (queuedKeys) {
+      return queuedKeys.containsKey(key);
+    }
+  }
+
+  /**
+   * Returns the queued entries of committed transactions containing the given key, in the order they are written.
+   */
+  public List<AsyncHistoryJournalEntry> getQueuedEntries(String key) {
+    synchronized (queuedKeys) {
+      List<AsyncHistoryJournalEntry> entries = queuedKeys.get(key);
+      if (entries == null) {
+        return Collections.emptyList();
+      }
+      List<AsyncHistoryJournalEntry> committedEntries = new ArrayList<AsyncHistoryJournalEntry>(entries.size());
+      for (AsyncHistoryJournalEntry entry : entries) {
+        if (entry.isCommitted()) {
+          committedEntries.add(entry);
+        }
+      }
+      return committedEntries;
+    }
+  }
+
+  public boolean hasQueuedEntries() {
+    return !queuedEntries.isEmpty();
+  }
+
+  public int getQueuedBatchCount() {
+    return queuedEntries.size();
+  }
+
+  // writing //////////////////////////////////////////////////////////////////
+
+  /**
+   * Writes the queued history of committed transactions before returning, unless a batch fails or
+   * the transaction of a batch hasn't committed yet: the batches from that one on are left for the next run.
+   */
+  public void flush() {
+    writeLock.lock();
+    try {
+      while (true) {
+        List<AsyncHistoryJournalEntry> entries = new ArrayList<AsyncHistoryJournalEntry>();
+        Iterator<AsyncHistoryJournalEntry> entryIterator = queuedEntries.iterator();
+        while (entries.size() < maxBatchesPerTransaction && entryIterator.hasNext()) {
+          AsyncHistoryJournalEntry entry = entryIterator.next();
+          if (!entry.isCommitted()) {
+            break;
+          }
+          entries.add(entry);
+        }
+        if (entries.isEmpty() || !writeEntries(entries)) {
+          return;
+        }
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Writes the given entries, one by one when they can't be written together.
+   * @return false when an entry couldn't be written and has to be retried.
+   */
+  protected boolean writeEntries(List<AsyncHistoryJournalEntry> entries) {
+    try {
+      commandExecutor.execute(commandConfig, new WriteAsyncHistoryCmd(entries));
+    } catch (RuntimeException e) {
+      if (entries.size() == 1) {
+        return handleFailedEntry(entries.get(0), e);
+      }
+      log.warn("Could not write {} async history batches at once, writing them one by one: {}", entries.size(), e.getMessage());
+      for (AsyncHistoryJournalEntry entry : entries) {
+        if (!writeEntries(Collections.singletonList(entry))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    for (AsyncHistoryJournalEntry entry : entries) {
+      removeEntry(entry);
+    }
+    return true;
+  }
+
+  /**
+   * The batches after a failed one are only written once it is written or parked,
+   * as they can update history it inserts.
+   */
+  protected boolean handleFailedEntry(AsyncHistoryJournalEntry entry, RuntimeException exception) {
+    // a batch that was written in the meantime fails on its journal entry
+    if (isWrittenByOtherWriter(entry)) {
+      log.info("Async history batch {} was written by another writer", entry.getJournalId());
+      removeEntry(entry);
+      return true;
+    }
+
+    entry.setFailedAttempts(entry.getFailedAttempts() + 1);
+    if (entry.getFailedAttempts() < maxWriteAttempts) {
+      log.warn("Could not write async history batch {} (attempt {} of {}), retrying it later: {}",
+              entry.getJournalId(), entry.getFailedAttempts(), maxWriteAttempts, exception.getMessage());
+      return false;
+    }
+
+    boolean parked;
+    try {
+      parked = commandExecutor.execute(commandConfig, new ParkAsyncHistoryJournalEntryCmd(entry));
+    } catch (RuntimeException e) {
+      log.error("Could not park async history batch " + entry.getJournalId() + " as dead letter, retrying it later", e);
+      return false;
+    }
+    if (parked) {
+      log.error("Could not write async history batch " + entry.getJournalId() + ", parked it as dead letter", exception);
+    } else {
+      log.info("Async history batch {} was written by another writer", entry.getJournalId());
+    }
+    removeEntry(entry);
+    return true;
+  }
+
+  protected boolean isWrittenByOtherWriter(AsyncHistoryJournalEntry entry) {
+    try {
+      return commandExecutor.execute(commandConfig, new GetAsyncHistoryJournalCmd(Collections.singletonList(entry.getJournalId()))).isEmpty();
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  // dead letters /////////////////////////////////////////////////////////////
+
+  /**
+   * Returns the ids of the byte arrays of the batches that were parked as dead letters.
+   */
+  public List<String> getDeadLetterIds() {
+    return commandExecutor.execute(commandConfig, new GetAsyncHistoryJournalIdsCmd(DEAD_LETTER_NAME_PREFIX));
+  }
+
+  /**
+   * Moves the batches that were parked as dead letters back to the journal and queues them.
+   */
+  public void requeueDeadLetters() {
+    commandExecutor.execute(commandConfig, new RequeueAsyncHistoryDeadLettersCmd());
+    recover();
+  }
+
+  // getters and setters //////////////////////////////////////////////////////
+
+  public boolean isActive() {
+    return active;
+  }
+
+  public String getOwnerId() {
+    return ownerId;
+  }
+
+  public CommandExecutor getCommandExecutor() {
+    return commandExecutor;
+  }
+
+  public void setCommandExecutor(CommandExecutor commandExecutor) {
+    this.commandExecutor = commandExecutor;
+  }
+
+  public CommandConfig getCommandConfig() {
+    return commandConfig;
+  }
+
+  public void setCommandConfig(CommandConfig commandConfig) {
+    this.commandConfig = commandConfig;
+  }
+
+  public long getWriteIntervalMillis() {
+    return writeIntervalMillis;
+  }
+
+  public void setWriteIntervalMillis(long writeIntervalMillis) {
+    this.writeIntervalMillis = writeIntervalMillis;
+  }
+
+  public int getMaxBatchesPerTransaction() {
+    return maxBatchesPerTransaction;
+  }
+
+  public void setMaxBatchesPerTransaction(int maxBatchesPerTransaction) {
+    this.maxBatchesPerTransaction = maxBatchesPerTransaction;
+  }
+
+  public int getMaxBatchesInMemory() {
+    return maxBatchesInMemory;
+  }
+
+  public void setMaxBatchesInMemory(int maxBatchesInMemory) {
+    this.maxBatchesInMemory = maxBatchesInMemory;
+  }
+
+  public int getMaxWriteAttempts() {
+    return maxWriteAttempts;
+  }
+
+  public void setMaxWriteAttempts(int maxWriteAttempts) {
+    this.maxWriteAttempts = maxWriteAttempts;
+  }
+
+  public long getLeaseMillis() {
+    return leaseMillis;
+  }
+
+  public void setLeaseMillis(long leaseMillis) {
+    this.leaseMillis = leaseMillis;
+  }
+
+}
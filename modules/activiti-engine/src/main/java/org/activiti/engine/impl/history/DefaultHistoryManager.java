@@ -276,6 +276,9 @@ public HistoricActivityInstanceEntity findActivityInstance(ExecutionEntity execu
     String executionId = execution.getId();
     String activityId = execution.getActivityId();
 
+    // history that is still queued by the async history writer is put in the cache first
+    cacheQueuedHistoryOfProcessInstance(HistoricActivityInstanceEntity.class, execution.getProcessInstanceId());
+
     // search for the historic activity instance in the dbsqlsession cache
     List<HistoricActivityInstanceEntity> cachedHistoricActivityInstances = getDbSqlSession().findInCache(HistoricActivityInstanceEntity.class);
     for (HistoricActivityInstanceEntity cachedHistoricActivityInstance: cachedHistoricActivityInstances) {
@@ -292,10 +295,15 @@ public HistoricActivityInstanceEntity findActivityInstance(ExecutionEntity execu
       .executionId(executionId)
       .activityId(activityId)
       .unfinished()
-      .listPage(0, 1);
+      .list();
     
-    if (!historicActivityInstances.isEmpty()) {
-      return (HistoricActivityInstanceEntity) historicActivityInstances.get(0);
+    // the cached state of queued history takes precedence over the persisted state
+    for (HistoricActivityInstance historicActivityInstance : historicActivityInstances) {
+      if (historicActivityInstance.getEndTime() == null
+           && executionId.equals(historicActivityInstance.getExecutionId())
+           && (activityId == null || activityId.equals(historicActivityInstance.getActivityId()))) {
+        return (HistoricActivityInstanceEntity) historicActivityInstance;
+      }
     }
     
     if (execution.getParentId()!=null) {
@@ -313,7 +321,8 @@ public HistoricActivityInstanceEntity findActivityInstance(ExecutionEntity execu
   public void recordExecutionReplacedBy(ExecutionEntity execution, InterpretableExecution replacedBy) {
     if (isHistoryLevelAtLeast(HistoryLevel.ACTIVITY)) {
       
-      // Update the cached historic activity instances that are open
+      // Update the cached historic activity instances that are open, including the queued ones
+      cacheQueuedHistoryOfProcessInstance(HistoricActivityInstanceEntity.class, execution.getProcessInstanceId());
       List<HistoricActivityInstanceEntity> cachedHistoricActivityInstances = getDbSqlSession().findInCache(HistoricActivityInstanceEntity.class);
       for (HistoricActivityInstanceEntity cachedHistoricActivityInstance: cachedHistoricActivityInstances) {
         if ( (cachedHistoricActivityInstance.getEndTime()==null)
@@ -329,7 +338,10 @@ public HistoricActivityInstanceEntity findActivityInstance(ExecutionEntity execu
         .unfinished()
         .list();
       for (HistoricActivityInstanceEntity historicActivityInstance: historicActivityInstances) {
-        historicActivityInstance.setExecutionId(replacedBy.getId());
+        if (historicActivityInstance.getEndTime() == null
+             && execution.getId().equals(historicActivityInstance.getExecutionId())) {
+          historicActivityInstance.setExecutionId(replacedBy.getId());
+        }
       }
     }
   }
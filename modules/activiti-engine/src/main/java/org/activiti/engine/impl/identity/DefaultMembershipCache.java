@@ -0,0 +1,158 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.identity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.activiti.engine.runtime.ClockReader;
+
+
+/**
+ * Default {@link MembershipCache}: keeps the group ids of at most a given number of users in memory,
+ * evicting the least recently used ones, for a limited time as measured by the engine clock.
+ * 
+ * The cache is thread safe: all access is synchronized, as lookups change the access order.
+ * 
+ * Invalidating a user replaces its entry by one without group ids that remembers the generation of
+ * the invalidation, so group ids resolved before it aren't cached anymore. Once such an entry is evicted,
+ * or the whole cache is cleared, its generation is kept for all users that have no entry.
+ */
+public class DefaultMembershipCache implements MembershipCache {
+
+  protected Map<String, CacheEntry> cache;
+  protected long expirationTime;
+  protected ClockReader clockReader;
+
+  /** incremented on every invalidation, guarded by the cache */
+  protected long generation;
+  /** last generation that invalidated users that have no entry anymore, guarded by the cache */
+  protected long evictedGeneration;
+
+  protected AtomicLong hitCount = new AtomicLong();
+  protected AtomicLong missCount = new AtomicLong();
+
+  public DefaultMembershipCache(final int limit, long expirationTime, ClockReader clockReader) {
+    this.expirationTime = expirationTime;
+    this.clockReader = clockReader;
+    this.cache = new LinkedHashMap<String, CacheEntry>(limit + 1, 0.75f, true) {
+
+      private static final long serialVersionUID = 1L;
+
+      protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+        if (size() > limit) {
+          evictedGeneration = Math.max(evictedGeneration, eldest.getValue().generation);
+          return true;
+        }
+        return false;
+      }
+
+    };
+  }
+
+  public List<String> getGroupIds(String userId) {
+    CacheEntry cacheEntry = null;
+    synchronized (cache) {
+      cacheEntry = cache.get(userId);
+    }
+
+    if (cacheEntry == null || cacheEntry.groupIds == null
+            || clockReader.getCurrentTime().getTime() - cacheEntry.timestamp >= expirationTime) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    return cacheEntry.groupIds;
+  }
+
+  public long getGeneration(String userId) {
+    synchronized (cache) {
+      return generation;
+    }
+  }
+
+  public void addGroupIds(String userId, List<String> groupIds, long generation) {
+    long timestamp = clockReader.getCurrentTime().getTime();
+    List<String> cachedGroupIds = Collections.unmodifiableList(new ArrayList<String>(groupIds));
+    synchronized (cache) {
+      CacheEntry cacheEntry = cache.get(userId);
+      long invalidatedGeneration = cacheEntry != null ? cacheEntry.generation : evictedGeneration;
+      if (invalidatedGeneration > generation) {
+        // resolved before the user was invalidated, so possibly stale
+        return;
+      }
+      cache.put(userId, new CacheEntry(timestamp, cachedGroupIds, invalidatedGeneration));
+    }
+  }
+
+  public void remove(String userId) {
+    synchronized (cache) {
+      generation++;
+      cache.put(userId, new CacheEntry(0L, null, generation));
+    }
+  }
+
+  public void clear() {
+    synchronized (cache) {
+      generation++;
+      evictedGeneration = generation;
+      cache.clear();
+    }
+  }
+
+  /** number of users whose group ids are cached */
+  public int size() {
+    synchronized (cache) {
+      int size = 0;
+      for (CacheEntry cacheEntry : cache.values()) {
+        if (cacheEntry.groupIds != null) {
+          size++;
+        }
+      }
+      return size;
+    }
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public long getExpirationTime() {
+    return expirationTime;
+  }
+
+  protected static class CacheEntry {
+
+    protected final long timestamp;
+    /** null when the entry was invalidated */
+    protected final List<String> groupIds;
+    /** generation of the last invalidation of the user */
+    protected final long generation;
+
+    public CacheEntry(long timestamp, List<String> groupIds, long generation) {
+      this.timestamp = timestamp;
+      this.groupIds = groupIds;
+      this.generation = generation;
+    }
+
+  }
+
+}
@@ -0,0 +1,48 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.identity;
+
+import java.util.List;
+
+
+/**
+ * Cache for the ids of the groups a user belongs to, as used by the candidate user and 
+ * authorization filters of queries, so those don't resolve the groups through the 
+ * {@link org.activiti.engine.impl.persistence.entity.GroupIdentityManager} on every execution.
+ * 
+ * Entries of a user are removed when the memberships of that user are changed through the
+ * {@link org.activiti.engine.IdentityService}. Changes made directly in the identity store 
+ * are only visible once the cached entry expired.
+ *
+ * A query can resolve the groups just before a membership change is committed and cache them
+ * right after it was invalidated. To prevent that, the query takes the generation of the user's
+ * entry before resolving the groups: {@link #addGroupIds(String, List, long)} ignores the groups
+ * when the entry was invalidated since.
+ */
+public interface MembershipCache {
+
+  /** returns the cached group ids of the user, or null when they aren't cached (anymore) */
+  List<String> getGroupIds(String userId);
+
+  /** returns the generation of the user's entry, to be taken before resolving the group ids */
+  long getGeneration(String userId);
+
+  /** caches the group ids, unless the user's entry was invalidated after the given generation was taken */
+  void addGroupIds(String userId, List<String> groupIds, long generation);
+
+  /** invalidates the entry of the user */
+  void remove(String userId);
+
+  void clear();
+
+}
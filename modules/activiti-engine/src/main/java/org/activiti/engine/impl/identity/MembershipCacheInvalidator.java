@@ -0,0 +1,57 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.identity;
+
+import org.activiti.engine.impl.cfg.TransactionListener;
+import org.activiti.engine.impl.cfg.TransactionState;
+import org.activiti.engine.impl.interceptor.CommandContext;
+
+
+/**
+ * Removes the cached group ids of a user, or of all users, from the {@link MembershipCache} 
+ * once the transaction changing the memberships is committed. Removing them earlier would allow
+ * a concurrent query to cache the memberships as they were before the change again. A query that
+ * resolved the groups before the commit and caches them after this invalidation is stopped by the
+ * generation check of {@link MembershipCache#addGroupIds(String, java.util.List, long)}.
+ */
+public class MembershipCacheInvalidator implements TransactionListener {
+
+  protected MembershipCache membershipCache;
+  protected String userId;
+
+  /**
+   * Registers the invalidation of the group ids of the given user, or of all users 
+   * when the user id is null, if a membership cache is configured.
+   */
+  public static void invalidateOnCommit(CommandContext commandContext, String userId) {
+    MembershipCache membershipCache = commandContext.getProcessEngineConfiguration().getMembershipCache();
+    if (membershipCache != null) {
+      commandContext.getTransactionContext().addTransactionListener(TransactionState.COMMITTED, 
+              new MembershipCacheInvalidator(membershipCache, userId));
+    }
+  }
+
+  public MembershipCacheInvalidator(MembershipCache membershipCache, String userId) {
+    this.membershipCache = membershipCache;
+    this.userId = userId;
+  }
+
+  public void execute(CommandContext commandContext) {
+    if (userId != null) {
+      membershipCache.remove(userId);
+    } else {
+      membershipCache.clear();
+    }
+  }
+
+}
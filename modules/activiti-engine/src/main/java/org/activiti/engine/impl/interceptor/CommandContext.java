@@ -27,6 +27,7 @@ import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.db.DbSqlSession;
 import org.activiti.engine.impl.history.HistoryManager;
 import org.activiti.engine.impl.jobexecutor.FailedJobCommandFactory;
+import org.activiti.engine.impl.metrics.ActivityProfiler;
 import org.activiti.engine.impl.persistence.entity.AttachmentEntityManager;
 import org.activiti.engine.impl.persistence.entity.ByteArrayEntityManager;
 import org.activiti.engine.impl.persistence.entity.CommentEntityManager;
@@ -86,10 +87,12 @@ public class CommandContext {
           if (log.isTraceEnabled()) {
             log.trace("AtomicOperation: {} on {}", currentOperation, this);
           }
-          if (execution.getReplacedBy() == null) {
-          	currentOperation.execute(execution);
+          InterpretableExecution currentExecution = execution.getReplacedBy() == null ? execution : execution.getReplacedBy();
+          ActivityProfiler activityProfiler = processEngineConfiguration.getActivityProfiler();
+          if (activityProfiler == null) {
+          	currentOperation.execute(currentExecution);
           } else {
-          	currentOperation.execute(execution.getReplacedBy());
+          	activityProfiler.performOperation(currentOperation, currentExecution);
           }
         }
       } finally {
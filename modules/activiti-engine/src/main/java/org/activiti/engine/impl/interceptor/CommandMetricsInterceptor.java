@@ -0,0 +1,79 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.interceptor;
+
+import org.activiti.engine.ActivitiOptimisticLockingException;
+import org.activiti.engine.impl.metrics.CommandMetricsCollector;
+
+/**
+ * Records the count, latency and failures of every command in the {@link CommandMetricsCollector}.
+ *
+ * Placed before the transaction and command context interceptors, so the measured time includes
+ * the flush and the commit. Commands executed from within another command are counted on their own too.
+ * An execution of a command that failed with an {@link ActivitiOptimisticLockingException} on the same
+ * thread just before, as done by the {@link RetryInterceptor}, is counted as a retry.
+ */
+public class CommandMetricsInterceptor extends AbstractCommandInterceptor {
+
+  protected CommandMetricsCollector commandMetricsCollector;
+  protected ThreadLocal<Command<?>> optimisticLockingFailedCommand = new ThreadLocal<Command<?>>();
+
+  public CommandMetricsInterceptor(CommandMetricsCollector commandMetricsCollector) {
+    this.commandMetricsCollector = commandMetricsCollector;
+  }
+
+  public <T> T execute(CommandConfig config, Command<T> command) {
+    boolean retry = false;
+    Command<?> failedCommand = optimisticLockingFailedCommand.get();
+    if (failedCommand != null) {
+      retry = failedCommand == command;
+      optimisticLockingFailedCommand.remove();
+    }
+
+    boolean failed = true;
+    boolean optimisticLockingFailed = false;
+    long start = System.nanoTime();
+    try {
+      T result = next.execute(config, command);
+      failed = false;
+      return result;
+
+    } catch (RuntimeException e) {
+      if (isOptimisticLockingFailure(e)) {
+        optimisticLockingFailed = true;
+        optimisticLockingFailedCommand.set(command);
+      }
+      throw e;
+
+    } finally {
+      commandMetricsCollector
+        .getCounter(command.getClass().getName())
+        .recordExecution(System.nanoTime() - start, failed, optimisticLockingFailed, retry);
+    }
+  }
+
+  protected boolean isOptimisticLockingFailure(Throwable exception) {
+    while (exception != null) {
+      if (exception instanceof ActivitiOptimisticLockingException) {
+        return true;
+      }
+      exception = exception.getCause() != exception ? exception.getCause() : null;
+    }
+    return false;
+  }
+
+  public CommandMetricsCollector getCommandMetricsCollector() {
+    return commandMetricsCollector;
+  }
+
+}
@@ -19,6 +19,7 @@ import java.beans.FeatureDescriptor;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -26,6 +27,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -51,7 +53,7 @@ public class BeanELResolver extends ELResolver {
 		public BeanProperties(Class<?> baseClass) {
 			PropertyDescriptor[] descriptors;
 			try {
-				descriptors = Introspector.getBeanInfo(baseClass).getPropertyDescriptors();
+				descriptors = getPropertyDescriptors(baseClass);
 			} catch (IntrospectionException e) {
 				throw new ELException(e);
 			}
@@ -126,10 +128,96 @@ public class BeanELResolver extends ELResolver {
 		return method;
 	}
 
+	/**
+	 * Values cached per class. Classes loaded by the class loader of this resolver, or by one of its
+	 * parents, can't be unloaded before this resolver and are kept in a concurrent map. Classes of
+	 * other class loaders, eg. of an application that is redeployed while the engine keeps running,
+	 * are weak keys with weakly referenced values, so they don't keep their class loader alive.
+	 */
+	private static final class ClassCache<V> {
+		private final ConcurrentHashMap<Class<?>, V> strong = new ConcurrentHashMap<Class<?>, V>();
+		private final Map<Class<?>, WeakReference<V>> weak = new WeakHashMap<Class<?>, WeakReference<V>>();
+
+		V get(Class<?> type) {
+			V value = strong.get(type);
+			if (value == null) {
+				synchronized (weak) {
+					WeakReference<V> reference = weak.get(type);
+					value = reference == null ? null : reference.get();
+				}
+			}
+			return value;
+		}
+
+		/**
+		 * Caches the value unless another thread did so first, returns the cached value.
+		 */
+		V putIfAbsent(Class<?> type, V value) {
+			if (isCacheSafe(type)) {
+				V previous = strong.putIfAbsent(type, value);
+				return previous == null ? value : previous;
+			}
+			synchronized (weak) {
+				WeakReference<V> reference = weak.get(type);
+				V previous = reference == null ? null : reference.get();
+				if (previous != null) {
+					return previous;
+				}
+				weak.put(type, new WeakReference<V>(value));
+				return value;
+			}
+		}
+
+		void purge(ClassLoader loader) {
+			Iterator<Class<?>> classes = strong.keySet().iterator();
+			while (classes.hasNext()) {
+				if (loader == classes.next().getClassLoader()) {
+					classes.remove();
+				}
+			}
+			synchronized (weak) {
+				classes = weak.keySet().iterator();
+				while (classes.hasNext()) {
+					if (loader == classes.next().getClassLoader()) {
+						classes.remove();
+					}
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Whether the class is loaded by the class loader of this resolver or by one of its parents.
+	 */
+	private static boolean isCacheSafe(Class<?> type) {
+		ClassLoader classLoader = type.getClassLoader();
+		if (classLoader == null) {
+			return true;
+		}
+		for (ClassLoader loader = BeanELResolver.class.getClassLoader(); loader != null; loader = loader.getParent()) {
+			if (loader == classLoader) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static PropertyDescriptor[] getPropertyDescriptors(Class<?> type) throws IntrospectionException {
+		PropertyDescriptor[] descriptors = Introspector.getBeanInfo(type).getPropertyDescriptors();
+		if (!isCacheSafe(type)) {
+			// the bean info cache of the Introspector would keep the class loader alive as well
+			Introspector.flushFromCaches(type);
+		}
+		return descriptors;
+	}
+
 	private final boolean readOnly;
-	private final ConcurrentHashMap<Class<?>, BeanProperties> cache;
+	private final ClassCache<BeanProperties> cache;
+	// methods found by name and number of parameters, looking them up means copying all methods of a class
+	private final ClassCache<ConcurrentHashMap<String, Method>> methodCache;
 	
-	private ExpressionFactory defaultFactory;
+	private volatile ExpressionFactory defaultFactory;
 
 	/**
 	 * Creates a new read/write BeanELResolver.
@@ -143,7 +231,8 @@ public class BeanELResolver extends ELResolver {
 	 */
 	public BeanELResolver(boolean readOnly) {
 		this.readOnly = readOnly;
-		this.cache = new ConcurrentHashMap<Class<?>, BeanProperties>();
+		this.cache = new ClassCache<BeanProperties>();
+		this.methodCache = new ClassCache<ConcurrentHashMap<String, Method>>();
 	}
 
 	/**
@@ -189,7 +278,7 @@ public class BeanELResolver extends ELResolver {
 		if (isResolvable(base)) {
 			final PropertyDescriptor[] properties;
 			try {
-				properties = Introspector.getBeanInfo(base.getClass()).getPropertyDescriptors();
+				properties = getPropertyDescriptors(base.getClass());
 			} catch (IntrospectionException e) {
 				return Collections.<FeatureDescriptor> emptyList().iterator();
 			}
@@ -501,6 +590,22 @@ public class BeanELResolver extends ELResolver {
 				return null;
 			}
 		}
+		ConcurrentHashMap<String, Method> methods = methodCache.get(base.getClass());
+		if (methods == null) {
+			methods = methodCache.putIfAbsent(base.getClass(), new ConcurrentHashMap<String, Method>());
+		}
+		String key = name + "/" + paramCount;
+		Method method = methods.get(key);
+		if (method == null) {
+			method = findMethod(base, name, paramCount);
+			if (method != null) {
+				methods.put(key, method);
+			}
+		}
+		return method;
+	}
+
+	private Method findMethod(Object base, String name, int paramCount) {
 		Method varArgsMethod = null;
 		for (Method method : base.getClass().getMethods()) {
 			if (method.getName().equals(name)) {
@@ -616,11 +721,7 @@ public class BeanELResolver extends ELResolver {
 	private final BeanProperty toBeanProperty(Object base, Object property) {
 		BeanProperties beanProperties = cache.get(base.getClass());
 		if (beanProperties == null) {
-			BeanProperties newBeanProperties = new BeanProperties(base.getClass());
-			beanProperties = cache.putIfAbsent(base.getClass(), newBeanProperties);
-			if (beanProperties == null) { // put succeeded, use new value
-				beanProperties = newBeanProperties;
-			}
+			beanProperties = cache.putIfAbsent(base.getClass(), new BeanProperties(base.getClass()));
 		}
 		BeanProperty beanProperty = property == null ? null : beanProperties.getBeanProperty(property.toString());
 		if (beanProperty == null) {
@@ -641,11 +742,7 @@ public class BeanELResolver extends ELResolver {
 	 */
 	@SuppressWarnings("unused")
 	private final void purgeBeanClasses(ClassLoader loader) {
-		Iterator<Class<?>> classes = cache.keySet().iterator();
-		while (classes.hasNext()) {
-			if (loader == classes.next().getClassLoader()) {
-				classes.remove();
-			}
-		}
+		cache.purge(loader);
+		methodCache.purge(loader);
 	}
 }
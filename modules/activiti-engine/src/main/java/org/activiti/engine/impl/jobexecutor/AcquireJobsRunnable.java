@@ -36,6 +36,7 @@ public class AcquireJobsRunnable implements Runnable {
 
   protected volatile boolean isInterrupted = false;
   protected volatile boolean isJobAdded = false;
+  protected volatile boolean isWaitingForCapacity = false;
   protected final Object MONITOR = new Object();
   protected final AtomicBoolean isWaiting = new AtomicBoolean(false);
   
@@ -53,7 +54,22 @@ public class AcquireJobsRunnable implements Runnable {
     final CommandExecutor commandExecutor = jobExecutor.getCommandExecutor();
 
     while (!isInterrupted) {
-      int maxJobsPerAcquisition = jobExecutor.getMaxJobsPerAcquisition();
+      // reset before acquiring, so jobs added while the acquisition is running 
+      // cause an immediate new acquisition instead of being missed
+      isJobAdded = false;
+      
+      // announce before checking, so capacity freed in between isn't missed
+      isWaitingForCapacity = true;
+      if (jobExecutor.getAvailableCapacity() <= 0) {
+        // don't acquire jobs that can't be executed right now, 
+        // wait until one of the job executor threads becomes available
+        millisToWait = jobExecutor.getWaitTimeInMillis();
+        waitIfNoJobsAdded();
+        continue;
+      }
+      isWaitingForCapacity = false;
+      
+      int maxJobsPerAcquisition = jobExecutor.getJobsToAcquire();
 
       try {
         AcquiredJobs acquiredJobs = commandExecutor.execute(jobExecutor.getAcquireJobsCmd());
@@ -64,11 +80,9 @@ public class AcquireJobsRunnable implements Runnable {
 
         // if all jobs were executed
         millisToWait = jobExecutor.getWaitTimeInMillis();
-        int jobsAcquired = acquiredJobs.getJobIdBatches().size();
+        int jobsAcquired = acquiredJobs.size();
         if (jobsAcquired < maxJobsPerAcquisition) {
           
-          isJobAdded = false;
-          
           // check if the next timer should fire before the normal sleep time is over
           Date duedate = new Date(jobExecutor.getCurrentTime().getTime() + millisToWait);
           List<TimerEntity> nextTimers = commandExecutor.execute(new GetUnlockedTimersByDuedateCmd(duedate, new Page(0, 1)));
@@ -103,34 +117,40 @@ public class AcquireJobsRunnable implements Runnable {
         }
       }
 
-      if ((millisToWait > 0) && (!isJobAdded)) {
-        try {
-          if (log.isDebugEnabled()) {
-            log.debug("job acquisition thread sleeping for {} millis", millisToWait);
-          }
-          synchronized (MONITOR) {
-            if(!isInterrupted) {
-              isWaiting.set(true);
-              MONITOR.wait(millisToWait);
-            }
-          }
-          
-          if (log.isDebugEnabled()) {
-            log.debug("job acquisition thread woke up");
-          }
-        } catch (InterruptedException e) {
-          if (log.isDebugEnabled()) {
-            log.debug("job acquisition wait interrupted");
-          }
-        } finally {
-          isWaiting.set(false);
-        }
-      }
+      waitIfNoJobsAdded();
     }
     
     log.info("{} stopped job acquisition", jobExecutor.getName());
   }
 
+  protected void waitIfNoJobsAdded() {
+    if ((millisToWait > 0) && (!isJobAdded)) {
+      try {
+        if (log.isDebugEnabled()) {
+          log.debug("job acquisition thread sleeping for {} millis", millisToWait);
+        }
+        synchronized (MONITOR) {
+          isWaiting.set(true);
+          // re-check the flag after announcing the wait: a job added in between 
+          // either is seen here or notifies the monitor
+          if(!isInterrupted && !isJobAdded) {
+            MONITOR.wait(millisToWait);
+          }
+        }
+        
+        if (log.isDebugEnabled()) {
+          log.debug("job acquisition thread woke up");
+        }
+      } catch (InterruptedException e) {
+        if (log.isDebugEnabled()) {
+          log.debug("job acquisition wait interrupted");
+        }
+      } finally {
+        isWaiting.set(false);
+      }
+    }
+  }
+  
   public void stop() {
     synchronized (MONITOR) {
       isInterrupted = true; 
@@ -150,7 +170,13 @@ public class AcquireJobsRunnable implements Runnable {
       }
     }    
   }
-
+  
+  public void capacityAvailable() {
+    if (isWaitingForCapacity) {
+      isWaitingForCapacity = false;
+      jobWasAdded();
+    }
+  }
   
   public long getMillisToWait() {
     return millisToWait;
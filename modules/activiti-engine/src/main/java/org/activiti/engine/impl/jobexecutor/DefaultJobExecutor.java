@@ -18,6 +18,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,17 +43,33 @@ public class DefaultJobExecutor extends JobExecutor {
   
   protected int queueSize = 3;
   protected int corePoolSize = 3;
-  private int maxPoolSize = 10;
+  protected int maxPoolSize = 10;
+  
+  /**
+   * When enabled, the number of core threads is adapted between corePoolSize and maxPoolSize:
+   * it grows while job batches are waiting in the queue longer than targetQueueLatencyMillis
+   * and shrinks again when threads are idle.
+   */
+  protected boolean adaptivePoolSizingEnabled = false;
+  protected long targetQueueLatencyMillis = 100L;
+  protected long poolSizeAdjustmentIntervalMillis = 1000L;
 
   protected BlockingQueue<Runnable> threadPoolQueue;
   protected ThreadPoolExecutor threadPoolExecutor;
+  
+  protected final AtomicLong lastPoolSizeAdjustment = new AtomicLong();
+  protected final AtomicLong executedJobBatchCount = new AtomicLong();
+  protected final AtomicLong rejectedJobBatchCount = new AtomicLong();
+  protected final Object statisticsLock = new Object();
+  protected double averageQueueLatencyMillis;
+  protected double averageExecutionTimeMillis;
     
   protected void startExecutingJobs() {
     if (threadPoolQueue==null) {
       threadPoolQueue = new ArrayBlockingQueue<Runnable>(queueSize);
     }
     if (threadPoolExecutor==null) {
-      threadPoolExecutor = new ThreadPoolExecutor(corePoolSize, maxPoolSize, 0L, TimeUnit.MILLISECONDS, threadPoolQueue);      
+      threadPoolExecutor = new JobExecutorThreadPool(corePoolSize, maxPoolSize, threadPoolQueue);      
       threadPoolExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
     }
     startJobAcquisitionThread(); 
@@ -81,10 +98,163 @@ public class DefaultJobExecutor extends JobExecutor {
     try {
       threadPoolExecutor.execute(new ExecuteJobsRunnable(this, jobIds));
     } catch (RejectedExecutionException e) {
+      rejectedJobBatchCount.incrementAndGet();
       rejectedJobsHandler.jobsRejected(this, jobIds);
     }
   }
   
+  public boolean executeLockedJobs(List<String> jobIds) {
+    ThreadPoolExecutor threadPoolExecutor = this.threadPoolExecutor;
+    if (!isActive || threadPoolExecutor == null) {
+      return false;
+    }
+    try {
+      threadPoolExecutor.execute(new ExecuteJobsRunnable(this, jobIds));
+      return true;
+    } catch (RejectedExecutionException e) {
+      rejectedJobBatchCount.incrementAndGet();
+      return false;
+    }
+  }
+  
+  /**
+   * Free threads plus free places in the queue: the number of job batches 
+   * that can be handed over without being rejected. 
+   */
+  public int getAvailableCapacity() {
+    ThreadPoolExecutor threadPoolExecutor = this.threadPoolExecutor;
+    if (!isActive || threadPoolExecutor == null) {
+      return Integer.MAX_VALUE;
+    }
+    int availableThreads = Math.max(0, threadPoolExecutor.getMaximumPoolSize() - threadPoolExecutor.getActiveCount());
+    return availableThreads + threadPoolExecutor.getQueue().remainingCapacity();
+  }
+  
+  protected void jobBatchStarted(ExecuteJobsRunnable executeJobsRunnable) {
+    long queueLatency = System.currentTimeMillis() - executeJobsRunnable.getCreationTime();
+    synchronized (statisticsLock) {
+      averageQueueLatencyMillis = movingAverage(averageQueueLatencyMillis, queueLatency);
+    }
+  }
+  
+  protected void jobBatchExecuted(long executionTimeMillis) {
+    executedJobBatchCount.incrementAndGet();
+    synchronized (statisticsLock) {
+      averageExecutionTimeMillis = movingAverage(averageExecutionTimeMillis, executionTimeMillis);
+    }
+    
+    if (adaptivePoolSizingEnabled) {
+      adjustPoolSize();
+    }
+    capacityAvailable();
+  }
+  
+  protected double movingAverage(double average, long value) {
+    // exponentially weighted, so the average follows changes in load within a few batches
+    return average + 0.2 * (value - average);
+  }
+  
+  /**
+   * Adds a core thread while job batches are queued or have to wait too long before 
+   * being picked up, removes one when several threads are idle. Runs at most once 
+   * per poolSizeAdjustmentIntervalMillis. 
+   */
+  protected void adjustPoolSize() {
+    ThreadPoolExecutor threadPoolExecutor = this.threadPoolExecutor;
+    long now = System.currentTimeMillis();
+    long lastAdjustment = lastPoolSizeAdjustment.get();
+    if (threadPoolExecutor == null 
+            || now - lastAdjustment < poolSizeAdjustmentIntervalMillis
+            || !lastPoolSizeAdjustment.compareAndSet(lastAdjustment, now)) {
+      return;
+    }
+    
+    int currentCorePoolSize = threadPoolExecutor.getCorePoolSize();
+    int queueDepth = threadPoolExecutor.getQueue().size();
+    double queueLatency = getAverageQueueLatencyMillis();
+    
+    if ((queueDepth > 0 || queueLatency > targetQueueLatencyMillis) && currentCorePoolSize < maxPoolSize) {
+      log.debug("increasing job executor core pool size to {}", currentCorePoolSize + 1);
+      threadPoolExecutor.setCorePoolSize(currentCorePoolSize + 1);
+      
+    } else if (queueDepth == 0 
+            && queueLatency < targetQueueLatencyMillis / 2 
+            && threadPoolExecutor.getActiveCount() < currentCorePoolSize - 1
+            && currentCorePoolSize > corePoolSize) {
+      log.debug("decreasing job executor core pool size to {}", currentCorePoolSize - 1);
+      threadPoolExecutor.setCorePoolSize(currentCorePoolSize - 1);
+    }
+  }
+  
+  /**
+   * Thread pool that reports the execution of job batches back to the job executor.
+   */
+  protected class JobExecutorThreadPool extends ThreadPoolExecutor {
+    
+    protected ThreadLocal<Long> startTime = new ThreadLocal<Long>();
+
+    public JobExecutorThreadPool(int corePoolSize, int maxPoolSize, BlockingQueue<Runnable> queue) {
+      super(corePoolSize, maxPoolSize, 0L, TimeUnit.MILLISECONDS, queue);
+    }
+    
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+      super.beforeExecute(thread, runnable);
+      startTime.set(System.currentTimeMillis());
+      if (runnable instanceof ExecuteJobsRunnable) {
+        jobBatchStarted((ExecuteJobsRunnable) runnable);
+      }
+    }
+    
+    protected void afterExecute(Runnable runnable, Throwable throwable) {
+      super.afterExecute(runnable, throwable);
+      Long start = startTime.get();
+      startTime.remove();
+      jobBatchExecuted(start != null ? System.currentTimeMillis() - start : 0L);
+    }
+  }
+  
+  // metrics //////////////////////////////////////////////////////////////////
+  
+  /** Number of job batches waiting for a free thread. */
+  public int getQueueDepth() {
+    ThreadPoolExecutor threadPoolExecutor = this.threadPoolExecutor;
+    return threadPoolExecutor != null ? threadPoolExecutor.getQueue().size() : 0;
+  }
+  
+  /** Number of threads currently executing jobs. */
+  public int getActiveThreadCount() {
+    ThreadPoolExecutor threadPoolExecutor = this.threadPoolExecutor;
+    return threadPoolExecutor != null ? threadPoolExecutor.getActiveCount() : 0;
+  }
+  
+  /** Number of threads currently in the pool, busy or idle. */
+  public int getCurrentPoolSize() {
+    ThreadPoolExecutor threadPoolExecutor = this.threadPoolExecutor;
+    return threadPoolExecutor != null ? threadPoolExecutor.getPoolSize() : 0;
+  }
+  
+  public long getExecutedJobBatchCount() {
+    return executedJobBatchCount.get();
+  }
+  
+  public long getRejectedJobBatchCount() {
+    return rejectedJobBatchCount.get();
+  }
+  
+  /** Moving average of the time job batches wait in the queue before execution starts. */
+  public double getAverageQueueLatencyMillis() {
+    synchronized (statisticsLock) {
+      return averageQueueLatencyMillis;
+    }
+  }
+  
+  /** Moving average of the time it takes to execute a job batch. */
+  public double getAverageExecutionTimeMillis() {
+    synchronized (statisticsLock) {
+      return averageExecutionTimeMillis;
+    }
+  }
+  
   // getters and setters ////////////////////////////////////////////////////// 
   
   public int getQueueSize() {
@@ -111,6 +281,30 @@ public class DefaultJobExecutor extends JobExecutor {
     this.maxPoolSize = maxPoolSize;
   }
   
+  public boolean isAdaptivePoolSizingEnabled() {
+    return adaptivePoolSizingEnabled;
+  }
+  
+  public void setAdaptivePoolSizingEnabled(boolean adaptivePoolSizingEnabled) {
+    this.adaptivePoolSizingEnabled = adaptivePoolSizingEnabled;
+  }
+  
+  public long getTargetQueueLatencyMillis() {
+    return targetQueueLatencyMillis;
+  }
+  
+  public void setTargetQueueLatencyMillis(long targetQueueLatencyMillis) {
+    this.targetQueueLatencyMillis = targetQueueLatencyMillis;
+  }
+  
+  public long getPoolSizeAdjustmentIntervalMillis() {
+    return poolSizeAdjustmentIntervalMillis;
+  }
+  
+  public void setPoolSizeAdjustmentIntervalMillis(long poolSizeAdjustmentIntervalMillis) {
+    this.poolSizeAdjustmentIntervalMillis = poolSizeAdjustmentIntervalMillis;
+  }
+  
   public BlockingQueue<Runnable> getThreadPoolQueue() {
     return threadPoolQueue;
   }
@@ -128,4 +322,3 @@ public class DefaultJobExecutor extends JobExecutor {
   }
     
 }
-
@@ -31,12 +31,24 @@ public class ExecuteJobsRunnable implements Runnable
 
     private final List<String> jobIds;
     private final JobExecutor jobExecutor;
+    private final long creationTime = System.currentTimeMillis();
 
     public ExecuteJobsRunnable(JobExecutor jobExecutor, List<String> jobIds) {
         this.jobExecutor = jobExecutor;
         this.jobIds = jobIds;
     }
 
+    public List<String> getJobIds() {
+        return jobIds;
+    }
+
+    /**
+     * Time at which this runnable was created, ie. handed to the job executor.
+     */
+    public long getCreationTime() {
+        return creationTime;
+    }
+
     public void run() {
         final JobExecutorContext jobExecutorContext = new JobExecutorContext();
         final List<String> currentProcessorJobQueue = jobExecutorContext.getCurrentProcessorJobQueue();
@@ -59,5 +71,11 @@ public class ExecuteJobsRunnable implements Runnable
         finally {
           Context.removeJobExecutorContext();
         }
+        
+        if (jobExecutorContext.isExclusiveJobExecuted()) {
+          // exclusive jobs of the same process instance are not acquired while this one was locked,
+          // let the acquisition pick them up right away instead of after the next wait period
+          jobExecutor.jobWasAdded();
+        }
     }
 }
@@ -0,0 +1,79 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.jobexecutor;
+
+import java.util.Date;
+
+import org.activiti.engine.impl.HistoricProcessInstancePurgeImpl;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.util.json.JSONObject;
+
+/**
+ * Executes a scheduled {@link HistoricProcessInstancePurgeImpl}. The chunks are purged
+ * in their own transactions, independent of the transaction of the job.
+ */
+public class HistoricProcessInstancePurgeJobHandler implements JobHandler {
+
+  public static final String TYPE = "purge-historic-process-instances";
+
+  private static final String JOB_HANDLER_CFG_FINISHED_BEFORE = "finishedBefore";
+  private static final String JOB_HANDLER_CFG_FINISHED_DAYS_AGO = "finishedDaysAgo";
+  private static final String JOB_HANDLER_CFG_PROCESS_DEFINITION_KEY = "processDefinitionKey";
+  private static final String JOB_HANDLER_CFG_TENANT_ID = "tenantId";
+  private static final String JOB_HANDLER_CFG_BATCH_SIZE = "batchSize";
+
+  public static String createJobHandlerConfiguration(HistoricProcessInstancePurgeImpl purge) {
+    JSONObject json = new JSONObject();
+    if (purge.getFinishedBefore() != null) {
+      json.put(JOB_HANDLER_CFG_FINISHED_BEFORE, purge.getFinishedBefore().getTime());
+    }
+    if (purge.getFinishedDaysAgo() != null) {
+      json.put(JOB_HANDLER_CFG_FINISHED_DAYS_AGO, purge.getFinishedDaysAgo().intValue());
+    }
+    if (purge.getProcessDefinitionKey() != null) {
+      json.put(JOB_HANDLER_CFG_PROCESS_DEFINITION_KEY, purge.getProcessDefinitionKey());
+    }
+    if (purge.getTenantId() != null) {
+      json.put(JOB_HANDLER_CFG_TENANT_ID, purge.getTenantId());
+    }
+    json.put(JOB_HANDLER_CFG_BATCH_SIZE, purge.getBatchSize());
+    return json.toString();
+  }
+
+  public String getType() {
+    return TYPE;
+  }
+
+  public void execute(JobEntity job, String configuration, ExecutionEntity execution, CommandContext commandContext) {
+    JSONObject cfgJson = new JSONObject(configuration);
+    HistoricProcessInstancePurgeImpl purge = new HistoricProcessInstancePurgeImpl(
+            commandContext.getProcessEngineConfiguration().getCommandExecutor());
+    if (cfgJson.has(JOB_HANDLER_CFG_FINISHED_BEFORE)) {
+      purge.finishedBefore(new Date(cfgJson.getLong(JOB_HANDLER_CFG_FINISHED_BEFORE)));
+    }
+    if (cfgJson.has(JOB_HANDLER_CFG_FINISHED_DAYS_AGO)) {
+      purge.finishedDaysAgo(cfgJson.getInt(JOB_HANDLER_CFG_FINISHED_DAYS_AGO));
+    }
+    if (cfgJson.has(JOB_HANDLER_CFG_PROCESS_DEFINITION_KEY)) {
+      purge.processDefinitionKey(cfgJson.getString(JOB_HANDLER_CFG_PROCESS_DEFINITION_KEY));
+    }
+    if (cfgJson.has(JOB_HANDLER_CFG_TENANT_ID)) {
+      purge.tenantId(cfgJson.getString(JOB_HANDLER_CFG_TENANT_ID));
+    }
+    purge.batchSize(cfgJson.getInt(JOB_HANDLER_CFG_BATCH_SIZE));
+    purge.execute();
+  }
+
+}
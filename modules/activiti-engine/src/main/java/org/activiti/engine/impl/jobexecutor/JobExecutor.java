@@ -50,7 +50,7 @@ public abstract class JobExecutor {
   protected Thread jobAcquisitionThread;
   
   protected boolean isAutoActivate = false;
-  protected boolean isActive = false;
+  protected volatile boolean isActive = false;
 
   /**
    * To avoid deadlocks, the default for this is one.
@@ -64,6 +64,21 @@ public abstract class JobExecutor {
    * See http://jira.codehaus.org/browse/ACT-1879 for more information.
    */
   protected int maxJobsPerAcquisition = 1;
+  
+  /**
+   * When enabled, all jobs acquired in one acquisition are locked with a single 
+   * update statement instead of one optimistic update per job.
+   * Useful in combination with a large maxJobsPerAcquisition.
+   */
+  protected boolean bulkLockEnabled = false;
+  
+  /**
+   * When enabled, messages (eg. async continuations) created on this node while the job executor 
+   * is running are locked when they are created, and handed directly to the executing threads 
+   * once their transaction is committed. The job acquisition remains as fallback for jobs 
+   * that couldn't be queued, timers and jobs of other nodes. 
+   */
+  protected boolean localJobQueueEnabled = false;
   protected int waitTimeInMillis = 5 * 1000;
   protected String lockOwner = UUID.randomUUID().toString();
   protected int lockTimeInMillis = 5 * 60 * 1000;
@@ -106,10 +121,49 @@ public abstract class JobExecutor {
     }
   }
   
+  /**
+   * Called when a thread executing jobs became available again. 
+   * Wakes up the acquisition if it was waiting for free capacity. 
+   */
+  public void capacityAvailable() {
+    AcquireJobsRunnable acquireJobsRunnable = this.acquireJobsRunnable;
+    if(isActive && acquireJobsRunnable != null) {
+      acquireJobsRunnable.capacityAvailable();
+    }
+  }
+  
+  /**
+   * Returns the number of job batches that can currently be accepted for execution 
+   * without being rejected. Job executors without such a limit return {@link Integer#MAX_VALUE}. 
+   */
+  public int getAvailableCapacity() {
+    return Integer.MAX_VALUE;
+  }
+  
+  /**
+   * Returns the number of jobs the next acquisition should fetch: the 
+   * maxJobsPerAcquisition, limited to the currently available capacity.
+   */
+  public int getJobsToAcquire() {
+    return Math.max(1, Math.min(maxJobsPerAcquisition, getAvailableCapacity()));
+  }
+  
   protected abstract void startExecutingJobs();
   protected abstract void stopExecutingJobs(); 
   protected abstract void executeJobs(List<String> jobIds);
   
+  /**
+   * Tries to execute the given jobs, which are already locked by this job executor.
+   * In contrast to {@link #executeJobs(List)}, the caller is not the acquisition thread, 
+   * so the jobs must not be executed in the calling thread.  
+   * 
+   * @return false when the jobs weren't accepted, eg. because the job executor 
+   * isn't running or all its threads are busy. 
+   */
+  public boolean executeLockedJobs(List<String> jobIds) {
+    return false;
+  }
+  
   // getters and setters //////////////////////////////////////////////////////
 
   public CommandExecutor getCommandExecutor() {
@@ -160,6 +214,22 @@ public abstract class JobExecutor {
     this.maxJobsPerAcquisition = maxJobsPerAcquisition;
   }
 
+  public boolean isBulkLockEnabled() {
+    return bulkLockEnabled;
+  }
+  
+  public void setBulkLockEnabled(boolean bulkLockEnabled) {
+    this.bulkLockEnabled = bulkLockEnabled;
+  }
+
+  public boolean isLocalJobQueueEnabled() {
+    return localJobQueueEnabled;
+  }
+  
+  public void setLocalJobQueueEnabled(boolean localJobQueueEnabled) {
+    this.localJobQueueEnabled = localJobQueueEnabled;
+  }
+
   public String getName() {
     return name;
   }
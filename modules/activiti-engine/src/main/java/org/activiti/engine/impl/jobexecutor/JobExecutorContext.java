@@ -24,6 +24,7 @@ public class JobExecutorContext {
 
   protected List<String> currentProcessorJobQueue = new LinkedList<String>();
   protected JobEntity currentJob;
+  protected boolean exclusiveJobExecuted;
         
   public List<String> getCurrentProcessorJobQueue() {
     return currentProcessorJobQueue;
@@ -35,6 +36,16 @@ public class JobExecutorContext {
      
   public void setCurrentJob(JobEntity currentJob) {
     this.currentJob = currentJob;
+    if (currentJob != null && currentJob.isExclusive()) {
+      exclusiveJobExecuted = true;
+    }
+  }
+  
+  /**
+   * Returns true if at least one exclusive job was executed using this context.  
+   */
+  public boolean isExclusiveJobExecuted() {
+    return exclusiveJobExecuted;
   }
     
   public JobEntity getCurrentJob() {
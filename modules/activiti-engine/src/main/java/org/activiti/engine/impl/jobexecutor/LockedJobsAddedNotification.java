@@ -0,0 +1,92 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.jobexecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.impl.cfg.TransactionListener;
+import org.activiti.engine.impl.cmd.UnlockJobsCmd;
+import org.activiti.engine.impl.interceptor.CommandConfig;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Hands the jobs that were created and locked in the committed transaction directly 
+ * to the {@link JobExecutor} of this node, without them being acquired first.
+ * 
+ * Exclusive jobs of the same process instance are handed over as one batch.
+ * Jobs the job executor doesn't accept (eg. because its queue is full) are unlocked again
+ * and left to the regular job acquisition.
+ */
+public class LockedJobsAddedNotification implements TransactionListener {
+  
+  private static Logger log = LoggerFactory.getLogger(LockedJobsAddedNotification.class);
+  
+  protected JobExecutor jobExecutor;
+  protected List<List<String>> jobIdBatches = new ArrayList<List<String>>();
+  protected Map<String, List<String>> exclusiveJobIdBatches = new HashMap<String, List<String>>();
+  
+  public LockedJobsAddedNotification(JobExecutor jobExecutor) {
+    this.jobExecutor = jobExecutor;
+  }
+  
+  public void addJob(JobEntity job) {
+    if (job.isExclusive() && job.getProcessInstanceId() != null) {
+      List<String> jobIds = exclusiveJobIdBatches.get(job.getProcessInstanceId());
+      if (jobIds == null) {
+        jobIds = new ArrayList<String>();
+        exclusiveJobIdBatches.put(job.getProcessInstanceId(), jobIds);
+        jobIdBatches.add(jobIds);
+      }
+      jobIds.add(job.getId());
+    } else {
+      List<String> jobIds = new ArrayList<String>();
+      jobIds.add(job.getId());
+      jobIdBatches.add(jobIds);
+    }
+  }
+
+  public void execute(CommandContext commandContext) {
+    List<String> rejectedJobIds = new ArrayList<String>();
+    for (List<String> jobIds : jobIdBatches) {
+      if (!jobExecutor.executeLockedJobs(jobIds)) {
+        rejectedJobIds.addAll(jobIds);
+      }
+    }
+    
+    if (!rejectedJobIds.isEmpty()) {
+      log.debug("job executor didn't accept jobs {}, unlocking them", rejectedJobIds);
+      try {
+        CommandExecutor commandExecutor = jobExecutor.getCommandExecutor();
+        CommandConfig commandConfig = commandExecutor.getDefaultConfig().transactionRequiresNew();
+        commandExecutor.execute(commandConfig, new UnlockJobsCmd(rejectedJobIds, jobExecutor.getLockOwner()));
+      } catch (Throwable t) {
+        // the jobs will be acquired again when their lock expires
+        log.warn("Could not unlock jobs " + rejectedJobIds + ", they will be acquired when their lock expires", t);
+      }
+      jobExecutor.jobWasAdded();
+    }
+  }
+  
+  public List<List<String>> getJobIdBatches() {
+    return jobIdBatches;
+  }
+
+}
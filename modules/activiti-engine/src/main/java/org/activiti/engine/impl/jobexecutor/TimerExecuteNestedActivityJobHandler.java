@@ -15,6 +15,7 @@ package org.activiti.engine.impl.jobexecutor;
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
 import org.activiti.engine.impl.persistence.entity.JobEntity;
@@ -50,7 +51,7 @@ public class TimerExecuteNestedActivityJobHandler implements JobHandler {
         .getActivityBehavior()
         .execute(execution);
       
-      if(commandContext.getEventDispatcher().isEnabled()) {
+      if(Context.isEventDispatcherEnabled(ActivitiEventType.TIMER_FIRED)) {
       	commandContext.getEventDispatcher().dispatchEvent(
       			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.TIMER_FIRED, job));
       }
@@ -0,0 +1,41 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.jobexecutor;
+
+import java.util.List;
+
+import org.activiti.engine.impl.cmd.UnlockJobsCmd;
+import org.activiti.engine.impl.interceptor.CommandConfig;
+import org.activiti.engine.impl.interceptor.CommandExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Releases the locks of rejected jobs right away, so they can be acquired again 
+ * as soon as the job executor has free capacity, instead of only after their lock expired.
+ */
+public class UnlockRejectedJobsHandler implements RejectedJobsHandler {
+  
+  private static Logger log = LoggerFactory.getLogger(UnlockRejectedJobsHandler.class);
+
+  public void jobsRejected(JobExecutor jobExecutor, List<String> jobIds) {
+    try {
+      CommandExecutor commandExecutor = jobExecutor.getCommandExecutor();
+      CommandConfig commandConfig = commandExecutor.getDefaultConfig().transactionRequiresNew();
+      commandExecutor.execute(commandConfig, new UnlockJobsCmd(jobIds, jobExecutor.getLockOwner()));
+    } catch (Exception e) {
+      log.error("Failed to unlock rejected jobs " + jobIds, e);
+    }
+  }
+
+}
@@ -16,23 +16,26 @@
 package org.activiti.engine.impl.juel;
 
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.WeakHashMap;
-import java.util.Map.Entry;
+
+import org.activiti.engine.impl.persistence.deploy.DefaultDeploymentCache;
 
 
 
 /**
  * Simple (thread-safe) LRU cache.
- * After the cache size reached a certain limit, the least recently used entry is removed,
+ * After the cache size reached a certain limit, the least recently used entries are removed,
  * when adding a new entry.
+ * 
+ * The primary cache is a {@link DefaultDeploymentCache}: lookups don't take any lock, and a 
+ * tenth of the entries is evicted at once when the limit is exceeded.
  *
  * @author Christoph Beck
  */
 public final class Cache implements TreeCache {
-  private final Map<String,Tree> primary;
-  private final Map<String,Tree> secondary;
+	private final DefaultDeploymentCache<Tree> primary;
+	private final Map<String,Tree> secondary;
 
   /**
    * Constructor.
@@ -50,36 +53,27 @@ public final class Cache implements TreeCache {
    * @param size maximum primary cache size
 	 * @param secondary the secondary map (may be <code>null</code>)
 	 */
-	@SuppressWarnings("serial")
-	public Cache(final int size, Map<String,Tree> secondary) {
-		this.primary = Collections.synchronizedMap(new LinkedHashMap<String,Tree>(16, 0.75f, true) {
+	public Cache(int size, Map<String,Tree> secondary) {
+		this.secondary = secondary == null ? null : Collections.synchronizedMap(secondary);
+		this.primary = new DefaultDeploymentCache<Tree>(size, false) {
 			@Override
-			protected boolean removeEldestEntry(Entry<String,Tree> eldest) {
-				if (size() > size) {
-					if (Cache.this.secondary != null) { // move to secondary cache
-						Cache.this.secondary.put(eldest.getKey(), eldest.getValue());
-					}
-					return true;
+			protected void evicted(String expression, Tree tree) {
+				if (Cache.this.secondary != null) { // move to secondary cache
+					Cache.this.secondary.put(expression, tree);
 				}
-				return false;
 			}
-		});
-		this.secondary = secondary == null ? null : Collections.synchronizedMap(secondary);
+		};
 	}
 
 	public Tree get(String expression) {
-		if (secondary == null) {
-			return primary.get(expression);
-		} else {
-			Tree tree = primary.get(expression);
-			if (tree == null) {
-				tree = secondary.get(expression);
-			}
-			return tree;
+		Tree tree = primary.get(expression);
+		if (tree == null && secondary != null) {
+			tree = secondary.get(expression);
 		}
+		return tree;
 	}
 
 	public void put(String expression, Tree tree) {
-		primary.put(expression, tree);
+		primary.add(expression, tree);
 	}
 }
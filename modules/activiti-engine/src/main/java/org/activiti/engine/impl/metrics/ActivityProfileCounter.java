@@ -0,0 +1,73 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.activiti.engine.management.ActivityProfile;
+
+/**
+ * Counts the atomic operations performed on one activity of a process definition. Thread safe without locking.
+ */
+public class ActivityProfileCounter {
+
+  protected static final long NANOS_PER_MILLI = 1000000L;
+
+  protected final String processDefinitionId;
+  protected final String activityId;
+  protected final String activityType;
+  protected final AtomicLong executionCount = new AtomicLong();
+  protected final AtomicLong executionTimeInNanos = new AtomicLong();
+  protected final AtomicLong maxExecutionTimeInNanos = new AtomicLong();
+  protected final AtomicLong operationCount = new AtomicLong();
+  protected final AtomicLong totalTimeInNanos = new AtomicLong();
+
+  public ActivityProfileCounter(String processDefinitionId, String activityId, String activityType) {
+    this.processDefinitionId = processDefinitionId;
+    this.activityId = activityId;
+    this.activityType = activityType;
+  }
+
+  public void recordOperation(long timeInNanos) {
+    operationCount.incrementAndGet();
+    totalTimeInNanos.addAndGet(timeInNanos);
+  }
+
+  public void recordExecution(long timeInNanos) {
+    recordOperation(timeInNanos);
+    executionCount.incrementAndGet();
+    executionTimeInNanos.addAndGet(timeInNanos);
+    long max = maxExecutionTimeInNanos.get();
+    while (timeInNanos > max && !maxExecutionTimeInNanos.compareAndSet(max, timeInNanos)) {
+      max = maxExecutionTimeInNanos.get();
+    }
+  }
+
+  public ActivityProfile getActivityProfile() {
+    ActivityProfile profile = new ActivityProfile();
+    profile.setProcessDefinitionId(processDefinitionId);
+    profile.setActivityId(activityId);
+    profile.setActivityType(activityType);
+    profile.setExecutionCount(executionCount.get());
+    profile.setExecutionTimeInMillis(toMillis(executionTimeInNanos.get()));
+    profile.setMaxExecutionTimeInMillis(toMillis(maxExecutionTimeInNanos.get()));
+    profile.setOperationCount(operationCount.get());
+    profile.setTotalTimeInMillis(toMillis(totalTimeInNanos.get()));
+    return profile;
+  }
+
+  protected double toMillis(long nanos) {
+    return (double) nanos / NANOS_PER_MILLI;
+  }
+
+}
@@ -0,0 +1,137 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.activiti.engine.impl.pvm.process.ActivityImpl;
+import org.activiti.engine.impl.pvm.runtime.AtomicOperation;
+import org.activiti.engine.impl.pvm.runtime.InterpretableExecution;
+import org.activiti.engine.management.ActivityProfile;
+
+/**
+ * Measures the time of the atomic operations performed by the command context, and adds it up
+ * per process definition and activity, in memory only.
+ *
+ * An operation that continues the process performs the next operation before it returns, so operations
+ * nest. The time spent in nested operations is subtracted, which leaves the time spent on the activity
+ * itself, including its behaviour, listeners, delegates and expressions.
+ * Operations of an execution that isn't positioned on an activity aren't measured separately.
+ */
+public class ActivityProfiler {
+
+  protected ConcurrentMap<String, ConcurrentMap<String, ActivityProfileCounter>> counters =
+          new ConcurrentHashMap<String, ConcurrentMap<String, ActivityProfileCounter>>();
+
+  /** time spent in the operations nested in the operation currently measured on this thread */
+  protected ThreadLocal<long[]> nestedTimeInNanos = new ThreadLocal<long[]>();
+
+  public void performOperation(AtomicOperation operation, InterpretableExecution execution) {
+    ActivityImpl activity = (ActivityImpl) execution.getActivity();
+    if (activity == null) {
+      operation.execute(execution);
+      return;
+    }
+
+    long[] parentNestedTime = nestedTimeInNanos.get();
+    long[] nestedTime = new long[1];
+    nestedTimeInNanos.set(nestedTime);
+    long start = System.nanoTime();
+    try {
+      operation.execute(execution);
+    } finally {
+      long time = System.nanoTime() - start;
+      if (parentNestedTime != null) {
+        parentNestedTime[0] += time;
+        nestedTimeInNanos.set(parentNestedTime);
+      } else {
+        nestedTimeInNanos.remove();
+      }
+
+      long selfTime = time - nestedTime[0];
+      ActivityProfileCounter counter = getCounter(activity);
+      if (operation == AtomicOperation.ACTIVITY_EXECUTE) {
+        counter.recordExecution(selfTime);
+      } else {
+        counter.recordOperation(selfTime);
+      }
+    }
+  }
+
+  protected ActivityProfileCounter getCounter(ActivityImpl activity) {
+    String processDefinitionId = activity.getProcessDefinition().getId();
+    ConcurrentMap<String, ActivityProfileCounter> activityCounters = counters.get(processDefinitionId);
+    if (activityCounters == null) {
+      ConcurrentMap<String, ActivityProfileCounter> newActivityCounters = new ConcurrentHashMap<String, ActivityProfileCounter>();
+      activityCounters = counters.putIfAbsent(processDefinitionId, newActivityCounters);
+      if (activityCounters == null) {
+        activityCounters = newActivityCounters;
+      }
+    }
+
+    ActivityProfileCounter counter = activityCounters.get(activity.getId());
+    if (counter == null) {
+      ActivityProfileCounter newCounter = new ActivityProfileCounter(processDefinitionId, activity.getId(), (String) activity.getProperty("type"));
+      counter = activityCounters.putIfAbsent(activity.getId(), newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+    return counter;
+  }
+
+  /**
+   * Returns the profiles of all activities of the given process definition, or of all process
+   * definitions when null is passed, the activities taking the most time in total first.
+   */
+  public List<ActivityProfile> getActivityProfiles(String processDefinitionId) {
+    Collection<ConcurrentMap<String, ActivityProfileCounter>> selectedCounters = counters.values();
+    if (processDefinitionId != null) {
+      ConcurrentMap<String, ActivityProfileCounter> activityCounters = counters.get(processDefinitionId);
+      selectedCounters = activityCounters != null 
+              ? Collections.singletonList(activityCounters) 
+              : Collections.<ConcurrentMap<String, ActivityProfileCounter>>emptyList();
+    }
+
+    List<ActivityProfile> activityProfiles = new ArrayList<ActivityProfile>();
+    for (ConcurrentMap<String, ActivityProfileCounter> activityCounters : selectedCounters) {
+      for (ActivityProfileCounter counter : activityCounters.values()) {
+        activityProfiles.add(counter.getActivityProfile());
+      }
+    }
+    Collections.sort(activityProfiles, new Comparator<ActivityProfile>() {
+      public int compare(ActivityProfile profile1, ActivityProfile profile2) {
+        return Double.compare(profile2.getTotalTimeInMillis(), profile1.getTotalTimeInMillis());
+      }
+    });
+    return activityProfiles;
+  }
+
+  public void reset() {
+    counters.clear();
+  }
+
+  /**
+   * Removes the profiles of a process definition, e.g. when its deployment is deleted.
+   */
+  public void remove(String processDefinitionId) {
+    counters.remove(processDefinitionId);
+  }
+
+}
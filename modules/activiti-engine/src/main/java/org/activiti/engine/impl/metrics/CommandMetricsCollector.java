@@ -0,0 +1,126 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.ProcessEngines;
+import org.activiti.engine.management.CommandMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the metrics of the commands executed by a process engine, per command class.
+ * Filled by the {@link org.activiti.engine.impl.interceptor.CommandMetricsInterceptor}
+ * and by the flush of the {@link org.activiti.engine.impl.db.DbSqlSession}.
+ */
+public class CommandMetricsCollector implements CommandMetricsMXBean {
+
+  private static final Logger log = LoggerFactory.getLogger(CommandMetricsCollector.class);
+
+  protected ConcurrentMap<String, CommandMetricsCounter> counters = new ConcurrentHashMap<String, CommandMetricsCounter>();
+  protected ObjectName objectName;
+
+  public CommandMetricsCounter getCounter(String commandName) {
+    CommandMetricsCounter counter = counters.get(commandName);
+    if (counter == null) {
+      CommandMetricsCounter newCounter = new CommandMetricsCounter(commandName);
+      counter = counters.putIfAbsent(commandName, newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+    return counter;
+  }
+
+  public List<CommandMetrics> getCommandMetrics() {
+    List<CommandMetrics> commandMetrics = new ArrayList<CommandMetrics>();
+    for (CommandMetricsCounter counter : counters.values()) {
+      commandMetrics.add(counter.getCommandMetrics());
+    }
+    Collections.sort(commandMetrics, new Comparator<CommandMetrics>() {
+      public int compare(CommandMetrics metrics1, CommandMetrics metrics2) {
+        return Double.compare(metrics2.getTotalTimeInMillis(), metrics1.getTotalTimeInMillis());
+      }
+    });
+    return commandMetrics;
+  }
+
+  public long getCommandCount() {
+    long count = 0;
+    for (CommandMetricsCounter counter : counters.values()) {
+      count += counter.count.get();
+    }
+    return count;
+  }
+
+  public long getOptimisticLockingFailureCount() {
+    long count = 0;
+    for (CommandMetricsCounter counter : counters.values()) {
+      count += counter.optimisticLockingFailureCount.get();
+    }
+    return count;
+  }
+
+  public void reset() {
+    counters.clear();
+  }
+
+  // jmx //////////////////////////////////////////////////////////////////////
+
+  public synchronized void registerMBean(String processEngineName) {
+    if (objectName != null) {
+      return;
+    }
+    String engineName = processEngineName != null ? processEngineName : ProcessEngines.NAME_DEFAULT;
+    try {
+      ObjectName name = new ObjectName("org.activiti:type=CommandMetrics,engine=" + ObjectName.quote(engineName));
+      MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+      if (mBeanServer.isRegistered(name)) {
+        // left behind by an engine with the same name that wasn't closed
+        mBeanServer.unregisterMBean(name);
+      }
+      mBeanServer.registerMBean(this, name);
+      objectName = name;
+    } catch (Exception e) {
+      throw new ActivitiException("Could not register the command metrics of process engine " + engineName + " in JMX", e);
+    }
+  }
+
+  public synchronized void unregisterMBean() {
+    if (objectName == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    } catch (Exception e) {
+      log.warn("Could not unregister the command metrics MBean {}: {}", objectName, e.getMessage());
+    }
+    objectName = null;
+  }
+
+  public ObjectName getObjectName() {
+    return objectName;
+  }
+
+}
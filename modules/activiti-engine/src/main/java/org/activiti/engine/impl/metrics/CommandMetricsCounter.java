@@ -0,0 +1,113 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.activiti.engine.management.CommandMetrics;
+
+/**
+ * Counts the executions and flushes of one type of command. Thread safe without locking,
+ * so a snapshot taken while commands are running may mix the counts of slightly different moments.
+ */
+public class CommandMetricsCounter {
+
+  protected static final long NANOS_PER_MILLI = 1000000L;
+
+  protected final String commandName;
+  protected final AtomicLong count = new AtomicLong();
+  protected final AtomicLong failureCount = new AtomicLong();
+  protected final AtomicLong optimisticLockingFailureCount = new AtomicLong();
+  protected final AtomicLong retryCount = new AtomicLong();
+  protected final AtomicLong totalTimeInNanos = new AtomicLong();
+  protected final AtomicLong maxTimeInNanos = new AtomicLong();
+  protected final AtomicLongArray latencyHistogram = new AtomicLongArray(CommandMetrics.LATENCY_BUCKET_BOUNDS_IN_MILLIS.length + 1);
+  protected final AtomicLong flushCount = new AtomicLong();
+  protected final AtomicLong insertCount = new AtomicLong();
+  protected final AtomicLong updateCount = new AtomicLong();
+  protected final AtomicLong deleteCount = new AtomicLong();
+  protected final AtomicLong flushTimeInNanos = new AtomicLong();
+
+  public CommandMetricsCounter(String commandName) {
+    this.commandName = commandName;
+  }
+
+  public void recordExecution(long timeInNanos, boolean failed, boolean optimisticLockingFailed, boolean retry) {
+    count.incrementAndGet();
+    if (failed) {
+      failureCount.incrementAndGet();
+    }
+    if (optimisticLockingFailed) {
+      optimisticLockingFailureCount.incrementAndGet();
+    }
+    if (retry) {
+      retryCount.incrementAndGet();
+    }
+    totalTimeInNanos.addAndGet(timeInNanos);
+    long max = maxTimeInNanos.get();
+    while (timeInNanos > max && !maxTimeInNanos.compareAndSet(max, timeInNanos)) {
+      max = maxTimeInNanos.get();
+    }
+    latencyHistogram.incrementAndGet(getLatencyBucket(timeInNanos));
+  }
+
+  public void recordFlush(int inserts, int updates, int deletes, long timeInNanos) {
+    flushCount.incrementAndGet();
+    insertCount.addAndGet(inserts);
+    updateCount.addAndGet(updates);
+    deleteCount.addAndGet(deletes);
+    flushTimeInNanos.addAndGet(timeInNanos);
+  }
+
+  protected int getLatencyBucket(long timeInNanos) {
+    long[] bounds = CommandMetrics.LATENCY_BUCKET_BOUNDS_IN_MILLIS;
+    for (int i = 0; i < bounds.length; i++) {
+      if (timeInNanos <= bounds[i] * NANOS_PER_MILLI) {
+        return i;
+      }
+    }
+    return bounds.length;
+  }
+
+  public CommandMetrics getCommandMetrics() {
+    CommandMetrics metrics = new CommandMetrics();
+    metrics.setCommandName(commandName);
+    metrics.setCount(count.get());
+    metrics.setFailureCount(failureCount.get());
+    metrics.setOptimisticLockingFailureCount(optimisticLockingFailureCount.get());
+    metrics.setRetryCount(retryCount.get());
+    metrics.setTotalTimeInMillis(toMillis(totalTimeInNanos.get()));
+    metrics.setMaxTimeInMillis(toMillis(maxTimeInNanos.get()));
+    long[] histogram = new long[latencyHistogram.length()];
+    for (int i = 0; i < histogram.length; i++) {
+      histogram[i] = latencyHistogram.get(i);
+    }
+    metrics.setLatencyHistogram(histogram);
+    metrics.setFlushCount(flushCount.get());
+    metrics.setInsertCount(insertCount.get());
+    metrics.setUpdateCount(updateCount.get());
+    metrics.setDeleteCount(deleteCount.get());
+    metrics.setFlushTimeInMillis(toMillis(flushTimeInNanos.get()));
+    return metrics;
+  }
+
+  protected double toMillis(long nanos) {
+    return (double) nanos / NANOS_PER_MILLI;
+  }
+
+  public String getCommandName() {
+    return commandName;
+  }
+
+}
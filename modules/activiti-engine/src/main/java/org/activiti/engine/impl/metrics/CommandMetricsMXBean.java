@@ -0,0 +1,37 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.metrics;
+
+import java.util.List;
+
+import org.activiti.engine.management.CommandMetrics;
+
+/**
+ * JMX view on the command metrics of a process engine, registered as
+ * <code>org.activiti:type=CommandMetrics,engine=&lt;process engine name&gt;</code>.
+ */
+public interface CommandMetricsMXBean {
+
+  /** the metrics of all executed commands, the commands taking the most time in total first */
+  List<CommandMetrics> getCommandMetrics();
+
+  /** the total number of executed commands */
+  long getCommandCount();
+
+  /** the total number of commands that failed because of a concurrent update */
+  long getOptimisticLockingFailureCount();
+
+  /** clears all metrics */
+  void reset();
+
+}
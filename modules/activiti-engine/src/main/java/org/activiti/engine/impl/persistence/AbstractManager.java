@@ -13,10 +13,15 @@
 
 package org.activiti.engine.impl.persistence;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.db.DbSqlSession;
 import org.activiti.engine.impl.db.PersistentObject;
+import org.activiti.engine.impl.history.AsyncHistoryWriter;
 import org.activiti.engine.impl.history.HistoryManager;
 import org.activiti.engine.impl.interceptor.Session;
 import org.activiti.engine.impl.persistence.entity.AttachmentEntityManager;
@@ -48,6 +53,9 @@ import org.activiti.engine.impl.persistence.entity.VariableInstanceEntityManager
  */
 public abstract class AbstractManager implements Session {
   
+  /** Oracle doesn't allow more than 1000 expressions in an IN clause */
+  public static final int MAX_IDS_PER_QUERY = 1000;
+  
   public void insert(PersistentObject persistentObject) {
     getDbSqlSession().insert(persistentObject);
   }
@@ -56,6 +64,18 @@ public abstract class AbstractManager implements Session {
     getDbSqlSession().delete(persistentObject);
   }
 
+  /**
+   * Splits the ids in chunks that are small enough to be used in the IN clause of one query.
+   */
+  protected List<List<String>> chunkIds(Collection<String> ids) {
+    List<String> idList = new ArrayList<String>(ids);
+    List<List<String>> chunks = new ArrayList<List<String>>();
+    for (int i = 0; i < idList.size(); i += MAX_IDS_PER_QUERY) {
+      chunks.add(idList.subList(i, Math.min(idList.size(), i + MAX_IDS_PER_QUERY)));
+    }
+    return chunks;
+  }
+
   protected DbSqlSession getDbSqlSession() {
     return getSession(DbSqlSession.class);
   }
@@ -156,6 +176,26 @@ public abstract class AbstractManager implements Session {
   	return Context.getProcessEngineConfiguration();
   }
   
+  /**
+   * When history of the given scope is queued by the {@link AsyncHistoryWriter}, 
+   * queues the delete of all its history behind it instead of executing it now.
+   * @return whether the delete was queued.
+   */
+  protected boolean deleteBehindQueuedHistory(String scope, String id) {
+    AsyncHistoryWriter asyncHistoryWriter = getProcessEngineConfiguration().getAsyncHistoryWriter();
+    return asyncHistoryWriter != null && asyncHistoryWriter.deleteBehindQueuedHistory(getDbSqlSession(), scope, id);
+  }
+  
+  /**
+   * Puts the history of the given class and process instance that is queued by the {@link AsyncHistoryWriter} in the cache.
+   */
+  protected void cacheQueuedHistoryOfProcessInstance(Class<? extends PersistentObject> persistentObjectClass, String processInstanceId) {
+    AsyncHistoryWriter asyncHistoryWriter = getProcessEngineConfiguration().getAsyncHistoryWriter();
+    if (asyncHistoryWriter != null) {
+      asyncHistoryWriter.cacheQueuedHistoryOfProcessInstance(getDbSqlSession(), persistentObjectClass, processInstanceId);
+    }
+  }
+  
   public void close() {
   }
 
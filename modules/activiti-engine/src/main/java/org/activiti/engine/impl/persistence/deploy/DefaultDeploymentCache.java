@@ -12,61 +12,185 @@
  */
 package org.activiti.engine.impl.persistence.deploy;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.activiti.engine.management.CacheStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Default cache: keep everything in memory, unless a limit is set.
  * 
+ * The cache is thread safe: lookups don't take any lock, 
+ * only adding and removing elements is synchronized.
+ * 
+ * The cache can be bounded by the number of elements and/or by the total weight 
+ * of the elements, as calculated by a {@link DeploymentCacheWeigher}. 
+ * When a bound is exceeded, the least recently used elements are evicted. 
+ * To keep that rare, a tenth of the bound is freed at once.
+ * 
+ * Recency is tracked with a clock that only advances when an element is added, 
+ * so a lookup doesn't update any shared counter: it stamps the element with the 
+ * current clock value, and only if the element doesn't carry it yet. Elements used 
+ * between the same two additions are equally recent.
+ * 
  * @author Joram Barrez
  */
-public class DefaultDeploymentCache<T> implements DeploymentCache<T> {
+public class DefaultDeploymentCache<T> implements ObservableDeploymentCache<T> {
   
   private static final Logger logger = LoggerFactory.getLogger(DefaultDeploymentCache.class);
   
-  protected Map<String, T> cache;
+  protected ConcurrentMap<String, CacheEntry<T>> cache = new ConcurrentHashMap<String, CacheEntry<T>>();
+  
+  protected int limit = -1;
+  protected long weightLimit = -1;
+  protected DeploymentCacheWeigher<T> weigher;
+  
+  protected volatile long clock;
+  protected long totalWeight;
+  
+  protected boolean recordStatistics = true;
+  protected AtomicLong hitCount = new AtomicLong();
+  protected AtomicLong missCount = new AtomicLong();
+  protected AtomicLong evictionCount = new AtomicLong();
+  protected AtomicLong loadCount = new AtomicLong();
+  protected AtomicLong totalLoadTime = new AtomicLong();
   
   /** Cache with no limit */
   public DefaultDeploymentCache() {
-    this.cache = new HashMap<String, T>();
   }
   
   /** Cache which has a hard limit: no more elements will be cached than the limit. */
-  public DefaultDeploymentCache(final int limit) {
-    this.cache = new LinkedHashMap<String, T>(limit + 1, 0.75f, true) { // +1 is needed, because the entry is inserted first, before it is removed
-                                                                       // 0.75 is the default (see javadocs)
-                                                                       // true will keep the 'access-order', which is needed to have a real LRU cache
-      private static final long serialVersionUID = 1L;
-
-      protected boolean removeEldestEntry(java.util.Map.Entry<String, T> eldest) {
-        boolean removeEldest = size() > limit;
-        if (removeEldest) {
-          logger.trace("Cache limit is reached, {} will be evicted",  eldest.getKey());
-        }
-        return removeEldest;
-      }
-      
-    };
+  public DefaultDeploymentCache(int limit) {
+    this.limit = limit;
+  }
+  
+  /** 
+   * Cache which has a hard limit, not counting hits and misses when recordStatistics is false.
+   * Used for caches that are hit for about everything that is executed, like the parsed expressions.
+   */
+  public DefaultDeploymentCache(int limit, boolean recordStatistics) {
+    this.limit = limit;
+    this.recordStatistics = recordStatistics;
+  }
+  
+  /** 
+   * Cache which has a hard limit on the number of elements (ignored when <= 0) 
+   * and on the total weight of the elements (ignored when <= 0).
+   */
+  public DefaultDeploymentCache(int limit, long weightLimit, DeploymentCacheWeigher<T> weigher) {
+    this.limit = limit;
+    this.weightLimit = weightLimit;
+    this.weigher = weigher;
   }
   
   public T get(String id) {
-    return cache.get(id);
+    CacheEntry<T> cacheEntry = cache.get(id);
+    if (cacheEntry == null) {
+      if (recordStatistics) {
+        missCount.incrementAndGet();
+      }
+      return null;
+    }
+    if (recordStatistics) {
+      hitCount.incrementAndGet();
+    }
+    long now = clock;
+    if (cacheEntry.lastAccess != now) {
+      cacheEntry.lastAccess = now;
+    }
+    return cacheEntry.value;
   }
   
-  public void add(String id, T obj) {
-    cache.put(id, obj);
+  public synchronized void add(String id, T obj) {
+    long weight = (weigher != null ? weigher.weigh(obj) : 0L);
+    // elements used after this one was added are more recent
+    CacheEntry<T> previous = cache.put(id, new CacheEntry<T>(obj, weight, clock++));
+    totalWeight += weight;
+    if (previous != null) {
+      totalWeight -= previous.weight;
+    }
+    evict(id);
   }
   
-  public void remove(String id) {
-    cache.remove(id);
+  public synchronized void remove(String id) {
+    CacheEntry<T> removed = cache.remove(id);
+    if (removed != null) {
+      totalWeight -= removed.weight;
+    }
   }
   
-  public void clear() {
+  public synchronized void clear() {
     cache.clear();
+    totalWeight = 0;
+  }
+  
+  /**
+   * Evicts the least recently used elements until the cache is a tenth below its bounds.
+   * The element that was just added is never evicted.
+   */
+  protected void evict(String addedId) {
+    if (!isLimitExceeded() || cache.size() <= 1) {
+      return;
+    }
+    
+    // the access times are copied, so concurrent lookups can't change the order while sorting
+    List<EvictionCandidate> candidates = new ArrayList<EvictionCandidate>(cache.size());
+    for (Map.Entry<String, CacheEntry<T>> entry : cache.entrySet()) {
+      if (!entry.getKey().equals(addedId)) {
+        candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue().lastAccess));
+      }
+    }
+    Collections.sort(candidates);
+    
+    int sizeTarget = limit - limit / 10;
+    long weightTarget = weightLimit - weightLimit / 10;
+    for (EvictionCandidate candidate : candidates) {
+      boolean aboveTarget = (limit > 0 && cache.size() > sizeTarget) 
+          || (weightLimit > 0 && totalWeight > weightTarget);
+      if (!aboveTarget) {
+        break;
+      }
+      logger.trace("Cache limit is reached, {} will be evicted", candidate.id);
+      CacheEntry<T> evicted = cache.remove(candidate.id);
+      totalWeight -= evicted.weight;
+      evictionCount.incrementAndGet();
+      evicted(candidate.id, evicted.value);
+    }
+  }
+  
+  /**
+   * Called for every element that is evicted, while holding the lock of the cache. Does nothing by default.
+   */
+  protected void evicted(String id, T value) {
+  }
+  
+  protected boolean isLimitExceeded() {
+    return (limit > 0 && cache.size() > limit)
+        || (weightLimit > 0 && totalWeight > weightLimit);
+  }
+  
+  public void recordLoad(long loadTimeInMillis) {
+    loadCount.incrementAndGet();
+    totalLoadTime.addAndGet(loadTimeInMillis);
+  }
+  
+  public synchronized CacheStatistics getStatistics() {
+    CacheStatistics statistics = new CacheStatistics();
+    statistics.setSize(cache.size());
+    statistics.setWeight(totalWeight);
+    statistics.setHitCount(hitCount.get());
+    statistics.setMissCount(missCount.get());
+    statistics.setEvictionCount(evictionCount.get());
+    statistics.setLoadCount(loadCount.get());
+    statistics.setTotalLoadTimeInMillis(totalLoadTime.get());
+    return statistics;
   }
   
   // For testing purposes only
@@ -74,4 +198,32 @@ public class DefaultDeploymentCache<T> implements DeploymentCache<T> {
     return cache.size();
   }
   
+  protected static class CacheEntry<T> {
+    
+    protected final T value;
+    protected final long weight;
+    protected volatile long lastAccess;
+    
+    public CacheEntry(T value, long weight, long lastAccess) {
+      this.value = value;
+      this.weight = weight;
+      this.lastAccess = lastAccess;
+    }
+  }
+  
+  protected static class EvictionCandidate implements Comparable<EvictionCandidate> {
+    
+    protected final String id;
+    protected final long lastAccess;
+    
+    public EvictionCandidate(String id, long lastAccess) {
+      this.id = id;
+      this.lastAccess = lastAccess;
+    }
+    
+    public int compareTo(EvictionCandidate other) {
+      return lastAccess < other.lastAccess ? -1 : (lastAccess == other.lastAccess ? 0 : 1);
+    }
+  }
+  
 }
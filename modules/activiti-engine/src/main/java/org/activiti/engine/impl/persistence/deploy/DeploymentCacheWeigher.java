@@ -0,0 +1,26 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.impl.persistence.deploy;
+
+/**
+ * Estimates how much memory an element of a {@link DefaultDeploymentCache} takes, 
+ * so the cache can be bounded on the total weight of its elements.
+ * 
+ * The unit of the weight is up to the implementation, 
+ * as long as the configured weight limit uses the same unit.
+ */
+public interface DeploymentCacheWeigher<T> {
+  
+  long weigh(T object);
+
+}
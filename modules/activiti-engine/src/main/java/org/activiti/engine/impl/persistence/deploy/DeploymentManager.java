@@ -22,8 +22,11 @@ import org.activiti.engine.ActivitiObjectNotFoundException;
 import org.activiti.engine.delegate.event.ActivitiEventDispatcher;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.delegate.event.impl.ActivitiEventDispatcherImpl;
 import org.activiti.engine.impl.ProcessDefinitionQueryImpl;
+import org.activiti.engine.impl.bpmn.diagram.ProcessDiagramCache;
 import org.activiti.engine.impl.context.Context;
+import org.activiti.engine.impl.metrics.ActivityProfiler;
 import org.activiti.engine.impl.persistence.entity.DeploymentEntity;
 import org.activiti.engine.impl.persistence.entity.DeploymentEntityManager;
 import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntity;
@@ -107,13 +110,18 @@ public class DeploymentManager {
     String deploymentId = processDefinition.getDeploymentId();
     processDefinition = processDefinitionCache.get(processDefinitionId);
     if (processDefinition==null) {
+      long loadStartTime = System.currentTimeMillis();
       DeploymentEntity deployment = Context
         .getCommandContext()
         .getDeploymentEntityManager()
         .findDeploymentById(deploymentId);
       deployment.setNew(false);
       deploy(deployment, null);
-      processDefinition = processDefinitionCache.get(processDefinitionId);
+      processDefinition = findDeployedProcessDefinition(deployment, processDefinitionId);
+      
+      if (processDefinitionCache instanceof ObservableDeploymentCache) {
+        ((ObservableDeploymentCache<ProcessDefinitionEntity>) processDefinitionCache).recordLoad(System.currentTimeMillis() - loadStartTime);
+      }
       
       if (processDefinition==null) {
         throw new ActivitiException("deployment '"+deploymentId+"' didn't put process definition '"+processDefinitionId+"' in the cache");
@@ -122,6 +130,23 @@ public class DeploymentManager {
     return processDefinition;
   }
   
+  /**
+   * Takes the process definition from the artifacts of the deployment instead of looking it up in 
+   * the cache again, as that lookup would be counted as a hit.
+   */
+  protected ProcessDefinitionEntity findDeployedProcessDefinition(DeploymentEntity deployment, String processDefinitionId) {
+    List<ProcessDefinitionEntity> deployedProcessDefinitions = deployment.getDeployedArtifacts(ProcessDefinitionEntity.class);
+    if (deployedProcessDefinitions != null) {
+      for (ProcessDefinitionEntity deployedProcessDefinition : deployedProcessDefinitions) {
+        if (processDefinitionId.equals(deployedProcessDefinition.getId())) {
+          return deployedProcessDefinition;
+        }
+      }
+    }
+    // deployed by a custom deployer
+    return processDefinitionCache.get(processDefinitionId);
+  }
+  
   public void removeDeployment(String deploymentId, boolean cascade) {
 	  DeploymentEntityManager deploymentEntityManager = Context
 			  .getCommandContext()
@@ -156,8 +181,19 @@ public class DeploymentManager {
     			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_DELETED, deployment));
     }
     
+    ProcessDiagramCache processDiagramCache = Context.getProcessEngineConfiguration().getProcessDiagramCache();
+    ActivityProfiler activityProfiler = Context.getProcessEngineConfiguration().getActivityProfiler();
     for (ProcessDefinition processDefinition : processDefinitions) {
       processDefinitionCache.remove(processDefinition.getId());
+      if (eventDispatcher instanceof ActivitiEventDispatcherImpl) {
+        ((ActivitiEventDispatcherImpl) eventDispatcher).removeProcessDefinitionListenerTypes(processDefinition.getId());
+      }
+      if (processDiagramCache != null) {
+        processDiagramCache.remove(processDefinition.getId());
+      }
+      if (activityProfiler != null) {
+        activityProfiler.remove(processDefinition.getId());
+      }
     }
   }
   
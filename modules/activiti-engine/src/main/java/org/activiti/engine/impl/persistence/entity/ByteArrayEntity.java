@@ -16,6 +16,7 @@ import java.io.Serializable;
 import java.util.Arrays;
 
 import org.activiti.engine.impl.context.Context;
+import org.activiti.engine.impl.db.HasDirtyFlag;
 import org.activiti.engine.impl.db.HasRevision;
 import org.activiti.engine.impl.db.PersistentObject;
 import org.apache.commons.lang3.ObjectUtils;
@@ -24,7 +25,7 @@ import org.apache.commons.lang3.ObjectUtils;
  * @author Tom Baeyens
  * @author Marcus Klimstra (CGI)
  */
-public class ByteArrayEntity implements Serializable, PersistentObject, HasRevision {
+public class ByteArrayEntity implements Serializable, PersistentObject, HasRevision, HasDirtyFlag {
 
   private static final long serialVersionUID = 1L;
 
@@ -33,6 +34,9 @@ public class ByteArrayEntity implements Serializable, PersistentObject, HasRevis
   protected String name;
   protected byte[] bytes;
   protected String deploymentId;
+  
+  // Byte arrays can be large: comparing them at flush time is avoided by tracking modifications
+  protected transient boolean dirty;
 
   // Default constructor for SQL mapping
   protected ByteArrayEntity() {
@@ -86,6 +90,9 @@ public class ByteArrayEntity implements Serializable, PersistentObject, HasRevis
     return name;
   }
   public void setName(String name) {
+    if (!ObjectUtils.equals(this.name, name)) {
+      dirty = true;
+    }
     this.name = name;
   }
   public String getDeploymentId() {
@@ -95,6 +102,9 @@ public class ByteArrayEntity implements Serializable, PersistentObject, HasRevis
     this.deploymentId = deploymentId;
   }
   public void setBytes(byte[] bytes) {
+    if (!Arrays.equals(this.bytes, bytes)) {
+      dirty = true;
+    }
     this.bytes = bytes;
   }
   public int getRevision() {
@@ -103,6 +113,12 @@ public class ByteArrayEntity implements Serializable, PersistentObject, HasRevis
   public void setRevision(int revision) {
     this.revision = revision;
   }
+  public boolean isDirty() {
+    return dirty;
+  }
+  public void setDirty(boolean dirty) {
+    this.dirty = dirty;
+  }
   
   @Override
   public String toString() {
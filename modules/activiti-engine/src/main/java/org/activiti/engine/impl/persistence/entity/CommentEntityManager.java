@@ -20,6 +20,7 @@ import java.util.Map;
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.db.PersistentObject;
 import org.activiti.engine.impl.persistence.AbstractManager;
 import org.activiti.engine.task.Comment;
@@ -36,7 +37,7 @@ public class CommentEntityManager extends AbstractManager {
     super.delete(persistentObject);
     
     Comment comment = (Comment) persistentObject;
-    if(getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_DELETED)) {
     	// Forced to fetch the process-instance to associate the right process definition
     	String processDefinitionId = null;
     	String processInstanceId = comment.getProcessInstanceId();
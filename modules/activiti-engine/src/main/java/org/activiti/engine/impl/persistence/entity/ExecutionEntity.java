@@ -250,7 +250,7 @@ public class ExecutionEntity extends VariableScopeImpl implements ActivityExecut
       log.debug("Child execution {} created with parent ", createdExecution, this);
     }
 
-    if (Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if (Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_CREATED)) {
       Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
         ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_CREATED, createdExecution));
     }
@@ -378,8 +378,7 @@ public class ExecutionEntity extends VariableScopeImpl implements ActivityExecut
       		|| ((activityBehavior instanceof MultiInstanceActivityBehavior) 
       				&& ((MultiInstanceActivityBehavior) activityBehavior).getInnerActivityBehavior() instanceof UserTaskActivityBehavior);
       
-      if(!isUserTask && Context.getProcessEngineConfiguration() != null 
-      		&& Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+      if(!isUserTask && Context.isEventDispatcherEnabled(ActivitiEventType.ACTIVITY_SIGNALED)) {
       	Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(ActivitiEventBuilder.createSignalEvent(
       		ActivitiEventType.ACTIVITY_SIGNALED, signalledActivityId, signalName, signalData, this.id, this.processInstanceId, this.processDefinitionId));
       }
@@ -1037,6 +1036,11 @@ public class ExecutionEntity extends VariableScopeImpl implements ActivityExecut
 
   // variables ////////////////////////////////////////////////////////////////
 
+  @Override
+  protected boolean isScopeOf(VariableInstanceEntity variableInstance) {
+    return id.equals(variableInstance.getExecutionId()) && variableInstance.getTaskId()==null;
+  }
+
   @Override
   protected void initializeVariableInstanceBackPointer(VariableInstanceEntity variableInstance) {
     variableInstance.setProcessInstanceId(processInstanceId);
@@ -1072,7 +1076,7 @@ public class ExecutionEntity extends VariableScopeImpl implements ActivityExecut
     VariableInstanceEntity result = super.createVariableInstance(variableName, value, sourceActivityExecution);
     
     // Dispatch event, if needed
-    if(Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.VARIABLE_CREATED)) {
   		Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
   				ActivitiEventBuilder.createVariableEvent(ActivitiEventType.VARIABLE_CREATED, variableName, value, result.getTaskId(), 
   						result.getExecutionId(), getProcessInstanceId(), getProcessDefinitionId()));
@@ -1086,7 +1090,7 @@ public class ExecutionEntity extends VariableScopeImpl implements ActivityExecut
     super.updateVariableInstance(variableInstance, value, sourceActivityExecution);
     
     // Dispatch event, if needed
-    if(Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.VARIABLE_UPDATED)) {
     	Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createVariableEvent(ActivitiEventType.VARIABLE_UPDATED, variableInstance.getName(), value, variableInstance.getTaskId(), 
     					variableInstance.getExecutionId(), getProcessInstanceId(), getProcessDefinitionId()));
@@ -1507,7 +1511,7 @@ public class ExecutionEntity extends VariableScopeImpl implements ActivityExecut
       setBusinessKey(bzKey);
       Context.getCommandContext().getHistoryManager().updateProcessBusinessKeyInHistory(this);
       
-      if (Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+      if (Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
       	Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
       			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, this));
       }
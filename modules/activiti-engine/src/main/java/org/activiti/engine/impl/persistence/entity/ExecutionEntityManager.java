@@ -13,8 +13,11 @@
 
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -94,6 +97,29 @@ public class ExecutionEntityManager extends AbstractManager {
   public ExecutionEntity findExecutionById(String executionId) {
     return (ExecutionEntity) getDbSqlSession().selectById(ExecutionEntity.class, executionId);
   }
+
+  /**
+   * Returns the executions with the given ids. Executions that are already
+   * known in the current session are taken from the cache, all others
+   * are fetched with a single query per 1000 ids. Unknown ids are ignored.
+   */
+  @SuppressWarnings("unchecked")
+  public List<ExecutionEntity> findExecutionsByIds(Collection<String> executionIds) {
+    List<ExecutionEntity> executions = new ArrayList<ExecutionEntity>();
+    List<String> idsToFetch = new ArrayList<String>();
+    for (String executionId : new LinkedHashSet<String>(executionIds)) {
+      ExecutionEntity execution = getDbSqlSession().findInCache(ExecutionEntity.class, executionId);
+      if (execution != null) {
+        executions.add(execution);
+      } else {
+        idsToFetch.add(executionId);
+      }
+    }
+    for (List<String> idChunk : chunkIds(idsToFetch)) {
+      executions.addAll(getDbSqlSession().selectList("selectExecutionsByIds", idChunk));
+    }
+    return executions;
+  }
   
   public long findExecutionCountByQueryCriteria(ExecutionQueryImpl executionQuery) {
     return (Long) getDbSqlSession().selectOne("selectExecutionCountByQueryCriteria", executionQuery);
@@ -113,6 +139,11 @@ public class ExecutionEntityManager extends AbstractManager {
     return getDbSqlSession().selectList("selectProcessInstanceByQueryCriteria", executionQuery);
   }
   
+  @SuppressWarnings("unchecked")
+  public List<String> findProcessInstanceIdsByQueryCriteria(ProcessInstanceQueryImpl executionQuery) {
+    return getDbSqlSession().selectListWithRawParameterWithoutFilter("selectProcessInstanceIdsByQueryCriteria", executionQuery, 0, Integer.MAX_VALUE);
+  }
+  
   @SuppressWarnings("unchecked")
   public List<ProcessInstance> findProcessInstanceAndVariablesByQueryCriteria(ProcessInstanceQueryImpl executionQuery) {
     // paging doesn't work for combining process instances and variables due to an outer join, so doing it in-memory
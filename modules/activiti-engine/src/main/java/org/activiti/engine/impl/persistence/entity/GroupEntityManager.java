@@ -56,7 +56,7 @@ public class GroupEntityManager extends AbstractManager implements GroupIdentity
     DbSqlSession dbSqlSession = commandContext.getDbSqlSession();
     dbSqlSession.update((GroupEntity) updatedGroup);
     
-    if(getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
     	getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, updatedGroup));
     }
@@ -66,7 +66,7 @@ public class GroupEntityManager extends AbstractManager implements GroupIdentity
     GroupEntity group = getDbSqlSession().selectById(GroupEntity.class, groupId);
     
     if(group != null) {
-    	if(getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    	if(Context.isEventDispatcherEnabled(ActivitiEventType.MEMBERSHIPS_DELETED)) {
       	getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
       			ActivitiEventBuilder.createMembershipEvent(ActivitiEventType.MEMBERSHIPS_DELETED, groupId, null));
       }
@@ -74,7 +74,7 @@ public class GroupEntityManager extends AbstractManager implements GroupIdentity
     	getDbSqlSession().delete("deleteMembershipsByGroupId", groupId);
     	getDbSqlSession().delete(group);
     	
-    	if(getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    	if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_DELETED)) {
     		getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     				ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_DELETED, group));
     	}
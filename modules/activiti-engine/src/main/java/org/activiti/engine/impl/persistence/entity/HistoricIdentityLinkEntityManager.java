@@ -31,7 +31,7 @@ public class HistoricIdentityLinkEntityManager extends AbstractManager {
   }
   
   public void deleteHistoricIdentityLink(String id) {
-    getDbSqlSession().delete("deleteHistoricIdentityLink", id);
+    getDbSqlSession().delete("deleteHistoricIdentityLink", id, HistoricIdentityLinkEntity.class);
   }
   
   @SuppressWarnings("unchecked")
@@ -99,6 +99,6 @@ public class HistoricIdentityLinkEntityManager extends AbstractManager {
   }
   
   public void deleteHistoricIdentityLinksByProcDef(String processDefId) {
-    getDbSqlSession().delete("deleteHistoricIdentityLinkByProcDef", processDefId);
+    getDbSqlSession().delete("deleteHistoricIdentityLinkByProcDef", processDefId, HistoricIdentityLinkEntity.class);
   }
 }
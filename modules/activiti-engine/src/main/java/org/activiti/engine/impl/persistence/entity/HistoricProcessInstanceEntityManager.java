@@ -13,13 +13,20 @@
 
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.activiti.engine.history.HistoricProcessInstance;
+import org.activiti.engine.impl.HistoricProcessInstancePurgeImpl;
 import org.activiti.engine.impl.HistoricProcessInstanceQueryImpl;
 import org.activiti.engine.impl.context.Context;
+import org.activiti.engine.impl.history.AsyncHistoryRecord;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.AbstractManager;
 
@@ -29,6 +36,20 @@ import org.activiti.engine.impl.persistence.AbstractManager;
  */
 public class HistoricProcessInstanceEntityManager extends AbstractManager {
 
+  protected static final String[] PURGE_STATEMENTS = {
+    "purgeHistoricDetailByteArraysByProcessInstanceIds",
+    "purgeHistoricVariableByteArraysByProcessInstanceIds",
+    "purgeHistoricAttachmentContentByProcessInstanceIds",
+    "purgeHistoricDetailsByProcessInstanceIds",
+    "purgeHistoricVariableInstancesByProcessInstanceIds",
+    "purgeHistoricAttachmentsByProcessInstanceIds",
+    "purgeHistoricCommentsByProcessInstanceIds",
+    "purgeHistoricIdentityLinksByProcessInstanceIds",
+    "purgeHistoricTaskInstancesByProcessInstanceIds",
+    "purgeHistoricActivityInstancesByProcessInstanceIds",
+    "purgeHistoricProcessInstancesByIds"
+  };
+
   public HistoricProcessInstanceEntity findHistoricProcessInstance(String processInstanceId) {
     if (getHistoryManager().isHistoryEnabled()) {
       return (HistoricProcessInstanceEntity) getDbSqlSession().selectById(HistoricProcessInstanceEntity.class, processInstanceId);
@@ -40,6 +61,10 @@ public class HistoricProcessInstanceEntityManager extends AbstractManager {
   @SuppressWarnings("unchecked")
   public void deleteHistoricProcessInstanceByProcessDefinitionId(String processDefinitionId) {
     if (getHistoryManager().isHistoryEnabled()) {
+      // history that is still queued would be missed by the queries below, so delete it once it is written
+      if (deleteBehindQueuedHistory(AsyncHistoryRecord.SCOPE_PROCESS_DEFINITION, processDefinitionId)) {
+        return;
+      }
       List<String> historicProcessInstanceIds = getDbSqlSession()
         .selectList("selectHistoricProcessInstanceIdsByProcessDefinitionId", processDefinitionId);
     
@@ -52,6 +77,9 @@ public class HistoricProcessInstanceEntityManager extends AbstractManager {
   @SuppressWarnings("unchecked")
   public void deleteHistoricProcessInstanceById(String historicProcessInstanceId) {
     if (getHistoryManager().isHistoryEnabled()) {
+      if (deleteBehindQueuedHistory(AsyncHistoryRecord.SCOPE_PROCESS_INSTANCE, historicProcessInstanceId)) {
+        return;
+      }
       CommandContext commandContext = Context.getCommandContext();
       HistoricProcessInstanceEntity historicProcessInstance = findHistoricProcessInstance(historicProcessInstanceId);
       
@@ -92,6 +120,93 @@ public class HistoricProcessInstanceEntityManager extends AbstractManager {
     }
   }
   
+  /**
+   * Purges the history of the next chunk of finished process instances matching the given purge,
+   * together with the history of their finished sub process instances, using set based deletes.
+   * A chunk never holds more process instances than the batch size: when the sub process instances
+   * don't fit, the deepest ones are purged first and their super process instances in a later chunk.
+   * @return the number of purged historic process instances.
+   */
+  @SuppressWarnings("unchecked")
+  public int purgeHistoricProcessInstances(HistoricProcessInstancePurgeImpl purge) {
+    if (!getHistoryManager().isHistoryEnabled()) {
+      return 0;
+    }
+    // batches are written in the order they are committed, so the history of a process instance
+    // that is finished in the database is complete and nothing of it is still queued
+    
+    int batchSize = purge.getBatchSize();
+    List<String> rootProcessInstanceIds = getDbSqlSession().selectList("selectHistoricProcessInstanceIdsToPurge", purge);
+    
+    // finished sub process instances by super process instance, and the process instances
+    // of which not all sub process instances were loaded
+    Map<String, List<String>> subProcessInstanceIds = new HashMap<String, List<String>>();
+    Set<String> incompleteProcessInstanceIds = new HashSet<String>();
+    List<String> processInstanceIds = new ArrayList<String>(rootProcessInstanceIds);
+    Set<String> loadedProcessInstanceIds = new HashSet<String>(rootProcessInstanceIds);
+    
+    List<String> superProcessInstanceIds = rootProcessInstanceIds;
+    while (!superProcessInstanceIds.isEmpty()) {
+      List<String> nextSuperProcessInstanceIds = new ArrayList<String>();
+      for (List<String> superProcessInstanceIdChunk : chunk(superProcessInstanceIds)) {
+        for (Map<String, String> subProcessInstance : (List<Map<String, String>>) getDbSqlSession().selectList("selectFinishedHistoricSubProcessInstanceIdsBySuperProcessInstanceIds", superProcessInstanceIdChunk)) {
+          String subProcessInstanceId = subProcessInstance.get("id");
+          String superProcessInstanceId = subProcessInstance.get("superProcessInstanceId");
+          if (!loadedProcessInstanceIds.contains(subProcessInstanceId)) {
+            // only one level of at most batch size process instances is loaded at a time
+            if (nextSuperProcessInstanceIds.size() >= batchSize) {
+              incompleteProcessInstanceIds.add(superProcessInstanceId);
+              continue;
+            }
+            loadedProcessInstanceIds.add(subProcessInstanceId);
+            processInstanceIds.add(subProcessInstanceId);
+            nextSuperProcessInstanceIds.add(subProcessInstanceId);
+          }
+          List<String> subProcessInstanceIdsOfSuper = subProcessInstanceIds.get(superProcessInstanceId);
+          if (subProcessInstanceIdsOfSuper == null) {
+            subProcessInstanceIdsOfSuper = new ArrayList<String>();
+            subProcessInstanceIds.put(superProcessInstanceId, subProcessInstanceIdsOfSuper);
+          }
+          subProcessInstanceIdsOfSuper.add(subProcessInstanceId);
+        }
+      }
+      superProcessInstanceIds = nextSuperProcessInstanceIds;
+    }
+    
+    // a process instance is purged once all of its sub process instances are, deepest first
+    Set<String> purgedProcessInstanceIds = new LinkedHashSet<String>();
+    boolean purgedMore = true;
+    while (purgedMore && purgedProcessInstanceIds.size() < batchSize) {
+      purgedMore = false;
+      for (int i = processInstanceIds.size() - 1; i >= 0 && purgedProcessInstanceIds.size() < batchSize; i--) {
+        String processInstanceId = processInstanceIds.get(i);
+        if (!purgedProcessInstanceIds.contains(processInstanceId)
+                && !incompleteProcessInstanceIds.contains(processInstanceId)
+                && (!subProcessInstanceIds.containsKey(processInstanceId)
+                    || purgedProcessInstanceIds.containsAll(subProcessInstanceIds.get(processInstanceId)))) {
+          purgedProcessInstanceIds.add(processInstanceId);
+          purgedMore = true;
+        }
+      }
+    }
+    
+    for (List<String> processInstanceIdChunk : chunk(new ArrayList<String>(purgedProcessInstanceIds))) {
+      // byte arrays and the rows referring to the historic tasks go first
+      for (String statement : PURGE_STATEMENTS) {
+        getDbSqlSession().delete(statement, processInstanceIdChunk);
+      }
+    }
+    return purgedProcessInstanceIds.size();
+  }
+  
+  protected List<List<String>> chunk(List<String> ids) {
+    List<List<String>> chunks = new ArrayList<List<String>>();
+    for (int i = 0; i < ids.size(); i += HistoricProcessInstancePurgeImpl.MAX_BATCH_SIZE) {
+      chunks.add(ids.subList(i, Math.min(ids.size(), i + HistoricProcessInstancePurgeImpl.MAX_BATCH_SIZE)));
+    }
+    return chunks;
+  }
+  
   public long findHistoricProcessInstanceCountByQueryCriteria(HistoricProcessInstanceQueryImpl historicProcessInstanceQuery) {
     if (getHistoryManager().isHistoryEnabled()) {
       return (Long) getDbSqlSession().selectOne("selectHistoricProcessInstanceCountByQueryCriteria", historicProcessInstanceQuery);
@@ -21,6 +21,7 @@ import org.activiti.engine.ActivitiIllegalArgumentException;
 import org.activiti.engine.history.HistoricTaskInstance;
 import org.activiti.engine.impl.HistoricTaskInstanceQueryImpl;
 import org.activiti.engine.impl.context.Context;
+import org.activiti.engine.impl.history.AsyncHistoryRecord;
 import org.activiti.engine.impl.history.HistoryLevel;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.persistence.AbstractManager;
@@ -103,6 +104,10 @@ public class HistoricTaskInstanceEntityManager extends AbstractManager {
   
   public void deleteHistoricTaskInstanceById(String taskId) {
     if (getHistoryManager().isHistoryEnabled()) {
+      // history that is still queued would be missed by the queries below, so delete it once it is written
+      if (deleteBehindQueuedHistory(AsyncHistoryRecord.SCOPE_TASK, taskId)) {
+        return;
+      }
       HistoricTaskInstanceEntity historicTaskInstance = findHistoricTaskInstanceById(taskId);
       if(historicTaskInstance!=null) {
         CommandContext commandContext = Context.getCommandContext();
@@ -63,6 +63,10 @@ public class HistoricVariableInstanceEntityManager extends AbstractManager {
   }
 
   public HistoricVariableInstanceEntity findHistoricVariableInstanceByVariableInstanceId(String variableInstanceId) {
+    HistoricVariableInstanceEntity historicVariableInstance = getDbSqlSession().selectDeferredById(HistoricVariableInstanceEntity.class, variableInstanceId);
+    if (historicVariableInstance != null) {
+      return historicVariableInstance;
+    }
     return (HistoricVariableInstanceEntity) getDbSqlSession().selectOne("selectHistoricVariableInstanceByVariableInstanceId", variableInstanceId);
   }
 
@@ -35,7 +35,7 @@ public class IdentityLinkEntityManager extends AbstractManager {
       getHistoryManager().deleteHistoricIdentityLink(identityLink.getId());
     }
     
-    if(Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_DELETED)) {
     	Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_DELETED, identityLink));
     }
@@ -13,6 +13,8 @@
 
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -24,9 +26,11 @@ import org.activiti.engine.impl.Page;
 import org.activiti.engine.impl.cfg.TransactionListener;
 import org.activiti.engine.impl.cfg.TransactionState;
 import org.activiti.engine.impl.context.Context;
+import org.activiti.engine.impl.db.DbSqlSession;
 import org.activiti.engine.impl.jobexecutor.ExclusiveJobAddedNotification;
 import org.activiti.engine.impl.jobexecutor.JobExecutor;
 import org.activiti.engine.impl.jobexecutor.JobExecutorContext;
+import org.activiti.engine.impl.jobexecutor.LockedJobsAddedNotification;
 import org.activiti.engine.impl.jobexecutor.MessageAddedNotification;
 import org.activiti.engine.impl.persistence.AbstractManager;
 import org.activiti.engine.runtime.Job;
@@ -37,6 +41,8 @@ import org.activiti.engine.runtime.Job;
  * @author Daniel Meyer
  */
 public class JobEntityManager extends AbstractManager {
+  
+  protected LockedJobsAddedNotification lockedJobsAddedNotification;
 
   public void send(MessageEntity message) {
     message.insert();
@@ -70,10 +76,19 @@ public class JobEntityManager extends AbstractManager {
             && jobExecutorContext != null 
             && jobExecutorContext.isExecutingExclusiveJob()) {
       // lock job & add to the queue of the current processor
-      Date currentTime = Context.getProcessEngineConfiguration().getClock().getCurrentTime();
-      job.setLockExpirationTime(new Date(currentTime.getTime() + jobExecutor.getLockTimeInMillis()));
-      job.setLockOwner(jobExecutor.getLockOwner());
+      lockJob(job, jobExecutor);
       transactionListener = new ExclusiveJobAddedNotification(job.getId());      
+    } else if (isLocalJobQueueApplicable(job, jobExecutor)) {
+      // lock job & hand it to the job executor threads of this node when committed,
+      // all jobs of this transaction are handed over together by one listener
+      lockJob(job, jobExecutor);
+      if (lockedJobsAddedNotification != null) {
+        lockedJobsAddedNotification.addJob(job);
+        return;
+      }
+      lockedJobsAddedNotification = new LockedJobsAddedNotification(jobExecutor);
+      lockedJobsAddedNotification.addJob(job);
+      transactionListener = lockedJobsAddedNotification;
     } else {
       // notify job executor:      
       transactionListener = new MessageAddedNotification(jobExecutor);
@@ -83,6 +98,27 @@ public class JobEntityManager extends AbstractManager {
     .addTransactionListener(TransactionState.COMMITTED, transactionListener);
   }
  
+  protected boolean isLocalJobQueueApplicable(JobEntity job, JobExecutor jobExecutor) {
+    if (!(job instanceof MessageEntity) || !jobExecutor.isLocalJobQueueEnabled() || !jobExecutor.isActive()) {
+      return false;
+    }
+    
+    // another exclusive job of the same process instance could be executed right now, unless the process 
+    // instance was started by this transaction: its exclusive jobs are all handed over as one batch
+    if (job.isExclusive() && job.getProcessInstanceId() != null) {
+      DbSqlSession dbSqlSession = getDbSqlSession();
+      ExecutionEntity processInstance = dbSqlSession.findInCache(ExecutionEntity.class, job.getProcessInstanceId());
+      return processInstance != null && dbSqlSession.isInserted(processInstance);
+    }
+    return true;
+  }
+  
+  protected void lockJob(JobEntity job, JobExecutor jobExecutor) {
+    Date currentTime = Context.getProcessEngineConfiguration().getClock().getCurrentTime();
+    job.setLockExpirationTime(new Date(currentTime.getTime() + jobExecutor.getLockTimeInMillis()));
+    job.setLockOwner(jobExecutor.getLockOwner());
+  }
+ 
   public void cancelTimers(ExecutionEntity execution) {
     List<TimerEntity> timers = Context
       .getCommandContext()
@@ -100,8 +136,10 @@ public class JobEntityManager extends AbstractManager {
   
   @SuppressWarnings("unchecked")
   public List<JobEntity> findNextJobsToExecute(Page page) {
-    Date now = Context.getProcessEngineConfiguration().getClock().getCurrentTime();
-    return getDbSqlSession().selectList("selectNextJobsToExecute", now, page);
+    Map<String,Object> params = new HashMap<String, Object>();
+    params.put("now", Context.getProcessEngineConfiguration().getClock().getCurrentTime());
+    params.put("exclusive", Boolean.TRUE);
+    return getDbSqlSession().selectList("selectNextJobsToExecute", params, page);
   }
   
   @SuppressWarnings("unchecked")
@@ -116,6 +154,45 @@ public class JobEntityManager extends AbstractManager {
     params.put("now", Context.getProcessEngineConfiguration().getClock().getCurrentTime());
     return getDbSqlSession().selectList("selectExclusiveJobsToExecute", params);
   }
+  
+  /**
+   * Fetches the exclusive jobs that are ready to be executed for all given process instances with a single query. 
+   */
+  @SuppressWarnings("unchecked")
+  public List<JobEntity> findExclusiveJobsToExecute(Collection<String> processInstanceIds) {
+    if (processInstanceIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    Map<String,Object> params = new HashMap<String, Object>();
+    params.put("pids", processInstanceIds);
+    params.put("now", Context.getProcessEngineConfiguration().getClock().getCurrentTime());
+    return getDbSqlSession().selectList("selectExclusiveJobsToExecuteForProcessInstances", params);
+  }
+  
+  /**
+   * Locks all jobs with the given ids using a single update statement.
+   * Jobs that are locked by another (non-expired) owner are left untouched. 
+   * 
+   * @return the number of jobs that were locked, or -1 when the database didn't report it.
+   */
+  public int bulkLockJobs(Collection<String> jobIds, String lockOwner, Date lockExpirationTime) {
+    if (jobIds.isEmpty()) {
+      return 0;
+    }
+    Map<String,Object> params = new HashMap<String, Object>();
+    params.put("jobIds", jobIds);
+    params.put("lockOwner", lockOwner);
+    params.put("lockExpirationTime", lockExpirationTime);
+    params.put("now", Context.getProcessEngineConfiguration().getClock().getCurrentTime());
+    return getDbSqlSession().executeUpdate("bulkLockJobs", params);
+  }
+  
+  public long findJobCountByIdsAndLockOwner(Collection<String> jobIds, String lockOwner) {
+    Map<String,Object> params = new HashMap<String, Object>();
+    params.put("jobIds", jobIds);
+    params.put("lockOwner", lockOwner);
+    return (Long) getDbSqlSession().selectOne("selectJobCountByIdsAndLockOwner", params);
+  }
 
 
   @SuppressWarnings("unchecked")
@@ -18,6 +18,7 @@ import java.util.Map;
 
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
+import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.persistence.AbstractManager;
 
 
@@ -32,7 +33,7 @@ public class MembershipEntityManager extends AbstractManager implements Membersh
     membershipEntity.setGroupId(groupId);
     getDbSqlSession().insert(membershipEntity);
     
-    if(getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.MEMBERSHIP_CREATED)) {
     	getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createMembershipEvent(ActivitiEventType.MEMBERSHIP_CREATED, groupId, userId));
     }
@@ -44,7 +45,7 @@ public class MembershipEntityManager extends AbstractManager implements Membersh
     parameters.put("groupId", groupId);
     getDbSqlSession().delete("deleteMembership", parameters);
     
-    if(getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.MEMBERSHIP_DELETED)) {
     	getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createMembershipEvent(ActivitiEventType.MEMBERSHIP_DELETED, groupId, userId));
     }
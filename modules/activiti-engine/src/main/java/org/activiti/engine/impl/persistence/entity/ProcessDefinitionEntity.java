@@ -22,6 +22,7 @@ import java.util.Set;
 import org.activiti.engine.ProcessEngineConfiguration;
 import org.activiti.engine.delegate.Expression;
 import org.activiti.engine.delegate.event.impl.ActivitiEventSupport;
+import org.activiti.engine.delegate.event.impl.ProcessDefinitionEventSupport;
 import org.activiti.engine.impl.bpmn.parser.BpmnParse;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.db.HasRevision;
@@ -68,7 +69,7 @@ public class ProcessDefinitionEntity extends ProcessDefinitionImpl implements Pr
   
   public ProcessDefinitionEntity() {
     super(null);
-    eventSupport = new ActivitiEventSupport();
+    eventSupport = new ProcessDefinitionEventSupport();
   }
   
   public ExecutionEntity createProcessInstance(String businessKey, ActivityImpl initial) {
@@ -28,6 +28,7 @@ import org.activiti.engine.ProcessEngineConfiguration;
 import org.activiti.engine.delegate.DelegateExecution;
 import org.activiti.engine.delegate.DelegateTask;
 import org.activiti.engine.delegate.TaskListener;
+import org.activiti.engine.delegate.event.ActivitiEventDispatcher;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.impl.ActivitiEventBuilder;
 import org.activiti.engine.impl.context.Context;
@@ -130,11 +131,12 @@ public class TaskEntity extends VariableScopeImpl implements Task, DelegateTask,
     
     commandContext.getHistoryManager().recordTaskCreated(this, execution);
     
-    if(commandContext.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
-    	commandContext.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
-    			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_CREATED, this));
-    	commandContext.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
-    			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_INITIALIZED, this));
+    ActivitiEventDispatcher eventDispatcher = commandContext.getProcessEngineConfiguration().getEventDispatcher();
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_CREATED)) {
+    	eventDispatcher.dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_CREATED, this));
+    }
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_INITIALIZED)) {
+    	eventDispatcher.dispatchEvent(ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_INITIALIZED, this));
     }
   }
   
@@ -155,7 +157,7 @@ public class TaskEntity extends VariableScopeImpl implements Task, DelegateTask,
     DbSqlSession dbSqlSession = commandContext.getDbSqlSession();
     dbSqlSession.update(this);
     
-    if(commandContext.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
     	commandContext.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, this));
     }
@@ -182,7 +184,7 @@ public class TaskEntity extends VariableScopeImpl implements Task, DelegateTask,
       getProcessInstance().involveUser(Authentication.getAuthenticatedUserId(), IdentityLinkType.PARTICIPANT);
     }
     
-    if(Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.TASK_COMPLETED)) {
     	Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     	ActivitiEventBuilder.createEntityEvent(ActivitiEventType.TASK_COMPLETED, this));
     }
@@ -267,6 +269,11 @@ public class TaskEntity extends VariableScopeImpl implements Task, DelegateTask,
     return null;
   }
 
+  @Override
+  protected boolean isScopeOf(VariableInstanceEntity variableInstance) {
+    return id.equals(variableInstance.getTaskId());
+  }
+
   @Override
   protected void initializeVariableInstanceBackPointer(VariableInstanceEntity variableInstance) {
     variableInstance.setTaskId(id);
@@ -288,7 +295,7 @@ public class TaskEntity extends VariableScopeImpl implements Task, DelegateTask,
     VariableInstanceEntity result = super.createVariableInstance(variableName, value, sourceActivityExecution);
     
     // Dispatch event, if needed
-    if(Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.VARIABLE_CREATED)) {
   		Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
   				ActivitiEventBuilder.createVariableEvent(ActivitiEventType.VARIABLE_CREATED, variableName, value, result.getTaskId(), 
   						result.getExecutionId(), getProcessInstanceId(), getProcessDefinitionId()));
@@ -302,7 +309,7 @@ public class TaskEntity extends VariableScopeImpl implements Task, DelegateTask,
     super.updateVariableInstance(variableInstance, value, sourceActivityExecution);
     
     // Dispatch event, if needed
-    if(Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.VARIABLE_UPDATED)) {
     	Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createVariableEvent(ActivitiEventType.VARIABLE_UPDATED, variableInstance.getName(), value, variableInstance.getTaskId(), 
     					variableInstance.getExecutionId(), getProcessInstanceId(), getProcessDefinitionId()));
@@ -587,7 +594,7 @@ public class TaskEntity extends VariableScopeImpl implements Task, DelegateTask,
         getProcessInstance().involveUser(owner, IdentityLinkType.PARTICIPANT);
       }
       
-      if(dispatchUpdateEvent && commandContext.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+      if(dispatchUpdateEvent && Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
       	if(dispatchUpdateEvent) {
       		commandContext.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
       				ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, this));
@@ -614,7 +621,7 @@ public class TaskEntity extends VariableScopeImpl implements Task, DelegateTask,
          .getHistoryManager()
          .recordTaskDueDateChange(id, dueDate);
        
-       if(dispatchUpdateEvent && commandContext.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+       if(dispatchUpdateEvent && Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
        	if(dispatchUpdateEvent) {
        		commandContext.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
        				ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, this));
@@ -640,7 +647,7 @@ public class TaskEntity extends VariableScopeImpl implements Task, DelegateTask,
         .getHistoryManager()
         .recordTaskPriorityChange(id, priority);
       
-      if(dispatchUpdateEvent && commandContext.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+      if(dispatchUpdateEvent && Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
       	if(dispatchUpdateEvent) {
       		commandContext.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
       				ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, this));
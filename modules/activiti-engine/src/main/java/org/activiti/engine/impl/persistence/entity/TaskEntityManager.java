@@ -13,8 +13,11 @@
 
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -83,7 +86,7 @@ public class TaskEntityManager extends AbstractManager {
         
       getDbSqlSession().delete(task);
       
-      if(commandContext.getEventDispatcher().isEnabled()) {
+      if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_DELETED)) {
       	commandContext.getEventDispatcher().dispatchEvent(
       			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_DELETED, task));
       }
@@ -98,6 +101,29 @@ public class TaskEntityManager extends AbstractManager {
     return (TaskEntity) getDbSqlSession().selectById(TaskEntity.class, id);
   }
 
+  /**
+   * Returns the tasks with the given ids. Tasks that are already known in the
+   * current session are taken from the cache, all others are fetched with a
+   * single query per 1000 ids. Unknown ids are ignored.
+   */
+  @SuppressWarnings("unchecked")
+  public List<TaskEntity> findTasksByIds(Collection<String> taskIds) {
+    List<TaskEntity> tasks = new ArrayList<TaskEntity>();
+    List<String> idsToFetch = new ArrayList<String>();
+    for (String taskId : new LinkedHashSet<String>(taskIds)) {
+      TaskEntity task = getDbSqlSession().findInCache(TaskEntity.class, taskId);
+      if (task != null) {
+        tasks.add(task);
+      } else {
+        idsToFetch.add(taskId);
+      }
+    }
+    for (List<String> idChunk : chunkIds(idsToFetch)) {
+      tasks.addAll(getDbSqlSession().selectList("selectTasksByIds", idChunk));
+    }
+    return tasks;
+  }
+
   @SuppressWarnings("unchecked")
   public List<TaskEntity> findTasksByExecutionId(String executionId) {
     return getDbSqlSession().selectList("selectTasksByExecutionId", executionId);
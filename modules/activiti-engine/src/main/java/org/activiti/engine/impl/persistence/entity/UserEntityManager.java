@@ -60,7 +60,7 @@ public class UserEntityManager extends AbstractManager implements UserIdentityMa
     DbSqlSession dbSqlSession = commandContext.getDbSqlSession();
     dbSqlSession.update((PersistentObject) updatedUser);
     
-    if(getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_UPDATED)) {
     	getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_UPDATED, updatedUser));
     }
@@ -82,7 +82,7 @@ public class UserEntityManager extends AbstractManager implements UserIdentityMa
 
       user.delete();
       
-      if(getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+      if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_DELETED)) {
       	getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
       			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_DELETED, user));
       }
@@ -13,8 +13,15 @@
 
 package org.activiti.engine.impl.persistence.entity;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.activiti.engine.impl.persistence.AbstractManager;
 
@@ -34,6 +41,204 @@ public class VariableInstanceEntityManager extends AbstractManager {
     return getDbSqlSession().selectList("selectVariablesByExecutionId", executionId);
   }
 
+  @SuppressWarnings("unchecked")
+  public List<VariableInstanceEntity> findVariableInstancesByTaskIds(Collection<String> taskIds, Collection<String> variableNames) {
+    List<VariableInstanceEntity> variableInstances = new ArrayList<VariableInstanceEntity>();
+    for (List<String> idChunk : chunkIds(taskIds)) {
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put("taskIds", idChunk);
+      params.put("variableNames", variableNames);
+      variableInstances.addAll(getDbSqlSession().selectList("selectVariablesByTaskIds", params));
+    }
+    return variableInstances;
+  }
+  
+  @SuppressWarnings("unchecked")
+  public List<VariableInstanceEntity> findVariableInstancesByExecutionIds(Collection<String> executionIds, Collection<String> variableNames) {
+    List<VariableInstanceEntity> variableInstances = new ArrayList<VariableInstanceEntity>();
+    for (List<String> idChunk : chunkIds(executionIds)) {
+      Map<String, Object> params = new HashMap<String, Object>();
+      params.put("executionIds", idChunk);
+      params.put("variableNames", variableNames);
+      variableInstances.addAll(getDbSqlSession().selectList("selectVariablesByExecutionIds", params));
+    }
+    return variableInstances;
+  }
+  
+  /**
+   * Returns the variable instances with the given name that are local to one of the given tasks or executions. 
+   */
+  @SuppressWarnings("unchecked")
+  public List<VariableInstanceEntity> findVariableInstancesByNameForScopes(String variableName, Collection<? extends VariableScopeImpl> scopes) {
+    List<String> taskIds = new ArrayList<String>();
+    List<String> executionIds = new ArrayList<String>();
+    for (VariableScopeImpl scope : scopes) {
+      if (scope instanceof TaskEntity) {
+        taskIds.add(((TaskEntity) scope).getId());
+      } else {
+        executionIds.add(((ExecutionEntity) scope).getId());
+      }
+    }
+    if (taskIds.isEmpty() && executionIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    
+    Map<String, Object> params = new HashMap<String, Object>();
+    params.put("variableName", variableName);
+    params.put("taskIds", taskIds.isEmpty() ? null : taskIds);
+    params.put("executionIds", executionIds.isEmpty() ? null : executionIds);
+    return getDbSqlSession().selectList("selectVariablesByNameForScopes", params);
+  }
+  
+  /**
+   * Returns the variables of the given tasks, keyed by task id. The variables of all tasks
+   * (and, when not local, of all their parent executions) are fetched with one query per
+   * level of the execution tree instead of one query per scope. When no variable names are
+   * given, the fetched variables are also used to initialize the variables of the tasks and 
+   * executions, so later access in the same command context doesn't hit the database anymore.
+   * Ids of tasks that don't exist are ignored.
+   */
+  public Map<String, Map<String, Object>> getVariablesForTasks(Collection<String> taskIds, Collection<String> variableNames, boolean isLocal) {
+    List<TaskEntity> tasks = getTaskManager().findTasksByIds(taskIds);
+    
+    Map<String, VariableScopeImpl> taskScopes = new LinkedHashMap<String, VariableScopeImpl>();
+    Set<String> executionIds = new HashSet<String>();
+    for (TaskEntity task : tasks) {
+      taskScopes.put(task.getId(), task);
+      if (task.getExecutionId() != null) {
+        executionIds.add(task.getExecutionId());
+      }
+    }
+    Map<String, Map<String, VariableInstanceEntity>> taskVariableInstances = fetchVariableInstances(taskScopes, variableNames, true);
+    
+    Map<String, Map<String, VariableInstanceEntity>> executionVariableInstances = Collections.emptyMap();
+    if (!isLocal && !executionIds.isEmpty()) {
+      executionVariableInstances = fetchExecutionTreeVariableInstances(getProcessInstanceManager().findExecutionsByIds(executionIds), variableNames);
+    }
+    
+    Map<String, Map<String, Object>> variables = new HashMap<String, Map<String, Object>>();
+    for (TaskEntity task : tasks) {
+      Map<String, Object> taskVariables = new HashMap<String, Object>();
+      collectVariables(taskVariables, taskVariableInstances.get(task.getId()));
+      if (!isLocal && task.getExecutionId() != null) {
+        collectExecutionTreeVariables(taskVariables, task.getExecution(), executionVariableInstances);
+      }
+      variables.put(task.getId(), taskVariables);
+    }
+    return variables;
+  }
+  
+  /**
+   * Returns the variables of the given executions, keyed by execution id. 
+   * Same loading behaviour as {@link #getVariablesForTasks(Collection, Collection, boolean)}.
+   */
+  public Map<String, Map<String, Object>> getVariablesForExecutions(Collection<String> executionIds, Collection<String> variableNames, boolean isLocal) {
+    List<ExecutionEntity> executions = getProcessInstanceManager().findExecutionsByIds(executionIds);
+    
+    Map<String, Map<String, VariableInstanceEntity>> executionVariableInstances;
+    if (isLocal) {
+      Map<String, VariableScopeImpl> executionScopes = new LinkedHashMap<String, VariableScopeImpl>();
+      for (ExecutionEntity execution : executions) {
+        executionScopes.put(execution.getId(), execution);
+      }
+      executionVariableInstances = fetchVariableInstances(executionScopes, variableNames, false);
+    } else {
+      executionVariableInstances = fetchExecutionTreeVariableInstances(executions, variableNames);
+    }
+    
+    Map<String, Map<String, Object>> variables = new HashMap<String, Map<String, Object>>();
+    for (ExecutionEntity execution : executions) {
+      Map<String, Object> executionVariables = new HashMap<String, Object>();
+      if (isLocal) {
+        collectVariables(executionVariables, executionVariableInstances.get(execution.getId()));
+      } else {
+        collectExecutionTreeVariables(executionVariables, execution, executionVariableInstances);
+      }
+      variables.put(execution.getId(), executionVariables);
+    }
+    return variables;
+  }
+  
+  /**
+   * Fetches the variables of the given executions and all of their parents, 
+   * level by level up to the process instances.
+   */
+  protected Map<String, Map<String, VariableInstanceEntity>> fetchExecutionTreeVariableInstances(List<ExecutionEntity> executions, Collection<String> variableNames) {
+    Map<String, Map<String, VariableInstanceEntity>> variableInstances = new HashMap<String, Map<String, VariableInstanceEntity>>();
+    List<ExecutionEntity> currentLevel = executions;
+    while (!currentLevel.isEmpty()) {
+      Map<String, VariableScopeImpl> executionScopes = new LinkedHashMap<String, VariableScopeImpl>();
+      for (ExecutionEntity execution : currentLevel) {
+        if (!variableInstances.containsKey(execution.getId())) {
+          executionScopes.put(execution.getId(), execution);
+        }
+      }
+      variableInstances.putAll(fetchVariableInstances(executionScopes, variableNames, false));
+      
+      Set<String> parentIds = new HashSet<String>();
+      for (ExecutionEntity execution : currentLevel) {
+        if (execution.getParentId() != null && !variableInstances.containsKey(execution.getParentId())) {
+          parentIds.add(execution.getParentId());
+        }
+      }
+      if (parentIds.isEmpty()) {
+        currentLevel = Collections.emptyList();
+      } else {
+        currentLevel = getProcessInstanceManager().findExecutionsByIds(parentIds);
+      }
+    }
+    return variableInstances;
+  }
+  
+  protected Map<String, Map<String, VariableInstanceEntity>> fetchVariableInstances(Map<String, VariableScopeImpl> scopes, Collection<String> variableNames, boolean taskScopes) {
+    Map<String, Map<String, VariableInstanceEntity>> variableInstances = new HashMap<String, Map<String, VariableInstanceEntity>>();
+    List<String> scopeIdsToFetch = new ArrayList<String>();
+    for (Map.Entry<String, VariableScopeImpl> scope : scopes.entrySet()) {
+      if (scope.getValue().isVariableInstancesInitialized()) {
+        variableInstances.put(scope.getKey(), scope.getValue().getVariableInstancesLocal(variableNames));
+      } else {
+        variableInstances.put(scope.getKey(), new HashMap<String, VariableInstanceEntity>());
+        scopeIdsToFetch.add(scope.getKey());
+      }
+    }
+    
+    if (!scopeIdsToFetch.isEmpty() && (variableNames == null || !variableNames.isEmpty())) {
+      List<VariableInstanceEntity> fetchedVariableInstances = taskScopes 
+              ? findVariableInstancesByTaskIds(scopeIdsToFetch, variableNames)
+              : findVariableInstancesByExecutionIds(scopeIdsToFetch, variableNames);
+      for (VariableInstanceEntity variableInstance : fetchedVariableInstances) {
+        String scopeId = taskScopes ? variableInstance.getTaskId() : variableInstance.getExecutionId();
+        variableInstances.get(scopeId).put(variableInstance.getName(), variableInstance);
+      }
+      
+      // Only a complete set of variables can be used to initialize the scope
+      if (variableNames == null) {
+        for (String scopeId : scopeIdsToFetch) {
+          scopes.get(scopeId).initializeVariableInstances(new ArrayList<VariableInstanceEntity>(variableInstances.get(scopeId).values()));
+        }
+      }
+    }
+    return variableInstances;
+  }
+  
+  protected void collectExecutionTreeVariables(Map<String, Object> variables, ExecutionEntity execution, Map<String, Map<String, VariableInstanceEntity>> variableInstances) {
+    while (execution != null) {
+      collectVariables(variables, variableInstances.get(execution.getId()));
+      execution = execution.getParent();
+    }
+  }
+  
+  /** adds the values of the given instances, unless a variable with the same name was already collected from a narrower scope */
+  protected void collectVariables(Map<String, Object> variables, Map<String, VariableInstanceEntity> variableInstances) {
+    if (variableInstances != null) {
+      for (VariableInstanceEntity variableInstance : variableInstances.values()) {
+        if (!variables.containsKey(variableInstance.getName())) {
+          variables.put(variableInstance.getName(), variableInstance.getValue());
+        }
+      }
+    }
+  }
+
   public void deleteVariableInstanceByTask(TaskEntity task) {
     Map<String, VariableInstanceEntity> variableInstances = task.getVariableInstances();
     if (variableInstances!=null) {
@@ -23,6 +23,7 @@ import java.util.Set;
 
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.delegate.VariableScope;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.javax.el.ELContext;
@@ -43,6 +44,13 @@ public abstract class VariableScopeImpl implements Serializable, VariableScope {
   protected Map<String, VariableInstanceEntity> variableInstances = null;
   protected List<VariableInstanceEntity> variableInstanceList = null;
   
+  /** 
+   * variable instances fetched by name while the variables of this scope aren't initialized, 
+   * see {@link ProcessEngineConfigurationImpl#isVariableFetchingByNameEnabled()}.
+   * Contains null values for the names that were fetched but don't exist in this scope.
+   */
+  protected Map<String, VariableInstanceEntity> variableInstancesFetchedByName = null;
+  
   protected ELContext cachedElContext;
 
   protected String id = null;
@@ -53,21 +61,105 @@ public abstract class VariableScopeImpl implements Serializable, VariableScope {
 
   protected void ensureVariableInstancesInitialized() {
     if (variableInstances==null) {
-      variableInstances = new HashMap<String, VariableInstanceEntity>();
-      variableInstanceList = new ArrayList<VariableInstanceEntity>();
-      
       CommandContext commandContext = Context.getCommandContext();
       if (commandContext == null) {
         throw new ActivitiException("lazy loading outside command context");
       }
-      List<VariableInstanceEntity> variableInstancesList = loadVariableInstances();
-      for (VariableInstanceEntity variableInstance : variableInstancesList) {
+      initializeVariableInstances(loadVariableInstances());
+    }
+  }
+  
+  /**
+   * Returns the local variable instance with the given name, or null if there is none. 
+   * When enabled in the configuration and the variables of this scope aren't initialized yet,
+   * only the variables with this name are fetched (for this scope and all its parent scopes at once).
+   */
+  protected VariableInstanceEntity getVariableInstanceLocal(String variableName) {
+    if (variableInstances==null && isVariableFetchingByNameEnabled()) {
+      if (variableInstancesFetchedByName==null || !variableInstancesFetchedByName.containsKey(variableName)) {
+        fetchVariableInstancesByName(variableName);
+      }
+      return variableInstancesFetchedByName.get(variableName);
+    }
+    ensureVariableInstancesInitialized();
+    return variableInstances.get(variableName);
+  }
+  
+  protected boolean isVariableFetchingByNameEnabled() {
+    return Context.getCommandContext()!=null 
+            && Context.getProcessEngineConfiguration().isVariableFetchingByNameEnabled();
+  }
+  
+  /** fetches the variables with the given name of this scope and of all parent scopes that need them, in one query */
+  protected void fetchVariableInstancesByName(String variableName) {
+    List<VariableScopeImpl> scopes = new ArrayList<VariableScopeImpl>();
+    VariableScopeImpl scope = this;
+    while (scope!=null && scope.variableInstances==null) {
+      if (scope.variableInstancesFetchedByName==null || !scope.variableInstancesFetchedByName.containsKey(variableName)) {
+        scopes.add(scope);
+      }
+      scope = scope.getParentVariableScope();
+    }
+    
+    List<VariableInstanceEntity> fetchedVariableInstances = Context
+      .getCommandContext()
+      .getVariableInstanceEntityManager()
+      .findVariableInstancesByNameForScopes(variableName, scopes);
+    
+    for (VariableScopeImpl fetchedScope : scopes) {
+      if (fetchedScope.variableInstancesFetchedByName==null) {
+        fetchedScope.variableInstancesFetchedByName = new HashMap<String, VariableInstanceEntity>();
+      }
+      VariableInstanceEntity fetchedVariableInstance = null;
+      for (VariableInstanceEntity variableInstance : fetchedVariableInstances) {
+        if (fetchedScope.isScopeOf(variableInstance)) {
+          fetchedVariableInstance = variableInstance;
+        }
+      }
+      fetchedScope.variableInstancesFetchedByName.put(variableName, fetchedVariableInstance);
+    }
+  }
+  
+  /** whether the given variable instance is a local variable of this scope */
+  protected abstract boolean isScopeOf(VariableInstanceEntity variableInstance);
+  
+  /**
+   * Initializes the variables of this scope with instances that were fetched
+   * beforehand, eg. in bulk together with the variables of other scopes.
+   * Has no effect when the variables of this scope are already initialized.
+   */
+  public void initializeVariableInstances(List<VariableInstanceEntity> loadedVariableInstances) {
+    if (variableInstances==null) {
+      // all variables are known from now on
+      variableInstancesFetchedByName = null;
+      variableInstances = new HashMap<String, VariableInstanceEntity>();
+      variableInstanceList = new ArrayList<VariableInstanceEntity>();
+      for (VariableInstanceEntity variableInstance : loadedVariableInstances) {
         variableInstances.put(variableInstance.getName(), variableInstance);
         variableInstanceList.add(variableInstance);
       }
     }
   }
   
+  public boolean isVariableInstancesInitialized() {
+    return variableInstances!=null;
+  }
+  
+  /**
+   * Returns the local variable instances of this scope with the given names,
+   * loading them first when needed.
+   */
+  public Map<String, VariableInstanceEntity> getVariableInstancesLocal(Collection<String> variableNames) {
+    ensureVariableInstancesInitialized();
+    Map<String, VariableInstanceEntity> result = new HashMap<String, VariableInstanceEntity>();
+    for (VariableInstanceEntity variableInstance : variableInstances.values()) {
+      if (variableNames==null || variableNames.contains(variableInstance.getName())) {
+        result.put(variableInstance.getName(), variableInstance);
+      }
+    }
+    return result;
+  }
+  
   public Map<String, Object> getVariables() {
     return collectVariables(new HashMap<String, Object>());
   }
@@ -85,8 +177,7 @@ public abstract class VariableScopeImpl implements Serializable, VariableScope {
   }
   
   public Object getVariable(String variableName) {
-    ensureVariableInstancesInitialized();
-    VariableInstanceEntity variableInstance = variableInstances.get(variableName);
+    VariableInstanceEntity variableInstance = getVariableInstanceLocal(variableName);
     if (variableInstance!=null) {
       return variableInstance.getValue();
     }
@@ -98,8 +189,7 @@ public abstract class VariableScopeImpl implements Serializable, VariableScope {
   }
   
   public Object getVariableLocal(String variableName) {
-    ensureVariableInstancesInitialized();
-    VariableInstanceEntity variableInstance = variableInstances.get(variableName);
+    VariableInstanceEntity variableInstance = getVariableInstanceLocal(variableName);
     if (variableInstance!=null) {
       return variableInstance.getValue();
     }
@@ -135,8 +225,7 @@ public abstract class VariableScopeImpl implements Serializable, VariableScope {
   }
 
   public boolean hasVariableLocal(String variableName) {
-    ensureVariableInstancesInitialized();
-    return variableInstances.containsKey(variableName);
+    return getVariableInstanceLocal(variableName)!=null;
   }
 
   protected Set<String> collectVariableNames(Set<String> variableNames) {
@@ -45,7 +45,7 @@ public class AtomicOperationActivityExecute implements AtomicOperation {
     log.debug("{} executes {}: {}", execution, activity, activityBehavior.getClass().getName());
     
     try {
-    	if(Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+    	if(Context.isEventDispatcherEnabled(ActivitiEventType.ACTIVITY_STARTED)) {
       	Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
       			ActivitiEventBuilder.createActivityEvent(ActivitiEventType.ACTIVITY_STARTED, execution.getActivity().getId(), execution.getId(), 
       					execution.getProcessInstanceId(), execution.getProcessDefinitionId()));
@@ -62,7 +62,7 @@ public class AtomicOperationDeleteCascadeFireActivityEnd extends AbstractEventAt
  
       execution.remove();
       
-      if(Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+      if(Context.isEventDispatcherEnabled(ActivitiEventType.ENTITY_DELETED)) {
       	Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
       			ActivitiEventBuilder.createEntityEvent(ActivitiEventType.ENTITY_DELETED, execution));
       }
@@ -35,7 +35,7 @@ public class AtomicOperationTransitionNotifyListenerEnd extends AbstractEventAto
 
   @Override
   protected void eventNotificationsCompleted(InterpretableExecution execution) {
-  	if(Context.getProcessEngineConfiguration() != null && Context.getProcessEngineConfiguration().getEventDispatcher().isEnabled()) {
+  	if(Context.isEventDispatcherEnabled(ActivitiEventType.ACTIVITY_COMPLETED)) {
     	Context.getProcessEngineConfiguration().getEventDispatcher().dispatchEvent(
     			ActivitiEventBuilder.createActivityEvent(ActivitiEventType.ACTIVITY_COMPLETED, execution.getActivity().getId(), execution.getId(), 
     					execution.getProcessInstanceId(), execution.getProcessDefinitionId()));
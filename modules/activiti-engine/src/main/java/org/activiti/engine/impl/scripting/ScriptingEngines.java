@@ -13,10 +13,17 @@
 package org.activiti.engine.impl.scripting;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
@@ -25,6 +32,8 @@ import javax.script.ScriptException;
 
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.delegate.VariableScope;
+import org.activiti.engine.impl.persistence.deploy.DefaultDeploymentCache;
+import org.activiti.engine.impl.persistence.deploy.DeploymentCache;
 
 /**
  * @author Tom Baeyens
@@ -41,6 +50,24 @@ public class ScriptingEngines {
   
   protected boolean cacheScriptingEngines = true;
   protected Map<String, ScriptEngine> cachedEngines;
+  
+  /**
+   * Scripts compiled by cached, {@link Compilable} script engines, keyed by language and script source.
+   * Avoids parsing and compiling the same script again on every execution.
+   */
+  protected boolean cacheCompiledScripts = true;
+  protected DeploymentCache<CompiledScript> compiledScriptCache = new DefaultDeploymentCache<CompiledScript>(1000, false);
+  
+  /**
+   * Script engines that don't allow multithreaded access (eg. Nashorn, the JDK 8 javascript engine) 
+   * can't share their compiled scripts between threads. Those engines are pooled per language instead: 
+   * an engine is used by one evaluation at a time, and keeps at most pooledCompiledScriptCacheLimit 
+   * scripts it compiled. At most scriptEnginePoolSize idle engines are kept per language. 
+   * A limit of 0 disables compiling scripts of such engines, -1 means no limit.
+   */
+  protected int scriptEnginePoolSize = 10;
+  protected int pooledCompiledScriptCacheLimit = 100;
+  protected ConcurrentMap<String, BlockingQueue<PooledScriptEngine>> scriptEnginePools = new ConcurrentHashMap<String, BlockingQueue<PooledScriptEngine>>();
 
   public ScriptingEngines(ScriptBindingsFactory scriptBindingsFactory) {
     this(new ScriptEngineManager());
@@ -81,14 +108,155 @@ public class ScriptingEngines {
 	  return cacheScriptingEngines;
   }
   
+  public void setCacheCompiledScripts(boolean cacheCompiledScripts) {
+    this.cacheCompiledScripts = cacheCompiledScripts;
+  }
+  
+  public boolean isCacheCompiledScripts() {
+    return cacheCompiledScripts;
+  }
+  
+  public void setScriptEnginePoolSize(int scriptEnginePoolSize) {
+    this.scriptEnginePoolSize = scriptEnginePoolSize;
+  }
+  
+  public int getScriptEnginePoolSize() {
+    return scriptEnginePoolSize;
+  }
+  
+  public void setPooledCompiledScriptCacheLimit(int pooledCompiledScriptCacheLimit) {
+    this.pooledCompiledScriptCacheLimit = pooledCompiledScriptCacheLimit;
+  }
+  
+  public int getPooledCompiledScriptCacheLimit() {
+    return pooledCompiledScriptCacheLimit;
+  }
+  
+  /**
+   * Releases the pooled script engines and the compiled scripts. Called when the process engine is closed.
+   */
+  public void close() {
+    scriptEnginePools.clear();
+    if (compiledScriptCache != null) {
+      compiledScriptCache.clear();
+    }
+  }
+  
   protected Object evaluate(String script, String language, Bindings bindings) {
+    PooledScriptEngine pooledScriptEngine = borrowPooledScriptEngine(language);
+    if (pooledScriptEngine != null) {
+      try {
+        return evaluate(script, pooledScriptEngine.scriptEngine, getPooledCompiledScript(script, pooledScriptEngine), bindings);
+      } finally {
+        returnPooledScriptEngine(language, pooledScriptEngine);
+      }
+    }
+    
     ScriptEngine scriptEngine = getEngineByName(language);
+    if (isPoolable(language, scriptEngine)) {
+      pooledScriptEngine = new PooledScriptEngine(scriptEngine, pooledCompiledScriptCacheLimit);
+      try {
+        return evaluate(script, scriptEngine, getPooledCompiledScript(script, pooledScriptEngine), bindings);
+      } finally {
+        returnPooledScriptEngine(language, pooledScriptEngine);
+      }
+    }
+    
     try {
+      return evaluate(script, scriptEngine, getCompiledScript(script, language, scriptEngine), bindings);
+    } catch (ScriptException e) {
+      throw new ActivitiException("problem evaluating script: " + e.getMessage(), e);
+    }
+  }
+  
+  protected Object evaluate(String script, ScriptEngine scriptEngine, CompiledScript compiledScript, Bindings bindings) {
+    try {
+      if (compiledScript != null) {
+        return compiledScript.eval(bindings);
+      }
       return scriptEngine.eval(script, bindings);
     } catch (ScriptException e) {
       throw new ActivitiException("problem evaluating script: " + e.getMessage(), e);
     }
   }
+  
+  /**
+   * Returns the cached compiled script, compiling it first when needed. Returns null 
+   * when the script can't be compiled once and reused, in which case it's evaluated directly.
+   */
+  protected CompiledScript getCompiledScript(String script, String language, ScriptEngine scriptEngine) throws ScriptException {
+    if (!cacheCompiledScripts || !isCompilationSupported(language, scriptEngine)) {
+      return null;
+    }
+    
+    // Only scripts compiled by an engine that allows multithreaded access are shared by all threads
+    if (compiledScriptCache != null && cachedEngines.get(language) == scriptEngine) {
+      String cacheKey = language + ":" + script;
+      CompiledScript compiledScript = compiledScriptCache.get(cacheKey);
+      if (compiledScript == null) {
+        compiledScript = ((Compilable) scriptEngine).compile(script);
+        compiledScriptCache.add(cacheKey, compiledScript);
+      }
+      return compiledScript;
+    }
+    return null;
+  }
+  
+  protected CompiledScript getPooledCompiledScript(String script, PooledScriptEngine pooledScriptEngine) {
+    CompiledScript compiledScript = pooledScriptEngine.compiledScripts.get(script);
+    if (compiledScript == null) {
+      try {
+        compiledScript = ((Compilable) pooledScriptEngine.scriptEngine).compile(script);
+      } catch (ScriptException e) {
+        throw new ActivitiException("problem evaluating script: " + e.getMessage(), e);
+      }
+      pooledScriptEngine.compiledScripts.put(script, compiledScript);
+    }
+    return compiledScript;
+  }
+  
+  protected boolean isCompilationSupported(String language, ScriptEngine scriptEngine) {
+    if (!(scriptEngine instanceof Compilable)) {
+      return false;
+    }
+    
+    // JUEL resolves the variables when the script is parsed, 
+    // so a compiled JUEL-script is bound to the variables of a single evaluation
+    if (scriptEngine instanceof JuelScriptEngine) {
+      return false;
+    }
+    
+    // The groovy engine already keeps the classes it compiled per script, and 
+    // wraps exceptions thrown by a script differently when a compiled script is used  
+    return !GROOVY_SCRIPTING_LANGUAGE.equals(language);
+  }
+  
+  /**
+   * Engines that aren't cached because they don't allow multithreaded access, but can be pooled 
+   * to reuse the scripts they compiled.
+   */
+  protected boolean isPoolable(String language, ScriptEngine scriptEngine) {
+    return cacheScriptingEngines && cacheCompiledScripts && scriptEnginePoolSize > 0 && pooledCompiledScriptCacheLimit != 0
+        && cachedEngines.get(language) != scriptEngine && isCompilationSupported(language, scriptEngine);
+  }
+  
+  protected PooledScriptEngine borrowPooledScriptEngine(String language) {
+    BlockingQueue<PooledScriptEngine> pool = scriptEnginePools.get(language);
+    return pool != null ? pool.poll() : null;
+  }
+  
+  protected void returnPooledScriptEngine(String language, PooledScriptEngine pooledScriptEngine) {
+    BlockingQueue<PooledScriptEngine> pool = scriptEnginePools.get(language);
+    if (pool == null) {
+      BlockingQueue<PooledScriptEngine> newPool = new LinkedBlockingQueue<PooledScriptEngine>(scriptEnginePoolSize);
+      pool = scriptEnginePools.putIfAbsent(language, newPool);
+      if (pool == null) {
+        pool = newPool;
+      }
+    }
+    // When the pool is full, the engine is dropped
+    pool.offer(pooledScriptEngine);
+  }
 
   protected ScriptEngine getEngineByName(String language) {
   	ScriptEngine scriptEngine = null;
@@ -136,6 +304,33 @@ public class ScriptingEngines {
     return scriptBindingsFactory.createBindings(variableScope, storeScriptVariables); 
   }
   
+  /**
+   * Pooled script engine, used by one evaluation at a time, with the scripts it compiled, least recently used first.
+   */
+  protected static class PooledScriptEngine {
+    
+    protected ScriptEngine scriptEngine;
+    protected Map<String, CompiledScript> compiledScripts;
+    
+    public PooledScriptEngine(ScriptEngine scriptEngine, final int limit) {
+      this.scriptEngine = scriptEngine;
+      this.compiledScripts = new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+          return limit >= 0 && size() > limit;
+        }
+      };
+    }
+  }
+  
+  public DeploymentCache<CompiledScript> getCompiledScriptCache() {
+    return compiledScriptCache;
+  }
+  
+  public void setCompiledScriptCache(DeploymentCache<CompiledScript> compiledScriptCache) {
+    this.compiledScriptCache = compiledScriptCache;
+  }
+  
   public ScriptBindingsFactory getScriptBindingsFactory() {
     return scriptBindingsFactory;
   }
@@ -0,0 +1,119 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.management;
+
+import java.io.Serializable;
+
+
+/**
+ * Snapshot of the time the engine spent in one activity of a process definition,
+ * as returned by {@link org.activiti.engine.ManagementService#getActivityProfiles()}.
+ */
+public class ActivityProfile implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected String processDefinitionId;
+  protected String activityId;
+  protected String activityType;
+  protected long executionCount;
+  protected double executionTimeInMillis;
+  protected double maxExecutionTimeInMillis;
+  protected long operationCount;
+  protected double totalTimeInMillis;
+
+  public double getAverageExecutionTimeInMillis() {
+    return executionCount == 0 ? 0 : executionTimeInMillis / executionCount;
+  }
+
+  public String getProcessDefinitionId() {
+    return processDefinitionId;
+  }
+
+  public void setProcessDefinitionId(String processDefinitionId) {
+    this.processDefinitionId = processDefinitionId;
+  }
+
+  public String getActivityId() {
+    return activityId;
+  }
+
+  public void setActivityId(String activityId) {
+    this.activityId = activityId;
+  }
+
+  /** the type of the activity as in the BPMN xml, e.g. serviceTask or exclusiveGateway */
+  public String getActivityType() {
+    return activityType;
+  }
+
+  public void setActivityType(String activityType) {
+    this.activityType = activityType;
+  }
+
+  /** the number of times the behaviour of the activity was executed */
+  public long getExecutionCount() {
+    return executionCount;
+  }
+
+  public void setExecutionCount(long executionCount) {
+    this.executionCount = executionCount;
+  }
+
+  /** the time spent executing the behaviour of the activity, including the delegates and expressions it calls */
+  public double getExecutionTimeInMillis() {
+    return executionTimeInMillis;
+  }
+
+  public void setExecutionTimeInMillis(double executionTimeInMillis) {
+    this.executionTimeInMillis = executionTimeInMillis;
+  }
+
+  public double getMaxExecutionTimeInMillis() {
+    return maxExecutionTimeInMillis;
+  }
+
+  public void setMaxExecutionTimeInMillis(double maxExecutionTimeInMillis) {
+    this.maxExecutionTimeInMillis = maxExecutionTimeInMillis;
+  }
+
+  /** the number of atomic operations performed on the activity: start, execution, end and leaving transitions */
+  public long getOperationCount() {
+    return operationCount;
+  }
+
+  public void setOperationCount(long operationCount) {
+    this.operationCount = operationCount;
+  }
+
+  /**
+   * the time spent in all atomic operations on the activity, so next to the execution also
+   * the start and end listeners, and taking the outgoing sequence flows with their listeners
+   */
+  public double getTotalTimeInMillis() {
+    return totalTimeInMillis;
+  }
+
+  public void setTotalTimeInMillis(double totalTimeInMillis) {
+    this.totalTimeInMillis = totalTimeInMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "ActivityProfile[processDefinitionId=" + processDefinitionId + ", activityId=" + activityId
+        + ", activityType=" + activityType + ", executions=" + executionCount + ", executionTimeInMillis=" + executionTimeInMillis
+        + ", maxExecutionTimeInMillis=" + maxExecutionTimeInMillis + ", operations=" + operationCount
+        + ", totalTimeInMillis=" + totalTimeInMillis + "]";
+  }
+
+}
@@ -0,0 +1,101 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.management;
+
+
+/**
+ * Snapshot of the usage statistics of an in-memory cache of the engine.
+ */
+public class CacheStatistics {
+  
+  protected long size;
+  protected long weight;
+  protected long hitCount;
+  protected long missCount;
+  protected long evictionCount;
+  protected long loadCount;
+  protected long totalLoadTimeInMillis;
+  
+  /** the ratio of lookups that were found in the cache, between 0 and 1 */
+  public double getHitRatio() {
+    long lookups = hitCount + missCount;
+    return lookups == 0 ? 0 : (double) hitCount / lookups;
+  }
+  
+  public double getAverageLoadTimeInMillis() {
+    return loadCount == 0 ? 0 : (double) totalLoadTimeInMillis / loadCount;
+  }
+  
+  public long getSize() {
+    return size;
+  }
+  
+  public void setSize(long size) {
+    this.size = size;
+  }
+  
+  public long getWeight() {
+    return weight;
+  }
+  
+  public void setWeight(long weight) {
+    this.weight = weight;
+  }
+  
+  public long getHitCount() {
+    return hitCount;
+  }
+  
+  public void setHitCount(long hitCount) {
+    this.hitCount = hitCount;
+  }
+  
+  public long getMissCount() {
+    return missCount;
+  }
+  
+  public void setMissCount(long missCount) {
+    this.missCount = missCount;
+  }
+  
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+  
+  public void setEvictionCount(long evictionCount) {
+    this.evictionCount = evictionCount;
+  }
+  
+  public long getLoadCount() {
+    return loadCount;
+  }
+  
+  public void setLoadCount(long loadCount) {
+    this.loadCount = loadCount;
+  }
+  
+  public long getTotalLoadTimeInMillis() {
+    return totalLoadTimeInMillis;
+  }
+  
+  public void setTotalLoadTimeInMillis(long totalLoadTimeInMillis) {
+    this.totalLoadTimeInMillis = totalLoadTimeInMillis;
+  }
+  
+  @Override
+  public String toString() {
+    return "CacheStatistics[size=" + size + ", weight=" + weight + ", hits=" + hitCount + ", misses=" + missCount 
+        + ", evictions=" + evictionCount + ", loads=" + loadCount + ", totalLoadTimeInMillis=" + totalLoadTimeInMillis + "]";
+  }
+
+}
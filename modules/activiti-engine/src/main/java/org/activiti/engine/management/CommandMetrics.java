@@ -0,0 +1,177 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.management;
+
+import java.io.Serializable;
+
+
+/**
+ * Snapshot of the execution statistics of one type of command,
+ * as returned by {@link org.activiti.engine.ManagementService#getCommandMetrics()}.
+ */
+public class CommandMetrics implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Upper bounds in milliseconds of the buckets of the {@link #getLatencyHistogram() latency histogram}.
+   * The last bucket of the histogram counts the executions that took longer than the last bound.
+   */
+  public static final long[] LATENCY_BUCKET_BOUNDS_IN_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+  protected String commandName;
+  protected long count;
+  protected long failureCount;
+  protected long optimisticLockingFailureCount;
+  protected long retryCount;
+  protected double totalTimeInMillis;
+  protected double maxTimeInMillis;
+  protected long[] latencyHistogram;
+  protected long flushCount;
+  protected long insertCount;
+  protected long updateCount;
+  protected long deleteCount;
+  protected double flushTimeInMillis;
+
+  public double getAverageTimeInMillis() {
+    return count == 0 ? 0 : totalTimeInMillis / count;
+  }
+
+  public double getAverageFlushTimeInMillis() {
+    return flushCount == 0 ? 0 : flushTimeInMillis / flushCount;
+  }
+
+  /** the fully qualified class name of the command */
+  public String getCommandName() {
+    return commandName;
+  }
+
+  public void setCommandName(String commandName) {
+    this.commandName = commandName;
+  }
+
+  /** the number of executions, including the failed ones */
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+
+  /** the number of executions that ended with an exception */
+  public long getFailureCount() {
+    return failureCount;
+  }
+
+  public void setFailureCount(long failureCount) {
+    this.failureCount = failureCount;
+  }
+
+  /** the number of executions that failed because of a concurrent update */
+  public long getOptimisticLockingFailureCount() {
+    return optimisticLockingFailureCount;
+  }
+
+  public void setOptimisticLockingFailureCount(long optimisticLockingFailureCount) {
+    this.optimisticLockingFailureCount = optimisticLockingFailureCount;
+  }
+
+  /** the number of executions that retried the command after an optimistic locking failure */
+  public long getRetryCount() {
+    return retryCount;
+  }
+
+  public void setRetryCount(long retryCount) {
+    this.retryCount = retryCount;
+  }
+
+  public double getTotalTimeInMillis() {
+    return totalTimeInMillis;
+  }
+
+  public void setTotalTimeInMillis(double totalTimeInMillis) {
+    this.totalTimeInMillis = totalTimeInMillis;
+  }
+
+  public double getMaxTimeInMillis() {
+    return maxTimeInMillis;
+  }
+
+  public void setMaxTimeInMillis(double maxTimeInMillis) {
+    this.maxTimeInMillis = maxTimeInMillis;
+  }
+
+  /**
+   * the number of executions per latency bucket, see {@link #LATENCY_BUCKET_BOUNDS_IN_MILLIS}.
+   */
+  public long[] getLatencyHistogram() {
+    return latencyHistogram;
+  }
+
+  public void setLatencyHistogram(long[] latencyHistogram) {
+    this.latencyHistogram = latencyHistogram;
+  }
+
+  /** the number of flushes of the database session that wrote at least one change */
+  public long getFlushCount() {
+    return flushCount;
+  }
+
+  public void setFlushCount(long flushCount) {
+    this.flushCount = flushCount;
+  }
+
+  public long getInsertCount() {
+    return insertCount;
+  }
+
+  public void setInsertCount(long insertCount) {
+    this.insertCount = insertCount;
+  }
+
+  public long getUpdateCount() {
+    return updateCount;
+  }
+
+  public void setUpdateCount(long updateCount) {
+    this.updateCount = updateCount;
+  }
+
+  public long getDeleteCount() {
+    return deleteCount;
+  }
+
+  public void setDeleteCount(long deleteCount) {
+    this.deleteCount = deleteCount;
+  }
+
+  /** the time spent executing the insert, update and delete statements of the flushes */
+  public double getFlushTimeInMillis() {
+    return flushTimeInMillis;
+  }
+
+  public void setFlushTimeInMillis(double flushTimeInMillis) {
+    this.flushTimeInMillis = flushTimeInMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "CommandMetrics[command=" + commandName + ", count=" + count + ", failures=" + failureCount
+        + ", optimisticLockingFailures=" + optimisticLockingFailureCount + ", retries=" + retryCount
+        + ", totalTimeInMillis=" + totalTimeInMillis + ", maxTimeInMillis=" + maxTimeInMillis
+        + ", flushes=" + flushCount + ", inserts=" + insertCount + ", updates=" + updateCount
+        + ", deletes=" + deleteCount + ", flushTimeInMillis=" + flushTimeInMillis + "]";
+  }
+
+}
@@ -0,0 +1,58 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.runtime;
+
+import java.util.List;
+
+/**
+ * Deletes, suspends, activates or migrates many process instances in one call.
+ *
+ * The process instances are processed in chunks of {@link #batchSize(int)} process instances,
+ * every chunk in its own transaction. With a {@link #parallelism(int)} above 1, the chunks are
+ * processed by that many worker threads. A failing chunk is rolled back and reported in the
+ * {@link ProcessInstanceBulkResult}, the other chunks are still processed.
+ */
+public interface ProcessInstanceBulkOperation {
+
+  /** Process the process instances with the given ids. */
+  ProcessInstanceBulkOperation processInstanceIds(List<String> processInstanceIds);
+
+  /** Process the process instances matching the given query, when the operation is executed. */
+  ProcessInstanceBulkOperation processInstanceQuery(ProcessInstanceQuery processInstanceQuery);
+
+  /** Number of process instances processed per transaction, 100 by default. */
+  ProcessInstanceBulkOperation batchSize(int batchSize);
+
+  /** Number of worker threads processing the chunks in parallel, 1 (the calling thread) by default. */
+  ProcessInstanceBulkOperation parallelism(int parallelism);
+
+  /**
+   * Deletes the process instances, see {@link org.activiti.engine.RuntimeService#deleteProcessInstance(String, String)}.
+   * Process instances that no longer exist, for example sub process instances deleted together with
+   * their super process instance, are skipped.
+   */
+  ProcessInstanceBulkResult delete(String deleteReason);
+
+  /** Suspends the process instances, see {@link org.activiti.engine.RuntimeService#suspendProcessInstanceById(String)}. */
+  ProcessInstanceBulkResult suspend();
+
+  /** Activates the process instances, see {@link org.activiti.engine.RuntimeService#activateProcessInstanceById(String)}. */
+  ProcessInstanceBulkResult activate();
+
+  /**
+   * Migrates the process instances to the given version of their process definition,
+   * see {@link org.activiti.engine.impl.cmd.SetProcessDefinitionVersionCmd} for the limitations.
+   */
+  ProcessInstanceBulkResult migrate(int processDefinitionVersion);
+
+}
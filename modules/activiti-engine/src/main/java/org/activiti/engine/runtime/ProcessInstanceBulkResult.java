@@ -0,0 +1,39 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.runtime;
+
+import java.util.List;
+
+/**
+ * Result of a {@link ProcessInstanceBulkOperation}.
+ */
+public interface ProcessInstanceBulkResult {
+
+  /** Results of the chunks, in the order of the process instances. */
+  List<ProcessInstanceBulkChunkResult> getChunkResults();
+
+  /** Number of process instances in chunks that succeeded. */
+  int getSucceededCount();
+
+  /** Number of process instances in chunks that failed and were rolled back. */
+  int getFailedCount();
+
+  boolean hasFailures();
+
+  /**
+   * Ids of the process instances in chunks that failed. As a failing chunk is rolled back entirely,
+   * these can be processed again, for example with a batch size of 1 to find the culprits.
+   */
+  List<String> getFailedProcessInstanceIds();
+
+}
@@ -15,5 +15,6 @@ drop index if exists ACT_IDX_TASK_CREATE;
 drop index if exists ACT_IDX_IDENT_LNK_USER;
 drop index if exists ACT_IDX_IDENT_LNK_GROUP;
 drop index if exists ACT_IDX_VARIABLE_TASK_ID;
+drop index if exists ACT_IDX_JOB_PROC_INST_ID;
 drop index if exists ACT_IDX_EVENT_SUBSCR_CONFIG_;
 drop index if exists ACT_IDX_ATHRZ_PROCEDEF;
\ No newline at end of file
@@ -19,6 +19,7 @@ drop index ACT_IDX_TASK_CREATE;
 drop index ACT_IDX_IDENT_LNK_USER;
 drop index ACT_IDX_IDENT_LNK_GROUP;
 drop index ACT_IDX_VARIABLE_TASK_ID;
+drop index ACT_IDX_JOB_PROC_INST_ID;
 
 alter table ACT_GE_BYTEARRAY 
     drop CONSTRAINT ACT_FK_BYTEARR_DEPL;
@@ -4,5 +4,6 @@ alter table ACT_RU_TASK
 alter table ACT_RU_EXECUTION
 	add NAME_ varchar(255);
 	
+create index ACT_IDX_JOB_PROC_INST_ID on ACT_RU_JOB(PROCESS_INSTANCE_ID_);
 	
 update ACT_GE_PROPERTY set VALUE_ = '5.16-SNAPSHOT' where NAME_ = 'schema.version';
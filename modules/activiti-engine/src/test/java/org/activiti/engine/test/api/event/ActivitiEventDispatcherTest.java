@@ -14,14 +14,15 @@ package org.activiti.engine.test.api.event;
 
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.ActivitiIllegalArgumentException;
-import org.activiti.engine.delegate.event.ActivitiEventDispatcher;
 import org.activiti.engine.delegate.event.ActivitiEventType;
 import org.activiti.engine.delegate.event.BaseEntityEventListener;
 import org.activiti.engine.delegate.event.impl.ActivitiEntityEventImpl;
 import org.activiti.engine.delegate.event.impl.ActivitiEventDispatcherImpl;
 import org.activiti.engine.delegate.event.impl.ActivitiEventImpl;
+import org.activiti.engine.delegate.event.impl.ProcessDefinitionEventSupport;
 import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
 import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntity;
 import org.activiti.engine.impl.persistence.entity.TaskEntity;
 import org.activiti.engine.impl.test.PluggableActivitiTestCase;
 import org.activiti.engine.task.Task;
@@ -32,7 +33,7 @@ import org.activiti.engine.task.Task;
  */
 public class ActivitiEventDispatcherTest extends PluggableActivitiTestCase {
 
-	protected ActivitiEventDispatcher dispatcher;
+	protected ActivitiEventDispatcherImpl dispatcher;
 
 	@Override
 	protected void setUp() throws Exception {
@@ -72,6 +73,52 @@ public class ActivitiEventDispatcherTest extends PluggableActivitiTestCase {
 		assertTrue(newListener.getEventsReceived().isEmpty());
 	}
 
+	/**
+	 * Test that the dispatcher is only enabled for the types of events that
+	 * listeners are registered for.
+	 */
+	public void testIsEnabledForType() throws Exception {
+		assertTrue(dispatcher.isEnabled());
+		assertFalse(dispatcher.isEnabled(ActivitiEventType.CUSTOM));
+		
+		TestActivitiEventListener typedListener = new TestActivitiEventListener();
+		dispatcher.addEventListener(typedListener, ActivitiEventType.CUSTOM, ActivitiEventType.JOB_EXECUTION_FAILURE);
+		assertTrue(dispatcher.isEnabled(ActivitiEventType.CUSTOM));
+		assertTrue(dispatcher.isEnabled(ActivitiEventType.JOB_EXECUTION_FAILURE));
+		assertFalse(dispatcher.isEnabled(ActivitiEventType.JOB_EXECUTION_SUCCESS));
+		
+		TestActivitiEventListener listener = new TestActivitiEventListener();
+		dispatcher.addEventListener(listener);
+		assertTrue(dispatcher.isEnabled(ActivitiEventType.JOB_EXECUTION_SUCCESS));
+		
+		dispatcher.setEnabled(false);
+		assertFalse(dispatcher.isEnabled(ActivitiEventType.CUSTOM));
+		dispatcher.setEnabled(true);
+		
+		dispatcher.removeEventListener(listener);
+		dispatcher.removeEventListener(typedListener);
+		assertFalse(dispatcher.isEnabled(ActivitiEventType.CUSTOM));
+		assertFalse(dispatcher.isEnabled(ActivitiEventType.JOB_EXECUTION_SUCCESS));
+		
+		// Listeners of process definitions registered with the dispatcher are taken into account as well
+		ProcessDefinitionEventSupport definitionEventSupport = (ProcessDefinitionEventSupport) new ProcessDefinitionEntity().getEventSupport();
+		definitionEventSupport.addEventListener(typedListener, ActivitiEventType.CUSTOM);
+		assertFalse(dispatcher.isEnabled(ActivitiEventType.CUSTOM));
+		
+		definitionEventSupport.register(dispatcher, "someProcessDefinitionId");
+		assertTrue(dispatcher.isEnabled(ActivitiEventType.CUSTOM));
+		assertFalse(dispatcher.isEnabled(ActivitiEventType.JOB_EXECUTION_SUCCESS));
+		assertFalse(new ActivitiEventDispatcherImpl().isEnabled(ActivitiEventType.CUSTOM));
+		
+		definitionEventSupport.removeEventListener(typedListener);
+		assertFalse(dispatcher.isEnabled(ActivitiEventType.CUSTOM));
+		
+		definitionEventSupport.addEventListener(listener);
+		assertTrue(dispatcher.isEnabled(ActivitiEventType.JOB_EXECUTION_SUCCESS));
+		dispatcher.removeProcessDefinitionListenerTypes("someProcessDefinitionId");
+		assertFalse(dispatcher.isEnabled(ActivitiEventType.JOB_EXECUTION_SUCCESS));
+	}
+	
 	/**
 	 * Test adding a listener and check if events are sent to it, for the types it
 	 * was registered for. Also checks that after removal, no events are received.
@@ -25,6 +25,7 @@ import org.activiti.engine.impl.interceptor.CommandExecutor;
 import org.activiti.engine.impl.persistence.entity.EventSubscriptionEntity;
 import org.activiti.engine.impl.persistence.entity.JobEntity;
 import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.management.CacheStatistics;
 import org.activiti.engine.management.TableMetaData;
 import org.activiti.engine.runtime.Job;
 import org.activiti.engine.runtime.ProcessInstance;
@@ -249,4 +250,30 @@ public class ManagementServiceTest extends PluggableActivitiTestCase {
 	  String table = managementService.getTableName(EventSubscriptionEntity.class);
 	  assertEquals("ACT_RU_EVENT_SUBSCR", table);
   }
+  
+  public void testGetProcessDefinitionCacheStatistics() {
+    String processDefinitionId = deployOneTaskTestProcess();
+    CacheStatistics statistics = managementService.getProcessDefinitionCacheStatistics();
+    assertNotNull(statistics);
+    assertTrue(statistics.getSize() > 0);
+    
+    long hitCount = statistics.getHitCount();
+    runtimeService.startProcessInstanceById(processDefinitionId);
+    
+    statistics = managementService.getProcessDefinitionCacheStatistics();
+    assertTrue(statistics.getHitCount() > hitCount);
+  }
+  
+  public void testProcessDefinitionCacheLoadIsCountedAsMissOnly() {
+    String processDefinitionId = deployOneTaskTestProcess();
+    processEngineConfiguration.getProcessDefinitionCache().clear();
+    CacheStatistics statistics = managementService.getProcessDefinitionCacheStatistics();
+    
+    repositoryService.getProcessDefinition(processDefinitionId);
+    
+    CacheStatistics statisticsAfterLoad = managementService.getProcessDefinitionCacheStatistics();
+    assertEquals(statistics.getHitCount(), statisticsAfterLoad.getHitCount());
+    assertEquals(statistics.getMissCount() + 1, statisticsAfterLoad.getMissCount());
+    assertEquals(statistics.getLoadCount() + 1, statisticsAfterLoad.getLoadCount());
+  }
 }
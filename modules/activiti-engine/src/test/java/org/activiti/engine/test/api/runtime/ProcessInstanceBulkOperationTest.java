@@ -0,0 +1,159 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.api.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.repository.ProcessDefinition;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.runtime.ProcessInstanceBulkChunkResult;
+import org.activiti.engine.runtime.ProcessInstanceBulkResult;
+import org.activiti.engine.test.Deployment;
+
+public class ProcessInstanceBulkOperationTest extends PluggableActivitiTestCase {
+
+  @Deployment(resources = {"org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml"})
+  public void testDeleteByQuery() {
+    startProcessInstances(10);
+
+    ProcessInstanceBulkResult result = runtimeService.createProcessInstanceBulkOperation()
+      .processInstanceQuery(runtimeService.createProcessInstanceQuery().processDefinitionKey("oneTaskProcess"))
+      .batchSize(3)
+      .delete("cleanup");
+
+    assertFalse(result.hasFailures());
+    assertEquals(10, result.getSucceededCount());
+    assertEquals(0, result.getFailedCount());
+    assertEquals(4, result.getChunkResults().size());
+    assertEquals(1, result.getChunkResults().get(3).getProcessInstanceIds().size());
+    assertEquals(0, runtimeService.createProcessInstanceQuery().count());
+    assertEquals(0, taskService.createTaskQuery().count());
+  }
+
+  @Deployment(resources = {"org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml"})
+  public void testDeleteInParallel() {
+    List<String> processInstanceIds = startProcessInstances(20);
+
+    ProcessInstanceBulkResult result = runtimeService.createProcessInstanceBulkOperation()
+      .processInstanceIds(processInstanceIds)
+      .batchSize(5)
+      .parallelism(2)
+      .delete(null);
+
+    assertFalse(result.hasFailures());
+    assertEquals(20, result.getSucceededCount());
+    assertEquals(4, result.getChunkResults().size());
+    // the chunk results follow the order of the process instances
+    assertEquals(processInstanceIds.subList(0, 5), result.getChunkResults().get(0).getProcessInstanceIds());
+    assertEquals(0, runtimeService.createProcessInstanceQuery().count());
+  }
+
+  @Deployment(resources = {"org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml"})
+  public void testSuspendAndActivateWithFailingChunk() {
+    List<String> processInstanceIds = startProcessInstances(4);
+    runtimeService.suspendProcessInstanceById(processInstanceIds.get(3));
+
+    // Suspending the already suspended process instance fails, and rolls back its chunk
+    ProcessInstanceBulkResult result = runtimeService.createProcessInstanceBulkOperation()
+      .processInstanceIds(processInstanceIds)
+      .batchSize(2)
+      .suspend();
+
+    assertTrue(result.hasFailures());
+    assertEquals(2, result.getSucceededCount());
+    assertEquals(2, result.getFailedCount());
+    assertEquals(processInstanceIds.subList(2, 4), result.getFailedProcessInstanceIds());
+    ProcessInstanceBulkChunkResult failedChunk = result.getChunkResults().get(1);
+    assertFalse(failedChunk.isSucceeded());
+    assertTrue(failedChunk.getFailure() instanceof ActivitiException);
+    assertEquals(3, runtimeService.createProcessInstanceQuery().suspended().count());
+    assertFalse(runtimeService.createProcessInstanceQuery().processInstanceId(processInstanceIds.get(2)).singleResult().isSuspended());
+
+    result = runtimeService.createProcessInstanceBulkOperation()
+      .processInstanceQuery(runtimeService.createProcessInstanceQuery().suspended())
+      .activate();
+    assertFalse(result.hasFailures());
+    assertEquals(3, result.getSucceededCount());
+    assertEquals(4, runtimeService.createProcessInstanceQuery().active().count());
+  }
+
+  @Deployment(resources = {
+    "org/activiti/engine/test/history/HistoricProcessInstanceTest.testDeleteHistoricProcessInstanceWithCallActivity.bpmn20.xml",
+    "org/activiti/engine/test/history/HistoricProcessInstanceTest.testDeleteHistoricProcessInstanceWithCallActivity-subprocess.bpmn20.xml"
+  })
+  public void testDeleteSkipsDeletedSubProcessInstances() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("callSimpleSubProcess");
+    ProcessInstance subProcessInstance = runtimeService.createProcessInstanceQuery().superProcessInstanceId(processInstance.getId()).singleResult();
+
+    // The sub process instance is deleted together with its super process instance
+    ProcessInstanceBulkResult result = runtimeService.createProcessInstanceBulkOperation()
+      .processInstanceIds(Arrays.asList(processInstance.getId(), subProcessInstance.getId()))
+      .delete("cleanup");
+
+    assertFalse(result.hasFailures());
+    assertEquals(0, runtimeService.createProcessInstanceQuery().count());
+  }
+
+  @Deployment(resources = {"org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml"})
+  public void testMigrate() {
+    startProcessInstances(3);
+    String deploymentId = repositoryService.createDeployment()
+      .addClasspathResource("org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml")
+      .deploy()
+      .getId();
+    try {
+      ProcessDefinition newProcessDefinition = repositoryService.createProcessDefinitionQuery().deploymentId(deploymentId).singleResult();
+      assertEquals(2, newProcessDefinition.getVersion());
+
+      ProcessInstanceBulkResult result = runtimeService.createProcessInstanceBulkOperation()
+        .processInstanceQuery(runtimeService.createProcessInstanceQuery().processDefinitionKey("oneTaskProcess"))
+        .migrate(2);
+
+      assertFalse(result.hasFailures());
+      assertEquals(3, result.getSucceededCount());
+      assertEquals(3, runtimeService.createProcessInstanceQuery().processDefinitionId(newProcessDefinition.getId()).count());
+    } finally {
+      repositoryService.deleteDeployment(deploymentId, true);
+    }
+  }
+
+  public void testInvalidBulkOperation() {
+    try {
+      runtimeService.createProcessInstanceBulkOperation().batchSize(0);
+      fail("Exception expected");
+    } catch (ActivitiIllegalArgumentException e) {
+      assertTextPresent("Batch size must be positive", e.getMessage());
+    }
+
+    try {
+      runtimeService.createProcessInstanceBulkOperation().suspend();
+      fail("Exception expected");
+    } catch (ActivitiIllegalArgumentException e) {
+      assertTextPresent("Process instance ids or a process instance query are required", e.getMessage());
+    }
+  }
+
+  protected List<String> startProcessInstances(int count) {
+    List<String> processInstanceIds = new ArrayList<String>();
+    for (int i = 0; i < count; i++) {
+      processInstanceIds.add(runtimeService.startProcessInstanceByKey("oneTaskProcess").getId());
+    }
+    return processInstanceIds;
+  }
+
+}
@@ -13,6 +13,7 @@
 
 package org.activiti.engine.test.api.runtime;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -900,5 +901,42 @@ public class RuntimeServiceTest extends PluggableActivitiTestCase {
       runtimeService.startProcessInstanceByKey("catchPanicMessage");      
     }
   }
-   
+  
+  @Deployment(resources={"org/activiti/engine/test/api/task/TaskVariablesTest.testGetVariablesForTasks.bpmn20.xml"})
+  public void testGetVariablesForExecutions() {
+    Map<String, Object> processVariables = new HashMap<String, Object>();
+    processVariables.put("instrument", "trumpet");
+    String processInstanceId = runtimeService.startProcessInstanceByKey("forkedTasksProcess", processVariables).getId();
+    processVariables.put("instrument", "drums");
+    String otherProcessInstanceId = runtimeService.startProcessInstanceByKey("forkedTasksProcess", processVariables).getId();
+    
+    Execution executionA = runtimeService.createExecutionQuery().processInstanceId(processInstanceId).activityId("taskA").singleResult();
+    Execution executionB = runtimeService.createExecutionQuery().processInstanceId(processInstanceId).activityId("taskB").singleResult();
+    runtimeService.setVariableLocal(executionA.getId(), "player", "gonzo");
+    runtimeService.setVariableLocal(executionB.getId(), "instrument", "guitar");
+    
+    List<String> executionIds = Arrays.asList(executionA.getId(), executionB.getId(), otherProcessInstanceId, "unexisting");
+    Map<String, Map<String, Object>> variables = runtimeService.getVariablesForExecutions(executionIds, null);
+    assertEquals(3, variables.size());
+    for (String executionId : Arrays.asList(executionA.getId(), executionB.getId(), otherProcessInstanceId)) {
+      assertEquals(runtimeService.getVariables(executionId), variables.get(executionId));
+    }
+    assertEquals("gonzo", variables.get(executionA.getId()).get("player"));
+    assertEquals("trumpet", variables.get(executionA.getId()).get("instrument"));
+    assertEquals("guitar", variables.get(executionB.getId()).get("instrument"));
+    assertEquals("drums", variables.get(otherProcessInstanceId).get("instrument"));
+    
+    variables = runtimeService.getVariablesForExecutions(executionIds, Arrays.asList("instrument"));
+    assertEquals(3, variables.size());
+    assertEquals(Collections.singletonMap("instrument", "trumpet"), variables.get(executionA.getId()));
+    assertEquals(Collections.singletonMap("instrument", "guitar"), variables.get(executionB.getId()));
+    
+    variables = runtimeService.getVariablesLocalForExecutions(executionIds, null);
+    assertEquals(3, variables.size());
+    for (String executionId : Arrays.asList(executionA.getId(), executionB.getId(), otherProcessInstanceId)) {
+      assertEquals(runtimeService.getVariablesLocal(executionId), variables.get(executionId));
+    }
+    assertEquals(Collections.singletonMap("player", "gonzo"), variables.get(executionA.getId()));
+  }
+  
 }
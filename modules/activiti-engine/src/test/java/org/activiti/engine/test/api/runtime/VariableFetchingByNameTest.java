@@ -0,0 +1,112 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.engine.test.api.runtime;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.TaskEntity;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.runtime.Execution;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+
+/**
+ * Tests reading variables with {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#isVariableFetchingByNameEnabled()}.
+ */
+public class VariableFetchingByNameTest extends PluggableActivitiTestCase {
+  
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    processEngineConfiguration.setVariableFetchingByNameEnabled(true);
+  }
+  
+  @Override
+  protected void tearDown() throws Exception {
+    processEngineConfiguration.setVariableFetchingByNameEnabled(false);
+    super.tearDown();
+  }
+  
+  @Deployment
+  public void testGatewayCondition() {
+    Map<String, Object> variables = new HashMap<String, Object>();
+    variables.put("approved", true);
+    variables.put("comment", "looks good");
+    String processInstanceId = runtimeService.startProcessInstanceByKey("reviewProcess", variables).getId();
+    taskService.complete(taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId());
+    assertEquals("approved", taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getTaskDefinitionKey());
+    
+    variables.put("approved", false);
+    processInstanceId = runtimeService.startProcessInstanceByKey("reviewProcess", variables).getId();
+    taskService.complete(taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId());
+    assertEquals("rejected", taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getTaskDefinitionKey());
+  }
+  
+  @Deployment(resources={"org/activiti/engine/test/api/runtime/threeParallelTasks.bpmn20.xml"})
+  public void testOnlyRequestedVariablesAreFetched() {
+    Map<String, Object> variables = new HashMap<String, Object>();
+    variables.put("approved", true);
+    variables.put("comment", "looks good");
+    final String processInstanceId = runtimeService.startProcessInstanceByKey("threeParallelTasks", variables).getId();
+    final Task task = taskService.createTaskQuery().processInstanceId(processInstanceId).taskDefinitionKey("task1").singleResult();
+    runtimeService.setVariableLocal(task.getExecutionId(), "comment", "not so sure");
+    taskService.setVariableLocal(task.getId(), "priority", "high");
+    
+    managementService.executeCommand(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        TaskEntity taskEntity = commandContext.getTaskEntityManager().findTaskById(task.getId());
+        ExecutionEntity execution = taskEntity.getExecution();
+        ExecutionEntity processInstance = execution.getParent();
+        assertEquals(processInstanceId, processInstance.getId());
+        
+        assertEquals(true, taskEntity.getVariable("approved"));
+        assertEquals("not so sure", taskEntity.getVariable("comment"));
+        assertEquals("looks good", processInstance.getVariable("comment"));
+        assertEquals("high", taskEntity.getVariableLocal("priority"));
+        assertTrue(taskEntity.hasVariable("approved"));
+        assertFalse(taskEntity.hasVariableLocal("approved"));
+        assertFalse(taskEntity.hasVariable("unexisting"));
+        assertNull(taskEntity.getVariable("unexisting"));
+        
+        assertFalse(taskEntity.isVariableInstancesInitialized());
+        assertFalse(execution.isVariableInstancesInitialized());
+        assertFalse(processInstance.isVariableInstancesInitialized());
+        
+        // Changing variables needs all variables of the scope 
+        taskEntity.setVariable("approved", false);
+        assertTrue(processInstance.isVariableInstancesInitialized());
+        assertEquals(false, taskEntity.getVariable("approved"));
+        assertEquals("looks good", processInstance.getVariable("comment"));
+        
+        taskEntity.setVariableLocal("priority", "low");
+        assertTrue(taskEntity.isVariableInstancesInitialized());
+        assertEquals("low", taskEntity.getVariable("priority"));
+        return null;
+      }
+    });
+    
+    assertEquals(false, runtimeService.getVariable(processInstanceId, "approved"));
+    assertEquals("low", taskService.getVariableLocal(task.getId(), "priority"));
+    
+    Execution execution = runtimeService.createExecutionQuery().processInstanceId(processInstanceId).activityId("task2").singleResult();
+    assertEquals("looks good", runtimeService.getVariable(execution.getId(), "comment"));
+    assertEquals(runtimeService.getVariables(processInstanceId), runtimeService.getVariables(execution.getId()));
+  }
+
+}
@@ -13,9 +13,18 @@
 
 package org.activiti.engine.test.api.task;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.AbstractManager;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.TaskEntity;
 import org.activiti.engine.impl.test.PluggableActivitiTestCase;
 import org.activiti.engine.task.Task;
 import org.activiti.engine.test.Deployment;
@@ -87,4 +96,123 @@ public class TaskVariablesTest extends PluggableActivitiTestCase {
     assertEquals(expectedVariables, runtimeService.getVariables(processInstanceId));
     assertEquals(expectedVariables, runtimeService.getVariablesLocal(processInstanceId));
   }
+
+  @Deployment
+  public void testGetVariablesForTasks() {
+    Map<String, Object> processVariables = new HashMap<String, Object>();
+    processVariables.put("instrument", "trumpet");
+    String processInstanceId = runtimeService.startProcessInstanceByKey("forkedTasksProcess", processVariables).getId();
+    processVariables.put("instrument", "drums");
+    String otherProcessInstanceId = runtimeService.startProcessInstanceByKey("forkedTasksProcess", processVariables).getId();
+    
+    Task taskA = taskService.createTaskQuery().processInstanceId(processInstanceId).taskDefinitionKey("taskA").singleResult();
+    Task taskB = taskService.createTaskQuery().processInstanceId(processInstanceId).taskDefinitionKey("taskB").singleResult();
+    Task otherTaskA = taskService.createTaskQuery().processInstanceId(otherProcessInstanceId).taskDefinitionKey("taskA").singleResult();
+    
+    runtimeService.setVariableLocal(taskA.getExecutionId(), "player", "gonzo");
+    taskService.setVariableLocal(taskB.getId(), "budget", "unlimited");
+    taskService.setVariableLocal(otherTaskA.getId(), "instrument", "guitar");
+    
+    List<String> taskIds = Arrays.asList(taskA.getId(), taskB.getId(), otherTaskA.getId(), "unexisting");
+    Map<String, Map<String, Object>> variables = taskService.getVariablesForTasks(taskIds, null);
+    assertEquals(3, variables.size());
+    
+    Map<String, Object> expectedVariables = new HashMap<String, Object>();
+    expectedVariables.put("instrument", "trumpet");
+    expectedVariables.put("player", "gonzo");
+    assertEquals(expectedVariables, variables.get(taskA.getId()));
+    assertEquals(taskService.getVariables(taskA.getId()), variables.get(taskA.getId()));
+    
+    expectedVariables = new HashMap<String, Object>();
+    expectedVariables.put("instrument", "trumpet");
+    expectedVariables.put("budget", "unlimited");
+    assertEquals(expectedVariables, variables.get(taskB.getId()));
+    assertEquals(taskService.getVariables(taskB.getId()), variables.get(taskB.getId()));
+    
+    // Task local variables hide process variables with the same name 
+    expectedVariables = new HashMap<String, Object>();
+    expectedVariables.put("instrument", "guitar");
+    assertEquals(expectedVariables, variables.get(otherTaskA.getId()));
+    
+    // Restricted to the given variable names
+    variables = taskService.getVariablesForTasks(taskIds, Arrays.asList("instrument", "budget"));
+    assertEquals(3, variables.size());
+    expectedVariables = new HashMap<String, Object>();
+    expectedVariables.put("instrument", "trumpet");
+    assertEquals(expectedVariables, variables.get(taskA.getId()));
+    expectedVariables.put("budget", "unlimited");
+    assertEquals(expectedVariables, variables.get(taskB.getId()));
+    
+    variables = taskService.getVariablesForTasks(taskIds, new ArrayList<String>());
+    assertEquals(3, variables.size());
+    assertTrue(variables.get(taskA.getId()).isEmpty());
+    
+    // Only task local variables
+    variables = taskService.getVariablesLocalForTasks(taskIds, null);
+    assertEquals(3, variables.size());
+    assertTrue(variables.get(taskA.getId()).isEmpty());
+    assertEquals(taskService.getVariablesLocal(taskB.getId()), variables.get(taskB.getId()));
+    assertEquals(taskService.getVariablesLocal(otherTaskA.getId()), variables.get(otherTaskA.getId()));
+    
+    assertTrue(taskService.getVariablesForTasks(new ArrayList<String>(), null).isEmpty());
+  }
+  
+  public void testGetVariablesForMoreTasksThanFitInOneQuery() {
+    final List<String> taskIds = managementService.executeCommand(new Command<List<String>>() {
+      public List<String> execute(CommandContext commandContext) {
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i <= AbstractManager.MAX_IDS_PER_QUERY; i++) {
+          TaskEntity task = TaskEntity.create(new Date());
+          task.insert(null);
+          task.setVariableLocal("index", i);
+          ids.add(task.getId());
+        }
+        return ids;
+      }
+    });
+    
+    Map<String, Map<String, Object>> variables = taskService.getVariablesForTasks(taskIds, null);
+    assertEquals(taskIds.size(), variables.size());
+    assertEquals(0, variables.get(taskIds.get(0)).get("index"));
+    assertEquals(AbstractManager.MAX_IDS_PER_QUERY, variables.get(taskIds.get(AbstractManager.MAX_IDS_PER_QUERY)).get("index"));
+    
+    for (String taskId : taskIds) {
+      taskService.deleteTask(taskId, true);
+    }
+  }
+  
+  @Deployment(resources={"org/activiti/engine/test/api/task/TaskVariablesTest.testGetVariablesForTasks.bpmn20.xml"})
+  public void testGetVariablesForTasksInitializesVariableScopes() {
+    Map<String, Object> processVariables = new HashMap<String, Object>();
+    processVariables.put("instrument", "trumpet");
+    final String processInstanceId = runtimeService.startProcessInstanceByKey("forkedTasksProcess", processVariables).getId();
+    final Task taskA = taskService.createTaskQuery().processInstanceId(processInstanceId).taskDefinitionKey("taskA").singleResult();
+    
+    managementService.executeCommand(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        commandContext.getVariableInstanceEntityManager().getVariablesForTasks(Arrays.asList(taskA.getId()), null, false);
+        
+        TaskEntity task = commandContext.getTaskEntityManager().findTaskById(taskA.getId());
+        assertTrue(task.isVariableInstancesInitialized());
+        ExecutionEntity execution = task.getExecution();
+        assertTrue(execution.isVariableInstancesInitialized());
+        assertTrue(execution.getParent().isVariableInstancesInitialized());
+        assertEquals(processInstanceId, execution.getParent().getId());
+        assertEquals("trumpet", execution.getParent().getVariableLocal("instrument"));
+        return null;
+      }
+    });
+    
+    managementService.executeCommand(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        // A restricted fetch doesn't contain all variables, so it can't be used to initialize the scope
+        commandContext.getVariableInstanceEntityManager().getVariablesForTasks(Arrays.asList(taskA.getId()), Arrays.asList("instrument"), false);
+        
+        TaskEntity task = commandContext.getTaskEntityManager().findTaskById(taskA.getId());
+        assertFalse(task.isVariableInstancesInitialized());
+        assertFalse(task.getExecution().isVariableInstancesInitialized());
+        return null;
+      }
+    });
+  }
 }
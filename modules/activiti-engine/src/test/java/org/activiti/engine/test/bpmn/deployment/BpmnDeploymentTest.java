@@ -13,11 +13,15 @@
 
 package org.activiti.engine.test.bpmn.deployment;
 
+import java.io.File;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import org.activiti.engine.ActivitiException;
 import org.activiti.engine.impl.RepositoryServiceImpl;
+import org.activiti.engine.impl.bpmn.diagram.ProcessDiagramCache;
 import org.activiti.engine.impl.context.Context;
 import org.activiti.engine.impl.interceptor.Command;
 import org.activiti.engine.impl.interceptor.CommandContext;
@@ -168,6 +172,85 @@ public class BpmnDeploymentTest extends PluggableActivitiTestCase {
     }
   }
 
+  public void testLazyDiagramGeneration() {
+    processEngineConfiguration.setLazyDiagramGeneration(true);
+    ProcessDiagramCache processDiagramCache = processEngineConfiguration.getProcessDiagramCache();
+    processDiagramCache.clear();
+
+    try {
+      String deploymentId = repositoryService.createDeployment()
+        .addClasspathResource("org/activiti/engine/test/bpmn/parse/BpmnParseTest.testParseDiagramInterchangeElements.bpmn20.xml")
+        .deploy()
+        .getId();
+      ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().deploymentId(deploymentId).singleResult();
+
+      // Check that no diagram has been created on deploy
+      assertEquals(1, repositoryService.getDeploymentResourceNames(deploymentId).size());
+      assertNull(processDefinition.getDiagramResourceName());
+      assertEquals(0, processDiagramCache.size());
+
+      // The diagram is rendered on the first request, and taken from the cache afterwards
+      byte[] diagram = IoUtil.readInputStream(repositoryService.getProcessDiagram(processDefinition.getId()), null);
+      assertTrue(diagram.length > 0);
+      assertEquals(1, processDiagramCache.size());
+      byte[] cachedDiagram = IoUtil.readInputStream(repositoryService.getProcessDiagram(processDefinition.getId()), null);
+      assertTrue(Arrays.equals(diagram, cachedDiagram));
+      assertEquals(1, processDiagramCache.size());
+
+      repositoryService.deleteDeployment(deploymentId, true);
+      assertEquals(0, processDiagramCache.size());
+    } finally {
+      processEngineConfiguration.setLazyDiagramGeneration(false);
+    }
+  }
+
+  @Deployment(resources={"org/activiti/engine/test/bpmn/parse/BpmnParseTest.testParseDiagramInterchangeElements.bpmn20.xml"})
+  public void testHighLightedProcessDiagramIsCached() {
+    ProcessDiagramCache processDiagramCache = processEngineConfiguration.getProcessDiagramCache();
+    processDiagramCache.clear();
+    String processDefinitionId = repositoryService.createProcessDefinitionQuery().singleResult().getId();
+
+    assertNotNull(repositoryService.getProcessDiagram(processDefinitionId, Arrays.asList("task1", "task2"), Arrays.asList("flowTask1ToGateway1")));
+    assertEquals(1, processDiagramCache.size());
+
+    // The order of the highlighted elements doesn't matter
+    assertNotNull(repositoryService.getProcessDiagram(processDefinitionId, Arrays.asList("task2", "task1"), Arrays.asList("flowTask1ToGateway1")));
+    assertEquals(1, processDiagramCache.size());
+
+    assertNotNull(repositoryService.getProcessDiagram(processDefinitionId, Arrays.asList("task3"), null));
+    assertEquals(2, processDiagramCache.size());
+  }
+
+  public void testProcessDiagramCacheDirectory() throws Exception {
+    File directory = new File(System.getProperty("java.io.tmpdir"), "activiti-diagrams-" + System.nanoTime());
+    try {
+      Date deploymentTime = new Date();
+      String key = ProcessDiagramCache.createKey("myProcess:1:5", deploymentTime, "png", null, null);
+      String highLightedKey = ProcessDiagramCache.createKey("myProcess:1:5", deploymentTime, "png", Arrays.asList("task1"), null);
+      byte[] diagram = new byte[] {1, 2, 3};
+      ProcessDiagramCache firstProcessDiagramCache = new ProcessDiagramCache(10, directory);
+      firstProcessDiagramCache.put(key, diagram);
+      firstProcessDiagramCache.put(highLightedKey, diagram);
+
+      // A new cache, e.g. after a restart, reads the diagram from disk, highlighted diagrams are only kept in memory
+      ProcessDiagramCache processDiagramCache = new ProcessDiagramCache(10, directory);
+      assertTrue(Arrays.equals(diagram, processDiagramCache.get(key)));
+      assertNull(processDiagramCache.get(highLightedKey));
+      assertEquals(1, directory.listFiles().length);
+
+      processDiagramCache.remove("myProcess:1:5");
+      assertNull(new ProcessDiagramCache(10, directory).get(key));
+    } finally {
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          file.delete();
+        }
+      }
+      directory.delete();
+    }
+  }
+
   @Deployment(resources={
     "org/activiti/engine/test/bpmn/deployment/BpmnDeploymentTest.testProcessDiagramResource.bpmn20.xml",
     "org/activiti/engine/test/bpmn/deployment/BpmnDeploymentTest.testProcessDiagramResource.jpg"
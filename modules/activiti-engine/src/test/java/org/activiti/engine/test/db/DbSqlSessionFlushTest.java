@@ -0,0 +1,87 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ByteArrayEntity;
+import org.activiti.engine.impl.persistence.entity.VariableInstanceEntity;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.runtime.ProcessInstance;
+
+public class DbSqlSessionFlushTest extends PluggableActivitiTestCase {
+  
+  public void testByteArrayOnlyUpdatedWhenChanged() {
+    String processDefinitionId = deployOneTaskTestProcess();
+    ProcessInstance processInstance = runtimeService.startProcessInstanceById(processDefinitionId, 
+        Collections.<String, Object>singletonMap("myList", new ArrayList<String>(Collections.singletonList("a"))));
+    
+    String byteArrayId = getByteArrayId(processInstance.getId(), "myList");
+    int revision = getByteArrayRevision(byteArrayId);
+    
+    // Setting an equal value doesn't cause an update
+    runtimeService.setVariable(processInstance.getId(), "myList", new ArrayList<String>(Collections.singletonList("a")));
+    assertEquals(revision, getByteArrayRevision(byteArrayId));
+    
+    // Setting another value does
+    runtimeService.setVariable(processInstance.getId(), "myList", new ArrayList<String>(Collections.singletonList("b")));
+    assertEquals(revision + 1, getByteArrayRevision(byteArrayId));
+    assertEquals(Collections.singletonList("b"), runtimeService.getVariable(processInstance.getId(), "myList"));
+  }
+  
+  public void testInsertsAndDeletesInSameCommandCancelEachOther() {
+    long byteArrayCount = managementService.getTableCount().get("ACT_GE_BYTEARRAY");
+    
+    managementService.executeCommand(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        List<ByteArrayEntity> byteArrays = new ArrayList<ByteArrayEntity>();
+        for (int i=0; i<500; i++) {
+          byteArrays.add(ByteArrayEntity.createAndInsert("test-" + i, new byte[] { (byte) i }));
+        }
+        for (ByteArrayEntity byteArray : byteArrays) {
+          commandContext.getByteArrayEntityManager().deleteByteArray(byteArray);
+        }
+        return null;
+      }
+    });
+    
+    assertEquals(byteArrayCount, managementService.getTableCount().get("ACT_GE_BYTEARRAY").longValue());
+  }
+  
+  protected String getByteArrayId(final String executionId, final String variableName) {
+    return managementService.executeCommand(new Command<String>() {
+      public String execute(CommandContext commandContext) {
+        List<VariableInstanceEntity> variables = commandContext.getVariableInstanceEntityManager().findVariableInstancesByExecutionId(executionId);
+        for (VariableInstanceEntity variable : variables) {
+          if (variableName.equals(variable.getName())) {
+            return variable.getByteArrayValueId();
+          }
+        }
+        return null;
+      }
+    });
+  }
+  
+  protected int getByteArrayRevision(final String byteArrayId) {
+    return managementService.executeCommand(new Command<Integer>() {
+      public Integer execute(CommandContext commandContext) {
+        return commandContext.getByteArrayEntityManager().findById(byteArrayId).getRevision();
+      }
+    });
+  }
+
+}
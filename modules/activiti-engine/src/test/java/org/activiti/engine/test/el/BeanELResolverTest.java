@@ -0,0 +1,68 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.el;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import junit.framework.TestCase;
+
+import org.activiti.engine.impl.javax.el.BeanELResolver;
+import org.activiti.engine.impl.juel.SimpleContext;
+
+/**
+ * Tests that the classes cached by a {@link BeanELResolver} don't keep their class loader alive.
+ */
+public class BeanELResolverTest extends TestCase {
+
+  public void testClassOfOtherClassLoaderNotRetained() throws Exception {
+    BeanELResolver resolver = new BeanELResolver();
+    WeakReference<ClassLoader> classLoaderReference = resolveWithOtherClassLoader(resolver);
+
+    for (int i = 0; i < 20 && classLoaderReference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    assertNull(classLoaderReference.get());
+  }
+
+  public void testClassOfOwnClassLoaderCached() {
+    BeanELResolver resolver = new BeanELResolver();
+    Bean bean = new Bean();
+    assertEquals("bean", resolver.getValue(new SimpleContext(), bean, "name"));
+    assertEquals("BEAN", resolver.invoke(new SimpleContext(), bean, "upperCase", null, new Object[] {"bean"}));
+  }
+
+  protected WeakReference<ClassLoader> resolveWithOtherClassLoader(BeanELResolver resolver) throws Exception {
+    URL classes = Bean.class.getProtectionDomain().getCodeSource().getLocation();
+    ClassLoader classLoader = new URLClassLoader(new URL[] {classes}, null);
+    Object bean = classLoader.loadClass(Bean.class.getName()).newInstance();
+    assertNotSame(Bean.class, bean.getClass());
+
+    assertEquals("bean", resolver.getValue(new SimpleContext(), bean, "name"));
+    assertEquals("BEAN", resolver.invoke(new SimpleContext(), bean, "upperCase", null, new Object[] {"bean"}));
+    return new WeakReference<ClassLoader>(classLoader);
+  }
+
+  public static class Bean {
+
+    public String getName() {
+      return "bean";
+    }
+
+    public String upperCase(String value) {
+      return value.toUpperCase();
+    }
+  }
+}
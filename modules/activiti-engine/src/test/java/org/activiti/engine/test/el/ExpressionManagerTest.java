@@ -16,6 +16,8 @@ package org.activiti.engine.test.el;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.activiti.engine.delegate.Expression;
+import org.activiti.engine.impl.el.ExpressionManager;
 import org.activiti.engine.impl.identity.Authentication;
 import org.activiti.engine.impl.test.PluggableActivitiTestCase;
 import org.activiti.engine.runtime.ProcessInstance;
@@ -31,6 +33,17 @@ public class ExpressionManagerTest extends PluggableActivitiTestCase {
     super.setUp();
   }
   
+  public void testIdenticalExpressionsShared() {
+    ExpressionManager expressionManager = new ExpressionManager();
+    Expression expression = expressionManager.createExpression("${myVar.value}");
+    assertSame(expression, expressionManager.createExpression("${myVar.value}"));
+    assertNotSame(expression, expressionManager.createExpression("${myVar.otherValue}"));
+    assertEquals("${myVar.value}", expression.getExpressionText());
+    
+    expressionManager.setExpressionCache(null);
+    assertNotSame(expressionManager.createExpression("${myVar.value}"), expressionManager.createExpression("${myVar.value}"));
+  }
+  
   @Deployment
   public void testMethodExpressions() {
     // Process contains 2 service tasks. one containing a method with no params, the other
@@ -0,0 +1,66 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.el;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.activiti.engine.impl.juel.Builder;
+import org.activiti.engine.impl.juel.Cache;
+import org.activiti.engine.impl.juel.Tree;
+
+/**
+ * Tests the eviction of the least recently used expression trees from the JUEL {@link Cache}.
+ */
+public class JuelTreeCacheTest extends TestCase {
+  
+  protected Builder builder = new Builder();
+
+  public void testLeastRecentlyUsedEvicted() {
+    Map<String, Tree> secondary = new HashMap<String, Tree>();
+    Cache cache = new Cache(10, secondary);
+    for (int i = 0; i < 10; i++) {
+      put(cache, "${var" + i + "}");
+    }
+    
+    // var0 is used again, so var1 is the least recently used one
+    assertNotNull(cache.get("${var0}"));
+    put(cache, "${var10}");
+    
+    assertNotNull(cache.get("${var0}"));
+    assertNotNull(cache.get("${var10}"));
+    assertEquals(2, secondary.size());
+    assertTrue(secondary.containsKey("${var1}"));
+    assertTrue(secondary.containsKey("${var2}"));
+    
+    // evicted trees are still found in the secondary cache
+    assertNotNull(cache.get("${var1}"));
+  }
+  
+  public void testWithoutSecondaryCache() {
+    Cache cache = new Cache(10, null);
+    for (int i = 0; i < 11; i++) {
+      put(cache, "${var" + i + "}");
+    }
+    assertNull(cache.get("${var0}"));
+    assertNull(cache.get("${var1}"));
+    assertNotNull(cache.get("${var2}"));
+    assertNotNull(cache.get("${var10}"));
+  }
+  
+  protected void put(Cache cache, String expression) {
+    cache.put(expression, builder.build(expression));
+  }
+}
@@ -0,0 +1,222 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.history;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiIllegalArgumentException;
+import org.activiti.engine.history.HistoricProcessInstancePurgeListener;
+import org.activiti.engine.impl.history.HistoryLevel;
+import org.activiti.engine.impl.jobexecutor.HistoricProcessInstancePurgeJobHandler;
+import org.activiti.engine.impl.persistence.entity.TimerEntity;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.runtime.Job;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+public class HistoricProcessInstancePurgeTest extends PluggableActivitiTestCase {
+
+  @Deployment(resources = {"org/activiti/engine/test/history/oneTaskProcess.bpmn20.xml"})
+  public void testPurgeByProcessDefinitionKey() {
+    if (processEngineConfiguration.getHistoryLevel().isAtLeast(HistoryLevel.AUDIT)) {
+      for (int i = 0; i < 3; i++) {
+        completeProcessInstanceWithHistory();
+      }
+      ProcessInstance runningProcessInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess");
+      assertEquals(4, historyService.createHistoricProcessInstanceQuery().count());
+
+      final List<Integer> purgedChunks = new ArrayList<Integer>();
+      long purged = historyService.createHistoricProcessInstancePurge()
+        .processDefinitionKey("oneTaskProcess")
+        .batchSize(2)
+        .progressListener(new HistoricProcessInstancePurgeListener() {
+          public void chunkPurged(int purgedInChunk, long purgedTotal) {
+            purgedChunks.add(purgedInChunk);
+          }
+        })
+        .execute();
+
+      assertEquals(3, purged);
+      assertEquals(2, purgedChunks.size());
+      assertEquals(2, purgedChunks.get(0).intValue());
+      assertEquals(1, purgedChunks.get(1).intValue());
+
+      // The history of the running process instance is left alone
+      assertEquals(runningProcessInstance.getId(), historyService.createHistoricProcessInstanceQuery().singleResult().getId());
+      assertEquals(1, historyService.createHistoricTaskInstanceQuery().count());
+      assertEquals(0, historyService.createHistoricVariableInstanceQuery().count());
+      assertEquals(0, historyService.createHistoricDetailQuery().count());
+      assertEquals(0, taskService.getProcessInstanceComments(runningProcessInstance.getId()).size());
+
+      // Nothing left to purge
+      assertEquals(0, historyService.createHistoricProcessInstancePurge().processDefinitionKey("oneTaskProcess").execute());
+    }
+  }
+
+  @Deployment(resources = {"org/activiti/engine/test/history/oneTaskProcess.bpmn20.xml"})
+  public void testPurgeByTenant() {
+    if (processEngineConfiguration.getHistoryLevel().isAtLeast(HistoryLevel.AUDIT)) {
+      completeProcessInstanceWithHistory();
+
+      assertEquals(0, historyService.createHistoricProcessInstancePurge().tenantId("otherTenant").execute());
+      assertEquals(1, historyService.createHistoricProcessInstanceQuery().count());
+
+      assertEquals(1, historyService.createHistoricProcessInstancePurge().execute());
+      assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+    }
+  }
+
+  @Deployment(resources = {
+    "org/activiti/engine/test/history/HistoricProcessInstanceTest.testDeleteHistoricProcessInstanceWithCallActivity.bpmn20.xml",
+    "org/activiti/engine/test/history/HistoricProcessInstanceTest.testDeleteHistoricProcessInstanceWithCallActivity-subprocess.bpmn20.xml"
+  })
+  public void testPurgeFinishedBeforeIncludesSubProcessInstances() {
+    if (processEngineConfiguration.getHistoryLevel().isAtLeast(HistoryLevel.AUDIT)) {
+      Calendar calendar = Calendar.getInstance();
+      calendar.set(Calendar.MILLISECOND, 0);
+      processEngineConfiguration.getClock().setCurrentTime(calendar.getTime());
+
+      runtimeService.startProcessInstanceByKey("callSimpleSubProcess");
+      taskService.complete(taskService.createTaskQuery().singleResult().getId());
+      assertEquals(2, historyService.createHistoricProcessInstanceQuery().finished().count());
+
+      // Both process instances finished now, not 10 days ago
+      assertEquals(0, historyService.createHistoricProcessInstancePurge().finishedDaysAgo(10).execute());
+      assertEquals(0, historyService.createHistoricProcessInstancePurge().finishedBefore(calendar.getTime()).execute());
+
+      calendar.add(Calendar.DAY_OF_YEAR, 11);
+      processEngineConfiguration.getClock().setCurrentTime(calendar.getTime());
+
+      // Only the super process instance is selected, the sub process instance is purged with it
+      assertEquals(2, historyService.createHistoricProcessInstancePurge()
+        .processDefinitionKey("callSimpleSubProcess")
+        .finishedDaysAgo(10)
+        .execute());
+      assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+      assertEquals(0, historyService.createHistoricActivityInstanceQuery().count());
+      assertEquals(0, historyService.createHistoricTaskInstanceQuery().count());
+    }
+  }
+
+  @Deployment(resources = {
+    "org/activiti/engine/test/history/HistoricProcessInstanceTest.testDeleteHistoricProcessInstanceWithCallActivity.bpmn20.xml",
+    "org/activiti/engine/test/history/HistoricProcessInstanceTest.testDeleteHistoricProcessInstanceWithCallActivity-subprocess.bpmn20.xml"
+  })
+  public void testPurgeSubProcessInstancesFirstWhenChunkIsFull() {
+    if (processEngineConfiguration.getHistoryLevel().isAtLeast(HistoryLevel.AUDIT)) {
+      final ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("callSimpleSubProcess");
+      taskService.complete(taskService.createTaskQuery().singleResult().getId());
+      assertEquals(2, historyService.createHistoricProcessInstanceQuery().finished().count());
+
+      // The sub process instance doesn't fit in the chunk of its super process instance
+      final List<Integer> purgedChunks = new ArrayList<Integer>();
+      long purged = historyService.createHistoricProcessInstancePurge()
+        .processDefinitionKey("callSimpleSubProcess")
+        .batchSize(1)
+        .progressListener(new HistoricProcessInstancePurgeListener() {
+          public void chunkPurged(int purgedInChunk, long purgedTotal) {
+            purgedChunks.add(purgedInChunk);
+            if (purgedChunks.size() == 1) {
+              // the super process instance is left for the next chunk
+              assertEquals(processInstance.getId(), historyService.createHistoricProcessInstanceQuery().singleResult().getId());
+            }
+          }
+        })
+        .execute();
+
+      assertEquals(2, purged);
+      assertEquals(2, purgedChunks.size());
+      assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+      assertEquals(0, historyService.createHistoricActivityInstanceQuery().count());
+    }
+  }
+
+  @Deployment(resources = {"org/activiti/engine/test/history/oneTaskProcess.bpmn20.xml"})
+  public void testSchedulePurge() {
+    if (processEngineConfiguration.getHistoryLevel().isAtLeast(HistoryLevel.AUDIT)) {
+      completeProcessInstanceWithHistory();
+
+      String jobId = historyService.createHistoricProcessInstancePurge()
+        .processDefinitionKey("oneTaskProcess")
+        .finishedDaysAgo(1)
+        .schedule("R/PT1H");
+
+      TimerEntity timer = (TimerEntity) managementService.createJobQuery().timers().singleResult();
+      assertEquals(jobId, timer.getId());
+      assertEquals(HistoricProcessInstancePurgeJobHandler.TYPE, timer.getJobHandlerType());
+      assertEquals("R/PT1H", timer.getRepeat());
+
+      managementService.executeJob(jobId);
+      assertEquals(1, historyService.createHistoricProcessInstanceQuery().count());
+
+      Calendar calendar = Calendar.getInstance();
+      calendar.add(Calendar.DAY_OF_YEAR, 2);
+      processEngineConfiguration.getClock().setCurrentTime(calendar.getTime());
+
+      // The timer repeats itself
+      Job nextJob = managementService.createJobQuery().timers().singleResult();
+      assertFalse(jobId.equals(nextJob.getId()));
+      managementService.executeJob(nextJob.getId());
+      assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+
+      managementService.deleteJob(managementService.createJobQuery().timers().singleResult().getId());
+    }
+  }
+
+  public void testInvalidPurge() {
+    try {
+      historyService.createHistoricProcessInstancePurge().batchSize(1001);
+      fail("Exception expected");
+    } catch (ActivitiIllegalArgumentException e) {
+      assertTextPresent("Batch size must be between 1 and 1000", e.getMessage());
+    }
+
+    try {
+      historyService.createHistoricProcessInstancePurge().finishedDaysAgo(-1);
+      fail("Exception expected");
+    } catch (ActivitiIllegalArgumentException e) {
+      assertTextPresent("Number of days is negative", e.getMessage());
+    }
+
+    try {
+      historyService.createHistoricProcessInstancePurge().schedule(null);
+      fail("Exception expected");
+    } catch (ActivitiIllegalArgumentException e) {
+      assertTextPresent("Cycle is null", e.getMessage());
+    }
+  }
+
+  /**
+   * Completes a process instance with variables (one stored as byte array), a comment,
+   * an identity link and an attachment with content.
+   */
+  protected void completeProcessInstanceWithHistory() {
+    Map<String, Object> variables = new HashMap<String, Object>();
+    variables.put("text", "value");
+    variables.put("bytes", "content".getBytes());
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess", variables);
+    runtimeService.addUserIdentityLink(processInstance.getId(), "kermit", "participant");
+
+    Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    taskService.addComment(task.getId(), processInstance.getId(), "a comment");
+    taskService.createAttachment("text", task.getId(), null, "attachment", null, new ByteArrayInputStream("content".getBytes()));
+    taskService.complete(task.getId());
+  }
+
+}
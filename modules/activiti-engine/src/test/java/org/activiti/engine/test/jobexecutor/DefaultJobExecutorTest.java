@@ -0,0 +1,190 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.jobexecutor;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.jobexecutor.DefaultJobExecutor;
+import org.activiti.engine.impl.jobexecutor.UnlockRejectedJobsHandler;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.MessageEntity;
+
+/**
+ * Tests the capacity, pool sizing and rejection handling of the {@link DefaultJobExecutor}.
+ */
+public class DefaultJobExecutorTest extends JobExecutorTestCase {
+  
+  protected TestJobExecutor jobExecutor;
+  protected CountDownLatch blockingLatch;
+  
+  public void setUp() throws Exception {
+    super.setUp();
+    blockingLatch = new CountDownLatch(1);
+    jobExecutor = new TestJobExecutor();
+    jobExecutor.setCommandExecutor(processEngineConfiguration.getCommandExecutor());
+    jobExecutor.setRejectedJobsHandler(new UnlockRejectedJobsHandler());
+    jobExecutor.setWaitTimeInMillis(60000);
+    jobExecutor.setCorePoolSize(1);
+    jobExecutor.setMaxPoolSize(1);
+    jobExecutor.setQueueSize(1);
+  }
+  
+  public void tearDown() throws Exception {
+    blockingLatch.countDown();
+    jobExecutor.shutdown();
+    super.tearDown();
+  }
+
+  public void testAvailableCapacity() throws Exception {
+    assertEquals(Integer.MAX_VALUE, jobExecutor.getAvailableCapacity());
+    
+    jobExecutor.start();
+    assertEquals(2, jobExecutor.getAvailableCapacity());
+    
+    // occupy the only thread and the only place in the queue
+    jobExecutor.getThreadPoolExecutor().execute(new BlockingRunnable());
+    jobExecutor.getThreadPoolExecutor().execute(new BlockingRunnable());
+    waitForActiveThreads(1);
+    
+    assertEquals(0, jobExecutor.getAvailableCapacity());
+    assertEquals(1, jobExecutor.getQueueDepth());
+    assertEquals(1, jobExecutor.getActiveThreadCount());
+    assertEquals(1, jobExecutor.getJobsToAcquire());
+    
+    assertFalse(jobExecutor.executeLockedJobs(Collections.singletonList("someJob")));
+    assertEquals(1, jobExecutor.getRejectedJobBatchCount());
+    
+    blockingLatch.countDown();
+    waitForActiveThreads(0);
+    assertEquals(2, jobExecutor.getAvailableCapacity());
+    assertEquals(2, jobExecutor.getExecutedJobBatchCount());
+  }
+  
+  public void testRejectedJobsUnlocked() throws Exception {
+    final String jobId = processEngineConfiguration.getCommandExecutor().execute(new Command<String>() {
+      public String execute(CommandContext commandContext) {
+        MessageEntity message = createTweetMessage("rejected");
+        message.setLockOwner(jobExecutor.getLockOwner());
+        message.setLockExpirationTime(new Date(System.currentTimeMillis() + 60000));
+        commandContext.getJobEntityManager().send(message);
+        return message.getId();
+      }
+    });
+    
+    jobExecutor.start();
+    jobExecutor.getThreadPoolExecutor().execute(new BlockingRunnable());
+    jobExecutor.getThreadPoolExecutor().execute(new BlockingRunnable());
+    waitForActiveThreads(1);
+    
+    jobExecutor.executeJobs(Collections.singletonList(jobId));
+    assertEquals(1, jobExecutor.getRejectedJobBatchCount());
+    
+    JobEntity job = (JobEntity) managementService.createJobQuery().jobId(jobId).singleResult();
+    assertNull(job.getLockOwner());
+    assertNull(job.getLockExpirationTime());
+    
+    managementService.deleteJob(jobId);
+  }
+  
+  public void testAdaptivePoolSizing() throws Exception {
+    jobExecutor.setMaxPoolSize(3);
+    jobExecutor.setAdaptivePoolSizingEnabled(true);
+    jobExecutor.setPoolSizeAdjustmentIntervalMillis(0);
+    jobExecutor.start();
+    
+    // a batch is waiting in the queue: one more core thread is added
+    jobExecutor.getThreadPoolExecutor().execute(new BlockingRunnable());
+    jobExecutor.getThreadPoolExecutor().execute(new BlockingRunnable());
+    waitForActiveThreads(1);
+    jobExecutor.adjustPoolSize();
+    assertEquals(2, jobExecutor.getThreadPoolExecutor().getCorePoolSize());
+    waitForQueueDepth(0);
+    waitForActiveThreads(2);
+    
+    // never more than the max pool size
+    jobExecutor.getThreadPoolExecutor().execute(new BlockingRunnable());
+    jobExecutor.adjustPoolSize();
+    waitForQueueDepth(0);
+    waitForActiveThreads(3);
+    jobExecutor.getThreadPoolExecutor().execute(new BlockingRunnable());
+    jobExecutor.adjustPoolSize();
+    assertEquals(3, jobExecutor.getThreadPoolExecutor().getCorePoolSize());
+    assertEquals(3, jobExecutor.getCurrentPoolSize());
+    
+    // idle again: shrinks back to the configured core pool size 
+    blockingLatch.countDown();
+    waitForActiveThreads(0);
+    jobExecutor.resetStatistics();
+    jobExecutor.adjustPoolSize();
+    jobExecutor.adjustPoolSize();
+    jobExecutor.adjustPoolSize();
+    assertEquals(1, jobExecutor.getThreadPoolExecutor().getCorePoolSize());
+  }
+  
+  protected void waitForActiveThreads(int activeThreads) throws InterruptedException {
+    long maxWait = System.currentTimeMillis() + 5000;
+    while ((jobExecutor.getActiveThreadCount() != activeThreads || (activeThreads == 0 && jobExecutor.getQueueDepth() > 0)) 
+            && System.currentTimeMillis() < maxWait) {
+      Thread.sleep(10);
+    }
+    assertEquals(activeThreads, jobExecutor.getActiveThreadCount());
+  }
+  
+  /** 
+   * A newly added thread already counts as active before it took its batch from the queue, 
+   * so waiting for the active threads alone doesn't guarantee a free place in the queue.
+   */
+  protected void waitForQueueDepth(int queueDepth) throws InterruptedException {
+    long maxWait = System.currentTimeMillis() + 5000;
+    while (jobExecutor.getQueueDepth() != queueDepth && System.currentTimeMillis() < maxWait) {
+      Thread.sleep(10);
+    }
+    assertEquals(queueDepth, jobExecutor.getQueueDepth());
+  }
+  
+  protected class BlockingRunnable implements Runnable {
+    public void run() {
+      try {
+        blockingLatch.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        // finish
+      }
+    }
+  }
+  
+  protected static class TestJobExecutor extends DefaultJobExecutor {
+    
+    // the tests hand batches to the thread pool themselves, acquired jobs would only get in the way
+    protected void startJobAcquisitionThread() {
+    }
+    
+    protected void stopJobAcquisitionThread() {
+    }
+    
+    public void adjustPoolSize() {
+      super.adjustPoolSize();
+    }
+    
+    public void resetStatistics() {
+      synchronized (statisticsLock) {
+        averageQueueLatencyMillis = 0;
+      }
+    }
+  }
+
+}
@@ -23,6 +23,7 @@ import org.activiti.engine.impl.interceptor.CommandContext;
 import org.activiti.engine.impl.interceptor.CommandExecutor;
 import org.activiti.engine.impl.jobexecutor.AcquiredJobs;
 import org.activiti.engine.impl.jobexecutor.JobExecutor;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
 import org.activiti.engine.impl.persistence.entity.MessageEntity;
 import org.activiti.engine.impl.persistence.entity.TimerEntity;
 
@@ -104,4 +105,151 @@ public class JobExecutorCmdHappyTest extends JobExecutorTestCase {
     assertEquals("i'm coding a test", tweetHandler.getMessages().get(0));
     assertEquals(1, tweetHandler.getMessages().size());
   }
+
+  public void testExclusiveJobsOfProcessInstanceAcquiredInOneBatch() {
+    CommandExecutor commandExecutor = processEngineConfiguration.getCommandExecutor();
+    JobExecutor jobExecutor = processEngineConfiguration.getJobExecutor();
+    
+    final List<String> jobIds = createJobsForProcessInstances(commandExecutor);
+    
+    int maxJobsPerAcquisition = jobExecutor.getMaxJobsPerAcquisition();
+    jobExecutor.setMaxJobsPerAcquisition(10);
+    try {
+      AcquiredJobs acquiredJobs = commandExecutor.execute(new AcquireJobsCmd(jobExecutor));
+      assertAcquiredJobsOfProcessInstances(jobIds, acquiredJobs);
+      
+      // all jobs are locked, nothing left to acquire
+      assertEquals(0, commandExecutor.execute(new AcquireJobsCmd(jobExecutor)).size());
+      assertLocked(commandExecutor, jobIds, jobExecutor.getLockOwner());
+    } finally {
+      jobExecutor.setMaxJobsPerAcquisition(maxJobsPerAcquisition);
+    }
+    
+    executeJobs(commandExecutor, jobIds);
+  }
+  
+  public void testBulkLockAcquiredJobs() {
+    CommandExecutor commandExecutor = processEngineConfiguration.getCommandExecutor();
+    JobExecutor jobExecutor = processEngineConfiguration.getJobExecutor();
+    
+    final List<String> jobIds = createJobsForProcessInstances(commandExecutor);
+    
+    int maxJobsPerAcquisition = jobExecutor.getMaxJobsPerAcquisition();
+    jobExecutor.setMaxJobsPerAcquisition(10);
+    jobExecutor.setBulkLockEnabled(true);
+    try {
+      AcquiredJobs acquiredJobs = commandExecutor.execute(new AcquireJobsCmd(jobExecutor));
+      assertAcquiredJobsOfProcessInstances(jobIds, acquiredJobs);
+      
+      assertEquals(0, commandExecutor.execute(new AcquireJobsCmd(jobExecutor)).size());
+      assertLocked(commandExecutor, jobIds, jobExecutor.getLockOwner());
+      
+      // the check used when the driver doesn't report the number of locked jobs
+      final String lockOwner = jobExecutor.getLockOwner();
+      long lockedJobs = commandExecutor.execute(new Command<Long>() {
+        public Long execute(CommandContext commandContext) {
+          return commandContext.getJobEntityManager().findJobCountByIdsAndLockOwner(jobIds, lockOwner);
+        }
+      });
+      assertEquals(jobIds.size(), lockedJobs);
+    } finally {
+      jobExecutor.setMaxJobsPerAcquisition(maxJobsPerAcquisition);
+      jobExecutor.setBulkLockEnabled(false);
+    }
+    
+    executeJobs(commandExecutor, jobIds);
+  }
+  
+  public void testExclusiveJobNotAcquiredWhileOtherExclusiveJobIsLocked() {
+    CommandExecutor commandExecutor = processEngineConfiguration.getCommandExecutor();
+    JobExecutor jobExecutor = processEngineConfiguration.getJobExecutor();
+    
+    String firstJobId = commandExecutor.execute(new Command<String>() {
+      public String execute(CommandContext commandContext) {
+        return sendTweetMessage(commandContext, "first", "pi1", true);
+      }
+    });
+    AcquiredJobs acquiredJobs = commandExecutor.execute(new AcquireJobsCmd(jobExecutor));
+    assertEquals(1, acquiredJobs.size());
+    assertTrue(acquiredJobs.contains(firstJobId));
+    
+    String secondJobId = commandExecutor.execute(new Command<String>() {
+      public String execute(CommandContext commandContext) {
+        return sendTweetMessage(commandContext, "second", "pi1", true);
+      }
+    });
+    
+    // the first job of the process instance is still locked
+    assertEquals(0, commandExecutor.execute(new AcquireJobsCmd(jobExecutor)).size());
+    
+    commandExecutor.execute(new ExecuteJobsCmd(firstJobId));
+    acquiredJobs = commandExecutor.execute(new AcquireJobsCmd(jobExecutor));
+    assertEquals(1, acquiredJobs.size());
+    assertTrue(acquiredJobs.contains(secondJobId));
+    
+    commandExecutor.execute(new ExecuteJobsCmd(secondJobId));
+    assertEquals(2, tweetHandler.getMessages().size());
+  }
+  
+  /**
+   * Creates two exclusive jobs for process instance 'pi1', one for 'pi2' 
+   * and a non-exclusive one for 'pi1'.
+   */
+  protected List<String> createJobsForProcessInstances(CommandExecutor commandExecutor) {
+    return commandExecutor.execute(new Command<List<String>>() {
+
+      public List<String> execute(CommandContext commandContext) {
+        List<String> jobIds = new ArrayList<String>();
+        jobIds.add(sendTweetMessage(commandContext, "pi1 first", "pi1", true));
+        jobIds.add(sendTweetMessage(commandContext, "pi1 second", "pi1", true));
+        jobIds.add(sendTweetMessage(commandContext, "pi2", "pi2", true));
+        jobIds.add(sendTweetMessage(commandContext, "pi1 non exclusive", "pi1", false));
+        return jobIds;
+      }
+    });
+  }
+  
+  protected String sendTweetMessage(CommandContext commandContext, String msg, String processInstanceId, boolean exclusive) {
+    MessageEntity message = createTweetMessage(msg);
+    message.setProcessInstanceId(processInstanceId);
+    message.setExclusive(exclusive);
+    commandContext.getJobEntityManager().send(message);
+    return message.getId();
+  }
+  
+  protected void assertAcquiredJobsOfProcessInstances(List<String> jobIds, AcquiredJobs acquiredJobs) {
+    assertEquals(4, acquiredJobs.size());
+    
+    List<List<String>> jobIdBatches = acquiredJobs.getJobIdBatches();
+    assertEquals(3, jobIdBatches.size());
+    for (List<String> jobIdBatch : jobIdBatches) {
+      if (jobIdBatch.contains(jobIds.get(0))) {
+        assertEquals(2, jobIdBatch.size());
+        assertTrue(jobIdBatch.contains(jobIds.get(1)));
+      } else {
+        assertEquals(1, jobIdBatch.size());
+      }
+    }
+  }
+  
+  protected void assertLocked(CommandExecutor commandExecutor, final List<String> jobIds, final String lockOwner) {
+    commandExecutor.execute(new Command<Void>() {
+
+      public Void execute(CommandContext commandContext) {
+        for (String jobId : jobIds) {
+          JobEntity job = commandContext.getJobEntityManager().findJobById(jobId);
+          assertEquals(lockOwner, job.getLockOwner());
+          assertNotNull(job.getLockExpirationTime());
+        }
+        return null;
+      }
+    });
+  }
+  
+  protected void executeJobs(CommandExecutor commandExecutor, List<String> jobIds) {
+    for (String jobId : jobIds) {
+      commandExecutor.execute(new ExecuteJobsCmd(jobId));
+    }
+    assertEquals(jobIds.size(), tweetHandler.getMessages().size());
+  }
 }
@@ -0,0 +1,138 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.engine.test.jobexecutor;
+
+import java.util.List;
+
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.jobexecutor.AcquiredJobs;
+import org.activiti.engine.impl.jobexecutor.JobExecutor;
+import org.activiti.engine.impl.jobexecutor.LockedJobsAddedNotification;
+import org.activiti.engine.impl.persistence.entity.JobEntity;
+import org.activiti.engine.impl.persistence.entity.MessageEntity;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.runtime.Job;
+import org.activiti.engine.test.Deployment;
+
+/**
+ * Tests for the local job queue of the job executor.
+ */
+public class LocalJobQueueTest extends PluggableActivitiTestCase {
+
+  @Deployment(resources = "org/activiti/engine/test/jobexecutor/LocalJobQueueTest.asyncUserTask.bpmn20.xml")
+  public void testAsyncContinuationExecutedWithoutAcquisition() throws Exception {
+    JobExecutor jobExecutor = processEngineConfiguration.getJobExecutor();
+    int waitTimeInMillis = jobExecutor.getWaitTimeInMillis();
+    jobExecutor.setLocalJobQueueEnabled(true);
+    // the acquisition shouldn't wake up by itself during this test
+    jobExecutor.setWaitTimeInMillis(60000);
+    jobExecutor.start();
+    try {
+      String processInstanceId = runtimeService.startProcessInstanceByKey("asyncUserTask").getId();
+      
+      long maxWait = System.currentTimeMillis() + 10000;
+      while (taskService.createTaskQuery().processInstanceId(processInstanceId).count() == 0 
+              && System.currentTimeMillis() < maxWait) {
+        Thread.sleep(25);
+      }
+      
+      assertEquals(1, taskService.createTaskQuery().processInstanceId(processInstanceId).count());
+      assertEquals(0, managementService.createJobQuery().count());
+      
+    } finally {
+      jobExecutor.shutdown();
+      jobExecutor.setLocalJobQueueEnabled(false);
+      jobExecutor.setWaitTimeInMillis(waitTimeInMillis);
+    }
+  }
+  
+  @Deployment(resources = "org/activiti/engine/test/jobexecutor/LocalJobQueueTest.asyncUserTask.bpmn20.xml")
+  public void testJobNotLockedWhenJobExecutorNotActive() {
+    JobExecutor jobExecutor = processEngineConfiguration.getJobExecutor();
+    jobExecutor.setLocalJobQueueEnabled(true);
+    try {
+      runtimeService.startProcessInstanceByKey("asyncUserTask");
+      
+      Job job = managementService.createJobQuery().singleResult();
+      assertNotNull(job);
+      assertNull(((JobEntity) job).getLockOwner());
+      
+      waitForJobExecutorToProcessAllJobs(5000L, 25L);
+      assertEquals(1, taskService.createTaskQuery().count());
+      
+    } finally {
+      jobExecutor.setLocalJobQueueEnabled(false);
+    }
+  }
+  
+  @Deployment(resources = "org/activiti/engine/test/jobexecutor/LocalJobQueueTest.receiveThenAsyncUserTask.bpmn20.xml")
+  public void testExclusiveJobOfExistingProcessInstanceLeftToAcquisition() {
+    JobExecutor jobExecutor = processEngineConfiguration.getJobExecutor();
+    int waitTimeInMillis = jobExecutor.getWaitTimeInMillis();
+    Command<AcquiredJobs> acquireJobsCmd = jobExecutor.getAcquireJobsCmd();
+    jobExecutor.setLocalJobQueueEnabled(true);
+    jobExecutor.setWaitTimeInMillis(60000);
+    // the job is left to the acquisition, which would lock it as soon as it is committed
+    jobExecutor.setAcquireJobsCmd(new Command<AcquiredJobs>() {
+      public AcquiredJobs execute(CommandContext commandContext) {
+        return new AcquiredJobs();
+      }
+    });
+    jobExecutor.start();
+    try {
+      String processInstanceId = runtimeService.startProcessInstanceByKey("receiveThenAsyncUserTask").getId();
+      runtimeService.signal(runtimeService.createExecutionQuery()
+              .processInstanceId(processInstanceId).activityId("receive").singleResult().getId());
+      
+      // an exclusive job of another transaction could be executed right now
+      Job job = managementService.createJobQuery().processInstanceId(processInstanceId).singleResult();
+      assertNotNull(job);
+      assertNull(((JobEntity) job).getLockOwner());
+      
+    } finally {
+      jobExecutor.shutdown();
+      jobExecutor.setAcquireJobsCmd(acquireJobsCmd);
+      jobExecutor.setLocalJobQueueEnabled(false);
+      jobExecutor.setWaitTimeInMillis(waitTimeInMillis);
+    }
+    
+    waitForJobExecutorToProcessAllJobs(5000L, 25L);
+    assertEquals(1, taskService.createTaskQuery().count());
+  }
+  
+  public void testExclusiveJobsOfProcessInstanceQueuedAsOneBatch() {
+    LockedJobsAddedNotification notification = new LockedJobsAddedNotification(processEngineConfiguration.getJobExecutor());
+    notification.addJob(createMessage("1", "pi1", true));
+    notification.addJob(createMessage("2", "pi2", true));
+    notification.addJob(createMessage("3", "pi1", true));
+    notification.addJob(createMessage("4", "pi1", false));
+    
+    List<List<String>> jobIdBatches = notification.getJobIdBatches();
+    assertEquals(3, jobIdBatches.size());
+    assertEquals(2, jobIdBatches.get(0).size());
+    assertTrue(jobIdBatches.get(0).contains("1"));
+    assertTrue(jobIdBatches.get(0).contains("3"));
+    assertEquals(1, jobIdBatches.get(1).size());
+    assertEquals(1, jobIdBatches.get(2).size());
+  }
+  
+  protected MessageEntity createMessage(String id, String processInstanceId, boolean exclusive) {
+    MessageEntity message = new MessageEntity();
+    message.setId(id);
+    message.setProcessInstanceId(processInstanceId);
+    message.setExclusive(exclusive);
+    return message;
+  }
+  
+}
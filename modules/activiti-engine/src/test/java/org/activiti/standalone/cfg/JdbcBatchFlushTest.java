@@ -0,0 +1,83 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.cfg;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.activiti.engine.ActivitiOptimisticLockingException;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+/**
+ * Runs the engine with {@link org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl#setJdbcBatchFlushEnabled(boolean)}.
+ */
+public class JdbcBatchFlushTest extends ResourceActivitiTestCase {
+  
+  public JdbcBatchFlushTest() {
+    super("org/activiti/standalone/cfg/jdbc-batch-flush.activiti.cfg.xml");
+  }
+  
+  @Deployment(resources = { "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml" })
+  public void testProcessWithVariables() {
+    Map<String, Object> variables = new HashMap<String, Object>();
+    for (int i=0; i<20; i++) {
+      variables.put("var" + i, i);
+    }
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("oneTaskProcess", variables);
+    assertEquals(20, runtimeService.getVariables(processInstance.getId()).size());
+    
+    // Updates and deletes in one flush
+    Map<String, Object> updatedVariables = new HashMap<String, Object>();
+    for (int i=0; i<10; i++) {
+      updatedVariables.put("var" + i, i * 100);
+    }
+    runtimeService.setVariables(processInstance.getId(), updatedVariables);
+    runtimeService.removeVariable(processInstance.getId(), "var19");
+    
+    Map<String, Object> currentVariables = runtimeService.getVariables(processInstance.getId());
+    assertEquals(19, currentVariables.size());
+    assertEquals(500, currentVariables.get("var5"));
+    assertEquals(15, currentVariables.get("var15"));
+    
+    Task task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    taskService.complete(task.getId());
+    
+    assertProcessEnded(processInstance.getId());
+    assertEquals(0, runtimeService.createExecutionQuery().count());
+    assertEquals(0, taskService.createTaskQuery().count());
+  }
+  
+  @Deployment(resources = { "org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml" })
+  public void testOptimisticLockingOnBatchedUpdate() {
+    runtimeService.startProcessInstanceByKey("oneTaskProcess");
+    
+    Task task1 = taskService.createTaskQuery().singleResult();
+    Task task2 = taskService.createTaskQuery().singleResult();
+    
+    task1.setDescription("test description one");
+    taskService.saveTask(task1);
+    
+    try {
+      task2.setDescription("test description two");
+      taskService.saveTask(task2);
+      
+      fail("Expecting exception");
+    } catch(ActivitiOptimisticLockingException e) {
+      // Expected exception
+    }
+  }
+  
+}
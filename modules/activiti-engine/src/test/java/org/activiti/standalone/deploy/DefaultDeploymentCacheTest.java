@@ -0,0 +1,163 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.deploy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.activiti.engine.impl.persistence.deploy.DefaultDeploymentCache;
+import org.activiti.engine.impl.persistence.deploy.DeploymentCacheWeigher;
+import org.activiti.engine.management.CacheStatistics;
+
+public class DefaultDeploymentCacheTest extends TestCase {
+  
+  public void testLeastRecentlyUsedElementIsEvicted() {
+    DefaultDeploymentCache<String> cache = new DefaultDeploymentCache<String>(2);
+    cache.add("a", "A");
+    cache.add("b", "B");
+    assertEquals("A", cache.get("a"));
+    
+    cache.add("c", "C");
+    assertEquals(2, cache.size());
+    assertEquals("A", cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals("C", cache.get("c"));
+  }
+  
+  public void testTenthOfLimitIsEvictedAtOnce() {
+    DefaultDeploymentCache<String> cache = new DefaultDeploymentCache<String>(20);
+    for (int i = 0; i < 20; i++) {
+      cache.add("id" + i, "value" + i);
+    }
+    assertEquals(20, cache.size());
+    
+    cache.add("id20", "value20");
+    assertEquals(18, cache.size());
+    assertNull(cache.get("id0"));
+    assertNull(cache.get("id1"));
+    assertNull(cache.get("id2"));
+    assertEquals("value3", cache.get("id3"));
+    assertEquals("value20", cache.get("id20"));
+    assertEquals(3, cache.getStatistics().getEvictionCount());
+  }
+  
+  public void testWeightLimit() {
+    DefaultDeploymentCache<String> cache = new DefaultDeploymentCache<String>(-1, 10, new DeploymentCacheWeigher<String>() {
+      public long weigh(String object) {
+        return object.length();
+      }
+    });
+    cache.add("a", "aaaa");
+    cache.add("b", "bbbb");
+    assertEquals(2, cache.size());
+    
+    cache.add("c", "cccc");
+    assertEquals(2, cache.size());
+    assertNull(cache.get("a"));
+    assertEquals(8, cache.getStatistics().getWeight());
+    
+    // An element heavier than the limit is still cached
+    cache.add("d", "ddddddddddddddd");
+    assertEquals(1, cache.size());
+    assertEquals("ddddddddddddddd", cache.get("d"));
+    
+    cache.remove("d");
+    assertEquals(0, cache.getStatistics().getWeight());
+  }
+  
+  public void testStatistics() {
+    DefaultDeploymentCache<String> cache = new DefaultDeploymentCache<String>(1);
+    cache.add("a", "A");
+    cache.get("a");
+    cache.get("a");
+    cache.get("b");
+    cache.add("b", "B");
+    cache.recordLoad(10);
+    
+    CacheStatistics statistics = cache.getStatistics();
+    assertEquals(1, statistics.getSize());
+    assertEquals(2, statistics.getHitCount());
+    assertEquals(1, statistics.getMissCount());
+    assertEquals(1, statistics.getEvictionCount());
+    assertEquals(1, statistics.getLoadCount());
+    assertEquals(10, statistics.getTotalLoadTimeInMillis());
+  }
+  
+  public void testStatisticsNotRecorded() {
+    DefaultDeploymentCache<String> cache = new DefaultDeploymentCache<String>(1, false);
+    cache.add("a", "A");
+    assertEquals("A", cache.get("a"));
+    assertNull(cache.get("b"));
+    cache.add("b", "B");
+    
+    CacheStatistics statistics = cache.getStatistics();
+    assertEquals(0, statistics.getHitCount());
+    assertEquals(0, statistics.getMissCount());
+    assertEquals(1, statistics.getEvictionCount());
+  }
+  
+  public void testEvictedElementsArePassedOn() {
+    final List<String> evicted = new ArrayList<String>();
+    DefaultDeploymentCache<String> cache = new DefaultDeploymentCache<String>(2) {
+      protected void evicted(String id, String value) {
+        evicted.add(id + "=" + value);
+      }
+    };
+    cache.add("a", "A");
+    cache.add("b", "B");
+    cache.get("a");
+    cache.add("c", "C");
+    assertEquals(1, evicted.size());
+    assertEquals("b=B", evicted.get(0));
+    
+    // removing isn't evicting
+    cache.remove("a");
+    assertEquals(1, evicted.size());
+  }
+  
+  public void testConcurrentAccess() throws Exception {
+    final DefaultDeploymentCache<String> cache = new DefaultDeploymentCache<String>(50);
+    final List<Throwable> errors = new ArrayList<Throwable>();
+    
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    for (int i=0; i<8; i++) {
+      executorService.execute(new Runnable() {
+        public void run() {
+          try {
+            for (int j=0; j<5000; j++) {
+              String id = "id" + (j % 100);
+              if (cache.get(id) == null) {
+                cache.add(id, id);
+              }
+            }
+          } catch (Throwable t) {
+            synchronized (errors) {
+              errors.add(t);
+            }
+          }
+        }
+      });
+    }
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+    
+    assertTrue(errors.isEmpty());
+    assertTrue(cache.size() <= 50);
+  }
+
+}
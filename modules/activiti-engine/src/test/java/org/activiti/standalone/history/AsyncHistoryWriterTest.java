@@ -0,0 +1,260 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.history;
+
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.history.HistoricActivityInstance;
+import org.activiti.engine.history.HistoricProcessInstance;
+import org.activiti.engine.history.HistoricTaskInstance;
+import org.activiti.engine.history.HistoricVariableInstance;
+import org.activiti.engine.impl.history.AsyncHistoryBatch;
+import org.activiti.engine.impl.history.AsyncHistoryRecord;
+import org.activiti.engine.impl.history.AsyncHistoryWriter;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.impl.persistence.entity.HistoricProcessInstanceEntity;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.impl.util.CollectionUtil;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+/**
+ * The writer thread of the engine in this test waits an hour between two runs,
+ * so history is only written when the test or the engine flushes the writer.
+ */
+public class AsyncHistoryWriterTest extends ResourceActivitiTestCase {
+
+  public AsyncHistoryWriterTest() {
+    super("org/activiti/standalone/history/asynchistory.activiti.cfg.xml");
+  }
+
+  protected AsyncHistoryWriter getAsyncHistoryWriter() {
+    return processEngineConfiguration.getAsyncHistoryWriter();
+  }
+
+  @Override
+  protected void assertAndEnsureCleanDb() throws Throwable {
+    // writes the journal and the history deletes that are queued behind it
+    getAsyncHistoryWriter().flush();
+    super.assertAndEnsureCleanDb();
+  }
+
+  @Override
+  protected void closeDownProcessEngine() {
+    // releases the lease of the writer, so the engine of the next test can write history
+    processEngine.close();
+    super.closeDownProcessEngine();
+  }
+
+  @Deployment
+  public void testAsyncHistory() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("asyncHistory");
+
+    // History is queued until the writer runs
+    assertEquals(1, getAsyncHistoryWriter().getQueuedBatchCount());
+    assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+
+    getAsyncHistoryWriter().flush();
+    assertEquals(0, getAsyncHistoryWriter().getQueuedBatchCount());
+    HistoricProcessInstance historicProcessInstance = historyService.createHistoricProcessInstanceQuery().singleResult();
+    assertEquals(processInstance.getId(), historicProcessInstance.getId());
+    assertNull(historicProcessInstance.getEndTime());
+    assertEquals(2, historyService.createHistoricActivityInstanceQuery().count());
+    assertEquals(1, historyService.createHistoricTaskInstanceQuery().unfinished().count());
+
+    Task task = taskService.createTaskQuery().singleResult();
+    taskService.complete(task.getId());
+    getAsyncHistoryWriter().flush();
+
+    historicProcessInstance = historyService.createHistoricProcessInstanceQuery().singleResult();
+    assertNotNull(historicProcessInstance.getEndTime());
+    assertEquals(3, historyService.createHistoricActivityInstanceQuery().finished().count());
+    assertEquals(1, historyService.createHistoricTaskInstanceQuery().finished().count());
+  }
+
+  @Deployment(resources = {"org/activiti/standalone/history/AsyncHistoryWriterTest.testAsyncHistory.bpmn20.xml"})
+  public void testQueuedHistoryUpdatedByEngine() {
+    runtimeService.startProcessInstanceByKey("asyncHistory", CollectionUtil.singletonMap("var", "first"));
+    Task task = taskService.createTaskQuery().singleResult();
+    taskService.setVariable(task.getId(), "var", "second");
+
+    // The history of the process start is still queued when the task is completed:
+    // the engine reads it from the queue, so the historic task and activity can be ended
+    taskService.complete(task.getId());
+    assertEquals(3, getAsyncHistoryWriter().getQueuedBatchCount());
+    assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+    getAsyncHistoryWriter().flush();
+
+    HistoricTaskInstance historicTask = historyService.createHistoricTaskInstanceQuery().singleResult();
+    assertNotNull(historicTask.getEndTime());
+    for (HistoricActivityInstance historicActivity : historyService.createHistoricActivityInstanceQuery().list()) {
+      assertNotNull(historicActivity.getEndTime());
+    }
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().finished().count());
+
+    HistoricVariableInstance historicVariable = historyService.createHistoricVariableInstanceQuery().singleResult();
+    assertEquals("second", historicVariable.getValue());
+    assertEquals(2, historyService.createHistoricDetailQuery().variableUpdates().count());
+  }
+
+  @Deployment(resources = {"org/activiti/standalone/history/AsyncHistoryWriterTest.testAsyncHistory.bpmn20.xml"})
+  public void testDeleteQueuedHistory() {
+    ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("asyncHistory");
+    taskService.complete(taskService.createTaskQuery().singleResult().getId());
+    assertTrue(getAsyncHistoryWriter().getQueuedBatchCount() > 0);
+
+    // The queued history is deleted by the writer, once it is written
+    int queuedBatchCount = getAsyncHistoryWriter().getQueuedBatchCount();
+    historyService.deleteHistoricProcessInstance(processInstance.getId());
+    assertEquals(queuedBatchCount + 1, getAsyncHistoryWriter().getQueuedBatchCount());
+
+    getAsyncHistoryWriter().flush();
+    assertEquals(0, getAsyncHistoryWriter().getQueuedBatchCount());
+    assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+    assertEquals(0, historyService.createHistoricActivityInstanceQuery().count());
+    assertEquals(0, historyService.createHistoricTaskInstanceQuery().count());
+  }
+
+  @Deployment(resources = {"org/activiti/standalone/history/AsyncHistoryWriterTest.testAsyncHistory.bpmn20.xml"})
+  public void testReadQueuedHistory() {
+    final ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("asyncHistory");
+
+    HistoricProcessInstanceEntity historicProcessInstance = processEngineConfiguration.getCommandExecutor().execute(new Command<HistoricProcessInstanceEntity>() {
+      public HistoricProcessInstanceEntity execute(CommandContext commandContext) {
+        return commandContext.getHistoricProcessInstanceEntityManager().findHistoricProcessInstance(processInstance.getId());
+      }
+    });
+    assertEquals(processInstance.getId(), historicProcessInstance.getId());
+    assertEquals(1, getAsyncHistoryWriter().getQueuedBatchCount());
+    assertEquals(0, historyService.createHistoricProcessInstanceQuery().count());
+  }
+
+  @Deployment(resources = {"org/activiti/standalone/history/AsyncHistoryWriterTest.testAsyncHistory.bpmn20.xml"})
+  public void testRecoverJournal() {
+    runtimeService.startProcessInstanceByKey("asyncHistory");
+
+    // Only one writer can run on a database
+    AsyncHistoryWriter recoveringWriter = new AsyncHistoryWriter();
+    recoveringWriter.setCommandExecutor(processEngineConfiguration.getCommandExecutor());
+    recoveringWriter.setCommandConfig(getAsyncHistoryWriter().getCommandConfig());
+    try {
+      recoveringWriter.start();
+      fail("ActivitiException expected");
+    } catch (ActivitiException e) {
+      assertTextPresent("another process engine", e.getMessage());
+    }
+    assertFalse(recoveringWriter.isActive());
+
+    // A writer started after the JVM stopped abruptly finds the batch in the journal
+    recoveringWriter.recover();
+    assertEquals(0, recoveringWriter.getQueuedBatchCount());
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().count());
+
+    // The writer of the engine drops the batch that was written by the other writer
+    getAsyncHistoryWriter().flush();
+    assertEquals(0, getAsyncHistoryWriter().getQueuedBatchCount());
+    assertEquals(1, historyService.createHistoricProcessInstanceQuery().count());
+  }
+
+  @Deployment(resources = {"org/activiti/standalone/history/AsyncHistoryWriterTest.testAsyncHistory.bpmn20.xml"})
+  public void testDeadLetter() {
+    final ProcessInstance processInstance = runtimeService.startProcessInstanceByKey("asyncHistory");
+
+    // History conflicting with the queued batch makes it fail
+    processEngineConfiguration.getCommandExecutor().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        commandContext.getDbSqlSession().setDeferredFlushHandler(null);
+        ExecutionEntity execution = commandContext.getExecutionEntityManager().findExecutionById(processInstance.getId());
+        commandContext.getDbSqlSession().insert(new HistoricProcessInstanceEntity(execution));
+        return null;
+      }
+    });
+
+    // The failed batch is retried, and parked once all attempts failed
+    for (int i = 1; i < getAsyncHistoryWriter().getMaxWriteAttempts(); i++) {
+      getAsyncHistoryWriter().flush();
+      assertEquals(1, getAsyncHistoryWriter().getQueuedBatchCount());
+      assertTrue(getAsyncHistoryWriter().getDeadLetterIds().isEmpty());
+    }
+    getAsyncHistoryWriter().flush();
+    assertEquals(0, getAsyncHistoryWriter().getQueuedBatchCount());
+    assertEquals(1, getAsyncHistoryWriter().getDeadLetterIds().size());
+
+    processEngineConfiguration.getCommandExecutor().execute(new Command<Void>() {
+      public Void execute(CommandContext commandContext) {
+        commandContext.getDbSqlSession().setDeferredFlushHandler(null);
+        commandContext.getDbSqlSession().delete(commandContext.getDbSqlSession().selectById(HistoricProcessInstanceEntity.class, processInstance.getId()));
+        return null;
+      }
+    });
+
+    // A requeued dead letter is written like any other batch
+    getAsyncHistoryWriter().requeueDeadLetters();
+    assertEquals(1, getAsyncHistoryWriter().getQueuedBatchCount());
+    getAsyncHistoryWriter().flush();
+    assertEquals(0, getAsyncHistoryWriter().getQueuedBatchCount());
+    assertTrue(getAsyncHistoryWriter().getDeadLetterIds().isEmpty());
+    assertEquals(2, historyService.createHistoricActivityInstanceQuery().count());
+  }
+
+  public void testBatchFormat() {
+    AsyncHistoryBatch batch = new AsyncHistoryBatch();
+    AsyncHistoryRecord row = AsyncHistoryRecord.row(AsyncHistoryRecord.UPDATE, "ACT_HI_PROCINST", "1");
+    row.addColumn("ID_", "VARCHAR", "1");
+    row.addColumn("END_TIME_", "TIMESTAMP", new java.sql.Timestamp(1000L));
+    row.addColumn("DURATION_", "BIGINT", null);
+    batch.addRecord(row);
+    batch.addRecord(AsyncHistoryRecord.deleteHistory(AsyncHistoryRecord.SCOPE_TASK, "2"));
+
+    // A batch only contains data, which is read back as it was written
+    AsyncHistoryBatch readBatch = AsyncHistoryBatch.fromBytes(batch.toBytes());
+    assertEquals(2, readBatch.getRecords().size());
+    AsyncHistoryRecord readRow = readBatch.findRow("ACT_HI_PROCINST", "1");
+    assertEquals(AsyncHistoryRecord.UPDATE, readRow.getType());
+    assertEquals(new java.sql.Timestamp(1000L), readRow.getColumnValue("END_TIME_"));
+    assertNull(readRow.getColumnValue("DURATION_"));
+    assertEquals(2, readRow.getUpdatedColumns().size());
+    assertEquals(AsyncHistoryRecord.SCOPE_TASK, readBatch.getRecords().get(1).getScope());
+
+    // Names end up in sql, so they are checked when a batch is read
+    AsyncHistoryBatch invalidBatch = new AsyncHistoryBatch();
+    invalidBatch.addRecord(AsyncHistoryRecord.row(AsyncHistoryRecord.DELETE, "ACT_HI_PROCINST; drop table ACT_HI_TASKINST", "1"));
+    try {
+      AsyncHistoryBatch.fromBytes(invalidBatch.toBytes());
+      fail("ActivitiException expected");
+    } catch (ActivitiException e) {
+      assertTextPresent("Invalid name", e.getMessage());
+    }
+  }
+
+  @Deployment(resources = {"org/activiti/standalone/history/AsyncHistoryWriterTest.testAsyncHistory.bpmn20.xml"})
+  public void testShutdownWritesQueuedHistory() {
+    runtimeService.startProcessInstanceByKey("asyncHistory");
+    assertEquals(1, getAsyncHistoryWriter().getQueuedBatchCount());
+
+    getAsyncHistoryWriter().shutdown();
+    try {
+      assertEquals(0, getAsyncHistoryWriter().getQueuedBatchCount());
+      assertEquals(1, historyService.createHistoricProcessInstanceQuery().count());
+
+      // Without writer thread, history is written right after the transaction
+      runtimeService.startProcessInstanceByKey("asyncHistory");
+      assertEquals(2, historyService.createHistoricProcessInstanceQuery().count());
+    } finally {
+      getAsyncHistoryWriter().start();
+    }
+  }
+
+}
@@ -0,0 +1,121 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.identity;
+
+import java.util.Collections;
+import java.util.Date;
+
+import org.activiti.engine.identity.Group;
+import org.activiti.engine.identity.User;
+import org.activiti.engine.impl.identity.DefaultMembershipCache;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.task.Task;
+
+public class MembershipCacheTest extends ResourceActivitiTestCase {
+
+  protected DefaultMembershipCache membershipCache;
+  protected String taskId;
+
+  public MembershipCacheTest() {
+    super("org/activiti/standalone/identity/membershipcache.test.activiti.cfg.xml");
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    membershipCache = (DefaultMembershipCache) processEngineConfiguration.getMembershipCache();
+    membershipCache.clear();
+
+    User kermit = identityService.newUser("kermit");
+    identityService.saveUser(kermit);
+    Group muppets = identityService.newGroup("muppets");
+    identityService.saveGroup(muppets);
+    Group frogs = identityService.newGroup("frogs");
+    identityService.saveGroup(frogs);
+    identityService.createMembership("kermit", "muppets");
+
+    Task task = taskService.newTask();
+    taskService.saveTask(task);
+    taskService.addCandidateGroup(task.getId(), "frogs");
+    taskId = task.getId();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    taskService.deleteTask(taskId, true);
+    identityService.deleteUser("kermit");
+    identityService.deleteGroup("muppets");
+    identityService.deleteGroup("frogs");
+    processEngineConfiguration.getClock().reset();
+    super.tearDown();
+  }
+
+  public void testCandidateGroupsCached() {
+    assertEquals(0, taskService.createTaskQuery().taskCandidateUser("kermit").list().size());
+    assertEquals(0, taskService.createTaskQuery().taskCandidateUser("kermit").count());
+    assertEquals(0, historyService.createHistoricTaskInstanceQuery().taskCandidateUser("kermit").count());
+
+    // The groups are only resolved once, even though every query uses them several times
+    assertEquals(1, membershipCache.getMissCount());
+    assertTrue(membershipCache.getHitCount() >= 2);
+    assertEquals(1, membershipCache.getGroupIds("kermit").size());
+  }
+
+  public void testMembershipChangesInvalidateCache() {
+    assertEquals(0, taskService.createTaskQuery().taskCandidateUser("kermit").count());
+
+    identityService.createMembership("kermit", "frogs");
+    assertNull(membershipCache.getGroupIds("kermit"));
+    assertEquals(1, taskService.createTaskQuery().taskCandidateUser("kermit").count());
+
+    identityService.deleteMembership("kermit", "frogs");
+    assertEquals(0, taskService.createTaskQuery().taskCandidateUser("kermit").count());
+
+    // Deleting a group clears the whole cache
+    taskService.createTaskQuery().taskCandidateUser("kermit").count();
+    Group animals = identityService.newGroup("animals");
+    identityService.saveGroup(animals);
+    identityService.deleteGroup("animals");
+    assertEquals(0, membershipCache.size());
+  }
+
+  public void testStaleGroupIdsNotCachedAfterInvalidation() {
+    // a query resolved the groups before the membership change and caches them after its invalidation
+    long generation = membershipCache.getGeneration("kermit");
+    identityService.createMembership("kermit", "frogs");
+    membershipCache.addGroupIds("kermit", Collections.singletonList("muppets"), generation);
+    assertNull(membershipCache.getGroupIds("kermit"));
+    assertEquals(1, taskService.createTaskQuery().taskCandidateUser("kermit").count());
+
+    // the same when the whole cache was cleared
+    generation = membershipCache.getGeneration("kermit");
+    Group animals = identityService.newGroup("animals");
+    identityService.saveGroup(animals);
+    identityService.deleteGroup("animals");
+    membershipCache.addGroupIds("kermit", Collections.singletonList("muppets"), generation);
+    assertNull(membershipCache.getGroupIds("kermit"));
+
+    identityService.deleteMembership("kermit", "frogs");
+  }
+
+  public void testCacheExpiration() {
+    Date now = new Date();
+    processEngineConfiguration.getClock().setCurrentTime(now);
+    assertEquals(0, taskService.createTaskQuery().taskCandidateUser("kermit").count());
+    assertNotNull(membershipCache.getGroupIds("kermit"));
+
+    processEngineConfiguration.getClock().setCurrentTime(new Date(now.getTime() + membershipCache.getExpirationTime()));
+    assertNull(membershipCache.getGroupIds("kermit"));
+  }
+
+}
@@ -0,0 +1,76 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.idgenerator;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.activiti.engine.impl.cfg.IdGenerator;
+import org.activiti.engine.impl.db.PrefetchingDbIdGenerator;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+public class PrefetchingDbIdGeneratorTest extends ResourceActivitiTestCase {
+  
+  public PrefetchingDbIdGeneratorTest() throws Exception {
+    super("org/activiti/standalone/idgenerator/prefetchingidgenerator.test.activiti.cfg.xml");
+  }
+  
+  public void testConcurrentIdGeneration() throws Exception {
+    IdGenerator idGenerator = processEngineConfiguration.getIdGenerator();
+    assertTrue(idGenerator instanceof PrefetchingDbIdGenerator);
+    
+    final IdGenerator generator = idGenerator;
+    final Set<String> ids = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    
+    ExecutorService executorService = Executors.newFixedThreadPool(10);
+    for (int i=0; i<10; i++) {
+      executorService.execute(new Runnable() {
+        public void run() {
+          for (int j=0; j<500; j++) {
+            ids.add(generator.getNextId());
+          }
+        }
+      });
+    }
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+    
+    // All ids are unique
+    assertEquals(5000, ids.size());
+    
+    // Blocks were used up fast, so the block size has grown to the maximum
+    assertEquals(40, ((PrefetchingDbIdGenerator) idGenerator).getCurrentIdBlockSize());
+  }
+  
+  @Deployment(resources = {"org/activiti/standalone/idgenerator/UuidGeneratorTest.testUuidGeneratorUsage.bpmn20.xml"})
+  public void testProcessExecution() {
+    for (int i=0; i<20; i++) {
+      runtimeService.startProcessInstanceByKey("simpleProcess");
+    }
+    
+    while (taskService.createTaskQuery().count() > 0) {
+      for (Task task : taskService.createTaskQuery().list()) {
+        taskService.complete(task.getId());
+      }
+    }
+    
+    assertEquals(20, historyService.createHistoricProcessInstanceQuery().finished().count());
+  }
+  
+}
@@ -0,0 +1,117 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.interceptor;
+
+import java.util.List;
+
+import org.activiti.engine.delegate.DelegateExecution;
+import org.activiti.engine.delegate.JavaDelegate;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.impl.util.CollectionUtil;
+import org.activiti.engine.management.ActivityProfile;
+import org.activiti.engine.repository.ProcessDefinition;
+import org.activiti.engine.task.Task;
+import org.activiti.engine.test.Deployment;
+
+public class ActivityProfilerTest extends ResourceActivitiTestCase {
+
+  public ActivityProfilerTest() {
+    super("org/activiti/standalone/interceptor/activityprofiler.test.activiti.cfg.xml");
+  }
+
+  @Deployment
+  public void testActivityProfiles() {
+    // warm up the expression and class loading of the fast activities, so the slow service comes out on top
+    runProcesses(false);
+    managementService.resetActivityProfiles();
+
+    runProcesses(true, false);
+
+    List<ActivityProfile> activityProfiles = managementService.getActivityProfiles();
+
+    ActivityProfile slowServiceProfile = activityProfiles.get(0);
+    assertEquals("slowService", slowServiceProfile.getActivityId());
+    assertEquals("serviceTask", slowServiceProfile.getActivityType());
+    assertEquals(1, slowServiceProfile.getExecutionCount());
+    assertTrue(slowServiceProfile.getExecutionTimeInMillis() >= SleepDelegate.SLEEP_TIME_IN_MILLIS);
+    assertEquals(slowServiceProfile.getExecutionTimeInMillis(), slowServiceProfile.getMaxExecutionTimeInMillis());
+    assertTrue(slowServiceProfile.getOperationCount() > slowServiceProfile.getExecutionCount());
+    assertTrue(slowServiceProfile.getTotalTimeInMillis() >= slowServiceProfile.getExecutionTimeInMillis());
+
+    ActivityProfile gatewayProfile = find(activityProfiles, "gateway");
+    assertEquals("exclusiveGateway", gatewayProfile.getActivityType());
+    assertEquals(2, gatewayProfile.getExecutionCount());
+
+    ActivityProfile taskProfile = find(activityProfiles, "theTask");
+    assertEquals("userTask", taskProfile.getActivityType());
+    assertEquals(2, taskProfile.getExecutionCount());
+
+    ActivityProfile endProfile = find(activityProfiles, "theEnd");
+    assertEquals(2, endProfile.getExecutionCount());
+
+    for (int i = 1; i < activityProfiles.size(); i++) {
+      assertTrue(activityProfiles.get(i - 1).getTotalTimeInMillis() >= activityProfiles.get(i).getTotalTimeInMillis());
+    }
+
+    String processDefinitionId = slowServiceProfile.getProcessDefinitionId();
+    assertEquals(activityProfiles.size(), managementService.getActivityProfiles(processDefinitionId).size());
+    assertTrue(managementService.getActivityProfiles("unexisting").isEmpty());
+
+    managementService.resetActivityProfiles();
+    assertTrue(managementService.getActivityProfiles().isEmpty());
+  }
+
+  public void testProfilesRemovedWithDeployment() {
+    String deploymentId = repositoryService.createDeployment()
+      .addClasspathResource("org/activiti/standalone/interceptor/ActivityProfilerTest.testActivityProfiles.bpmn20.xml")
+      .deploy()
+      .getId();
+    ProcessDefinition processDefinition = repositoryService.createProcessDefinitionQuery().deploymentId(deploymentId).singleResult();
+
+    runtimeService.startProcessInstanceByKey("profiledProcess", CollectionUtil.singletonMap("slow", false));
+    assertFalse(managementService.getActivityProfiles(processDefinition.getId()).isEmpty());
+
+    repositoryService.deleteDeployment(deploymentId, true);
+    assertTrue(managementService.getActivityProfiles(processDefinition.getId()).isEmpty());
+  }
+
+  protected void runProcesses(boolean... slowValues) {
+    for (boolean slow : slowValues) {
+      runtimeService.startProcessInstanceByKey("profiledProcess", CollectionUtil.singletonMap("slow", slow));
+    }
+    for (Task task : taskService.createTaskQuery().list()) {
+      taskService.complete(task.getId());
+    }
+  }
+
+  protected ActivityProfile find(List<ActivityProfile> activityProfiles, String activityId) {
+    for (ActivityProfile activityProfile : activityProfiles) {
+      if (activityId.equals(activityProfile.getActivityId())) {
+        return activityProfile;
+      }
+    }
+    fail("no profile for activity " + activityId);
+    return null;
+  }
+
+  public static class SleepDelegate implements JavaDelegate {
+
+    public static final long SLEEP_TIME_IN_MILLIS = 50;
+
+    public void execute(DelegateExecution execution) throws Exception {
+      Thread.sleep(SLEEP_TIME_IN_MILLIS);
+    }
+
+  }
+
+}
@@ -0,0 +1,152 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.interceptor;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.activiti.engine.ActivitiOptimisticLockingException;
+import org.activiti.engine.impl.cmd.CompleteTaskCmd;
+import org.activiti.engine.impl.cmd.StartProcessInstanceCmd;
+import org.activiti.engine.impl.interceptor.AbstractCommandInterceptor;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.interceptor.CommandConfig;
+import org.activiti.engine.impl.interceptor.CommandContext;
+import org.activiti.engine.impl.interceptor.CommandMetricsInterceptor;
+import org.activiti.engine.impl.interceptor.RetryInterceptor;
+import org.activiti.engine.impl.metrics.CommandMetricsCollector;
+import org.activiti.engine.impl.test.ResourceActivitiTestCase;
+import org.activiti.engine.management.CommandMetrics;
+import org.activiti.engine.test.Deployment;
+
+public class CommandMetricsTest extends ResourceActivitiTestCase {
+
+  public CommandMetricsTest() {
+    super("org/activiti/standalone/interceptor/commandmetrics.test.activiti.cfg.xml");
+  }
+
+  @Deployment(resources = {"org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml"})
+  public void testCommandMetrics() {
+    managementService.resetCommandMetrics();
+
+    runtimeService.startProcessInstanceByKey("oneTaskProcess");
+    taskService.complete(taskService.createTaskQuery().singleResult().getId());
+
+    List<CommandMetrics> commandMetrics = managementService.getCommandMetrics();
+    CommandMetrics startMetrics = find(commandMetrics, StartProcessInstanceCmd.class);
+    assertEquals(1, startMetrics.getCount());
+    assertEquals(0, startMetrics.getFailureCount());
+    assertEquals(1, startMetrics.getFlushCount());
+    assertTrue(startMetrics.getInsertCount() > 0);
+    assertTrue(startMetrics.getTotalTimeInMillis() > 0);
+    assertTrue(startMetrics.getMaxTimeInMillis() <= startMetrics.getTotalTimeInMillis());
+    long histogramCount = 0;
+    for (long bucketCount : startMetrics.getLatencyHistogram()) {
+      histogramCount += bucketCount;
+    }
+    assertEquals(1, histogramCount);
+
+    CommandMetrics completeMetrics = find(commandMetrics, CompleteTaskCmd.class);
+    assertEquals(1, completeMetrics.getCount());
+    assertTrue(completeMetrics.getDeleteCount() > 0);
+
+    // Commands taking the most time come first
+    for (int i = 1; i < commandMetrics.size(); i++) {
+      assertTrue(commandMetrics.get(i - 1).getTotalTimeInMillis() >= commandMetrics.get(i).getTotalTimeInMillis());
+    }
+
+    managementService.resetCommandMetrics();
+    assertNull(find(managementService.getCommandMetrics(), StartProcessInstanceCmd.class));
+  }
+
+  public void testOptimisticLockingFailuresAndRetries() {
+    CommandMetricsCollector commandMetricsCollector = new CommandMetricsCollector();
+    RetryInterceptor retryInterceptor = new RetryInterceptor();
+    retryInterceptor.setWaitTimeInMs(1);
+    CommandMetricsInterceptor commandMetricsInterceptor = new CommandMetricsInterceptor(commandMetricsCollector);
+    retryInterceptor.setNext(commandMetricsInterceptor);
+    commandMetricsInterceptor.setNext(new AbstractCommandInterceptor() {
+      public <T> T execute(CommandConfig config, Command<T> command) {
+        return command.execute(null);
+      }
+    });
+
+    retryInterceptor.execute(new CommandConfig(), new FailingCommand(2));
+
+    CommandMetrics commandMetrics = commandMetricsCollector.getCommandMetrics().get(0);
+    assertEquals(FailingCommand.class.getName(), commandMetrics.getCommandName());
+    assertEquals(3, commandMetrics.getCount());
+    assertEquals(2, commandMetrics.getFailureCount());
+    assertEquals(2, commandMetrics.getOptimisticLockingFailureCount());
+    assertEquals(2, commandMetrics.getRetryCount());
+
+    // Another command instance isn't a retry
+    retryInterceptor.execute(new CommandConfig(), new FailingCommand(0));
+    commandMetrics = commandMetricsCollector.getCommandMetrics().get(0);
+    assertEquals(4, commandMetrics.getCount());
+    assertEquals(2, commandMetrics.getRetryCount());
+  }
+
+  @Deployment(resources = {"org/activiti/engine/test/api/oneTaskProcess.bpmn20.xml"})
+  public void testJmx() throws Exception {
+    runtimeService.startProcessInstanceByKey("oneTaskProcess");
+
+    ObjectName objectName = processEngineConfiguration.getCommandMetricsCollector().getObjectName();
+    assertNotNull(objectName);
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    assertTrue((Long) mBeanServer.getAttribute(objectName, "CommandCount") > 0);
+
+    boolean found = false;
+    for (CompositeData commandMetrics : (CompositeData[]) mBeanServer.getAttribute(objectName, "CommandMetrics")) {
+      if (StartProcessInstanceCmd.class.getName().equals(commandMetrics.get("commandName"))) {
+        found = true;
+        assertTrue((Long) commandMetrics.get("insertCount") > 0);
+      }
+    }
+    assertTrue(found);
+
+    // The metrics are taken before the command fetching them is recorded
+    mBeanServer.invoke(objectName, "reset", null, null);
+    assertTrue(managementService.getCommandMetrics().isEmpty());
+  }
+
+  protected CommandMetrics find(List<CommandMetrics> commandMetrics, Class<?> commandClass) {
+    for (CommandMetrics metrics : commandMetrics) {
+      if (metrics.getCommandName().equals(commandClass.getName())) {
+        return metrics;
+      }
+    }
+    return null;
+  }
+
+  protected static class FailingCommand implements Command<Void> {
+
+    protected int failures;
+
+    public FailingCommand(int failures) {
+      this.failures = failures;
+    }
+
+    public Void execute(CommandContext commandContext) {
+      if (failures-- > 0) {
+        throw new ActivitiOptimisticLockingException("concurrent update");
+      }
+      return null;
+    }
+  }
+
+}
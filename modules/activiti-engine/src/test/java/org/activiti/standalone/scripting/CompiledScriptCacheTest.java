@@ -0,0 +1,213 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.standalone.scripting;
+
+import java.io.Reader;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import org.activiti.engine.impl.persistence.deploy.DeploymentCache;
+import org.activiti.engine.impl.test.PluggableActivitiTestCase;
+import org.activiti.engine.impl.util.CollectionUtil;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.test.Deployment;
+
+/**
+ * Tests that scripts of a {@link Compilable} script engine are compiled once and reused.
+ */
+public class CompiledScriptCacheTest extends PluggableActivitiTestCase {
+  
+  protected static final AtomicInteger compileCount = new AtomicInteger();
+  
+  protected void setUp() throws Exception {
+    super.setUp();
+    processEngineConfiguration.getScriptingEngines().addScriptEngineFactory(new VariableScriptEngineFactory("variable", "MULTITHREADED"));
+    processEngineConfiguration.getScriptingEngines().addScriptEngineFactory(new VariableScriptEngineFactory("threadvariable", null));
+    processEngineConfiguration.getScriptingEngines().getCompiledScriptCache().clear();
+    compileCount.set(0);
+  }
+
+  @Deployment
+  public void testCompiledScriptReused() {
+    ProcessInstance pi = runtimeService.startProcessInstanceByKey("compiledScript", CollectionUtil.singletonMap("input", "first"));
+    assertEquals("first", runtimeService.getVariable(pi.getId(), "output"));
+    assertEquals(1, compileCount.get());
+    
+    // The compiled script is evaluated with the variables of the second process instance
+    pi = runtimeService.startProcessInstanceByKey("compiledScript", CollectionUtil.singletonMap("input", "second"));
+    assertEquals("second", runtimeService.getVariable(pi.getId(), "output"));
+    assertEquals(1, compileCount.get());
+  }
+  
+  @Deployment(resources = {"org/activiti/standalone/scripting/CompiledScriptCacheTest.testCompiledScriptReused.bpmn20.xml"})
+  public void testCompiledScriptCacheDisabled() {
+    processEngineConfiguration.getScriptingEngines().setCacheCompiledScripts(false);
+    try {
+      runtimeService.startProcessInstanceByKey("compiledScript", CollectionUtil.singletonMap("input", "first"));
+      ProcessInstance pi = runtimeService.startProcessInstanceByKey("compiledScript", CollectionUtil.singletonMap("input", "second"));
+      assertEquals("second", runtimeService.getVariable(pi.getId(), "output"));
+      assertEquals(0, compileCount.get());
+      
+      DeploymentCache<CompiledScript> compiledScriptCache = processEngineConfiguration.getScriptingEngines().getCompiledScriptCache();
+      assertNull(compiledScriptCache.get("variable:input"));
+    } finally {
+      processEngineConfiguration.getScriptingEngines().setCacheCompiledScripts(true);
+    }
+  }
+  
+  @Deployment
+  public void testCompiledScriptReusedByPooledEngine() throws Exception {
+    ProcessInstance pi = runtimeService.startProcessInstanceByKey("threadCompiledScript", CollectionUtil.singletonMap("input", "first"));
+    assertEquals("first", runtimeService.getVariable(pi.getId(), "output"));
+    pi = runtimeService.startProcessInstanceByKey("threadCompiledScript", CollectionUtil.singletonMap("input", "second"));
+    assertEquals("second", runtimeService.getVariable(pi.getId(), "output"));
+    assertEquals(1, compileCount.get());
+    
+    // The engine doesn't allow multithreaded access, but is pooled: another thread reuses it once it's returned
+    final ProcessInstance[] otherThreadInstance = new ProcessInstance[1];
+    Thread thread = new Thread() {
+      public void run() {
+        otherThreadInstance[0] = runtimeService.startProcessInstanceByKey("threadCompiledScript", CollectionUtil.singletonMap("input", "third"));
+      }
+    };
+    thread.start();
+    thread.join();
+    assertEquals("third", runtimeService.getVariable(otherThreadInstance[0].getId(), "output"));
+    assertEquals(1, compileCount.get());
+    assertNull(processEngineConfiguration.getScriptingEngines().getCompiledScriptCache().get("threadvariable:input"));
+    
+    // Closing releases the pooled engines, so the script is compiled by a new engine afterwards
+    processEngineConfiguration.getScriptingEngines().close();
+    pi = runtimeService.startProcessInstanceByKey("threadCompiledScript", CollectionUtil.singletonMap("input", "fourth"));
+    assertEquals("fourth", runtimeService.getVariable(pi.getId(), "output"));
+    assertEquals(2, compileCount.get());
+  }
+  
+  /**
+   * Script engine of which a script is the name of a variable, evaluating to the value of that variable.
+   */
+  public static class VariableScriptEngine extends AbstractScriptEngine implements Compilable {
+    
+    protected ScriptEngineFactory factory;
+    
+    public VariableScriptEngine(ScriptEngineFactory factory) {
+      this.factory = factory;
+    }
+    
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+      return context.getAttribute(script.trim());
+    }
+    
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+      throw new UnsupportedOperationException();
+    }
+    
+    public CompiledScript compile(final String script) throws ScriptException {
+      compileCount.incrementAndGet();
+      return new CompiledScript() {
+        public Object eval(ScriptContext context) throws ScriptException {
+          return VariableScriptEngine.this.eval(script, context);
+        }
+        public ScriptEngine getEngine() {
+          return VariableScriptEngine.this;
+        }
+      };
+    }
+    
+    public CompiledScript compile(Reader script) throws ScriptException {
+      throw new UnsupportedOperationException();
+    }
+    
+    public Bindings createBindings() {
+      return new SimpleBindings();
+    }
+    
+    public ScriptEngineFactory getFactory() {
+      return factory;
+    }
+  }
+  
+  public static class VariableScriptEngineFactory implements ScriptEngineFactory {
+    
+    protected String name;
+    protected String threading;
+    
+    public VariableScriptEngineFactory(String name, String threading) {
+      this.name = name;
+      this.threading = threading;
+    }
+    
+    public String getEngineName() {
+      return name;
+    }
+    
+    public String getEngineVersion() {
+      return "1.0";
+    }
+    
+    public List<String> getExtensions() {
+      return Collections.emptyList();
+    }
+    
+    public List<String> getMimeTypes() {
+      return Collections.emptyList();
+    }
+    
+    public List<String> getNames() {
+      return Collections.singletonList(name);
+    }
+    
+    public String getLanguageName() {
+      return name;
+    }
+    
+    public String getLanguageVersion() {
+      return "1.0";
+    }
+    
+    public Object getParameter(String key) {
+      if ("THREADING".equals(key)) {
+        return threading;
+      }
+      return null;
+    }
+    
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+      throw new UnsupportedOperationException();
+    }
+    
+    public String getOutputStatement(String toDisplay) {
+      throw new UnsupportedOperationException();
+    }
+    
+    public String getProgram(String... statements) {
+      throw new UnsupportedOperationException();
+    }
+    
+    public ScriptEngine getScriptEngine() {
+      return new VariableScriptEngine(this);
+    }
+  }
+
+}
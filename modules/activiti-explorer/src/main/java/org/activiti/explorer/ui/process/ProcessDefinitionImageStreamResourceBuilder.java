@@ -15,11 +15,9 @@ package org.activiti.explorer.ui.process;
 
 import com.vaadin.terminal.StreamResource;
 import com.vaadin.terminal.StreamResource.StreamSource;
-import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.engine.RepositoryService;
 import org.activiti.engine.RuntimeService;
 import org.activiti.engine.impl.RepositoryServiceImpl;
-import org.activiti.engine.impl.bpmn.diagram.ProcessDiagramGenerator;
 import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntity;
 import org.activiti.engine.repository.ProcessDefinition;
 import org.activiti.engine.runtime.ProcessInstance;
@@ -65,7 +63,7 @@ public class ProcessDefinitionImageStreamResourceBuilder {
     return imageResource;
   }
 
-  public StreamResource buildStreamResource(ProcessInstance processInstance, RepositoryService repositoryService, RuntimeService runtimeService, ProcessDiagramGenerator diagramGenerator) {
+  public StreamResource buildStreamResource(ProcessInstance processInstance, RepositoryService repositoryService, RuntimeService runtimeService) {
 
     StreamResource imageResource = null;
     
@@ -75,9 +73,8 @@ public class ProcessDefinitionImageStreamResourceBuilder {
     if (processDefinition != null && processDefinition.isGraphicalNotationDefined()) {
       try {
         
-        BpmnModel bpmnModel = repositoryService.getBpmnModel(processInstance.getProcessDefinitionId());
-        InputStream definitionImageStream = diagramGenerator.generateDiagram(bpmnModel, "png",
-          runtimeService.getActiveActivityIds(processInstance.getId()));
+        InputStream definitionImageStream = repositoryService.getProcessDiagram(processInstance.getProcessDefinitionId(),
+          runtimeService.getActiveActivityIds(processInstance.getId()), Collections.<String>emptyList());
               
         if(definitionImageStream != null) {
           StreamSource streamSource = new InputStreamStreamSource(definitionImageStream);
@@ -96,7 +93,7 @@ public class ProcessDefinitionImageStreamResourceBuilder {
     return imageResource;
   }
   
-  public StreamResource buildStreamResource(String processInstanceId, String processDefinitionId, RepositoryService repositoryService, RuntimeService runtimeService, ProcessDiagramGenerator diagramGenerator) {
+  public StreamResource buildStreamResource(String processInstanceId, String processDefinitionId, RepositoryService repositoryService, RuntimeService runtimeService) {
 
     StreamResource imageResource = null;
     
@@ -104,9 +101,8 @@ public class ProcessDefinitionImageStreamResourceBuilder {
 
     if (processDefinition != null && processDefinition.isGraphicalNotationDefined()) {
       
-      BpmnModel bpmnModel = repositoryService.getBpmnModel(processDefinitionId);
-      InputStream definitionImageStream = diagramGenerator.generateDiagram(bpmnModel, "png",
-        runtimeService.getActiveActivityIds(processInstanceId));
+      InputStream definitionImageStream = repositoryService.getProcessDiagram(processDefinitionId,
+        runtimeService.getActiveActivityIds(processInstanceId), Collections.<String>emptyList());
       
       StreamSource streamSource = new InputStreamStreamSource(definitionImageStream);
       
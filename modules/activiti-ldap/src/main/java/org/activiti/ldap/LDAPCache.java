@@ -0,0 +1,327 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.ldap;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.activiti.engine.runtime.ClockReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Thread safe LRU cache for information fetched from the LDAP system, keyed by user id.
+ * 
+ * Cached entries have an expiration time, after which they are removed on the next lookup.
+ * When a refresh time (shorter than the expiration time) and a {@link LDAPCacheLoader} are set,
+ * an entry older than the refresh time is still returned, but reloaded in a background thread, 
+ * so frequently used entries never expire and the caller never waits for the LDAP system.
+ * 
+ * Hits, misses, evictions, expirations and refreshes are counted, see {@link #getHitRate()}.
+ */
+public abstract class LDAPCache<T> {
+  
+  private static final Logger LOGGER = LoggerFactory.getLogger(LDAPCache.class);
+
+  protected final ClockReader clockReader;
+  protected Map<String, LDAPCacheEntry<T>> cache;
+  protected long expirationTime;
+  protected long refreshTime = -1;
+  
+  protected LDAPCacheLoader<T> cacheLoader;
+  protected ExecutorService refreshExecutor;
+  protected Set<String> refreshingKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  
+  protected LDAPCacheListener cacheListener;
+  
+  protected final AtomicLong hitCount = new AtomicLong();
+  protected final AtomicLong missCount = new AtomicLong();
+  protected final AtomicLong evictionCount = new AtomicLong();
+  protected final AtomicLong expirationCount = new AtomicLong();
+  protected final AtomicLong refreshCount = new AtomicLong();
+  
+  public LDAPCache(final int cacheSize, final long expirationTime, final ClockReader clockReader) {
+    this.clockReader = clockReader;
+    this.expirationTime = expirationTime;
+    
+    // From http://stackoverflow.com/questions/224868/easy-simple-to-use-lru-cache-in-java
+    // Access ordered, so also reads change the map: all access is synchronized on it
+    this.cache = new LinkedHashMap<String, LDAPCacheEntry<T>>(cacheSize + 1, 0.75f, true) {
+      
+      private static final long serialVersionUID = 1L;
+
+      protected boolean removeEldestEntry(Map.Entry<String, LDAPCacheEntry<T>> eldest) {
+        boolean removeEldest = size() > cacheSize;
+        
+        if (removeEldest) {
+          evictionCount.incrementAndGet();
+          if (cacheListener != null) {
+            cacheListener.cacheEviction(eldest.getKey());
+          }
+        }
+        
+        return removeEldest;
+      }
+      
+    };
+  }
+  
+  public void add(String key, T value) {
+    LDAPCacheEntry<T> cacheEntry = new LDAPCacheEntry<T>(clockReader.getCurrentTime().getTime(), value);
+    synchronized (cache) {
+      cache.put(key, cacheEntry);
+    }
+  }
+  
+  public T get(String key) {
+    LDAPCacheEntry<T> cacheEntry = null;
+    boolean expired = false;
+    boolean refresh = false;
+    
+    synchronized (cache) {
+      cacheEntry = cache.get(key);
+      if (cacheEntry != null) {
+        long age = clockReader.getCurrentTime().getTime() - cacheEntry.getTimestamp();
+        if (age >= expirationTime) {
+          cache.remove(key);
+          cacheEntry = null;
+          expired = true;
+        } else if (refreshTime > 0 && age >= refreshTime) {
+          refresh = true;
+        }
+      }
+    }
+    
+    if (expired) {
+      expirationCount.incrementAndGet();
+      if (cacheListener != null) {
+        cacheListener.cacheExpired(key);
+        cacheListener.cacheEviction(key);
+      }
+    }
+    
+    if (cacheEntry != null) {
+      hitCount.incrementAndGet();
+      if (cacheListener != null) {
+        cacheListener.cacheHit(key);
+      }
+      if (refresh) {
+        scheduleRefresh(key);
+      }
+      return cacheEntry.getValue();
+    }
+    
+    missCount.incrementAndGet();
+    if (cacheListener != null) {
+      cacheListener.cacheMiss(key);
+    }
+    return null;
+  }
+  
+  public void remove(String key) {
+    synchronized (cache) {
+      cache.remove(key);
+    }
+  }
+  
+  public void clear() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+  
+  public int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+  
+  protected void scheduleRefresh(final String key) {
+    if (cacheLoader == null || !refreshingKeys.add(key)) {
+      return; // no loader, or already being refreshed
+    }
+    
+    try {
+      getRefreshExecutor().execute(new Runnable() {
+        public void run() {
+          try {
+            T value = cacheLoader.load(key);
+            if (value != null) {
+              add(key, value);
+              refreshCount.incrementAndGet();
+            }
+          } catch (Exception e) {
+            LOGGER.warn("Could not refresh cached LDAP entry for " + key + " : " + e.getMessage(), e);
+          } finally {
+            refreshingKeys.remove(key);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      refreshingKeys.remove(key); // cache is shut down
+    }
+  }
+  
+  protected synchronized ExecutorService getRefreshExecutor() {
+    if (refreshExecutor == null) {
+      refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "activiti-ldap-cache-refresh");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return refreshExecutor;
+  }
+  
+  /**
+   * Stops the background refresh thread, if one was started.
+   */
+  public synchronized void shutdown() {
+    if (refreshExecutor != null) {
+      refreshExecutor.shutdownNow();
+      refreshExecutor = null;
+    }
+  }
+  
+  // Statistics ////////////////////////////////////
+  
+  public long getHitCount() {
+    return hitCount.get();
+  }
+  
+  public long getMissCount() {
+    return missCount.get();
+  }
+  
+  public long getEvictionCount() {
+    return evictionCount.get();
+  }
+  
+  public long getExpirationCount() {
+    return expirationCount.get();
+  }
+  
+  public long getRefreshCount() {
+    return refreshCount.get();
+  }
+  
+  /**
+   * The ratio of lookups that were served from the cache, between 0 and 1.
+   */
+  public double getHitRate() {
+    long hits = hitCount.get();
+    long lookups = hits + missCount.get();
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+  
+  public void resetStatistics() {
+    hitCount.set(0);
+    missCount.set(0);
+    evictionCount.set(0);
+    expirationCount.set(0);
+    refreshCount.set(0);
+  }
+  
+  // Getters and setters ////////////////////////////////////
+  
+  public long getExpirationTime() {
+    return expirationTime;
+  }
+  
+  public void setExpirationTime(long expirationTime) {
+    this.expirationTime = expirationTime;
+  }
+  
+  public long getRefreshTime() {
+    return refreshTime;
+  }
+  
+  /**
+   * Entries older than this time (in milliseconds) are reloaded in the background 
+   * through the {@link LDAPCacheLoader} when they are used. Disabled when less than zero (the default).
+   */
+  public void setRefreshTime(long refreshTime) {
+    this.refreshTime = refreshTime;
+  }
+  
+  public LDAPCacheLoader<T> getCacheLoader() {
+    return cacheLoader;
+  }
+  
+  public void setCacheLoader(LDAPCacheLoader<T> cacheLoader) {
+    this.cacheLoader = cacheLoader;
+  }
+  
+  public LDAPCacheListener getCacheListener() {
+    return cacheListener;
+  }
+  
+  public void setCacheListener(LDAPCacheListener cacheListener) {
+    this.cacheListener = cacheListener;
+  }
+  
+  // Helper classes ////////////////////////////////////
+
+  static class LDAPCacheEntry<T> {
+    
+    protected final long timestamp;
+    protected final T value;
+    
+    public LDAPCacheEntry(long timestamp, T value) {
+      this.timestamp = timestamp;
+      this.value = value;
+    }
+    
+    public long getTimestamp() {
+      return timestamp;
+    }
+    
+    public T getValue() {
+      return value;
+    }
+    
+  }
+  
+  /**
+   * Fetches a fresh value from the LDAP system when a cached entry is refreshed in the background.
+   * Called outside of any command context.
+   */
+  public static interface LDAPCacheLoader<T> {
+    
+    T load(String key);
+    
+  }
+  
+  // Experimental stuff!
+  
+  public static interface LDAPCacheListener {
+    
+    void cacheHit(String key);
+    void cacheMiss(String key);
+    void cacheEviction(String key);
+    void cacheExpired(String key);
+    
+  }
+
+}
@@ -19,6 +19,8 @@ import java.util.Map;
 import javax.naming.directory.InitialDirContext;
 import javax.naming.spi.InitialContextFactory;
 
+import org.activiti.engine.ProcessEngine;
+import org.activiti.engine.ProcessEngineLifecycleListener;
 import org.activiti.engine.cfg.AbstractProcessEngineConfigurator;
 import org.activiti.engine.cfg.ProcessEngineConfigurator;
 import org.activiti.engine.identity.Group;
@@ -82,9 +84,23 @@ public class LDAPConfigurator extends AbstractProcessEngineConfigurator {
   // Pluggable query helper bean
   protected LDAPQueryBuilder ldapQueryBuilder = new LDAPQueryBuilder();
   
+  // Connection pooling
+  protected int connectionPoolMaxActive = -1;
+  protected int connectionPoolMaxIdle = 8;
+  protected long connectionPoolMaxWait = 10000L; // default: ten seconds
+  protected long connectionPoolMaxIdleTime = 300000L; // default: five minutes
+  protected boolean connectionPoolTestOnBorrow = true;
+  protected LDAPConnectionPool connectionPool;
+  
   // Group caching
   protected int groupCacheSize = -1;
   protected long groupCacheExpirationTime = 3600000L; // default: one hour
+  protected long groupCacheRefreshTime = -1;
+  
+  // User caching
+  protected int userCacheSize = -1;
+  protected long userCacheExpirationTime = 3600000L; // default: one hour
+  protected long userCacheRefreshTime = -1;
 
   // Cache clock
   private Clock clock;
@@ -95,12 +111,43 @@ public class LDAPConfigurator extends AbstractProcessEngineConfigurator {
   
   public void configure(ProcessEngineConfigurationImpl processEngineConfiguration) {
     clock = processEngineConfiguration.getClock();
-    LDAPUserManagerFactory ldapUserManagerFactory = getLdapUserManagerFactory();
+    
+    if (connectionPoolMaxActive > 0 && connectionPool == null) {
+      connectionPool = new LDAPConnectionPool(this);
+    }
+    
+    final LDAPUserManagerFactory ldapUserManagerFactory = getLdapUserManagerFactory();
     processEngineConfiguration.getSessionFactories().put(ldapUserManagerFactory.getSessionType(), ldapUserManagerFactory);
     
-    LDAPGroupManagerFactory ldapGroupManagerFactory = getLdapGroupManagerFactory(clock);
+    final LDAPGroupManagerFactory ldapGroupManagerFactory = getLdapGroupManagerFactory(clock);
     processEngineConfiguration.getSessionFactories().put(ldapGroupManagerFactory.getSessionType(), ldapGroupManagerFactory);
     
+    // Release the pooled connections and the cache refresh threads when the engine is closed
+    final ProcessEngineLifecycleListener processEngineLifecycleListener = processEngineConfiguration.getProcessEngineLifecycleListener();
+    processEngineConfiguration.setProcessEngineLifecycleListener(new ProcessEngineLifecycleListener() {
+      
+      public void onProcessEngineBuilt(ProcessEngine processEngine) {
+        if (processEngineLifecycleListener != null) {
+          processEngineLifecycleListener.onProcessEngineBuilt(processEngine);
+        }
+      }
+      
+      public void onProcessEngineClosed(ProcessEngine processEngine) {
+        if (connectionPool != null) {
+          connectionPool.close();
+        }
+        if (ldapUserManagerFactory.getLdapUserCache() != null) {
+          ldapUserManagerFactory.getLdapUserCache().shutdown();
+        }
+        if (ldapGroupManagerFactory.getLdapGroupCache() != null) {
+          ldapGroupManagerFactory.getLdapGroupCache().shutdown();
+        }
+        if (processEngineLifecycleListener != null) {
+          processEngineLifecycleListener.onProcessEngineClosed(processEngine);
+        }
+      }
+      
+    });
   }
   
   // Can be overwritten for custom factories //////////////////////////////////////////////////
@@ -110,7 +157,7 @@ public class LDAPConfigurator extends AbstractProcessEngineConfigurator {
       this.ldapUserManagerFactory.setLdapConfigurator(this);
       return this.ldapUserManagerFactory;
     }
-    return new LDAPUserManagerFactory(this);
+    return new LDAPUserManagerFactory(this, clock);
   }
   
   protected LDAPGroupManagerFactory getLdapGroupManagerFactory(ClockReader clockReader) {
@@ -532,5 +579,144 @@ public class LDAPConfigurator extends AbstractProcessEngineConfigurator {
   public void setGroupCacheExpirationTime(long groupCacheExpirationTime) {
     this.groupCacheExpirationTime = groupCacheExpirationTime;
   }
+  
+  public long getGroupCacheRefreshTime() {
+    return groupCacheRefreshTime;
+  }
+  
+  /**
+   * Sets the time in milliseconds after which cached groups of a user are fetched again
+   * from the LDAP system in a background thread, the next time they are used.
+   * Must be shorter than the expiration time (see {@link #setGroupCacheExpirationTime(long)}).
+   * This way the groups of active users are kept up to date without any query
+   * ever having to wait for the LDAP system.
+   * 
+   * By default set to -1, so no background refresh is done.
+   */
+  public void setGroupCacheRefreshTime(long groupCacheRefreshTime) {
+    this.groupCacheRefreshTime = groupCacheRefreshTime;
+  }
+  
+  public int getUserCacheSize() {
+    return userCacheSize;
+  }
+  
+  /**
+   * Allows to set the size of the {@link LDAPUserCache}, an LRU cache for
+   * the users fetched by id, eg. when the engine needs the details of an assignee.
+   * 
+   * The cache will not be instantiated if the value is less then zero.
+   * By default set to -1, so no caching is done.
+   * 
+   * Note that the user cache is instantiated on the {@link LDAPUserManagerFactory}.
+   */
+  public void setUserCacheSize(int userCacheSize) {
+    this.userCacheSize = userCacheSize;
+  }
+  
+  public long getUserCacheExpirationTime() {
+    return userCacheExpirationTime;
+  }
+  
+  /**
+   * Sets the expiration time of the {@link LDAPUserCache} in milliseconds,
+   * like {@link #setGroupCacheExpirationTime(long)} does for groups.
+   * 
+   * By default set to one hour.
+   */
+  public void setUserCacheExpirationTime(long userCacheExpirationTime) {
+    this.userCacheExpirationTime = userCacheExpirationTime;
+  }
+  
+  public long getUserCacheRefreshTime() {
+    return userCacheRefreshTime;
+  }
+  
+  /**
+   * Sets the time in milliseconds after which a cached user is fetched again in the background,
+   * like {@link #setGroupCacheRefreshTime(long)} does for groups.
+   * 
+   * By default set to -1, so no background refresh is done.
+   */
+  public void setUserCacheRefreshTime(long userCacheRefreshTime) {
+    this.userCacheRefreshTime = userCacheRefreshTime;
+  }
+  
+  public int getConnectionPoolMaxActive() {
+    return connectionPoolMaxActive;
+  }
+  
+  /**
+   * Enables pooling of the LDAP connections used for lookups, by setting the maximum number 
+   * of connections that can be in use at the same time. Without pooling, every lookup creates
+   * (and binds) a new connection and closes it afterwards.
+   * 
+   * Connections used to verify the password of a user are never pooled.
+   * 
+   * By default set to -1, so no pooling is done.
+   */
+  public void setConnectionPoolMaxActive(int connectionPoolMaxActive) {
+    this.connectionPoolMaxActive = connectionPoolMaxActive;
+  }
+  
+  public int getConnectionPoolMaxIdle() {
+    return connectionPoolMaxIdle;
+  }
+  
+  /**
+   * The maximum number of unused connections kept open in the pool. By default 8.
+   */
+  public void setConnectionPoolMaxIdle(int connectionPoolMaxIdle) {
+    this.connectionPoolMaxIdle = connectionPoolMaxIdle;
+  }
+  
+  public long getConnectionPoolMaxWait() {
+    return connectionPoolMaxWait;
+  }
+  
+  /**
+   * The time in milliseconds a lookup waits for a connection when all pooled connections are in use,
+   * after which the lookup fails. By default ten seconds.
+   */
+  public void setConnectionPoolMaxWait(long connectionPoolMaxWait) {
+    this.connectionPoolMaxWait = connectionPoolMaxWait;
+  }
+  
+  public long getConnectionPoolMaxIdleTime() {
+    return connectionPoolMaxIdleTime;
+  }
+  
+  /**
+   * The time in milliseconds after which an unused connection is closed instead of reused, 
+   * as LDAP servers and firewalls tend to drop idle connections. Set to zero or less to keep them forever.
+   * By default five minutes.
+   */
+  public void setConnectionPoolMaxIdleTime(long connectionPoolMaxIdleTime) {
+    this.connectionPoolMaxIdleTime = connectionPoolMaxIdleTime;
+  }
+  
+  public boolean isConnectionPoolTestOnBorrow() {
+    return connectionPoolTestOnBorrow;
+  }
+  
+  /**
+   * When true (the default), a pooled connection is checked by reading the root DSE of the server
+   * before it is reused, and replaced by a new connection when the check fails.
+   */
+  public void setConnectionPoolTestOnBorrow(boolean connectionPoolTestOnBorrow) {
+    this.connectionPoolTestOnBorrow = connectionPoolTestOnBorrow;
+  }
+  
+  /**
+   * The pool used for the LDAP connections, created when the engine is built
+   * if {@link #setConnectionPoolMaxActive(int)} is set. 
+   */
+  public LDAPConnectionPool getConnectionPool() {
+    return connectionPool;
+  }
+  
+  public void setConnectionPool(LDAPConnectionPool connectionPool) {
+    this.connectionPool = connectionPool;
+  }
 
 }
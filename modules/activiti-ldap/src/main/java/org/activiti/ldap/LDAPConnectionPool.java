@@ -0,0 +1,182 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.ldap;
+
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.naming.NamingException;
+import javax.naming.directory.InitialDirContext;
+
+import org.activiti.engine.ActivitiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of LDAP connections bound with the user and password of the {@link LDAPConfigurator},
+ * used by the {@link LDAPTemplate} so that not every lookup pays for a new connection and bind.
+ * 
+ * At most {@link LDAPConfigurator#getConnectionPoolMaxActive()} connections are in use at the same time,
+ * callers wait for a connection to be returned for at most {@link LDAPConfigurator#getConnectionPoolMaxWait()}.
+ * Idle connections are checked before they are handed out again: connections idle for longer than
+ * {@link LDAPConfigurator#getConnectionPoolMaxIdleTime()} are closed, and when testOnBorrow is set
+ * the connection must be able to read the root DSE of the server.
+ */
+public class LDAPConnectionPool {
+  
+  private static final Logger LOGGER = LoggerFactory.getLogger(LDAPConnectionPool.class);
+  
+  protected LDAPConfigurator ldapConfigurator;
+  protected int maxActive;
+  protected int maxIdle;
+  protected long maxWait;
+  protected long maxIdleTime;
+  protected boolean testOnBorrow;
+  
+  protected Semaphore permits;
+  protected LinkedBlockingDeque<PooledContext> idleContexts = new LinkedBlockingDeque<PooledContext>();
+  protected volatile boolean closed;
+  
+  protected final AtomicLong createdCount = new AtomicLong();
+  protected final AtomicLong reusedCount = new AtomicLong();
+  protected final AtomicLong invalidatedCount = new AtomicLong();
+  
+  public LDAPConnectionPool(LDAPConfigurator ldapConfigurator) {
+    this.ldapConfigurator = ldapConfigurator;
+    this.maxActive = ldapConfigurator.getConnectionPoolMaxActive();
+    this.maxIdle = ldapConfigurator.getConnectionPoolMaxIdle();
+    this.maxWait = ldapConfigurator.getConnectionPoolMaxWait();
+    this.maxIdleTime = ldapConfigurator.getConnectionPoolMaxIdleTime();
+    this.testOnBorrow = ldapConfigurator.isConnectionPoolTestOnBorrow();
+    this.permits = new Semaphore(maxActive, true);
+  }
+  
+  /**
+   * Hands out an idle connection that passes the health check, or creates a new one.
+   * Every borrowed connection must be given back through {@link #returnContext(InitialDirContext, boolean)}.
+   */
+  public InitialDirContext borrowContext() {
+    if (closed) {
+      throw new ActivitiException("LDAP connection pool is closed");
+    }
+    
+    try {
+      if (!permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+        throw new ActivitiException("Timeout after " + maxWait + " ms waiting for an LDAP connection, all " + maxActive + " connections are in use");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ActivitiException("Interrupted while waiting for an LDAP connection", e);
+    }
+    
+    try {
+      PooledContext pooledContext = idleContexts.pollFirst();
+      while (pooledContext != null) {
+        if (isUsable(pooledContext)) {
+          reusedCount.incrementAndGet();
+          return pooledContext.context;
+        }
+        invalidatedCount.incrementAndGet();
+        LDAPConnectionUtil.closeDirectoryContext(pooledContext.context);
+        pooledContext = idleContexts.pollFirst();
+      }
+      
+      InitialDirContext context = LDAPConnectionUtil.creatDirectoryContext(ldapConfigurator);
+      createdCount.incrementAndGet();
+      return context;
+      
+    } catch (RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+  
+  /**
+   * Gives back a borrowed connection. Connections that failed while in use are closed instead of being reused.
+   */
+  public void returnContext(InitialDirContext context, boolean valid) {
+    try {
+      if (valid && !closed && idleContexts.size() < maxIdle) {
+        idleContexts.offerFirst(new PooledContext(context, System.currentTimeMillis()));
+      } else {
+        LDAPConnectionUtil.closeDirectoryContext(context);
+      }
+    } finally {
+      permits.release();
+    }
+  }
+  
+  protected boolean isUsable(PooledContext pooledContext) {
+    if (maxIdleTime > 0 && System.currentTimeMillis() - pooledContext.lastUsed > maxIdleTime) {
+      return false;
+    }
+    if (testOnBorrow) {
+      try {
+        pooledContext.context.getAttributes("", new String[] { "objectClass" });
+      } catch (NamingException e) {
+        LOGGER.debug("Pooled LDAP connection failed its health check : " + e.getMessage(), e);
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Closes all idle connections. Connections still in use are closed when they are returned.
+   */
+  public void close() {
+    closed = true;
+    PooledContext pooledContext = idleContexts.pollFirst();
+    while (pooledContext != null) {
+      LDAPConnectionUtil.closeDirectoryContext(pooledContext.context);
+      pooledContext = idleContexts.pollFirst();
+    }
+  }
+  
+  public int getActiveCount() {
+    return maxActive - permits.availablePermits();
+  }
+  
+  public int getIdleCount() {
+    return idleContexts.size();
+  }
+  
+  public long getCreatedCount() {
+    return createdCount.get();
+  }
+  
+  public long getReusedCount() {
+    return reusedCount.get();
+  }
+  
+  public long getInvalidatedCount() {
+    return invalidatedCount.get();
+  }
+  
+  // Helper classes ////////////////////////////////////
+  
+  static class PooledContext {
+    
+    protected final InitialDirContext context;
+    protected final long lastUsed;
+    
+    public PooledContext(InitialDirContext context, long lastUsed) {
+      this.context = context;
+      this.lastUsed = lastUsed;
+    }
+    
+  }
+
+}
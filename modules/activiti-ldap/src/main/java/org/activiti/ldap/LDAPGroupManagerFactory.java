@@ -12,11 +12,15 @@
  */
 package org.activiti.ldap;
 
+import java.util.List;
+
 import org.activiti.engine.ProcessEngineConfiguration;
+import org.activiti.engine.identity.Group;
 import org.activiti.engine.impl.interceptor.Session;
 import org.activiti.engine.impl.interceptor.SessionFactory;
 import org.activiti.engine.impl.persistence.entity.GroupIdentityManager;
 import org.activiti.engine.runtime.ClockReader;
+import org.activiti.ldap.LDAPCache.LDAPCacheLoader;
 import org.activiti.ldap.LDAPGroupCache.LDAPGroupCacheListener;
 
 /**
@@ -32,11 +36,17 @@ public class LDAPGroupManagerFactory implements SessionFactory {
   protected LDAPGroupCache ldapGroupCache;
   protected LDAPGroupCacheListener ldapCacheListener;
   
-	public LDAPGroupManagerFactory(LDAPConfigurator ldapConfigurator, ClockReader clockReader) {
+	public LDAPGroupManagerFactory(final LDAPConfigurator ldapConfigurator, ClockReader clockReader) {
     this.ldapConfigurator = ldapConfigurator;
     
     if (ldapConfigurator.getGroupCacheSize() > 0) {
       ldapGroupCache = new LDAPGroupCache(ldapConfigurator.getGroupCacheSize(), ldapConfigurator.getGroupCacheExpirationTime(), clockReader);
+      ldapGroupCache.setRefreshTime(ldapConfigurator.getGroupCacheRefreshTime());
+      ldapGroupCache.setCacheLoader(new LDAPCacheLoader<List<Group>>() {
+        public List<Group> load(String userId) {
+          return new LDAPGroupManager(ldapConfigurator).findGroupsByUser(userId);
+        }
+      });
       if (ldapCacheListener != null) {
         ldapGroupCache.setLdapCacheListener(ldapCacheListener);
       }
@@ -35,6 +35,10 @@ public class LDAPTemplate {
   }
   
   public <T> T execute(LDAPCallBack<T> ldapCallBack) {
+    if (ldapConfigurator.getConnectionPool() != null) {
+      return executeWithPooledConnection(ldapConfigurator.getConnectionPool(), ldapCallBack);
+    }
+    
     InitialDirContext initialDirContext = null;
     try {
       initialDirContext = LDAPConnectionUtil.creatDirectoryContext(ldapConfigurator);
@@ -45,6 +49,26 @@ public class LDAPTemplate {
     LDAPConnectionUtil.closeDirectoryContext(initialDirContext);
     return result;
   }
+  
+  protected <T> T executeWithPooledConnection(LDAPConnectionPool connectionPool, LDAPCallBack<T> ldapCallBack) {
+    InitialDirContext initialDirContext = null;
+    try {
+      initialDirContext = connectionPool.borrowContext();
+    } catch (Exception e) {
+      LOGGER.info("Could not get pooled LDAP connection : " + e.getMessage(), e);
+      return ldapCallBack.executeInContext(null);
+    }
+    
+    // A connection on which the callback failed isn't trusted anymore and won't be reused
+    boolean valid = false;
+    try {
+      T result = ldapCallBack.executeInContext(initialDirContext);
+      valid = true;
+      return result;
+    } finally {
+      connectionPool.returnContext(initialDirContext, valid);
+    }
+  }
 
   
   public LDAPConfigurator getLdapConfigurator() {
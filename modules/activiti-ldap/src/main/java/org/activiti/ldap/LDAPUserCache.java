@@ -0,0 +1,30 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.ldap;
+
+import org.activiti.engine.impl.persistence.entity.UserEntity;
+import org.activiti.engine.runtime.ClockReader;
+
+
+/**
+ * Cache for users fetched by id, which avoids a round trip to the LDAP system every time
+ * the engine needs the details of a user. Configured through the {@link LDAPConfigurator},
+ * see {@link LDAPConfigurator#setUserCacheSize(int)}.
+ */
+public class LDAPUserCache extends LDAPCache<UserEntity> {
+
+  public LDAPUserCache(int cacheSize, long expirationTime, ClockReader clockReader) {
+    super(cacheSize, expirationTime, clockReader);
+  }
+
+}
@@ -51,11 +51,17 @@ public class LDAPUserManager extends AbstractManager implements UserIdentityMana
   private static Logger logger = LoggerFactory.getLogger(LDAPUserManager.class);
 
   protected LDAPConfigurator ldapConfigurator;
+  protected LDAPUserCache ldapUserCache;
 
   public LDAPUserManager(LDAPConfigurator ldapConfigurator) {
     this.ldapConfigurator = ldapConfigurator;
   }
   
+  public LDAPUserManager(LDAPConfigurator ldapConfigurator, LDAPUserCache ldapUserCache) {
+    this.ldapConfigurator = ldapConfigurator;
+    this.ldapUserCache = ldapUserCache;
+  }
+  
   @Override
   public User createNewUser(String userId) {
     throw new ActivitiException("LDAP user manager doesn't support creating a new user");
@@ -81,6 +87,15 @@ public class LDAPUserManager extends AbstractManager implements UserIdentityMana
 
   @Override
   public UserEntity findUserById(final String userId) {
+    
+    // First try the cache (if one is defined)
+    if (ldapUserCache != null) {
+      UserEntity user = ldapUserCache.get(userId);
+      if (user != null) {
+        return user;
+      }
+    }
+    
     LDAPTemplate ldapTemplate = new LDAPTemplate(ldapConfigurator);
     return ldapTemplate.execute(new LDAPCallBack<UserEntity>() {
 
@@ -98,6 +113,11 @@ public class LDAPUserManager extends AbstractManager implements UserIdentityMana
           }
           namingEnum.close();
           
+          // Cache results for later
+          if (ldapUserCache != null && user.getId() != null) {
+            ldapUserCache.add(userId, user);
+          }
+          
           return user;
 
         } catch (NamingException ne) {
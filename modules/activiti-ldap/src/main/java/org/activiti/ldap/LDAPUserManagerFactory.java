@@ -15,7 +15,10 @@ package org.activiti.ldap;
 import org.activiti.engine.ProcessEngineConfiguration;
 import org.activiti.engine.impl.interceptor.Session;
 import org.activiti.engine.impl.interceptor.SessionFactory;
+import org.activiti.engine.impl.persistence.entity.UserEntity;
 import org.activiti.engine.impl.persistence.entity.UserIdentityManager;
+import org.activiti.engine.runtime.ClockReader;
+import org.activiti.ldap.LDAPCache.LDAPCacheLoader;
 
 /**
  * {@link SessionFactory} responsible for creating the {@link LDAPUserManager}.
@@ -27,10 +30,27 @@ public class LDAPUserManagerFactory implements SessionFactory {
 
 	protected LDAPConfigurator ldapConfigurator;
 	
+	protected LDAPUserCache ldapUserCache;
+	
 	public LDAPUserManagerFactory(LDAPConfigurator ldapConfigurator) {
     this.ldapConfigurator = ldapConfigurator;
   }
 	
+	public LDAPUserManagerFactory(final LDAPConfigurator ldapConfigurator, ClockReader clockReader) {
+    this.ldapConfigurator = ldapConfigurator;
+    
+    if (ldapConfigurator.getUserCacheSize() > 0) {
+      ldapUserCache = new LDAPUserCache(ldapConfigurator.getUserCacheSize(), ldapConfigurator.getUserCacheExpirationTime(), clockReader);
+      ldapUserCache.setRefreshTime(ldapConfigurator.getUserCacheRefreshTime());
+      ldapUserCache.setCacheLoader(new LDAPCacheLoader<UserEntity>() {
+        public UserEntity load(String userId) {
+          UserEntity user = new LDAPUserManager(ldapConfigurator).findUserById(userId);
+          return user != null && user.getId() != null ? user : null;
+        }
+      });
+    }
+  }
+	
 	@Override
   public Class<?> getSessionType() {
 	  return UserIdentityManager.class;
@@ -38,7 +58,11 @@ public class LDAPUserManagerFactory implements SessionFactory {
 
 	@Override
   public Session openSession() {
-	  return new LDAPUserManager(ldapConfigurator);
+	  if (ldapUserCache == null) {
+	    return new LDAPUserManager(ldapConfigurator);
+	  } else {
+	    return new LDAPUserManager(ldapConfigurator, ldapUserCache);
+	  }
   }
 
   public LDAPConfigurator getLdapConfigurator() {
@@ -48,5 +72,13 @@ public class LDAPUserManagerFactory implements SessionFactory {
   public void setLdapConfigurator(LDAPConfigurator ldapConfigurator) {
     this.ldapConfigurator = ldapConfigurator;
   }
+  
+  public LDAPUserCache getLdapUserCache() {
+    return ldapUserCache;
+  }
+  
+  public void setLdapUserCache(LDAPUserCache ldapUserCache) {
+    this.ldapUserCache = ldapUserCache;
+  }
 
 }
@@ -0,0 +1,149 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.test.ldap;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.activiti.engine.impl.persistence.entity.UserEntity;
+import org.activiti.engine.impl.util.DefaultClockImpl;
+import org.activiti.ldap.LDAPCache.LDAPCacheLoader;
+import org.activiti.ldap.LDAPUserCache;
+
+public class LdapCacheTest extends TestCase {
+
+  protected DefaultClockImpl clock;
+  protected LDAPUserCache cache;
+
+  @Override
+  protected void setUp() throws Exception {
+    clock = new DefaultClockImpl();
+    clock.setCurrentTime(new Date());
+    cache = new LDAPUserCache(2, 60000L, clock);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    cache.shutdown();
+    clock.reset();
+  }
+
+  public void testStatistics() {
+    assertNull(cache.get("kermit"));
+    cache.add("kermit", createUser("kermit"));
+    assertEquals("kermit", cache.get("kermit").getId());
+    assertEquals("kermit", cache.get("kermit").getId());
+
+    // LRU: pepe is evicted when fozzie is added
+    cache.add("pepe", createUser("pepe"));
+    cache.get("kermit");
+    cache.add("fozzie", createUser("fozzie"));
+    assertNull(cache.get("pepe"));
+    assertEquals(2, cache.size());
+
+    // Expiration
+    clock.setCurrentTime(new Date(clock.getCurrentTime().getTime() + 60000L));
+    assertNull(cache.get("fozzie"));
+
+    assertEquals(3, cache.getHitCount());
+    assertEquals(3, cache.getMissCount());
+    assertEquals(1, cache.getEvictionCount());
+    assertEquals(1, cache.getExpirationCount());
+    assertEquals(0.5, cache.getHitRate(), 0.0001);
+
+    cache.resetStatistics();
+    assertEquals(0, cache.getHitCount());
+    assertEquals(0.0, cache.getHitRate(), 0.0001);
+  }
+
+  public void testBackgroundRefresh() throws Exception {
+    final CountDownLatch loaded = new CountDownLatch(1);
+    cache.setRefreshTime(30000L);
+    cache.setCacheLoader(new LDAPCacheLoader<UserEntity>() {
+      public UserEntity load(String userId) {
+        UserEntity user = createUser(userId);
+        user.setFirstName("refreshed");
+        loaded.countDown();
+        return user;
+      }
+    });
+
+    cache.add("kermit", createUser("kermit"));
+    assertNull(cache.get("kermit").getFirstName());
+
+    // Older than the refresh time: the cached user is returned and reloaded in the background
+    clock.setCurrentTime(new Date(clock.getCurrentTime().getTime() + 45000L));
+    assertNull(cache.get("kermit").getFirstName());
+    assertTrue(loaded.await(10, TimeUnit.SECONDS));
+    waitForRefresh(1);
+
+    assertEquals("refreshed", cache.get("kermit").getFirstName());
+    assertEquals(1, cache.getRefreshCount());
+
+    // The refreshed entry doesn't expire at the original expiration time
+    clock.setCurrentTime(new Date(clock.getCurrentTime().getTime() + 20000L));
+    assertNotNull(cache.get("kermit"));
+  }
+
+  public void testConcurrentAccess() throws Exception {
+    final LDAPUserCache largeCache = new LDAPUserCache(50, 60000L, clock);
+    final AtomicInteger failures = new AtomicInteger();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < 8; i++) {
+      final int threadNumber = i;
+      Thread thread = new Thread() {
+        public void run() {
+          try {
+            for (int j = 0; j < 2000; j++) {
+              String userId = "user" + ((threadNumber * 7 + j) % 100);
+              if (largeCache.get(userId) == null) {
+                largeCache.add(userId, createUser(userId));
+              }
+            }
+          } catch (RuntimeException e) {
+            failures.incrementAndGet();
+          }
+        }
+      };
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(0, failures.get());
+    assertEquals(50, largeCache.size());
+    assertEquals(8 * 2000, largeCache.getHitCount() + largeCache.getMissCount());
+  }
+
+  protected void waitForRefresh(long expectedRefreshCount) throws InterruptedException {
+    long end = System.currentTimeMillis() + 10000L;
+    while (cache.getRefreshCount() < expectedRefreshCount && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+  }
+
+  protected UserEntity createUser(String userId) {
+    UserEntity user = new UserEntity();
+    user.setId(userId);
+    return user;
+  }
+
+}
@@ -1,5 +1,7 @@
 package org.activiti.validation;
 
+import java.util.concurrent.ExecutorService;
+
 import org.activiti.validation.validator.ValidatorSetFactory;
 
 /**
@@ -12,5 +14,14 @@ public class ProcessValidatorFactory {
 		processValidator.addValidatorSet(new ValidatorSetFactory().createActivitiExecutableProcessValidatorSet());
 		return processValidator;
 	}
+	
+	/**
+	 * Creates the default validator, running the validators in parallel on the given executor.
+	 */
+	public ProcessValidator createDefaultProcessValidator(ExecutorService executorService) {
+		ProcessValidatorImpl processValidator = (ProcessValidatorImpl) createDefaultProcessValidator();
+		processValidator.setExecutorService(executorService);
+		return processValidator;
+	}
 
 }
@@ -1,9 +1,16 @@
 package org.activiti.validation;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.Process;
+import org.activiti.validation.validator.ProcessLevelValidator;
 import org.activiti.validation.validator.Validator;
 import org.activiti.validation.validator.ValidatorSet;
 
@@ -14,25 +21,93 @@ public class ProcessValidatorImpl implements ProcessValidator {
 	
 	protected List<ValidatorSet> validatorSets;
 	
+	protected ExecutorService executorService;
+	
 	@Override
 	public List<ValidationError> validate(BpmnModel bpmnModel) {
+		return validate(bpmnModel, null, null);
+	}
+	
+	/**
+	 * Validates the model, reusing the results in the given cache for processes that did not change.
+	 * 
+	 * Process level validators are only run again for processes that contain (or contained) one of the changed 
+	 * elements, or that are not in the cache yet. When a changed id can't be traced back to a process 
+	 * (eg. a message or signal definition), all processes are revalidated. Model level validators always run.
+	 * 
+	 * @param cache results of previous validations of this model, updated with the new results. Can be null.
+	 * @param changedElementIds ids of the elements added, changed or removed since the previous validation.
+	 *        Null means everything is revalidated.
+	 */
+	public List<ValidationError> validate(BpmnModel bpmnModel, ValidationResultCache cache, Collection<String> changedElementIds) {
+		if (cache != null) {
+			cache.invalidate(bpmnModel, changedElementIds);
+		}
 		
-		List<ValidationError> allErrors = new ArrayList<ValidationError>();
-		
+		List<ValidationTask> tasks = new ArrayList<ValidationTask>();
 		for (ValidatorSet validatorSet : validatorSets) {
 			for (Validator validator : validatorSet.getValidators()) {
-			  List<ValidationError> validatorErrors = new ArrayList<ValidationError>();
-				validator.validate(bpmnModel, validatorErrors);
-				if (validatorErrors.size() > 0) {
-					for (ValidationError error : validatorErrors) {
-						error.setValidatorSetName(validatorSet.getName());
+				if (validator instanceof ProcessLevelValidator) {
+					for (Process process : bpmnModel.getProcesses()) {
+						ValidationTask task = new ValidationTask(bpmnModel, validatorSet, validator, process);
+						if (cache != null) {
+							task.errors = cache.getErrors(process.getId(), validator);
+						}
+						tasks.add(task);
 					}
-					allErrors.addAll(validatorErrors);
+				} else {
+					tasks.add(new ValidationTask(bpmnModel, validatorSet, validator, null));
 				}
 			}
 		}
+		
+		executeTasks(tasks);
+		
+		List<ValidationError> allErrors = new ArrayList<ValidationError>();
+		for (ValidationTask task : tasks) {
+			if (cache != null && task.process != null) {
+				cache.putErrors(task.process.getId(), task.validator, task.errors);
+			}
+			allErrors.addAll(task.errors);
+		}
+		
+		if (cache != null) {
+			cache.indexElements(bpmnModel);
+		}
 		return allErrors;
 	}
+	
+	protected void executeTasks(List<ValidationTask> tasks) {
+		List<ValidationTask> pendingTasks = new ArrayList<ValidationTask>();
+		for (ValidationTask task : tasks) {
+			if (task.errors == null) {
+				pendingTasks.add(task);
+			}
+		}
+		
+		if (executorService == null || pendingTasks.size() < 2) {
+			for (ValidationTask task : pendingTasks) {
+				task.call();
+			}
+			return;
+		}
+		
+		try {
+			for (Future<List<ValidationError>> future : executorService.invokeAll(pendingTasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while validating process model", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new RuntimeException("Could not validate process model", e.getCause());
+		}
+	}
 
 	public List<ValidatorSet> getValidatorSets() {
 		return validatorSets;
@@ -49,4 +124,49 @@ public class ProcessValidatorImpl implements ProcessValidator {
 		validatorSets.add(validatorSet);
 	}
 	
+	public ExecutorService getExecutorService() {
+		return executorService;
+	}
+	
+	/**
+	 * When set, validators are run in parallel on this executor, one task per validator and process.
+	 * The validators must not modify the model. The order of the returned errors is the same as with sequential validation.
+	 */
+	public void setExecutorService(ExecutorService executorService) {
+		this.executorService = executorService;
+	}
+	
+	/**
+	 * Runs one validator, on one process for process level validators or on the whole model otherwise.
+	 */
+	protected static class ValidationTask implements Callable<List<ValidationError>> {
+		
+		protected BpmnModel bpmnModel;
+		protected ValidatorSet validatorSet;
+		protected Validator validator;
+		protected Process process;
+		protected List<ValidationError> errors;
+		
+		public ValidationTask(BpmnModel bpmnModel, ValidatorSet validatorSet, Validator validator, Process process) {
+			this.bpmnModel = bpmnModel;
+			this.validatorSet = validatorSet;
+			this.validator = validator;
+			this.process = process;
+		}
+		
+		public List<ValidationError> call() {
+			List<ValidationError> validatorErrors = new ArrayList<ValidationError>();
+			if (process != null) {
+				((ProcessLevelValidator) validator).validate(bpmnModel, process, validatorErrors);
+			} else {
+				validator.validate(bpmnModel, validatorErrors);
+			}
+			for (ValidationError error : validatorErrors) {
+				error.setValidatorSetName(validatorSet.getName());
+			}
+			errors = validatorErrors;
+			return validatorErrors;
+		}
+	}
+	
 }
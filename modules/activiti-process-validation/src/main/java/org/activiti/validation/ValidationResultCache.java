@@ -0,0 +1,112 @@
+package org.activiti.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.activiti.bpmn.model.Artifact;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.Process;
+import org.activiti.validation.validator.Validator;
+
+/**
+ * Keeps the results of the process level validators of one model, so {@link ProcessValidatorImpl} only has 
+ * to revalidate the processes touched by an edit. Results are kept per process, as validators check 
+ * elements against the other elements of their process.
+ * 
+ * Not thread safe: use one instance per model being edited.
+ */
+public class ValidationResultCache {
+	
+	protected Map<String, Map<Validator, List<ValidationError>>> processErrors = new HashMap<String, Map<Validator, List<ValidationError>>>();
+	
+	/** process id for every element id of the last validated model */
+	protected Map<String, String> elementProcessIds = new HashMap<String, String>();
+	
+	public List<ValidationError> getErrors(String processId, Validator validator) {
+		Map<Validator, List<ValidationError>> validatorErrors = processErrors.get(processId);
+		if (validatorErrors == null) {
+			return null;
+		}
+		List<ValidationError> errors = validatorErrors.get(validator);
+		return errors != null ? new ArrayList<ValidationError>(errors) : null;
+	}
+	
+	public void putErrors(String processId, Validator validator, List<ValidationError> errors) {
+		Map<Validator, List<ValidationError>> validatorErrors = processErrors.get(processId);
+		if (validatorErrors == null) {
+			validatorErrors = new HashMap<Validator, List<ValidationError>>();
+			processErrors.put(processId, validatorErrors);
+		}
+		validatorErrors.put(validator, new ArrayList<ValidationError>(errors));
+	}
+	
+	/**
+	 * Drops the results of the processes affected by the changed elements, and of processes no longer in the model.
+	 */
+	public void invalidate(BpmnModel bpmnModel, Collection<String> changedElementIds) {
+		if (changedElementIds == null) {
+			clear();
+			return;
+		}
+		
+		Set<String> currentProcessIds = new HashSet<String>();
+		for (Process process : bpmnModel.getProcesses()) {
+			currentProcessIds.add(process.getId());
+		}
+		processErrors.keySet().retainAll(currentProcessIds);
+		
+		for (String elementId : changedElementIds) {
+			Set<String> affectedProcessIds = findProcessIds(bpmnModel, elementId);
+			if (affectedProcessIds.isEmpty()) {
+				// not part of a process, so it can be referenced from any of them
+				processErrors.clear();
+				return;
+			}
+			processErrors.keySet().removeAll(affectedProcessIds);
+		}
+	}
+	
+	public void clear() {
+		processErrors.clear();
+		elementProcessIds.clear();
+	}
+	
+	public int size() {
+		return processErrors.size();
+	}
+	
+	protected Set<String> findProcessIds(BpmnModel bpmnModel, String elementId) {
+		Set<String> processIds = new HashSet<String>();
+		for (Process process : bpmnModel.getProcesses()) {
+			if (elementId.equals(process.getId()) 
+					|| process.getFlowElementRecursive(elementId) != null 
+					|| process.getArtifact(elementId) != null) {
+				processIds.add(process.getId());
+			}
+		}
+		// an element that was removed or moved to another process
+		if (elementProcessIds.containsKey(elementId)) {
+			processIds.add(elementProcessIds.get(elementId));
+		}
+		return processIds;
+	}
+	
+	protected void indexElements(BpmnModel bpmnModel) {
+		elementProcessIds.clear();
+		for (Process process : bpmnModel.getProcesses()) {
+			for (FlowElement flowElement : process.findFlowElementsOfType(FlowElement.class, true)) {
+				elementProcessIds.put(flowElement.getId(), process.getId());
+			}
+			for (Artifact artifact : process.getArtifacts()) {
+				elementProcessIds.put(artifact.getId(), process.getId());
+			}
+		}
+	}
+
+}
@@ -18,6 +18,13 @@ public abstract class ProcessLevelValidator extends ValidatorImpl {
 		}
 	}
 	
+	/**
+	 * Validates only the given process of the model.
+	 */
+	public void validate(BpmnModel bpmnModel, Process process, List<ValidationError> errors) {
+		executeValidation(bpmnModel, process, errors);
+	}
+	
 	protected abstract void executeValidation(BpmnModel bpmnModel, Process process, List<ValidationError> errors);
 	
 }
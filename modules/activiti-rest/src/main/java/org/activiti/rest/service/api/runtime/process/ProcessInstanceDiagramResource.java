@@ -14,12 +14,10 @@
 package org.activiti.rest.service.api.runtime.process;
 
 import java.io.InputStream;
+import java.util.Collections;
 
-import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.engine.ActivitiIllegalArgumentException;
-import org.activiti.engine.impl.ProcessEngineImpl;
 import org.activiti.engine.impl.RepositoryServiceImpl;
-import org.activiti.engine.impl.bpmn.diagram.ProcessDiagramGenerator;
 import org.activiti.engine.impl.persistence.entity.ProcessDefinitionEntity;
 import org.activiti.engine.runtime.ProcessInstance;
 import org.activiti.rest.common.api.ActivitiUtil;
@@ -40,9 +38,8 @@ public class ProcessInstanceDiagramResource extends BaseProcessInstanceResource
             ActivitiUtil.getRepositoryService()).getDeployedProcessDefinition(processInstance.getProcessDefinitionId());
 
     if (pde != null && pde.isGraphicalNotationDefined()) {
-      BpmnModel bpmnModel = ActivitiUtil.getRepositoryService().getBpmnModel(pde.getId());
-      ProcessDiagramGenerator diagramGenerator = ((ProcessEngineImpl) ActivitiUtil.getProcessEngine()).getProcessEngineConfiguration().getProcessDiagramGenerator();
-      InputStream resource = diagramGenerator.generateDiagram(bpmnModel, "png", ActivitiUtil.getRuntimeService().getActiveActivityIds(processInstance.getId()));
+      InputStream resource = ActivitiUtil.getRepositoryService().getProcessDiagram(pde.getId(),
+              ActivitiUtil.getRuntimeService().getActiveActivityIds(processInstance.getId()), Collections.<String>emptyList());
 
       InputRepresentation output = new InputRepresentation(resource, MediaType.IMAGE_PNG);
       return output;